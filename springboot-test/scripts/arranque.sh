@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Mide el arranque con y sin calentamiento del JIT(ver CalentamientoRunner): el tiempo hasta que
+# "/actuator/health/readiness" está UP y la latencia de las primeras peticiones a "listar" y "detalle".
+#
+#   ./mvnw -q package -DskipTests
+#   scripts/arranque.sh            # 2000 peticiones de cada tipo
+#   PETICIONES=5000 scripts/arranque.sh
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=$(ls target/springboot-test-*.jar | head -n 1)
+PUERTO=${PUERTO:-8090}
+PETICIONES=${PETICIONES:-2000}
+BASE="http://localhost:$PUERTO"
+
+# Percentiles 50, 99 y máximo(en ms) de una lista de tiempos en segundos
+percentiles() {
+  sort -n | awk '{ t[NR] = $1 * 1000 } END {
+    printf "p50=%.2f ms p99=%.2f ms max=%.2f ms\n", t[int(NR * 0.5)], t[int(NR * 0.99)], t[NR] }'
+}
+
+medir() {
+  local calentamiento=$1
+  local inicio=$(date +%s%N)
+  java -Dfile.encoding=UTF-8 -jar "$JAR" --server.port="$PUERTO" \
+    --calentamiento.habilitado="$calentamiento" > "target/arranque-$calentamiento.log" 2>&1 &
+  local pid=$!
+  until curl -sf "$BASE/actuator/health/readiness" > /dev/null; do sleep 0.1; done
+  echo "calentamiento=$calentamiento: preparada en $((($(date +%s%N) - inicio) / 1000000)) ms"
+  # Una sola conexión para todas las peticiones, así se mide la aplicación y no el arranque de curl. Cada URL
+  # necesita su propio "-o", que si no curl escribe las respuestas de la segunda en adelante junto a los tiempos
+  echo -n "  listar:  "
+  curl -s -w "%{time_total}\n" $(for ((i = 0; i < PETICIONES; i++)); do echo "-o /dev/null $BASE/api/cuentas"; done) \
+    | percentiles
+  echo -n "  detalle: "
+  curl -s -w "%{time_total}\n" $(for ((i = 0; i < PETICIONES; i++)); do echo "-o /dev/null $BASE/api/cuentas/1"; done) \
+    | percentiles
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+}
+
+medir false
+medir true
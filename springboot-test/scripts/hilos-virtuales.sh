@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# Compara el rendimiento con hilos de plataforma(pool de Tomcat) y con hilos virtuales con muchos clientes a la vez:
+# peticiones por segundo y percentil 99 de la latencia, medidos con "hey"(https://github.com/rakyll/hey).
+# Necesita un JDK 21 o posterior y un límite de ficheros abiertos alto(ulimit -n 65536).
+#
+#   ./mvnw -q package -DskipTests
+#   scripts/hilos-virtuales.sh            # 10.000 clientes durante 30 s en cada modo
+#   CLIENTES=2000 POOL=20 scripts/hilos-virtuales.sh
+#
+# En los dos modos el pool de conexiones tiene el mismo tamaño; con hilos de plataforma además limita
+# "server.tomcat.threads.max"(200 por defecto) y con hilos virtuales sólo el pool. Las trazas están desactivadas por
+# defecto, ya que no son compatibles con los hilos virtuales.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=$(ls target/springboot-test-*.jar | head -n 1)
+PUERTO=${PUERTO:-8080}
+BASE="http://localhost:$PUERTO"
+CLIENTES=${CLIENTES:-10000}
+DURACION=${DURACION:-30s}
+POOL=${POOL:-50}
+HILOS_TOMCAT=${HILOS_TOMCAT:-200}
+
+medir() {
+  local modo=$1 virtuales=$2
+  java -Dfile.encoding=UTF-8 -jar "$JAR" --server.port="$PUERTO" \
+    --hilos-virtuales.habilitados="$virtuales" \
+    --spring.datasource.hikari.maximum-pool-size="$POOL" \
+    --spring.datasource.hikari.connection-timeout=60000 \
+    --server.tomcat.threads.max="$HILOS_TOMCAT" \
+    --server.tomcat.max-connections=$((CLIENTES * 2)) --server.tomcat.accept-count="$CLIENTES" \
+    --logging.level.org.hibernate.SQL=info \
+    > "target/hilos-$modo.log" 2>&1 &
+  local pid=$!
+  until curl -sf "$BASE/actuator/health/readiness" > /dev/null; do sleep 0.2; done
+  # Calentamiento corto para no medir el código interpretado
+  hey -z 5s -c 50 "$BASE/api/cuentas/1" > /dev/null
+  hey -z "$DURACION" -c "$CLIENTES" "$BASE/api/cuentas/1" > "target/hilos-$modo-detalle.txt"
+  hey -z "$DURACION" -c "$CLIENTES" -m POST -T application/json \
+    -d '{"cuentaOrigenId":1,"cuentaDestinoId":2,"monto":0.01,"bancoId":1}' \
+    "$BASE/api/cuentas/transferir" > "target/hilos-$modo-transferir.txt"
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+  for prueba in detalle transferir; do
+    local fichero="target/hilos-$modo-$prueba.txt"
+    printf "%-11s %-11s %10s pet/s   p99 %s s   errores %s\n" "$modo" "$prueba" \
+      "$(awk '/Requests\/sec/ { printf "%.0f", $2 }' "$fichero")" \
+      "$(awk '/99% in/ { print $3 }' "$fichero")" \
+      "$(awk '/Error distribution/ { e = 1; next } e && /\[/ { gsub(/[\[\]]/, "", $1); n += $1 } END { print n + 0 }' "$fichero")"
+  done
+}
+
+echo "$CLIENTES clientes, $DURACION por prueba, pool de $POOL conexiones"
+medir plataforma false
+medir virtuales true
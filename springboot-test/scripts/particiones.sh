@@ -0,0 +1,79 @@
+#!/usr/bin/env bash
+# Arranca N instancias de la aplicación en modo particionado en esta máquina(puertos 8081..808N, cada una con su base
+# de datos H2 en memoria) y mide las transferencias por segundo con "hey"(https://github.com/rakyll/hey).
+#
+#   ./mvnw -q package -DskipTests
+#   scripts/particiones.sh arrancar 4     # arranca 4 particiones
+#   scripts/particiones.sh medir 4        # transferencias locales en las 4 particiones a la vez
+#   scripts/particiones.sh parar
+#
+# Para comprobar que el rendimiento escala, se repite "arrancar N" + "medir N" con N = 1, 2, 4... y se compara el
+# total de peticiones por segundo. Cada partición recibe la misma carga, así que el total debería crecer casi de forma
+# lineal mientras haya núcleos libres. Las transferencias entre particiones(dos fases) se miden con "medir N cruzadas".
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=$(ls target/springboot-test-*.jar | head -n 1)
+PUERTO_BASE=8080
+CUENTAS=${CUENTAS:-1000}
+PETICIONES=${PETICIONES:-20000}
+CONCURRENCIA=${CONCURRENCIA:-32}
+PIDS=target/particiones.pids
+
+nodos() {
+  local n=$1 lista=""
+  for ((i = 1; i <= n; i++)); do lista+="${lista:+,}http://localhost:$((PUERTO_BASE + i))"; done
+  echo "$lista"
+}
+
+arrancar() {
+  local n=$1
+  : > "$PIDS"
+  for ((i = 0; i < n; i++)); do
+    local puerto=$((PUERTO_BASE + i + 1))
+    java -Dfile.encoding=UTF-8 -jar "$JAR" \
+      --server.port="$puerto" \
+      --spring.datasource.url="jdbc:h2:mem:particion$i" \
+      --particiones.total="$n" --particiones.indice="$i" --particiones.nodos="$(nodos "$n")" \
+      --particiones.cuentas-por-particion="$CUENTAS" \
+      > "target/particion$i.log" 2>&1 &
+    echo $! >> "$PIDS"
+  done
+  for ((i = 0; i < n; i++)); do
+    until curl -sf "http://localhost:$((PUERTO_BASE + i + 1))/actuator/health" > /dev/null; do sleep 1; done
+  done
+  echo "$n particiones arrancadas: $(nodos "$n")"
+}
+
+parar() {
+  [ -f "$PIDS" ] && xargs -r kill < "$PIDS" || true
+  rm -f "$PIDS"
+}
+
+# Dos cuentas de la partición "i"(las de carga empiezan en el id 1.000.000)
+cuentas() {
+  curl -sf "http://localhost:$((PUERTO_BASE + $1 + 1))/api/cuentas" \
+    | grep -o '"id":[0-9]*' | cut -d: -f2 | awk '$1 >= 1000000' | head -n 2
+}
+
+medir() {
+  local n=$1 modo=${2:-locales}
+  local salidas=()
+  for ((i = 0; i < n; i++)); do
+    local propias=($(cuentas "$i")) destino
+    if [ "$modo" = cruzadas ]; then destino=$(cuentas $(((i + 1) % n)) | head -n 1); else destino=${propias[1]}; fi
+    local cuerpo="{\"cuentaOrigenId\":${propias[0]},\"cuentaDestinoId\":$destino,\"monto\":0.01,\"bancoId\":1}"
+    hey -n "$PETICIONES" -c "$CONCURRENCIA" -m POST -T application/json -d "$cuerpo" \
+      "http://localhost:$((PUERTO_BASE + i + 1))/api/cuentas/transferir" > "target/medida$i.txt" &
+    salidas+=("target/medida$i.txt")
+  done
+  wait
+  grep -h "Requests/sec" "${salidas[@]}" | awk -v n="$n" '{ total += $2 } END { printf "%d particiones: %.0f transferencias/s\n", n, total }'
+}
+
+case "${1:-}" in
+  arrancar) arrancar "${2:?número de particiones}" ;;
+  medir) medir "${2:?número de particiones}" "${3:-locales}" ;;
+  parar) parar ;;
+  *) echo "Uso: $0 arrancar N | medir N [locales|cruzadas] | parar" >&2; exit 1 ;;
+esac
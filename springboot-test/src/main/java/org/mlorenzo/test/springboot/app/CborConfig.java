@@ -0,0 +1,48 @@
+package org.mlorenzo.test.springboot.app;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+// Negociación de contenido con CBOR(application/cbor): con "Content-Type: application/cbor" el cuerpo de la petición
+// se lee en CBOR y con "Accept: application/cbor" la respuesta se escribe en CBOR, en todos los endpoints que usan
+// @RequestBody o devuelven objetos(transferir, listar, detalle...). El conversor se añade al final de la lista para que
+// JSON siga siendo el formato por defecto de los clientes que aceptan cualquier tipo.
+@Configuration
+public class CborConfig implements WebMvcConfigurer {
+    public static final String CBOR_MAPPER = "cborObjectMapper";
+
+    private final Jackson2ObjectMapperBuilder builder;
+
+    public CborConfig(Jackson2ObjectMapperBuilder builder) {
+        this.builder = builder;
+    }
+
+    // Spring Boot sólo crea su ObjectMapper de JSON si no hay ningún otro ObjectMapper en el contexto, así que al
+    // declarar el de CBOR se declara también el de JSON igual que lo hace JacksonAutoConfiguration
+    @Bean
+    @Primary
+    public ObjectMapper objectMapper(Jackson2ObjectMapperBuilder jsonBuilder) {
+        return jsonBuilder.createXmlMapper(false).build();
+    }
+
+    // El único ObjectMapper de CBOR de la aplicación: lo usan el conversor de mensajes y CuentaConsultaController.
+    // Mismos módulos y opciones que el ObjectMapper de JSON.
+    @Bean(CBOR_MAPPER)
+    public ObjectMapper cborObjectMapper() {
+        return builder.createXmlMapper(false).factory(new CBORFactory()).build();
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MappingJackson2CborHttpMessageConverter(cborObjectMapper()));
+    }
+}
@@ -0,0 +1,53 @@
+package org.mlorenzo.test.springboot.app;
+
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Modo de hilos virtuales(Java 21 o posterior): Tomcat atiende cada petición en un hilo virtual nuevo en lugar de en
+// su pool de hilos de plataforma, y las llamadas @Transactional de los servicios, que se ejecutan en el hilo de la
+// petición, también. Un hilo virtual bloqueado en JDBC no ocupa un hilo del sistema, así que el número de peticiones
+// en curso deja de estar limitado por "server.tomcat.threads.max" y el único límite es el pool de conexiones
+// (spring.datasource.hikari.maximum-pool-size): las peticiones que no tienen conexión esperan en Hikari.
+// El proyecto compila con Java 11, por eso el executor se obtiene por reflexión.
+// No es compatible con las trazas(ver Trazas): cada petición sería un hilo nuevo con su propio buffer de spans de
+// unos 200 KB, así que la aplicación no arranca si los dos modos están habilitados.
+@Configuration
+@ConditionalOnProperty(name = "hilos-virtuales.habilitados", havingValue = "true")
+public class HilosVirtualesConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService executorHilosVirtuales(@Value("${trazas.habilitadas:false}") boolean trazasHabilitadas) {
+        if (trazasHabilitadas)
+            throw new IllegalStateException("hilos-virtuales.habilitados=true no es compatible con " +
+                    "trazas.habilitadas=true: los buffers de spans son por hilo");
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (NoSuchMethodException e) {
+            throw new IllegalStateException("hilos-virtuales.habilitados=true necesita Java 21 o posterior " +
+                    "(versión actual: " + Runtime.version() + ")");
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No se ha podido crear el executor de hilos virtuales", e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> tomcatHilosVirtuales(
+            ExecutorService executorHilosVirtuales) {
+        return protocolHandler -> {
+            protocolHandler.setExecutor(executorHilosVirtuales);
+            // Sin límite de conexiones abiertas: con hilos virtuales una conexión esperando no cuesta un hilo
+            if (protocolHandler instanceof AbstractProtocol)
+                ((AbstractProtocol<?>) protocolHandler).setMaxConnections(-1);
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package org.mlorenzo.test.springboot.app;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.mlorenzo.test.springboot.app.filters.MetricasPeticionFilter;
+import org.mlorenzo.test.springboot.app.monitoring.InspectorSentenciasSql;
+import org.mlorenzo.test.springboot.app.monitoring.MetricasPoolConexiones;
+import org.mlorenzo.test.springboot.app.monitoring.MonitorSql;
+import org.mlorenzo.test.springboot.app.monitoring.TiempoSentenciasListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MonitorizacionConfig {
+
+    @Bean
+    public MonitorSql monitorSql(@Value("${sql.lentas.capacidad:100}") int capacidad,
+                                 @Value("${sql.lentas.umbral-ms:100}") long umbralMs,
+                                 @Value("${sql.n-mas-uno.repeticiones:5}") int repeticiones) {
+        MonitorSql monitorSql = MonitorSql.instancia();
+        monitorSql.configurar(capacidad, umbralMs, repeticiones);
+        return monitorSql;
+    }
+
+    // Registramos el inspector y el listener de sentencias desde aquí para que estén activos también en el contexto de
+    // pruebas, que tiene su propio "application.properties"
+    @Bean
+    public HibernatePropertiesCustomizer monitorSqlCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new InspectorSentenciasSql());
+            properties.put("hibernate.session.events.auto", TiempoSentenciasListener.class.getName());
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<MetricasPeticionFilter> metricasPeticionFilter(MeterRegistry registry,
+            MonitorSql monitorSql, @Value("${metricas.peticion.muestreo:10}") int muestreo) {
+        FilterRegistrationBean<MetricasPeticionFilter> registro =
+                new FilterRegistrationBean<>(new MetricasPeticionFilter(registry, monitorSql, muestreo));
+        registro.addUrlPatterns("/api/cuentas", "/api/cuentas/*");
+        return registro;
+    }
+
+    @Bean
+    public static MetricasPoolConexiones metricasPoolConexiones(ObjectProvider<MeterRegistry> registry) {
+        return new MetricasPoolConexiones(registry);
+    }
+
+    // Se asigna antes de que Spring Boot registre sus métricas de Hikari, que no lo hace si el pool ya tiene un
+    // MetricsTrackerFactory; MetricasPoolConexiones publica también esas métricas
+    @Bean
+    public static BeanPostProcessor metricasPoolPostProcessor(ObjectProvider<MetricasPoolConexiones> metricas) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    HikariDataSource hikari = (HikariDataSource) bean;
+                    if (hikari.getMetricRegistry() == null && hikari.getMetricsTrackerFactory() == null)
+                        hikari.setMetricsTrackerFactory(metricas.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
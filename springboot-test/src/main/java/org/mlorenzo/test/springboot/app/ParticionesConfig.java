@@ -0,0 +1,27 @@
+package org.mlorenzo.test.springboot.app;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.mlorenzo.test.springboot.app.filters.EnrutadorParticionesFilter;
+import org.mlorenzo.test.springboot.app.partitioning.ClienteParticiones;
+import org.mlorenzo.test.springboot.app.partitioning.Particiones;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnExpression(Particiones.HABILITADO)
+public class ParticionesConfig {
+
+    // Antes que el resto de filtros: una petición reenviada se mide y se traza en la partición que la atiende
+    @Bean
+    public FilterRegistrationBean<EnrutadorParticionesFilter> enrutadorParticionesFilter(Particiones particiones,
+            ClienteParticiones cliente, MeterRegistry registry) {
+        FilterRegistrationBean<EnrutadorParticionesFilter> registro =
+                new FilterRegistrationBean<>(new EnrutadorParticionesFilter(particiones, cliente, registry));
+        registro.addUrlPatterns("/api/cuentas/*");
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registro;
+    }
+}
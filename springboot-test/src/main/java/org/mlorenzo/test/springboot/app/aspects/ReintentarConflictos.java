@@ -0,0 +1,13 @@
+package org.mlorenzo.test.springboot.app.aspects;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marca un método transaccional que se debe reintentar ante conflictos de concurrencia optimista, igual que
+// CuentaService.transferir(ver ReintentoTransferenciaAspect).
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReintentarConflictos {
+}
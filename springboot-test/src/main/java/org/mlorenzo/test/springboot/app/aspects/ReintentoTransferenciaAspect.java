@@ -0,0 +1,104 @@
+package org.mlorenzo.test.springboot.app.aspects;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+import org.mlorenzo.test.springboot.app.monitoring.DetectorCuentasCalientes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Reintenta las transferencias que fallan por un conflicto de concurrencia optimista(@Version en Cuenta y Banco).
+// Se ejecuta por fuera del aspecto transaccional(que tiene la menor prioridad por defecto) para que cada intento
+// sea una transacción nueva y el conflicto, que se detecta al hacer el commit, llegue hasta aquí.
+// También se aplica a los métodos anotados con @ReintentarConflictos que llaman a "transferir" dentro de su propia
+// transacción; en ese caso sólo reintenta el más externo, ya que la transacción interna no se puede repetir sola.
+@Aspect
+@Component
+@Order(10)
+public class ReintentoTransferenciaAspect {
+    private static final Logger log = LoggerFactory.getLogger(ReintentoTransferenciaAspect.class);
+
+    private final int maxIntentos;
+    private final long esperaInicialMs;
+    private final long esperaMaximaMs;
+    private final Counter conflictos;
+    private final Counter reintentos;
+    private final Counter agotados;
+    private final DetectorCuentasCalientes detector;
+
+    public ReintentoTransferenciaAspect(MeterRegistry registry, DetectorCuentasCalientes detector,
+                                        @Value("${transferencias.reintentos.max-intentos:5}") int maxIntentos,
+                                        @Value("${transferencias.reintentos.espera-inicial-ms:5}") long esperaInicialMs,
+                                        @Value("${transferencias.reintentos.espera-maxima-ms:200}") long esperaMaximaMs) {
+        this.maxIntentos = maxIntentos;
+        this.esperaInicialMs = esperaInicialMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.conflictos = registry.counter("cuentas.transferir.conflictos");
+        this.reintentos = registry.counter("cuentas.transferir.reintentos");
+        this.agotados = registry.counter("cuentas.transferir.reintentos.agotados");
+        this.detector = detector;
+    }
+
+    @Around("execution(* org.mlorenzo.test.springboot.app.services.CuentaService.transferir(..)) || " +
+            "@annotation(org.mlorenzo.test.springboot.app.aspects.ReintentarConflictos)")
+    public Object reintentar(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive())
+            return joinPoint.proceed();
+        int intento = 1;
+        while (true) {
+            try {
+                // En el caso sin contención sólo se paga esta llamada; no hay bloqueos ni esperas
+                return joinPoint.proceed();
+            }
+            catch (OptimisticLockingFailureException e) {
+                conflictos.increment();
+                registrarCuentaEnConflicto(e);
+                if (intento >= maxIntentos) {
+                    agotados.increment();
+                    throw e;
+                }
+                reintentos.increment();
+                long espera = calcularEspera(intento);
+                log.debug("Conflicto optimista en transferir (intento {}), reintentando en {} ms", intento, espera);
+                Thread.sleep(espera);
+                intento++;
+            }
+        }
+    }
+
+    // Hibernate indica qué fila ha cambiado; si es una cuenta, cuenta para fragmentarla
+    private void registrarCuentaEnConflicto(OptimisticLockingFailureException e) {
+        if (e instanceof ObjectOptimisticLockingFailureException) {
+            ObjectOptimisticLockingFailureException conflicto = (ObjectOptimisticLockingFailureException) e;
+            if (Cuenta.class.getName().equals(conflicto.getPersistentClassName())
+                    && conflicto.getIdentifier() instanceof Long)
+                detector.registrarConflicto((Long) conflicto.getIdentifier());
+        }
+    }
+
+    // Backoff exponencial con "full jitter": se espera un tiempo aleatorio entre 0 y min(máximo, inicial * 2^(n-1))
+    // para que los hilos que chocaron no vuelvan a chocar a la vez.
+    private long calcularEspera(int intento) {
+        long techo = Math.min(esperaMaximaMs, esperaInicialMs << Math.min(intento - 1, 20));
+        return ThreadLocalRandom.current().nextLong(techo + 1);
+    }
+
+    public double getConflictos() {
+        return conflictos.count();
+    }
+
+    public double getReintentos() {
+        return reintentos.count();
+    }
+}
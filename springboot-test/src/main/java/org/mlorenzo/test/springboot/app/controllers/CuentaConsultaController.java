@@ -0,0 +1,155 @@
+package org.mlorenzo.test.springboot.app.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mlorenzo.test.springboot.app.CborConfig;
+import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cuentas")
+public class CuentaConsultaController {
+    private static final int LIMITE_MAXIMO = 100_000;
+
+    private final CuentaService cuentaService;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper;
+
+    public CuentaConsultaController(CuentaService cuentaService, ObjectMapper objectMapper,
+                                    @Qualifier(CborConfig.CBOR_MAPPER) ObjectMapper cborMapper) {
+        this.cuentaService = cuentaService;
+        this.objectMapper = objectMapper;
+        this.cborMapper = cborMapper;
+    }
+
+    // Cuentas con saldo en [saldoMin, saldoMax], ordenadas por saldo e id y paginadas por clave. Basta con uno de los
+    // dos límites("saldoMax" solo sirve para "cuentas por debajo de un umbral"); sin ninguno se aplica
+    // CuentaController.listar. El campo "siguiente" de la respuesta se pasa como parámetro "cursor" para obtener la
+    // página siguiente. La respuesta se escribe a medida que se leen las filas, sin construir la lista en memoria, en
+    // JSON o en CBOR si el cliente lo prefiere("Accept").
+    @GetMapping(params = "saldoMin")
+    public ResponseEntity<StreamingResponseBody> porSaldo(@RequestParam BigDecimal saldoMin,
+            @RequestParam(required = false) BigDecimal saldoMax,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "1000") int limite,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return consultar(saldoMin, saldoMax, cursor, limite, accept);
+    }
+
+    @GetMapping(params = {"saldoMax", "!saldoMin"})
+    public ResponseEntity<StreamingResponseBody> porDebajoDe(@RequestParam BigDecimal saldoMax,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "1000") int limite,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return consultar(null, saldoMax, cursor, limite, accept);
+    }
+
+    private ResponseEntity<StreamingResponseBody> consultar(BigDecimal saldoMin, BigDecimal saldoMax, String cursor,
+                                                           int limite, String accept) {
+        if (limite < 1 || limite > LIMITE_MAXIMO)
+            return ResponseEntity.badRequest().build();
+        if (saldoMin != null && saldoMax != null && saldoMin.compareTo(saldoMax) > 0)
+            return ResponseEntity.badRequest().build();
+        BigDecimal saldoCursor = null;
+        Long idCursor = null;
+        if (cursor != null) {
+            // Formato del cursor: "<saldo>_<id>" de la última cuenta de la página anterior
+            int separador = cursor.lastIndexOf('_');
+            try {
+                saldoCursor = new BigDecimal(cursor.substring(0, separador));
+                idCursor = Long.valueOf(cursor.substring(separador + 1));
+            }
+            catch (IndexOutOfBoundsException | NumberFormatException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        BigDecimal saldoDesde = saldoCursor;
+        Long idDesde = idCursor;
+        boolean cbor = prefiereCbor(accept);
+        ObjectMapper mapper = cbor ? cborMapper : objectMapper;
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = mapper.getFactory().createGenerator(salida)) {
+                EscritorPagina pagina = new EscritorPagina(generador, limite);
+                generador.writeStartObject();
+                generador.writeArrayFieldStart("cuentas");
+                // Se pide una cuenta de más para saber si hay página siguiente
+                cuentaService.recorrerPorSaldo(saldoMin, saldoMax, saldoDesde, idDesde, limite + 1, pagina::escribir);
+                generador.writeEndArray();
+                generador.writeStringField("siguiente", pagina.siguiente());
+                generador.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(cbor ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON)
+                .body(cuerpo);
+    }
+
+    // CBOR sólo si el cliente lo pide con más preferencia que JSON; con "*/*" o sin cabecera se responde en JSON
+    private static boolean prefiereCbor(String accept) {
+        if (accept == null)
+            return false;
+        List<MediaType> aceptados;
+        try {
+            aceptados = MediaType.parseMediaTypes(accept);
+        }
+        catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MediaType.sortBySpecificityAndQuality(aceptados);
+        for (MediaType aceptado : aceptados) {
+            if (aceptado.includes(MediaType.APPLICATION_JSON))
+                return false;
+            if (aceptado.includes(MediaType.APPLICATION_CBOR))
+                return true;
+        }
+        return false;
+    }
+
+    // Escribe como mucho "limite" cuentas y recuerda si llegó alguna más
+    private static class EscritorPagina {
+        private final JsonGenerator generador;
+        private final int limite;
+        private int escritas;
+        private Cuenta ultima;
+        private boolean hayMas;
+
+        EscritorPagina(JsonGenerator generador, int limite) {
+            this.generador = generador;
+            this.limite = limite;
+        }
+
+        void escribir(Cuenta cuenta) {
+            if (escritas == limite) {
+                hayMas = true;
+                return;
+            }
+            try {
+                generador.writeObject(cuenta);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            ultima = cuenta;
+            escritas++;
+        }
+
+        String siguiente() {
+            return hayMas ? ultima.getSaldo().toPlainString() + "_" + ultima.getId() : null;
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package org.mlorenzo.test.springboot.app.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import org.mlorenzo.test.springboot.app.models.CuentaResumen;
+import org.mlorenzo.test.springboot.app.models.PaginaMovimientos;
 import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
 import org.mlorenzo.test.springboot.app.models.TransaccionDto;
+import org.mlorenzo.test.springboot.app.models.entities.Movimiento;
 import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -16,23 +25,30 @@ import java.util.NoSuchElementException;
 @RestController
 @RequestMapping("/api/cuentas")
 public class CuentaController {
+    private static final String MEDIA_TYPE_MERGE_PATCH = "application/merge-patch+json";
+    private static final int LIMITE_MOVIMIENTOS_MAXIMO = 500;
+    private static final LocalDateTime FECHA_MINIMA = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime FECHA_MAXIMA = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final CuentaService cuentaService;
 
     public CuentaController(CuentaService cuentaService) {
         this.cuentaService = cuentaService;
     }
 
+    // En modo particionado sólo devuelve las cuentas de la partición que atiende la petición, y el alta de cuentas no
+    // está disponible(ver EnrutadorParticionesFilter)
     @GetMapping
-    public List<Cuenta> listar() {
-        return cuentaService.findAll();
+    public List<CuentaResumen> listar() {
+        return cuentaService.listarResumenes();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Cuenta> detalle(@PathVariable Long id) {
-        Cuenta cuenta = null;
+    public ResponseEntity<CuentaResumen> detalle(@PathVariable Long id) {
+        CuentaResumen cuenta = null;
 
         try {
-            cuenta = cuentaService.findById(id);
+            cuenta = cuentaService.findResumenById(id);
         }
         catch (NoSuchElementException e) {
             return ResponseEntity.notFound().build();
@@ -47,15 +63,71 @@ public class CuentaController {
         return cuentaService.save(cuenta);
     }
 
+    // Modificación parcial con la semántica de JSON Merge Patch(RFC 7396): sólo cambian los campos presentes en el
+    // cuerpo. El único campo modificable es "persona"; el saldo sólo cambia con transferencias y "null" no es válido
+    // porque toda cuenta tiene titular. Un cuerpo vacío("{}") devuelve la cuenta sin cambios.
+    @PatchMapping(value = "/{id}", consumes = {MEDIA_TYPE_MERGE_PATCH, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Cuenta> modificar(@PathVariable Long id, @RequestBody JsonNode patch) {
+        if (!patch.isObject())
+            return ResponseEntity.badRequest().build();
+        String persona = null;
+        Iterator<Map.Entry<String, JsonNode>> campos = patch.fields();
+        while (campos.hasNext()) {
+            Map.Entry<String, JsonNode> campo = campos.next();
+            JsonNode valor = campo.getValue();
+            switch (campo.getKey()) {
+                case "persona":
+                    if (!valor.isTextual() || valor.asText().isBlank())
+                        return ResponseEntity.badRequest().build();
+                    persona = valor.asText();
+                    break;
+                case "id":
+                    // Se admite repetir el id de la cuenta, pero no cambiarlo
+                    if (!valor.canConvertToLong() || valor.asLong() != id)
+                        return ResponseEntity.badRequest().build();
+                    break;
+                default:
+                    return ResponseEntity.badRequest().build();
+            }
+        }
+        try {
+            return ResponseEntity.ok(persona != null ? cuentaService.actualizarPersona(id, persona)
+                    : cuentaService.findById(id));
+        }
+        catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @DeleteMapping("/{cuentaId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void eliminar(@PathVariable(value = "cuentaId") Long id) {
         cuentaService.deleteById(id);
     }
 
+    // Cierra una cuenta sin saldo. La cuenta deja de admitir transferencias y ArchivoJob la pasa a "cuentas_archivo"
+    @PostMapping("/{id}/cerrar")
+    public ResponseEntity<Void> cerrar(@PathVariable Long id) {
+        try {
+            cuentaService.cerrar(id);
+        }
+        catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+        catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping("/transferir")
     public ResponseEntity<Map<String, Object>> transferir(@RequestBody TransaccionDto dto) {
-        cuentaService.transferir(dto.getCuentaOrigenId(), dto.getCuentaDestinoId(), dto.getBancoId(), dto.getMonto());
+        if (dto.getBancoDestinoId() != null)
+            cuentaService.transferir(dto.getCuentaOrigenId(), dto.getCuentaDestinoId(), dto.getBancoId(),
+                    dto.getBancoDestinoId(), dto.getMonto());
+        else
+            cuentaService.transferir(dto.getCuentaOrigenId(), dto.getCuentaDestinoId(), dto.getBancoId(),
+                    dto.getMonto());
 
         Map<String, Object> response = new HashMap<>();
         response.put("date", LocalDate.now().toString());
@@ -65,4 +137,40 @@ public class CuentaController {
 
         return ResponseEntity.ok(response);
     }
+
+    // Movimientos de la cuenta, del más reciente al más antiguo, paginados por clave. El campo "siguiente" de la
+    // respuesta se pasa como parámetro "cursor" para obtener la página siguiente.
+    @GetMapping("/{id}/movimientos")
+    public ResponseEntity<PaginaMovimientos> movimientos(@PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limite) {
+        if (limite < 1 || limite > LIMITE_MOVIMIENTOS_MAXIMO)
+            return ResponseEntity.badRequest().build();
+        LocalDateTime fechaCursor = null;
+        Long idCursor = null;
+        if (cursor != null) {
+            // Formato del cursor: "<fecha>_<id>" del último movimiento de la página anterior
+            int separador = cursor.lastIndexOf('_');
+            try {
+                fechaCursor = LocalDateTime.parse(cursor.substring(0, separador));
+                idCursor = Long.valueOf(cursor.substring(separador + 1));
+            }
+            catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        // Se pide un movimiento de más para saber si hay página siguiente
+        List<Movimiento> movimientos = cuentaService.findMovimientos(id,
+                desde != null ? desde : FECHA_MINIMA, hasta != null ? hasta : FECHA_MAXIMA,
+                fechaCursor, idCursor, limite + 1);
+        String siguiente = null;
+        if (movimientos.size() > limite) {
+            movimientos = movimientos.subList(0, limite);
+            Movimiento ultimo = movimientos.get(limite - 1);
+            siguiente = ultimo.getFecha() + "_" + ultimo.getId();
+        }
+        return ResponseEntity.ok(new PaginaMovimientos(movimientos, siguiente));
+    }
 }
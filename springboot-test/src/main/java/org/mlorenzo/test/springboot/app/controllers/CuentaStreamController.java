@@ -0,0 +1,40 @@
+package org.mlorenzo.test.springboot.app.controllers;
+
+import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.mlorenzo.test.springboot.app.streaming.SaldoStreamBroker;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/cuentas")
+public class CuentaStreamController {
+    private final CuentaService cuentaService;
+    private final SaldoStreamBroker saldoStreamBroker;
+
+    public CuentaStreamController(CuentaService cuentaService, SaldoStreamBroker saldoStreamBroker) {
+        this.cuentaService = cuentaService;
+        this.saldoStreamBroker = saldoStreamBroker;
+    }
+
+    // Envía un evento "saldo" con el saldo actual y otro cada vez que una transferencia confirmada cambia el saldo
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@PathVariable Long id) {
+        // La entidad y no CuentaResumen, porque el broker necesita la versión para ordenar el saldo inicial
+        Cuenta cuenta;
+        try {
+            cuenta = cuentaService.findById(id);
+        }
+        catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(saldoStreamBroker.suscribir(id, cuenta.getSaldo(), cuenta.getVersion()));
+    }
+}
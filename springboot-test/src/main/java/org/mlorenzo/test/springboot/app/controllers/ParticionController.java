@@ -0,0 +1,82 @@
+package org.mlorenzo.test.springboot.app.controllers;
+
+import org.mlorenzo.test.springboot.app.exceptions.CuentaCerradaException;
+import org.mlorenzo.test.springboot.app.exceptions.DineroInsuficienteException;
+import org.mlorenzo.test.springboot.app.exceptions.LimiteVelocidadExcedidoException;
+import org.mlorenzo.test.springboot.app.models.PreparacionParticion;
+import org.mlorenzo.test.springboot.app.models.TransaccionDto;
+import org.mlorenzo.test.springboot.app.partitioning.ParticipanteParticion;
+import org.mlorenzo.test.springboot.app.partitioning.Particiones;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.NoSuchElementException;
+
+// Fases del protocolo de dos fases que el coordinador de otra partición invoca sobre esta, y las transferencias que
+// otra partición reenvía porque la cuenta origen es de esta. Cada error tiene su propio código para que
+// ClienteParticiones lo convierta de nuevo en la misma excepción: 409 sin saldo, 423 cuenta cerrada, 429 límite de
+// velocidad y 404 cuenta inexistente.
+@RestController
+@RequestMapping("/api/particiones")
+@ConditionalOnExpression(Particiones.HABILITADO)
+public class ParticionController {
+    private final ParticipanteParticion participante;
+    private final CuentaService cuentaService;
+
+    public ParticionController(ParticipanteParticion participante, CuentaService cuentaService) {
+        this.participante = participante;
+        this.cuentaService = cuentaService;
+    }
+
+    @PostMapping("/transferir")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void transferir(@RequestBody TransaccionDto dto) {
+        if (dto.getBancoDestinoId() != null)
+            cuentaService.transferir(dto.getCuentaOrigenId(), dto.getCuentaDestinoId(), dto.getBancoId(),
+                    dto.getBancoDestinoId(), dto.getMonto());
+        else
+            cuentaService.transferir(dto.getCuentaOrigenId(), dto.getCuentaDestinoId(), dto.getBancoId(),
+                    dto.getMonto());
+    }
+
+    @PostMapping("/preparar")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void preparar(@RequestBody PreparacionParticion preparacion) {
+        participante.preparar(preparacion.getXid(), preparacion.getCuentaId(), preparacion.getContraparteId(), null,
+                null, preparacion.getMonto());
+    }
+
+    @PostMapping("/{xid}/confirmar")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void confirmar(@PathVariable String xid) {
+        participante.confirmar(xid);
+    }
+
+    @PostMapping("/{xid}/abortar")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void abortar(@PathVariable String xid) {
+        participante.abortar(xid);
+    }
+
+    @ExceptionHandler(DineroInsuficienteException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public void dineroInsuficiente() {
+    }
+
+    @ExceptionHandler(CuentaCerradaException.class)
+    @ResponseStatus(HttpStatus.LOCKED)
+    public void cuentaCerrada() {
+    }
+
+    @ExceptionHandler(LimiteVelocidadExcedidoException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public void limiteVelocidad() {
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public void cuentaNoEncontrada() {
+    }
+}
@@ -0,0 +1,57 @@
+package org.mlorenzo.test.springboot.app.controllers;
+
+import org.mlorenzo.test.springboot.app.models.TransaccionDto;
+import org.mlorenzo.test.springboot.app.models.entities.Transferencia;
+import org.mlorenzo.test.springboot.app.services.TransferenciaAsyncService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/cuentas")
+public class TransferenciaController {
+    private final TransferenciaAsyncService transferenciaAsyncService;
+
+    public TransferenciaController(TransferenciaAsyncService transferenciaAsyncService) {
+        this.transferenciaAsyncService = transferenciaAsyncService;
+    }
+
+    // Con "async=true" esta petición tiene prioridad sobre CuentaController.transferir(la condición de parámetros la
+    // hace más específica). Se responde 202 en cuanto la transferencia queda guardada en la cola.
+    @PostMapping(value = "/transferir", params = "async=true")
+    public ResponseEntity<Map<String, Object>> transferirAsync(@RequestBody TransaccionDto dto) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("date", LocalDate.now().toString());
+        response.put("transaccion", dto);
+        Transferencia transferencia;
+        try {
+            transferencia = transferenciaAsyncService.encolar(dto);
+        }
+        catch (IllegalArgumentException e) {
+            response.put("status", "ERROR");
+            response.put("mensaje", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+        response.put("status", transferencia.getEstado());
+        response.put("mensaje", "Transferencia aceptada");
+        response.put("transferenciaId", transferencia.getId());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/cuentas/transferencias/" + transferencia.getId()))
+                .body(response);
+    }
+
+    @GetMapping("/transferencias/{id}")
+    public ResponseEntity<Transferencia> estado(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(transferenciaAsyncService.findById(id));
+        }
+        catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
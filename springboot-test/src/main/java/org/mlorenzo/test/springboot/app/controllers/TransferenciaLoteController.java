@@ -0,0 +1,89 @@
+package org.mlorenzo.test.springboot.app.controllers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.mlorenzo.test.springboot.app.models.TransaccionDto;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.mlorenzo.test.springboot.app.wire.LectorTransacciones;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cuentas")
+public class TransferenciaLoteController {
+    private static final int MAX_ERRORES = 100;
+
+    private final CuentaService cuentaService;
+    private final JsonFactory json = new JsonFactory();
+    private final CBORFactory cbor = new CBORFactory();
+
+    public TransferenciaLoteController(CuentaService cuentaService) {
+        this.cuentaService = cuentaService;
+    }
+
+    // Lote de transferencias en un array JSON o CBOR. Cada transferencia se ejecuta en cuanto se lee del cuerpo de la
+    // petición(ver LectorTransacciones) y en su propia transacción, así que un error en una no deshace las demás. La
+    // respuesta, en el formato que pida "Accept", resume el lote e incluye las primeras transferencias fallidas.
+    @PostMapping(value = "/transferir/lote",
+            consumes = {MediaType.APPLICATION_CBOR_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Map<String, Object>> transferirLote(HttpServletRequest request) {
+        MediaType tipo = MediaType.parseMediaType(request.getContentType());
+        JsonFactory factory = MediaType.APPLICATION_CBOR.isCompatibleWith(tipo) ? cbor : json;
+        long realizadas = 0;
+        long fallidas = 0;
+        List<Map<String, Object>> errores = new ArrayList<>();
+        try (LectorTransacciones lector = new LectorTransacciones(factory.createParser(request.getInputStream()))) {
+            TransaccionDto dto;
+            for (long indice = 0; (dto = lector.siguiente()) != null; indice++) {
+                try {
+                    if (dto.getBancoDestinoId() != null)
+                        cuentaService.transferir(dto.getCuentaOrigenId(), dto.getCuentaDestinoId(), dto.getBancoId(),
+                                dto.getBancoDestinoId(), dto.getMonto());
+                    else
+                        cuentaService.transferir(dto.getCuentaOrigenId(), dto.getCuentaDestinoId(), dto.getBancoId(),
+                                dto.getMonto());
+                    realizadas++;
+                }
+                catch (RuntimeException e) {
+                    fallidas++;
+                    if (errores.size() < MAX_ERRORES) {
+                        Map<String, Object> error = new HashMap<>();
+                        error.put("indice", indice);
+                        error.put("mensaje", e.getMessage());
+                        errores.add(error);
+                    }
+                }
+            }
+        }
+        catch (IOException e) {
+            // Lo leído hasta el error ya se ha procesado; se informa junto con el resumen
+            Map<String, Object> response = resumen(realizadas, fallidas, errores);
+            response.put("status", "ERROR");
+            response.put("mensaje", "Lote mal formado: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+        Map<String, Object> response = resumen(realizadas, fallidas, errores);
+        response.put("status", fallidas == 0 ? "OK" : "PARCIAL");
+        return ResponseEntity.ok(response);
+    }
+
+    private static Map<String, Object> resumen(long realizadas, long fallidas, List<Map<String, Object>> errores) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("date", LocalDate.now().toString());
+        response.put("realizadas", realizadas);
+        response.put("fallidas", fallidas);
+        response.put("errores", errores);
+        return response;
+    }
+}
@@ -0,0 +1,71 @@
+package org.mlorenzo.test.springboot.app.controllers;
+
+import org.mlorenzo.test.springboot.app.models.TransferenciaProgramadaDto;
+import org.mlorenzo.test.springboot.app.models.entities.TransferenciaProgramada;
+import org.mlorenzo.test.springboot.app.services.TransferenciaProgramadaService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/cuentas/programadas")
+public class TransferenciaProgramadaController {
+    private final TransferenciaProgramadaService programadaService;
+
+    public TransferenciaProgramadaController(TransferenciaProgramadaService programadaService) {
+        this.programadaService = programadaService;
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> programar(@RequestBody TransferenciaProgramadaDto dto) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("date", LocalDate.now().toString());
+        response.put("transaccion", dto);
+        TransferenciaProgramada programada;
+        try {
+            programada = programadaService.programar(dto);
+        }
+        catch (IllegalArgumentException e) {
+            response.put("status", "ERROR");
+            response.put("mensaje", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+        response.put("status", programada.getEstado());
+        response.put("mensaje", "Transferencia programada");
+        response.put("transferenciaId", programada.getId());
+        return ResponseEntity.created(URI.create("/api/cuentas/programadas/" + programada.getId())).body(response);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<TransferenciaProgramada> estado(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(programadaService.findById(id));
+        }
+        catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // 409 si ya se ha ejecutado, ha fallado o se había cancelado
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void cancelar(@PathVariable Long id) {
+        programadaService.cancelar(id);
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public void noEncontrada() {
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public void noPendiente() {
+    }
+}
@@ -0,0 +1,31 @@
+package org.mlorenzo.test.springboot.app.events;
+
+import java.math.BigDecimal;
+
+// Se publica por cada cuenta cuyo saldo cambia en una transferencia. Los listeners lo reciben después del commit.
+// "version" es la de la fila de la cuenta al confirmar: los listeners se ejecutan en el hilo de cada transacción y
+// pueden llegar desordenados, así que un evento con una versión menor que otro ya recibido es antiguo. Un crédito en
+// una cuenta fragmentada no cambia la fila, y por eso dos eventos de la misma cuenta pueden tener la misma versión.
+public class SaldoActualizadoEvent {
+    private final Long cuentaId;
+    private final BigDecimal saldo;
+    private final long version;
+
+    public SaldoActualizadoEvent(Long cuentaId, BigDecimal saldo, long version) {
+        this.cuentaId = cuentaId;
+        this.saldo = saldo;
+        this.version = version;
+    }
+
+    public Long getCuentaId() {
+        return cuentaId;
+    }
+
+    public BigDecimal getSaldo() {
+        return saldo;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
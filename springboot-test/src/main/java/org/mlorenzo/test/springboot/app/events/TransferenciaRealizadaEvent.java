@@ -0,0 +1,42 @@
+package org.mlorenzo.test.springboot.app.events;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Evento para los sistemas externos(notificaciones, fraude) que se guarda en el outbox por cada transferencia
+public class TransferenciaRealizadaEvent {
+    private final Long cuentaOrigenId;
+    private final Long cuentaDestinoId;
+    private final Long bancoId;
+    private final BigDecimal monto;
+    private final LocalDateTime fecha;
+
+    public TransferenciaRealizadaEvent(Long cuentaOrigenId, Long cuentaDestinoId, Long bancoId, BigDecimal monto,
+                                       LocalDateTime fecha) {
+        this.cuentaOrigenId = cuentaOrigenId;
+        this.cuentaDestinoId = cuentaDestinoId;
+        this.bancoId = bancoId;
+        this.monto = monto;
+        this.fecha = fecha;
+    }
+
+    public Long getCuentaOrigenId() {
+        return cuentaOrigenId;
+    }
+
+    public Long getCuentaDestinoId() {
+        return cuentaDestinoId;
+    }
+
+    public Long getBancoId() {
+        return bancoId;
+    }
+
+    public BigDecimal getMonto() {
+        return monto;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+}
@@ -0,0 +1,12 @@
+package org.mlorenzo.test.springboot.app.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class CuentaCerradaException extends RuntimeException {
+
+    public CuentaCerradaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package org.mlorenzo.test.springboot.app.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class LimiteVelocidadExcedidoException extends RuntimeException {
+
+    public LimiteVelocidadExcedidoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,67 @@
+package org.mlorenzo.test.springboot.app.filters;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.mlorenzo.test.springboot.app.partitioning.ClienteParticiones;
+import org.mlorenzo.test.springboot.app.partitioning.Particiones;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// En modo particionado, reenvía "/api/cuentas/{id}"(y sus subrutas) a la partición propietaria de la cuenta. El stream
+// de saldos no se reenvía, porque la conexión es de larga duración: se redirige al cliente con un 307.
+// "listar" no lleva id y devuelve sólo las cuentas de esta partición. "guardar" se rechaza con un 501: la base de datos
+// local daría a la cuenta un id que puede pertenecer a otra partición, y la cuenta ya no se encontraría nunca.
+public class EnrutadorParticionesFilter extends OncePerRequestFilter {
+    private static final Pattern RUTA_CUENTA = Pattern.compile("^/api/cuentas/(\\d{1,18})(/.*)?$");
+    private static final String RUTA_CUENTAS = "/api/cuentas";
+
+    private final Particiones particiones;
+    private final ClienteParticiones cliente;
+    private final Counter reenviadas;
+
+    public EnrutadorParticionesFilter(Particiones particiones, ClienteParticiones cliente, MeterRegistry registry) {
+        this.particiones = particiones;
+        this.cliente = cliente;
+        this.reenviadas = registry.counter("particiones.peticiones.reenviadas");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(Particiones.CABECERA_REENVIADA) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String uri = request.getRequestURI().substring(request.getContextPath().length());
+        if (RUTA_CUENTAS.equals(uri) && "POST".equals(request.getMethod())) {
+            response.sendError(HttpStatus.NOT_IMPLEMENTED.value(),
+                    "En modo particionado las cuentas se dan de alta con ids asignados en su partición");
+            return;
+        }
+        Matcher ruta = RUTA_CUENTA.matcher(uri);
+        if (ruta.matches()) {
+            int particion = particiones.particion(Long.parseLong(ruta.group(1)));
+            if (particion != particiones.getIndice()) {
+                reenviadas.increment();
+                if ("/stream".equals(ruta.group(2))) {
+                    response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+                    response.setHeader(HttpHeaders.LOCATION, particiones.nodo(particion) + request.getRequestURI());
+                }
+                else
+                    cliente.reenviar(request, response, particion);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
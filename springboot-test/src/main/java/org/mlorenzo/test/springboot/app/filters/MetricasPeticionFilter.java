@@ -0,0 +1,87 @@
+package org.mlorenzo.test.springboot.app.filters;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.mlorenzo.test.springboot.app.monitoring.MonitorSql;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Mide, para una muestra de las peticiones, los bytes reservados en el heap, el tiempo de CPU del hilo que atiende la
+// petición y el número de sentencias SQL ejecutadas. Así, cuando empeora la latencia, se puede ver si la causa es
+// presión sobre el GC, el SQL o la serialización. Las métricas se agregan por endpoint(método + patrón de la URL).
+// Las lecturas de ThreadMXBean cuestan del orden de 1 µs, así que con el muestreo el coste medio es despreciable.
+// En las peticiones muestreadas también se buscan sentencias repetidas(N+1) con MonitorSql.
+public class MetricasPeticionFilter extends OncePerRequestFilter {
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private final MeterRegistry registry;
+    private final MonitorSql monitorSql;
+    private final int muestreo;
+    private final boolean medirMemoria;
+    private final boolean medirCpu;
+
+    // "muestreo" = 1 de cada N peticiones se mide
+    public MetricasPeticionFilter(MeterRegistry registry, MonitorSql monitorSql, int muestreo) {
+        this.registry = registry;
+        this.monitorSql = monitorSql;
+        this.muestreo = Math.max(1, muestreo);
+        this.threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.medirMemoria = threadMXBean.isThreadAllocatedMemorySupported();
+        if (medirMemoria && !threadMXBean.isThreadAllocatedMemoryEnabled())
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        this.medirCpu = threadMXBean.isCurrentThreadCpuTimeSupported();
+        if (medirCpu && !threadMXBean.isThreadCpuTimeEnabled())
+            threadMXBean.setThreadCpuTimeEnabled(true);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (muestreo > 1 && ThreadLocalRandom.current().nextInt(muestreo) != 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long hilo = Thread.currentThread().getId();
+        long memoriaInicial = medirMemoria ? threadMXBean.getThreadAllocatedBytes(hilo) : 0;
+        long cpuInicial = medirCpu ? threadMXBean.getCurrentThreadCpuTime() : 0;
+        long sentenciasIniciales = monitorSql.sentenciasHiloActual();
+        monitorSql.iniciarPeticion(request.getMethod() + " " + request.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        }
+        finally {
+            String endpoint = endpoint(request);
+            monitorSql.finalizarPeticion(endpoint);
+            if (medirMemoria)
+                DistributionSummary.builder("http.peticion.memoria.asignada")
+                        .baseUnit("bytes")
+                        .tag("endpoint", endpoint)
+                        .register(registry)
+                        .record(threadMXBean.getThreadAllocatedBytes(hilo) - memoriaInicial);
+            if (medirCpu)
+                Timer.builder("http.peticion.cpu")
+                        .tag("endpoint", endpoint)
+                        .register(registry)
+                        .record(threadMXBean.getCurrentThreadCpuTime() - cpuInicial, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("http.peticion.sentencias.sql")
+                    .tag("endpoint", endpoint)
+                    .register(registry)
+                    .record(monitorSql.sentenciasHiloActual() - sentenciasIniciales);
+        }
+    }
+
+    // Se usa el patrón de la URL("/api/cuentas/{id}") y no la URL real para no crear una métrica por cada id
+    private static String endpoint(HttpServletRequest request) {
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (patron != null ? patron : "desconocido");
+    }
+}
@@ -0,0 +1,22 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.mlorenzo.test.springboot.app.models.ResultadoArchivo;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+// Endpoint de administración "/actuator/archivo": POST lanza el archivo de las cuentas cerradas
+@Component
+@Endpoint(id = "archivo")
+public class ArchivoEndpoint {
+    private final ArchivoJob archivoJob;
+
+    public ArchivoEndpoint(ArchivoJob archivoJob) {
+        this.archivoJob = archivoJob;
+    }
+
+    @WriteOperation
+    public ResultadoArchivo ejecutar() {
+        return archivoJob.ejecutar();
+    }
+}
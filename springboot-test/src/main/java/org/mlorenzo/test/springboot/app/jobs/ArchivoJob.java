@@ -0,0 +1,118 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.mlorenzo.test.springboot.app.models.ResultadoArchivo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Archivo de cuentas cerradas: las mueve de "cuentas" a "cuentas_archivo" por lotes de ids con un INSERT ... SELECT y
+// un DELETE en la misma transacción, sin cargar entidades. Los lotes se recorren por clave(índice(cerrada, id)) y
+// entre uno y otro se hace una pausa proporcional a lo que ha durado el lote, de forma que el proceso no ocupe más de
+// "ciclo-trabajo" del tiempo y deje conexiones y bloqueos libres para el tráfico en línea.
+// Sólo se archivan cuentas cerradas sin saldo ni sub-saldos, así que el archivo no cambia el total de la conciliación.
+@Component
+public class ArchivoJob {
+    private static final Logger log = LoggerFactory.getLogger(ArchivoJob.class);
+
+    private static final String CONDICION = "cerrada = TRUE AND saldo = 0 AND fragmentos = 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoLote;
+    private final double cicloTrabajo;
+    private final long pausaMinimaMs;
+    private final AtomicBoolean enEjecucion = new AtomicBoolean();
+
+    public ArchivoJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                      @Value("${archivo.tamano-lote:1000}") int tamanoLote,
+                      @Value("${archivo.ciclo-trabajo:0.5}") double cicloTrabajo,
+                      @Value("${archivo.pausa-minima-ms:10}") long pausaMinimaMs) {
+        if (cicloTrabajo <= 0 || cicloTrabajo > 1)
+            throw new IllegalArgumentException("archivo.ciclo-trabajo debe estar en (0, 1]");
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        this.cicloTrabajo = cicloTrabajo;
+        this.pausaMinimaMs = pausaMinimaMs;
+    }
+
+    // Por defecto no se programa("-"). P. ej. todas las noches: archivo.cron=0 0 3 * * *
+    @Scheduled(cron = "${archivo.cron:-}")
+    public void ejecutarProgramada() {
+        ejecutar();
+    }
+
+    public ResultadoArchivo ejecutar() {
+        if (!enEjecucion.compareAndSet(false, true))
+            throw new IllegalStateException("El archivo de cuentas ya está en ejecución");
+        try {
+            return archivar();
+        }
+        finally {
+            enEjecucion.set(false);
+        }
+    }
+
+    private ResultadoArchivo archivar() {
+        long inicio = System.nanoTime();
+        LocalDateTime fecha = LocalDateTime.now();
+        long desde = 0;
+        long cuentas = 0;
+        long lotes = 0;
+        long pausaTotalMs = 0;
+        while (true) {
+            long inicioLote = System.nanoTime();
+            long[] lote = archivarLote(desde, fecha);
+            if (lote == null)
+                break;
+            desde = lote[0];
+            cuentas += lote[1];
+            lotes++;
+            long duracionLoteMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioLote);
+            long pausa = Math.max(pausaMinimaMs, (long) (duracionLoteMs * (1 - cicloTrabajo) / cicloTrabajo));
+            pausaTotalMs += pausa;
+            try {
+                Thread.sleep(pausa);
+            }
+            catch (InterruptedException e) {
+                // Los lotes ya hechos quedan archivados; la siguiente ejecución sigue con el resto
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        ResultadoArchivo resultado = new ResultadoArchivo(cuentas, lotes, pausaTotalMs,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        log.info("Archivo de cuentas: {} cuentas en {} lotes, {} ms({} ms de pausa), {} cuentas/s", cuentas, lotes,
+                resultado.getDuracionMs(), pausaTotalMs, String.format("%.0f", resultado.getCuentasPorSegundo()));
+        return resultado;
+    }
+
+    // Archiva las siguientes "tamanoLote" cuentas con id mayor que "desde". Devuelve {último id, cuentas archivadas}
+    // o null si no queda ninguna.
+    private long[] archivarLote(long desde, LocalDateTime fecha) {
+        return transactionTemplate.execute(status -> {
+            Long hasta = jdbcTemplate.queryForObject("SELECT MAX(id) FROM (SELECT id FROM cuentas WHERE " + CONDICION +
+                    " AND id > ? ORDER BY id LIMIT ?) lote", Long.class, desde, tamanoLote);
+            if (hasta == null)
+                return null;
+            int copiadas = jdbcTemplate.update("INSERT INTO cuentas_archivo(id, persona, saldo, fecha_archivo) " +
+                    "SELECT id, persona, saldo, ? FROM cuentas WHERE " + CONDICION + " AND id > ? AND id <= ?",
+                    fecha, desde, hasta);
+            int borradas = jdbcTemplate.update("DELETE FROM cuentas WHERE " + CONDICION + " AND id > ? AND id <= ?",
+                    desde, hasta);
+            // Si alguna fila ha cambiado entre las dos sentencias se deshace el lote y se reintenta en otra ejecución
+            if (copiadas != borradas)
+                throw new IllegalStateException("Lote (" + desde + ", " + hasta + "] modificado durante el archivo");
+            return new long[]{hasta, borradas};
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.mlorenzo.test.springboot.app.models.ResultadoCompensacion;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+// Endpoint de administración "/actuator/compensacion": GET devuelve la última liquidación y POST liquida un día
+// (por defecto, el anterior). Liquidar un día ya liquidado devuelve sus posiciones sin repetir los apuntes.
+@Component
+@Endpoint(id = "compensacion")
+public class CompensacionEndpoint {
+    private final CompensacionJob compensacionJob;
+
+    public CompensacionEndpoint(CompensacionJob compensacionJob) {
+        this.compensacionJob = compensacionJob;
+    }
+
+    @ReadOperation
+    public ResultadoCompensacion ultimo() {
+        return compensacionJob.getUltimoResultado();
+    }
+
+    @WriteOperation
+    public ResultadoCompensacion ejecutar(@Nullable LocalDate dia) {
+        return compensacionJob.ejecutar(dia != null ? dia : LocalDate.now().minusDays(1));
+    }
+}
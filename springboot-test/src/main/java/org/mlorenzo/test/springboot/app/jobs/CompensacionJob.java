@@ -0,0 +1,135 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.mlorenzo.test.springboot.app.models.ResultadoCompensacion;
+import org.mlorenzo.test.springboot.app.models.entities.Liquidacion;
+import org.mlorenzo.test.springboot.app.repositories.LiquidacionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Liquidación de fin de día del modo compensación: recorre las compensaciones del día con un cursor(de
+// "compensacion.tamano-lectura" filas cada vez) y va acumulando lo enviado y recibido por cada banco, así que la
+// memoria depende del número de bancos y no del de transferencias. Después, en una sola transacción, guarda una
+// liquidación por banco y suma sus transferencias a Banco.totalTransferencias: un UPDATE por banco en lugar de uno
+// por transferencia. Un día ya liquidado no se vuelve a liquidar.
+@Component
+public class CompensacionJob {
+    private static final Logger log = LoggerFactory.getLogger(CompensacionJob.class);
+
+    private final JdbcTemplate cursor;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate lectura;
+    private final TransactionTemplate escritura;
+    private final LiquidacionRepository liquidacionRepository;
+    private final int maxBancos;
+
+    private volatile ResultadoCompensacion ultimoResultado;
+
+    public CompensacionJob(DataSource dataSource, JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           LiquidacionRepository liquidacionRepository,
+                           @Value("${compensacion.tamano-lectura:10000}") int tamanoLectura,
+                           @Value("${compensacion.max-bancos:10000}") int maxBancos) {
+        this.cursor = new JdbcTemplate(dataSource);
+        this.cursor.setFetchSize(tamanoLectura);
+        this.jdbcTemplate = jdbcTemplate;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.escritura = new TransactionTemplate(transactionManager);
+        this.liquidacionRepository = liquidacionRepository;
+        this.maxBancos = maxBancos;
+    }
+
+    // Por defecto no se programa("-"). Liquida el día anterior, p. ej.: compensacion.cron=0 30 0 * * *
+    @Scheduled(cron = "${compensacion.cron:-}")
+    public void ejecutarProgramada() {
+        ejecutar(LocalDate.now().minusDays(1));
+    }
+
+    // Sólo días cerrados: un día se liquida una única vez, así que las transferencias que llegaran después de
+    // liquidar el día en curso(o uno futuro) no se contarían nunca
+    public ResultadoCompensacion ejecutar(LocalDate dia) {
+        if (!dia.isBefore(LocalDate.now()))
+            throw new IllegalArgumentException("Sólo se pueden liquidar días anteriores a hoy: " + dia);
+        long inicio = System.nanoTime();
+        List<Liquidacion> existentes = liquidacionRepository.findByDiaOrderByBancoId(dia);
+        if (!existentes.isEmpty())
+            return resultado(dia, existentes, true, inicio);
+
+        Map<Long, Posicion> posiciones = new TreeMap<>();
+        lectura.executeWithoutResult(status -> cursor.query(
+                "SELECT banco_origen_id, banco_destino_id, monto FROM compensaciones WHERE dia = ?",
+                rs -> {
+                    BigDecimal monto = rs.getBigDecimal(3);
+                    Posicion origen = posicion(posiciones, rs.getLong(1));
+                    origen.enviado = origen.enviado.add(monto);
+                    origen.transferencias++;
+                    Posicion destino = posicion(posiciones, rs.getLong(2));
+                    destino.recibido = destino.recibido.add(monto);
+                },
+                Date.valueOf(dia)));
+
+        List<Liquidacion> liquidaciones = new ArrayList<>(posiciones.size());
+        posiciones.forEach((bancoId, p) ->
+                liquidaciones.add(new Liquidacion(dia, bancoId, p.enviado, p.recibido, p.transferencias)));
+        escritura.executeWithoutResult(status -> {
+            liquidacionRepository.saveAll(liquidaciones);
+            for (Liquidacion liquidacion : liquidaciones)
+                if (liquidacion.getTransferencias() > 0)
+                    jdbcTemplate.update("UPDATE bancos SET total_transferencias = total_transferencias + ?, " +
+                            "version = version + 1 WHERE id = ?", liquidacion.getTransferencias(),
+                            liquidacion.getBancoId());
+        });
+        return resultado(dia, liquidaciones, false, inicio);
+    }
+
+    public ResultadoCompensacion getUltimoResultado() {
+        return ultimoResultado;
+    }
+
+    private Posicion posicion(Map<Long, Posicion> posiciones, long bancoId) {
+        Posicion posicion = posiciones.get(bancoId);
+        if (posicion == null) {
+            if (posiciones.size() == maxBancos)
+                throw new IllegalStateException("La compensación supera el máximo de " + maxBancos + " bancos");
+            posicion = new Posicion();
+            posiciones.put(bancoId, posicion);
+        }
+        return posicion;
+    }
+
+    private ResultadoCompensacion resultado(LocalDate dia, List<Liquidacion> liquidaciones, boolean yaLiquidado,
+                                            long inicio) {
+        long transferencias = liquidaciones.stream().mapToLong(Liquidacion::getTransferencias).sum();
+        Map<Long, Integer> totales = new TreeMap<>();
+        jdbcTemplate.query("SELECT id, total_transferencias FROM bancos ORDER BY id",
+                rs -> { totales.put(rs.getLong(1), rs.getInt(2)); });
+        ResultadoCompensacion resultado = new ResultadoCompensacion(dia, transferencias, yaLiquidado, liquidaciones,
+                totales, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        log.info("Compensación del {}: {} transferencias liquidadas con {} apuntes{}, {} ms", dia, transferencias,
+                liquidaciones.size(), yaLiquidado ? "(ya liquidado)" : "", resultado.getDuracionMs());
+        ultimoResultado = resultado;
+        return resultado;
+    }
+
+    private static class Posicion {
+        BigDecimal enviado = BigDecimal.ZERO;
+        BigDecimal recibido = BigDecimal.ZERO;
+        long transferencias;
+    }
+}
@@ -0,0 +1,34 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.mlorenzo.test.springboot.app.models.ResultadoConciliacion;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Endpoint de administración "/actuator/conciliacion": GET devuelve el último resultado y POST lanza una conciliación.
+// Si se indica el id de una ejecución anterior, se reanuda desde su último punto de control.
+@Component
+@Endpoint(id = "conciliacion")
+public class ConciliacionEndpoint {
+    private final ConciliacionJob conciliacionJob;
+
+    public ConciliacionEndpoint(ConciliacionJob conciliacionJob) {
+        this.conciliacionJob = conciliacionJob;
+    }
+
+    @ReadOperation
+    public ResultadoConciliacion ultimo() {
+        return conciliacionJob.getUltimoResultado();
+    }
+
+    @WriteOperation
+    public ResultadoConciliacion ejecutar(@Nullable String ejecucionId, @Nullable BigDecimal totalEsperado) {
+        String id = ejecucionId != null ? ejecucionId : UUID.randomUUID().toString();
+        return conciliacionJob.ejecutar(id, totalEsperado);
+    }
+}
@@ -0,0 +1,146 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.mlorenzo.test.springboot.app.models.RangoIds;
+import org.mlorenzo.test.springboot.app.models.ResultadoConciliacion;
+import org.mlorenzo.test.springboot.app.models.entities.ConciliacionAnomalia;
+import org.mlorenzo.test.springboot.app.models.entities.ConciliacionTramo;
+import org.mlorenzo.test.springboot.app.repositories.ConciliacionAnomaliaRepository;
+import org.mlorenzo.test.springboot.app.repositories.ConciliacionTramoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Conciliación de saldos: comprueba que la suma de "cuentas.saldo" más el dinero en tránsito coincide con el total
+// esperado y que ninguna cuenta está en negativo. Los sub-saldos de las cuentas fragmentadas se suman en su tramo.
+// La tabla se reparte en tramos de ids que se recorren en paralelo, cada uno en su propia transacción de sólo lectura
+// con agregados en la base de datos(COUNT/SUM por rango de clave primaria), así que no se bloquea a "transferir".
+// Como contrapartida, una transferencia entre dos tramos que ocurra durante el recorrido puede contarse dos veces o
+// ninguna; la conciliación es exacta cuando no hay transferencias en curso.
+@Component
+public class ConciliacionJob {
+    private static final Logger log = LoggerFactory.getLogger(ConciliacionJob.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate lectura;
+    private final TransactionTemplate escritura;
+    private final ConciliacionTramoRepository tramoRepository;
+    private final ConciliacionAnomaliaRepository anomaliaRepository;
+    private final ObjectProvider<FondosEnTransito> fondosEnTransito;
+    private final int hilos;
+    private final long tamanoTramo;
+    private final BigDecimal totalEsperado;
+
+    private volatile ResultadoConciliacion ultimoResultado;
+
+    public ConciliacionJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           ConciliacionTramoRepository tramoRepository,
+                           ConciliacionAnomaliaRepository anomaliaRepository,
+                           ObjectProvider<FondosEnTransito> fondosEnTransito,
+                           @Value("${conciliacion.hilos:4}") int hilos,
+                           @Value("${conciliacion.tamano-tramo:100000}") long tamanoTramo,
+                           @Value("${conciliacion.total-esperado:#{null}}") BigDecimal totalEsperado) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.lectura.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.escritura = new TransactionTemplate(transactionManager);
+        this.tramoRepository = tramoRepository;
+        this.anomaliaRepository = anomaliaRepository;
+        this.fondosEnTransito = fondosEnTransito;
+        this.hilos = hilos;
+        this.tamanoTramo = tamanoTramo;
+        this.totalEsperado = totalEsperado;
+    }
+
+    // Por defecto no se programa("-"). En producción, p. ej.: conciliacion.cron=0 0 3 * * *
+    @Scheduled(cron = "${conciliacion.cron:-}")
+    public void ejecutarProgramada() {
+        // Un id por día: si la ejecución nocturna se cae, relanzarla el mismo día reanuda desde el último tramo
+        ResultadoConciliacion resultado = ejecutar("conciliacion-" + LocalDate.now(), totalEsperado);
+        if (!resultado.isCuadra())
+            log.error("La conciliación {} no cuadra: saldos={}, en tránsito={}, esperado={}, cuentas en negativo={}",
+                    resultado.getEjecucionId(), resultado.getTotalSaldos(), resultado.getEnTransito(),
+                    resultado.getTotalEsperado(), resultado.getTotalAnomalias());
+    }
+
+    public ResultadoConciliacion ejecutar(String ejecucionId, BigDecimal totalEsperado) {
+        long inicio = System.nanoTime();
+        TreeMap<Long, ConciliacionTramo> hechos = new TreeMap<>();
+        tramoRepository.findByEjecucionId(ejecucionId).forEach(t -> hechos.put(t.getDesde(), t));
+        long tramosReanudados = hechos.size();
+
+        List<RangoIds> pendientes = calcularPendientes(hechos);
+        List<ConciliacionTramo> tramos = new ArrayList<>(hechos.values());
+        tramos.addAll(ProcesadorTramos.procesar("conciliacion", hilos, pendientes,
+                rango -> recorrerTramo(ejecucionId, rango)));
+
+        long cuentas = 0;
+        BigDecimal totalSaldos = BigDecimal.ZERO;
+        for (ConciliacionTramo tramo : tramos) {
+            cuentas += tramo.getCuentas();
+            totalSaldos = totalSaldos.add(tramo.getTotal());
+        }
+        BigDecimal enTransito = fondosEnTransito.orderedStream()
+                .map(FondosEnTransito::calcular)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        ResultadoConciliacion resultado = new ResultadoConciliacion(ejecucionId, cuentas, totalSaldos, enTransito,
+                totalEsperado, tramos.size(), tramosReanudados, anomaliaRepository.countByEjecucionId(ejecucionId),
+                anomaliaRepository.findTop100ByEjecucionIdOrderByCuentaId(ejecucionId),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        log.info("Conciliación {}: {} cuentas en {} tramos({} reanudados), total={}, {} ms", ejecucionId, cuentas,
+                tramos.size(), tramosReanudados, totalSaldos, resultado.getDuracionMs());
+        ultimoResultado = resultado;
+        return resultado;
+    }
+
+    public ResultadoConciliacion getUltimoResultado() {
+        return ultimoResultado;
+    }
+
+    // Recorre el espacio de ids saltando los tramos ya registrados en el punto de control
+    private List<RangoIds> calcularPendientes(TreeMap<Long, ConciliacionTramo> hechos) {
+        long[] limites = lectura.execute(status -> jdbcTemplate.queryForObject(
+                "SELECT MIN(id), MAX(id) FROM cuentas",
+                (rs, rowNum) -> rs.getObject(1) == null ? null : new long[]{rs.getLong(1), rs.getLong(2)}));
+        if (limites == null)
+            return new ArrayList<>();
+        TreeMap<Long, Long> rangosHechos = new TreeMap<>();
+        hechos.forEach((desde, tramo) -> rangosHechos.put(desde, tramo.getHasta()));
+        return RangoIds.pendientes(limites[0], limites[1], tamanoTramo, rangosHechos);
+    }
+
+    private ConciliacionTramo recorrerTramo(String ejecucionId, RangoIds rango) {
+        ConciliacionTramo tramo = lectura.execute(status -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*), COALESCE(SUM(saldo), 0) + " +
+                        "(SELECT COALESCE(SUM(saldo), 0) FROM cuentas_fragmentos WHERE cuenta_id BETWEEN ? AND ?) " +
+                        "FROM cuentas WHERE id BETWEEN ? AND ?",
+                (rs, rowNum) -> new ConciliacionTramo(ejecucionId, rango.getDesde(), rango.getHasta(), rs.getLong(1),
+                        rs.getBigDecimal(2)),
+                rango.getDesde(), rango.getHasta(), rango.getDesde(), rango.getHasta()));
+        List<ConciliacionAnomalia> negativas = lectura.execute(status -> jdbcTemplate.query(
+                "SELECT id, saldo FROM cuentas WHERE id BETWEEN ? AND ? AND saldo < 0",
+                (rs, rowNum) -> new ConciliacionAnomalia(ejecucionId, rs.getLong(1), rs.getBigDecimal(2)),
+                rango.getDesde(), rango.getHasta()));
+        // El tramo y sus anomalías se registran juntos: o el tramo cuenta como hecho con todo, o se repite
+        escritura.executeWithoutResult(status -> {
+            tramoRepository.save(tramo);
+            anomaliaRepository.saveAll(negativas);
+        });
+        return tramo;
+    }
+}
@@ -0,0 +1,24 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.mlorenzo.test.springboot.app.models.ResultadoExtractos;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+
+// Endpoint de administración "/actuator/extractos": POST {"mes": "2021-08"} genera los extractos de ese mes
+@Component
+@Endpoint(id = "extractos")
+public class ExtractosEndpoint {
+    private final ExtractosJob extractosJob;
+
+    public ExtractosEndpoint(ExtractosJob extractosJob) {
+        this.extractosJob = extractosJob;
+    }
+
+    @WriteOperation
+    public ResultadoExtractos ejecutar(String mes) {
+        return extractosJob.ejecutar(YearMonth.parse(mes));
+    }
+}
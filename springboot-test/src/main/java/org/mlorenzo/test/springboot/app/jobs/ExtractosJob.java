@@ -0,0 +1,229 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.mlorenzo.test.springboot.app.models.ResultadoExtractos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Extractos mensuales: saldo inicial, movimientos y saldo final de cada cuenta. En lugar de una consulta por cuenta se
+// abren dos cursores ordenados por id de cuenta, uno de cuentas y otro de los movimientos del mes, y se cruzan en una
+// sola pasada(merge join). Cada extracto se pasa por una cola acotada a "hilos" trabajadores que lo formatean y lo
+// escriben en su propio fichero comprimido, así que la memoria depende del tamaño de la cola y no del número de
+// cuentas.
+// El saldo final es el saldo actual(incluidos los sub-saldos) menos los movimientos posteriores al mes y el inicial,
+// el final menos los movimientos del mes. Los abonos que no generan movimientos(p. ej. InteresJob) se atribuyen al
+// mes en que se consulta.
+@Component
+public class ExtractosJob {
+    private static final Logger log = LoggerFactory.getLogger(ExtractosJob.class);
+
+    // Marca de fin de la cola para los trabajadores
+    private static final Extracto FIN = new Extracto(0, null, null);
+
+    private final JdbcTemplate cursor;
+    private final Path directorio;
+    private final int hilos;
+    private final int tamanoCola;
+
+    public ExtractosJob(DataSource dataSource,
+                        @Value("${extractos.directorio:${java.io.tmpdir}/springboot-test-extractos}") String directorio,
+                        @Value("${extractos.hilos:4}") int hilos,
+                        @Value("${extractos.tamano-cola:1000}") int tamanoCola,
+                        @Value("${extractos.tamano-lectura:1000}") int tamanoLectura) {
+        this.cursor = new JdbcTemplate(dataSource);
+        this.cursor.setFetchSize(tamanoLectura);
+        this.directorio = Paths.get(directorio);
+        this.hilos = hilos;
+        this.tamanoCola = tamanoCola;
+    }
+
+    // Por defecto no se programa("-"). Genera los extractos del mes anterior, p. ej.: extractos.cron=0 0 4 1 * *
+    @Scheduled(cron = "${extractos.cron:-}")
+    public void ejecutarProgramada() {
+        ejecutar(YearMonth.now().minusMonths(1));
+    }
+
+    public ResultadoExtractos ejecutar(YearMonth mes) {
+        long inicio = System.nanoTime();
+        Timestamp desde = Timestamp.valueOf(mes.atDay(1).atStartOfDay());
+        Timestamp hasta = Timestamp.valueOf(mes.plusMonths(1).atDay(1).atStartOfDay());
+        try {
+            Files.createDirectories(directorio);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        BlockingQueue<Extracto> cola = new ArrayBlockingQueue<>(tamanoCola);
+        AtomicInteger contador = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(hilos, r -> {
+            Thread hilo = new Thread(r, "extractos-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        AtomicLong movimientos = new AtomicLong();
+        List<Future<Long>> trabajadores = new ArrayList<>();
+        List<String> ficheros = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            Path fichero = directorio.resolve("extractos-" + mes + "-" + i + ".txt.gz");
+            ficheros.add(fichero.toString());
+            trabajadores.add(executor.submit(() -> escribir(mes, fichero, cola, movimientos)));
+        }
+        try {
+            try {
+                leer(desde, hasta, cola);
+            }
+            finally {
+                // Aunque la lectura falle, los trabajadores tienen que terminar para cerrar sus ficheros
+                for (int i = 0; i < hilos; i++)
+                    cola.put(FIN);
+            }
+            long extractos = 0;
+            for (Future<Long> trabajador : trabajadores)
+                extractos += trabajador.get();
+            ResultadoExtractos resultado = new ResultadoExtractos(mes, extractos, movimientos.get(), ficheros,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+            log.info("Extractos de {}: {} cuentas, {} movimientos en {} ficheros, {} ms, {} extractos/s", mes,
+                    extractos, resultado.getMovimientos(), ficheros.size(), resultado.getDuracionMs(),
+                    String.format("%.0f", resultado.getExtractosPorSegundo()));
+            return resultado;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generación de extractos interrumpida", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Error al escribir los extractos de " + mes, e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Cruza los dos cursores, ambos ordenados por cuenta, y encola un extracto por cuenta
+    private void leer(Timestamp desde, Timestamp hasta, BlockingQueue<Extracto> cola) throws InterruptedException {
+        try (Stream<Extracto> cuentas = cursor.queryForStream(
+                "SELECT c.id, c.persona, c.saldo " +
+                        "+ COALESCE((SELECT SUM(f.saldo) FROM cuentas_fragmentos f WHERE f.cuenta_id = c.id), 0) " +
+                        "- COALESCE((SELECT SUM(m.monto) FROM movimientos m " +
+                        "WHERE m.cuenta_id = c.id AND m.fecha >= ?), 0) " +
+                        "FROM cuentas c ORDER BY c.id",
+                (rs, rowNum) -> new Extracto(rs.getLong(1), rs.getString(2), rs.getBigDecimal(3)), hasta);
+             Stream<Linea> lineas = cursor.queryForStream(
+                     "SELECT cuenta_id, fecha, monto, saldo, contraparte_id FROM movimientos " +
+                             "WHERE fecha >= ? AND fecha < ? ORDER BY cuenta_id, fecha, id",
+                     (rs, rowNum) -> new Linea(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(),
+                             rs.getBigDecimal(3), rs.getBigDecimal(4), rs.getObject(5, Long.class)), desde, hasta)) {
+            Iterator<Linea> movimientos = lineas.iterator();
+            Linea movimiento = movimientos.hasNext() ? movimientos.next() : null;
+            for (Iterator<Extracto> it = cuentas.iterator(); it.hasNext(); ) {
+                Extracto extracto = it.next();
+                // Movimientos de cuentas que ya no están en "cuentas"(borradas o archivadas)
+                while (movimiento != null && movimiento.cuentaId < extracto.cuentaId)
+                    movimiento = movimientos.hasNext() ? movimientos.next() : null;
+                while (movimiento != null && movimiento.cuentaId == extracto.cuentaId) {
+                    extracto.movimientos.add(movimiento);
+                    movimiento = movimientos.hasNext() ? movimientos.next() : null;
+                }
+                cola.put(extracto);
+            }
+        }
+    }
+
+    // Trabajador: formatea los extractos que saca de la cola en su fichero hasta encontrar FIN
+    private static long escribir(YearMonth mes, Path fichero, BlockingQueue<Extracto> cola, AtomicLong movimientos)
+            throws IOException, InterruptedException {
+        long escritos = 0;
+        try (Writer salida = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(fichero), 64 * 1024), StandardCharsets.UTF_8))) {
+            while (true) {
+                Extracto extracto = cola.take();
+                if (extracto == FIN)
+                    return escritos;
+                extracto.formatear(mes, salida);
+                escritos++;
+                movimientos.addAndGet(extracto.movimientos.size());
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            // Se sigue vaciando la cola para que la lectura no se quede bloqueada; el error se informa al final
+            while (cola.take() != FIN) {
+            }
+            throw e;
+        }
+    }
+
+    private static class Extracto {
+        final long cuentaId;
+        final String persona;
+        final BigDecimal saldoFinal;
+        // Movimientos del mes en orden de fecha
+        final List<Linea> movimientos = new ArrayList<>();
+
+        Extracto(long cuentaId, String persona, BigDecimal saldoFinal) {
+            this.cuentaId = cuentaId;
+            this.persona = persona;
+            this.saldoFinal = saldoFinal;
+        }
+
+        void formatear(YearMonth mes, Writer salida) throws IOException {
+            BigDecimal saldoInicial = saldoFinal;
+            for (Linea movimiento : movimientos)
+                saldoInicial = saldoInicial.subtract(movimiento.monto);
+            salida.write("Extracto " + mes + " - Cuenta " + cuentaId + " - " + persona + "\n");
+            salida.write("Saldo inicial: " + saldoInicial.toPlainString() + "\n");
+            for (Linea movimiento : movimientos)
+                salida.write(movimiento.fecha + "\t" + movimiento.monto.toPlainString() + "\tcontraparte "
+                        + movimiento.contraparteId + "\tsaldo " + movimiento.saldo.toPlainString() + "\n");
+            salida.write("Saldo final: " + saldoFinal.toPlainString() + "\n\n");
+        }
+    }
+
+    private static class Linea {
+        final long cuentaId;
+        final LocalDateTime fecha;
+        final BigDecimal monto;
+        final BigDecimal saldo;
+        final Long contraparteId;
+
+        Linea(long cuentaId, LocalDateTime fecha, BigDecimal monto, BigDecimal saldo, Long contraparteId) {
+            this.cuentaId = cuentaId;
+            this.fecha = fecha;
+            this.monto = monto;
+            this.saldo = saldo;
+            this.contraparteId = contraparteId;
+        }
+    }
+}
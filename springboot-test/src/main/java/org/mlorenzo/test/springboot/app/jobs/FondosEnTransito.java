@@ -0,0 +1,9 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import java.math.BigDecimal;
+
+// Dinero que ha salido de una cuenta pero todavía no ha llegado a otra(p. ej. una transferencia a medio confirmar).
+// La conciliación suma el importe de todos los beans que implementen esta interfaz.
+public interface FondosEnTransito {
+    BigDecimal calcular();
+}
@@ -0,0 +1,25 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.mlorenzo.test.springboot.app.models.ResultadoIntereses;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+// Endpoint de administración "/actuator/intereses": POST {"ejecucionId": "...", "tasa": 0.01} aplica la tasa a todas
+// las cuentas. Repetir la llamada con el mismo id no vuelve a aplicar los tramos ya hechos.
+@Component
+@Endpoint(id = "intereses")
+public class InteresEndpoint {
+    private final InteresJob interesJob;
+
+    public InteresEndpoint(InteresJob interesJob) {
+        this.interesJob = interesJob;
+    }
+
+    @WriteOperation
+    public ResultadoIntereses ejecutar(String ejecucionId, BigDecimal tasa) {
+        return interesJob.ejecutar(ejecucionId, tasa);
+    }
+}
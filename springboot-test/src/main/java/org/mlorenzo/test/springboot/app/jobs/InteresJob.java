@@ -0,0 +1,108 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.mlorenzo.test.springboot.app.models.RangoIds;
+import org.mlorenzo.test.springboot.app.models.ResultadoIntereses;
+import org.mlorenzo.test.springboot.app.models.entities.InteresTramo;
+import org.mlorenzo.test.springboot.app.repositories.InteresTramoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Aplica una tasa de interés(positiva) o de comisión(negativa) a todas las cuentas con UPDATE por rangos de ids en
+// lugar de cargar cada Cuenta y llamar a "credito"/"debito". El importe se redondea a céntimos con ROUND(x, 2), que
+// es HALF_UP igual que Cuenta.calcularInteres, y se incrementa la versión de la fila para que una transferencia
+// concurrente sobre la misma cuenta detecte el conflicto y se reintente.
+// Cada tramo se actualiza y se registra en "interes_tramos" en la misma transacción, así que la ejecución es
+// idempotente por id: relanzarla sólo procesa los tramos que faltan.
+@Component
+public class InteresJob {
+    private static final Logger log = LoggerFactory.getLogger(InteresJob.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final InteresTramoRepository tramoRepository;
+    private final int hilos;
+    private final long tamanoTramo;
+    private final BigDecimal tasaProgramada;
+
+    public InteresJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                      InteresTramoRepository tramoRepository,
+                      @Value("${intereses.hilos:4}") int hilos,
+                      @Value("${intereses.tamano-tramo:10000}") long tamanoTramo,
+                      @Value("${intereses.tasa:#{null}}") BigDecimal tasaProgramada) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tramoRepository = tramoRepository;
+        this.hilos = hilos;
+        this.tamanoTramo = tamanoTramo;
+        this.tasaProgramada = tasaProgramada;
+    }
+
+    // Por defecto no se programa("-"). P. ej. el día 1 de cada mes: intereses.cron=0 0 2 1 * *
+    @Scheduled(cron = "${intereses.cron:-}")
+    public void ejecutarProgramada() {
+        if (tasaProgramada == null) {
+            log.warn("Proceso de intereses programado sin \"intereses.tasa\"; no se aplica nada");
+            return;
+        }
+        // Un id por mes: relanzarlo dentro del mismo mes no vuelve a aplicar el interés
+        ejecutar("intereses-" + YearMonth.now(), tasaProgramada);
+    }
+
+    public ResultadoIntereses ejecutar(String ejecucionId, BigDecimal tasa) {
+        // Con una tasa mayor que -1 un saldo no negativo nunca queda en negativo, igual que valida "debito"
+        if (tasa == null || tasa.compareTo(BigDecimal.ONE.negate()) <= 0)
+            throw new IllegalArgumentException("La tasa debe ser mayor que -1");
+        long inicio = System.nanoTime();
+        List<InteresTramo> hechos = tramoRepository.findByEjecucionId(ejecucionId);
+        TreeMap<Long, Long> rangosHechos = new TreeMap<>();
+        for (InteresTramo hecho : hechos) {
+            if (hecho.getTasa().compareTo(tasa) != 0)
+                throw new IllegalArgumentException("La ejecución " + ejecucionId + " ya se inició con la tasa "
+                        + hecho.getTasa());
+            rangosHechos.put(hecho.getDesde(), hecho.getHasta());
+        }
+
+        long[] limites = jdbcTemplate.queryForObject("SELECT MIN(id), MAX(id) FROM cuentas",
+                (rs, rowNum) -> rs.getObject(1) == null ? null : new long[]{rs.getLong(1), rs.getLong(2)});
+        List<RangoIds> pendientes = limites == null ? List.of()
+                : RangoIds.pendientes(limites[0], limites[1], tamanoTramo, rangosHechos);
+        List<InteresTramo> nuevos = ProcesadorTramos.procesar("intereses", hilos, pendientes,
+                rango -> aplicarTramo(ejecucionId, tasa, rango));
+
+        long cuentas = nuevos.stream().mapToLong(InteresTramo::getCuentasActualizadas).sum();
+        ResultadoIntereses resultado = new ResultadoIntereses(ejecucionId, tasa, cuentas,
+                hechos.size() + nuevos.size(), hechos.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        log.info("Intereses {}: tasa={}, {} cuentas en {} tramos({} reanudados), {} ms, {} cuentas/s", ejecucionId,
+                tasa, cuentas, resultado.getTramos(), resultado.getTramosReanudados(), resultado.getDuracionMs(),
+                String.format("%.0f", resultado.getCuentasPorSegundo()));
+        return resultado;
+    }
+
+    private InteresTramo aplicarTramo(String ejecucionId, BigDecimal tasa, RangoIds rango) {
+        return transactionTemplate.execute(status -> {
+            // En las cuentas fragmentadas el interés se calcula sobre el saldo total y se abona en la fila principal
+            int actualizadas = jdbcTemplate.update(
+                    "UPDATE cuentas SET saldo = saldo + ROUND((saldo + COALESCE((SELECT SUM(f.saldo) " +
+                            "FROM cuentas_fragmentos f WHERE f.cuenta_id = cuentas.id), 0)) * ?, 2), " +
+                            "version = version + 1 WHERE id BETWEEN ? AND ?",
+                    tasa, rango.getDesde(), rango.getHasta());
+            // Si otra instancia ya registró este tramo, la restricción única hace fallar el INSERT y se deshace
+            // también el UPDATE
+            return tramoRepository.save(new InteresTramo(ejecucionId, rango.getDesde(), rango.getHasta(), tasa,
+                    actualizadas));
+        });
+    }
+}
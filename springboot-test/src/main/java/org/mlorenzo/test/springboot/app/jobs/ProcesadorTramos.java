@@ -0,0 +1,48 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.mlorenzo.test.springboot.app.models.RangoIds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Reparte los tramos de un proceso por lotes entre un número acotado de hilos. Cada hilo usa su propia conexión
+// (la tarea abre su transacción), así que el paralelismo real lo limita también el tamaño del pool de conexiones.
+class ProcesadorTramos {
+
+    private ProcesadorTramos() {
+    }
+
+    static <T> List<T> procesar(String nombre, int hilos, List<RangoIds> rangos, Function<RangoIds, T> tarea) {
+        List<T> resultados = new ArrayList<>();
+        if (rangos.isEmpty())
+            return resultados;
+        AtomicInteger contador = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(hilos, rangos.size()), r -> {
+            Thread hilo = new Thread(r, nombre + "-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        try {
+            CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+            for (RangoIds rango : rangos)
+                completionService.submit(() -> tarea.apply(rango));
+            for (int i = 0; i < rangos.size(); i++)
+                resultados.add(completionService.take().get());
+            return resultados;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Proceso " + nombre + " interrumpido", e);
+        }
+        catch (ExecutionException e) {
+            // Los tramos ya terminados quedan registrados; relanzar con el mismo id continúa desde ahí
+            throw new IllegalStateException("Error en el proceso " + nombre, e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
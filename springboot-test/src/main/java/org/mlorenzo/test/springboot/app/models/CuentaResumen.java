@@ -0,0 +1,44 @@
+package org.mlorenzo.test.springboot.app.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+
+// Vista de sólo lectura de una cuenta, con el mismo JSON que Cuenta. CuentaRepository la construye directamente en la
+// consulta("select new ..."), así que Hibernate no la gestiona: no entra en el contexto de persistencia, no hay copia
+// del estado para comprobar cambios y cada fila es un único objeto con cuatro campos.
+public class CuentaResumen {
+    private final Long id;
+    private final String persona;
+    private final BigDecimal saldo;
+    private final int fragmentos;
+
+    public CuentaResumen(Long id, String persona, BigDecimal saldo, int fragmentos) {
+        this.id = id;
+        this.persona = persona;
+        this.saldo = saldo;
+        this.fragmentos = fragmentos;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getPersona() {
+        return persona;
+    }
+
+    public BigDecimal getSaldo() {
+        return saldo;
+    }
+
+    // Como en Cuenta, si es mayor que 0 el saldo real incluye los sub-saldos(ver SaldosFragmentados)
+    @JsonIgnore
+    public int getFragmentos() {
+        return fragmentos;
+    }
+
+    public CuentaResumen conSaldo(BigDecimal saldo) {
+        return new CuentaResumen(id, persona, saldo, fragmentos);
+    }
+}
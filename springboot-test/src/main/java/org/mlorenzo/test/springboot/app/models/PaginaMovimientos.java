@@ -0,0 +1,24 @@
+package org.mlorenzo.test.springboot.app.models;
+
+import org.mlorenzo.test.springboot.app.models.entities.Movimiento;
+
+import java.util.List;
+
+public class PaginaMovimientos {
+    private final List<Movimiento> movimientos;
+    // Cursor para pedir la página siguiente(null si no hay más)
+    private final String siguiente;
+
+    public PaginaMovimientos(List<Movimiento> movimientos, String siguiente) {
+        this.movimientos = movimientos;
+        this.siguiente = siguiente;
+    }
+
+    public List<Movimiento> getMovimientos() {
+        return movimientos;
+    }
+
+    public String getSiguiente() {
+        return siguiente;
+    }
+}
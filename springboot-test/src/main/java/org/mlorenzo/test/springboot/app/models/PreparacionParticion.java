@@ -0,0 +1,53 @@
+package org.mlorenzo.test.springboot.app.models;
+
+import java.math.BigDecimal;
+
+// Petición de "preparar" que el coordinador envía a la partición de la cuenta destino
+public class PreparacionParticion {
+    private String xid;
+    private Long cuentaId;
+    private Long contraparteId;
+    private BigDecimal monto;
+
+    public PreparacionParticion() {
+    }
+
+    public PreparacionParticion(String xid, Long cuentaId, Long contraparteId, BigDecimal monto) {
+        this.xid = xid;
+        this.cuentaId = cuentaId;
+        this.contraparteId = contraparteId;
+        this.monto = monto;
+    }
+
+    public String getXid() {
+        return xid;
+    }
+
+    public void setXid(String xid) {
+        this.xid = xid;
+    }
+
+    public Long getCuentaId() {
+        return cuentaId;
+    }
+
+    public void setCuentaId(Long cuentaId) {
+        this.cuentaId = cuentaId;
+    }
+
+    public Long getContraparteId() {
+        return contraparteId;
+    }
+
+    public void setContraparteId(Long contraparteId) {
+        this.contraparteId = contraparteId;
+    }
+
+    public BigDecimal getMonto() {
+        return monto;
+    }
+
+    public void setMonto(BigDecimal monto) {
+        this.monto = monto;
+    }
+}
@@ -0,0 +1,54 @@
+package org.mlorenzo.test.springboot.app.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+
+// Rango cerrado [desde, hasta] de identificadores. Lo usan los procesos por lotes para repartir la tabla en tramos
+// que se pueden recorrer en paralelo y reanudar de forma independiente.
+public class RangoIds {
+    private final long desde;
+    private final long hasta;
+
+    public RangoIds(long desde, long hasta) {
+        this.desde = desde;
+        this.hasta = hasta;
+    }
+
+    // Tramos que quedan por procesar entre "min" y "max" sabiendo que los de "hechos"(desde -> hasta) ya se
+    // procesaron. Se empieza por el menor id entre "min" y los tramos hechos, y los tramos nuevos se cortan antes del
+    // siguiente tramo hecho, de modo que nunca se solapan aunque cambie el tamaño del tramo o se borren filas.
+    public static List<RangoIds> pendientes(long min, long max, long tamano, NavigableMap<Long, Long> hechos) {
+        if (tamano <= 0)
+            throw new IllegalArgumentException("El tamaño del tramo debe ser mayor que 0");
+        List<RangoIds> pendientes = new ArrayList<>();
+        long actual = hechos.isEmpty() ? min : Math.min(min, hechos.firstKey());
+        while (actual <= max) {
+            Long hastaHecho = hechos.get(actual);
+            if (hastaHecho != null) {
+                actual = hastaHecho + 1;
+                continue;
+            }
+            long hasta = Math.min(max, actual + tamano - 1);
+            Long siguienteHecho = hechos.higherKey(actual);
+            if (siguienteHecho != null)
+                hasta = Math.min(hasta, siguienteHecho - 1);
+            pendientes.add(new RangoIds(actual, hasta));
+            actual = hasta + 1;
+        }
+        return pendientes;
+    }
+
+    public long getDesde() {
+        return desde;
+    }
+
+    public long getHasta() {
+        return hasta;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + desde + ", " + hasta + "]";
+    }
+}
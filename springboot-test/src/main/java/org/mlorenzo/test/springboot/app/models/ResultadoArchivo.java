@@ -0,0 +1,36 @@
+package org.mlorenzo.test.springboot.app.models;
+
+public class ResultadoArchivo {
+    private final long cuentasArchivadas;
+    private final long lotes;
+    private final long pausaMs;
+    private final long duracionMs;
+
+    public ResultadoArchivo(long cuentasArchivadas, long lotes, long pausaMs, long duracionMs) {
+        this.cuentasArchivadas = cuentasArchivadas;
+        this.lotes = lotes;
+        this.pausaMs = pausaMs;
+        this.duracionMs = duracionMs;
+    }
+
+    public long getCuentasArchivadas() {
+        return cuentasArchivadas;
+    }
+
+    public long getLotes() {
+        return lotes;
+    }
+
+    // Tiempo que el proceso ha cedido al tráfico en línea entre lotes
+    public long getPausaMs() {
+        return pausaMs;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public double getCuentasPorSegundo() {
+        return duracionMs == 0 ? cuentasArchivadas : cuentasArchivadas * 1000.0 / duracionMs;
+    }
+}
@@ -0,0 +1,52 @@
+package org.mlorenzo.test.springboot.app.models;
+
+import org.mlorenzo.test.springboot.app.models.entities.Liquidacion;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public class ResultadoCompensacion {
+    private final LocalDate dia;
+    private final long transferencias;
+    private final boolean yaLiquidado;
+    private final List<Liquidacion> posiciones;
+    // Total acumulado de transferencias de cada banco después de la liquidación
+    private final Map<Long, Integer> totalTransferencias;
+    private final long duracionMs;
+
+    public ResultadoCompensacion(LocalDate dia, long transferencias, boolean yaLiquidado,
+                                 List<Liquidacion> posiciones, Map<Long, Integer> totalTransferencias,
+                                 long duracionMs) {
+        this.dia = dia;
+        this.transferencias = transferencias;
+        this.yaLiquidado = yaLiquidado;
+        this.posiciones = posiciones;
+        this.totalTransferencias = totalTransferencias;
+        this.duracionMs = duracionMs;
+    }
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public long getTransferencias() {
+        return transferencias;
+    }
+
+    public boolean isYaLiquidado() {
+        return yaLiquidado;
+    }
+
+    public List<Liquidacion> getPosiciones() {
+        return posiciones;
+    }
+
+    public Map<Long, Integer> getTotalTransferencias() {
+        return totalTransferencias;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+}
@@ -0,0 +1,81 @@
+package org.mlorenzo.test.springboot.app.models;
+
+import org.mlorenzo.test.springboot.app.models.entities.ConciliacionAnomalia;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class ResultadoConciliacion {
+    private final String ejecucionId;
+    private final long cuentas;
+    private final BigDecimal totalSaldos;
+    private final BigDecimal enTransito;
+    private final BigDecimal totalEsperado;
+    private final long tramos;
+    private final long tramosReanudados;
+    private final long totalAnomalias;
+    private final List<ConciliacionAnomalia> anomalias;
+    private final long duracionMs;
+
+    public ResultadoConciliacion(String ejecucionId, long cuentas, BigDecimal totalSaldos, BigDecimal enTransito,
+                                 BigDecimal totalEsperado, long tramos, long tramosReanudados, long totalAnomalias,
+                                 List<ConciliacionAnomalia> anomalias, long duracionMs) {
+        this.ejecucionId = ejecucionId;
+        this.cuentas = cuentas;
+        this.totalSaldos = totalSaldos;
+        this.enTransito = enTransito;
+        this.totalEsperado = totalEsperado;
+        this.tramos = tramos;
+        this.tramosReanudados = tramosReanudados;
+        this.totalAnomalias = totalAnomalias;
+        this.anomalias = anomalias;
+        this.duracionMs = duracionMs;
+    }
+
+    // El dinero se conserva si los saldos más lo que está en tránsito coinciden con el total esperado(cuando se
+    // conoce) y no hay ninguna cuenta en negativo.
+    public boolean isCuadra() {
+        boolean totalCorrecto = totalEsperado == null || totalSaldos.add(enTransito).compareTo(totalEsperado) == 0;
+        return totalCorrecto && totalAnomalias == 0;
+    }
+
+    public String getEjecucionId() {
+        return ejecucionId;
+    }
+
+    public long getCuentas() {
+        return cuentas;
+    }
+
+    public BigDecimal getTotalSaldos() {
+        return totalSaldos;
+    }
+
+    public BigDecimal getEnTransito() {
+        return enTransito;
+    }
+
+    public BigDecimal getTotalEsperado() {
+        return totalEsperado;
+    }
+
+    public long getTramos() {
+        return tramos;
+    }
+
+    public long getTramosReanudados() {
+        return tramosReanudados;
+    }
+
+    public long getTotalAnomalias() {
+        return totalAnomalias;
+    }
+
+    public List<ConciliacionAnomalia> getAnomalias() {
+        return anomalias;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+}
@@ -0,0 +1,45 @@
+package org.mlorenzo.test.springboot.app.models;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public class ResultadoExtractos {
+    private final YearMonth mes;
+    private final long extractos;
+    private final long movimientos;
+    private final List<String> ficheros;
+    private final long duracionMs;
+
+    public ResultadoExtractos(YearMonth mes, long extractos, long movimientos, List<String> ficheros,
+                              long duracionMs) {
+        this.mes = mes;
+        this.extractos = extractos;
+        this.movimientos = movimientos;
+        this.ficheros = ficheros;
+        this.duracionMs = duracionMs;
+    }
+
+    public YearMonth getMes() {
+        return mes;
+    }
+
+    public long getExtractos() {
+        return extractos;
+    }
+
+    public long getMovimientos() {
+        return movimientos;
+    }
+
+    public List<String> getFicheros() {
+        return ficheros;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public double getExtractosPorSegundo() {
+        return duracionMs == 0 ? extractos : extractos * 1000.0 / duracionMs;
+    }
+}
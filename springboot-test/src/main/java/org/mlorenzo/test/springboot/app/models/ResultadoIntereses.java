@@ -0,0 +1,51 @@
+package org.mlorenzo.test.springboot.app.models;
+
+import java.math.BigDecimal;
+
+public class ResultadoIntereses {
+    private final String ejecucionId;
+    private final BigDecimal tasa;
+    private final long cuentasActualizadas;
+    private final long tramos;
+    private final long tramosReanudados;
+    private final long duracionMs;
+
+    public ResultadoIntereses(String ejecucionId, BigDecimal tasa, long cuentasActualizadas, long tramos,
+                              long tramosReanudados, long duracionMs) {
+        this.ejecucionId = ejecucionId;
+        this.tasa = tasa;
+        this.cuentasActualizadas = cuentasActualizadas;
+        this.tramos = tramos;
+        this.tramosReanudados = tramosReanudados;
+        this.duracionMs = duracionMs;
+    }
+
+    public String getEjecucionId() {
+        return ejecucionId;
+    }
+
+    public BigDecimal getTasa() {
+        return tasa;
+    }
+
+    public long getCuentasActualizadas() {
+        return cuentasActualizadas;
+    }
+
+    public long getTramos() {
+        return tramos;
+    }
+
+    public long getTramosReanudados() {
+        return tramosReanudados;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    // Rendimiento de esta ejecución(sólo cuenta las filas actualizadas ahora, no las de tramos reanudados)
+    public double getCuentasPorSegundo() {
+        return duracionMs == 0 ? cuentasActualizadas : cuentasActualizadas * 1000.0 / duracionMs;
+    }
+}
@@ -1,5 +1,7 @@
 package org.mlorenzo.test.springboot.app.models;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.math.BigDecimal;
 
 public class TransaccionDto {
@@ -7,6 +9,9 @@ public class TransaccionDto {
     private Long cuentaDestinoId;
     private BigDecimal monto;
     private Long bancoId;
+    // Banco de la cuenta destino(opcional); en modo compensación se anota la deuda entre "bancoId" y este banco
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long bancoDestinoId;
 
     public Long getCuentaOrigenId() {
         return cuentaOrigenId;
@@ -39,4 +44,12 @@ public class TransaccionDto {
     public void setBancoId(Long bancoId) {
         this.bancoId = bancoId;
     }
+
+    public Long getBancoDestinoId() {
+        return bancoDestinoId;
+    }
+
+    public void setBancoDestinoId(Long bancoDestinoId) {
+        this.bancoDestinoId = bancoDestinoId;
+    }
 }
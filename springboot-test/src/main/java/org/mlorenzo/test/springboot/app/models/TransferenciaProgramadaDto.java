@@ -0,0 +1,16 @@
+package org.mlorenzo.test.springboot.app.models;
+
+import java.time.LocalDateTime;
+
+// Transferencia con fecha de ejecución, p. ej.: {..., "fechaEjecucion": "2021-09-01T08:00:00"}
+public class TransferenciaProgramadaDto extends TransaccionDto {
+    private LocalDateTime fechaEjecucion;
+
+    public LocalDateTime getFechaEjecucion() {
+        return fechaEjecucion;
+    }
+
+    public void setFechaEjecucion(LocalDateTime fechaEjecucion) {
+        this.fechaEjecucion = fechaEjecucion;
+    }
+}
@@ -17,6 +17,10 @@ public class Banco {
     @Column(name = "total_transferencias")
     private int totalTransferencias;
 
+    // Control de concurrencia optimista(ver Cuenta)
+    @Version
+    private long version;
+
     public Banco() {
     }
 
@@ -49,4 +53,12 @@ public class Banco {
     public void setTotalTransferencias(int totalTransferencias) {
         this.totalTransferencias = totalTransferencias;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
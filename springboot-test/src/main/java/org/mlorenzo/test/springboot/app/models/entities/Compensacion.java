@@ -0,0 +1,58 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Importe que el banco origen debe al banco destino por una transferencia del día. Se liquida al final del día con
+// el resto de transferencias entre ambos(ver CompensacionJob).
+@Entity
+@Table(name = "compensaciones", indexes = @Index(name = "idx_compensaciones_dia", columnList = "dia, id"))
+public class Compensacion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate dia;
+
+    @Column(name = "banco_origen_id", nullable = false)
+    private Long bancoOrigenId;
+
+    @Column(name = "banco_destino_id", nullable = false)
+    private Long bancoDestinoId;
+
+    @Column(nullable = false)
+    private BigDecimal monto;
+
+    public Compensacion() {
+    }
+
+    public Compensacion(LocalDate dia, Long bancoOrigenId, Long bancoDestinoId, BigDecimal monto) {
+        this.dia = dia;
+        this.bancoOrigenId = bancoOrigenId;
+        this.bancoDestinoId = bancoDestinoId;
+        this.monto = monto;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public Long getBancoOrigenId() {
+        return bancoOrigenId;
+    }
+
+    public Long getBancoDestinoId() {
+        return bancoDestinoId;
+    }
+
+    public BigDecimal getMonto() {
+        return monto;
+    }
+}
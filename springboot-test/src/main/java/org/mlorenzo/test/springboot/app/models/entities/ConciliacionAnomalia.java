@@ -0,0 +1,47 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+
+// Cuenta con saldo negativo encontrada por una ejecución de la conciliación
+@Entity
+@Table(name = "conciliacion_anomalias")
+public class ConciliacionAnomalia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ejecucion_id", nullable = false)
+    private String ejecucionId;
+
+    @Column(name = "cuenta_id")
+    private Long cuentaId;
+
+    private BigDecimal saldo;
+
+    public ConciliacionAnomalia() {
+    }
+
+    public ConciliacionAnomalia(String ejecucionId, Long cuentaId, BigDecimal saldo) {
+        this.ejecucionId = ejecucionId;
+        this.cuentaId = cuentaId;
+        this.saldo = saldo;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEjecucionId() {
+        return ejecucionId;
+    }
+
+    public Long getCuentaId() {
+        return cuentaId;
+    }
+
+    public BigDecimal getSaldo() {
+        return saldo;
+    }
+}
@@ -0,0 +1,68 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Punto de control de la conciliación: cada fila es un tramo de ids ya recorrido en una ejecución, con sus sumas
+// parciales. Si la ejecución se interrumpe, al relanzarla con el mismo id se saltan los tramos ya registrados.
+@Entity
+@Table(name = "conciliacion_tramos",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"ejecucion_id", "desde"}))
+public class ConciliacionTramo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ejecucion_id", nullable = false)
+    private String ejecucionId;
+
+    private long desde;
+    private long hasta;
+    private long cuentas;
+    private BigDecimal total;
+
+    @Column(name = "completado_en")
+    private LocalDateTime completadoEn;
+
+    public ConciliacionTramo() {
+    }
+
+    public ConciliacionTramo(String ejecucionId, long desde, long hasta, long cuentas, BigDecimal total) {
+        this.ejecucionId = ejecucionId;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.cuentas = cuentas;
+        this.total = total;
+        this.completadoEn = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEjecucionId() {
+        return ejecucionId;
+    }
+
+    public long getDesde() {
+        return desde;
+    }
+
+    public long getHasta() {
+        return hasta;
+    }
+
+    public long getCuentas() {
+        return cuentas;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public LocalDateTime getCompletadoEn() {
+        return completadoEn;
+    }
+}
@@ -1,13 +1,22 @@
 package org.mlorenzo.test.springboot.app.models.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.DynamicUpdate;
 import org.mlorenzo.test.springboot.app.exceptions.DineroInsuficienteException;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.Objects;
 
 @Entity
-@Table(name = "cuentas")
+// El índice(saldo, id) sirve a la consulta por rango de saldo y a su paginación por clave, y el índice(cerrada, id)
+// a ArchivoJob para encontrar las cuentas cerradas sin recorrer la tabla.
+// Los UPDATE sólo incluyen las columnas modificadas: una transferencia no vuelve a escribir "persona"
+@DynamicUpdate
+@Table(name = "cuentas", indexes = {
+        @Index(name = "idx_cuentas_saldo", columnList = "saldo, id"),
+        @Index(name = "idx_cuentas_cerrada", columnList = "cerrada, id")})
 public class Cuenta {
 
     @Id
@@ -17,6 +26,22 @@ public class Cuenta {
     private String persona;
     private BigDecimal saldo;
 
+    // Control de concurrencia optimista. Hibernate incrementa esta versión en cada actualización y, si otra
+    // transacción modificó la fila entre medias, lanza una excepción en lugar de sobrescribir el saldo.
+    // No forma parte del JSON de la API.
+    @JsonIgnore
+    @Version
+    private long version;
+
+    // Número de sub-saldos(tabla "cuentas_fragmentos") entre los que se reparten los créditos de una cuenta con mucha
+    // contención; 0 si la cuenta no está fragmentada. El saldo real es "saldo" más la suma de los sub-saldos.
+    @JsonIgnore
+    private int fragmentos;
+
+    // Una cuenta cerrada no admite transferencias y ArchivoJob la mueve a "cuentas_archivo"
+    @JsonIgnore
+    private boolean cerrada;
+
     public Cuenta() {
     }
 
@@ -50,6 +75,30 @@ public class Cuenta {
         this.saldo = saldo;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public int getFragmentos() {
+        return fragmentos;
+    }
+
+    public void setFragmentos(int fragmentos) {
+        this.fragmentos = fragmentos;
+    }
+
+    public boolean isCerrada() {
+        return cerrada;
+    }
+
+    public void setCerrada(boolean cerrada) {
+        this.cerrada = cerrada;
+    }
+
     // Como las instancias de BigDecimal son inmutables
     public void debito(BigDecimal monto) {
         BigDecimal nuevoSaldo = this.saldo.subtract(monto);
@@ -63,6 +112,12 @@ public class Cuenta {
         this.saldo = this.saldo.add(monto);
     }
 
+    // Interés(o comisión, si la tasa es negativa) redondeado a céntimos con HALF_UP, el mismo redondeo que hace
+    // ROUND(x, 2) en la base de datos. El resultado se aplica al saldo con "credito".
+    public BigDecimal calcularInteres(BigDecimal tasa) {
+        return this.saldo.multiply(tasa).setScale(2, RoundingMode.HALF_UP);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
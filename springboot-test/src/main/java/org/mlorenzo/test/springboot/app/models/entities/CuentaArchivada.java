@@ -0,0 +1,40 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Cuenta cerrada que ArchivoJob ha sacado de "cuentas". Conserva el id original, así que los movimientos de la cuenta
+// siguen apuntando a ella.
+@Entity
+@Table(name = "cuentas_archivo")
+public class CuentaArchivada {
+
+    @Id
+    private Long id;
+
+    private String persona;
+    private BigDecimal saldo;
+
+    @Column(name = "fecha_archivo", nullable = false)
+    private LocalDateTime fechaArchivo;
+
+    public CuentaArchivada() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getPersona() {
+        return persona;
+    }
+
+    public BigDecimal getSaldo() {
+        return saldo;
+    }
+
+    public LocalDateTime getFechaArchivo() {
+        return fechaArchivo;
+    }
+}
@@ -0,0 +1,7 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+public enum EstadoReserva {
+    PREPARADA,
+    CONFIRMADA,
+    ABORTADA
+}
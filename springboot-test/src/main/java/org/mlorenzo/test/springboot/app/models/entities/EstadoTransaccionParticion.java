@@ -0,0 +1,7 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+public enum EstadoTransaccionParticion {
+    INICIADA,
+    CONFIRMADA,
+    ABORTADA
+}
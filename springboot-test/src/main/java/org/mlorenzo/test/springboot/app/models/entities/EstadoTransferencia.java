@@ -0,0 +1,6 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+public enum EstadoTransferencia {
+    // CANCELADA sólo la usan las transferencias programadas
+    PENDIENTE, EN_PROCESO, COMPLETADA, FALLIDA, CANCELADA
+}
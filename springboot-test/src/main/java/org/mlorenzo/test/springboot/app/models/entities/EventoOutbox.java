@@ -0,0 +1,94 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// Evento pendiente de entregar a los sistemas externos. Se inserta en la misma transacción que el cambio que lo origina
+// y el relay(OutboxRelay) lo reclama, lo entrega y lo marca como enviado.
+@Entity
+@Table(name = "outbox_eventos", indexes = {
+        @Index(name = "idx_outbox_eventos_pendientes", columnList = "enviado, id"),
+        @Index(name = "idx_outbox_eventos_lote", columnList = "lote")})
+public class EventoOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 50, nullable = false)
+    private String tipo;
+
+    @Column(name = "agregado_id")
+    private Long agregadoId;
+
+    @Column(length = 2000, nullable = false)
+    private String payload;
+
+    private LocalDateTime creado;
+
+    // Lote del relay que lo ha reclamado y hasta cuándo; si el relay se cae, otro lo reclama cuando caduca
+    @Column(length = 36)
+    private String lote;
+
+    @Column(name = "reclamado_hasta")
+    private LocalDateTime reclamadoHasta;
+
+    private boolean enviado;
+
+    @Column(name = "enviado_en")
+    private LocalDateTime enviadoEn;
+
+    public EventoOutbox() {
+    }
+
+    public EventoOutbox(String tipo, Long agregadoId, String payload) {
+        this.tipo = tipo;
+        this.agregadoId = agregadoId;
+        this.payload = payload;
+        this.creado = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public Long getAgregadoId() {
+        return agregadoId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreado() {
+        return creado;
+    }
+
+    public void setCreado(LocalDateTime creado) {
+        this.creado = creado;
+    }
+
+    public String getLote() {
+        return lote;
+    }
+
+    public LocalDateTime getReclamadoHasta() {
+        return reclamadoHasta;
+    }
+
+    public boolean isEnviado() {
+        return enviado;
+    }
+
+    public LocalDateTime getEnviadoEn() {
+        return enviadoEn;
+    }
+}
@@ -0,0 +1,49 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+
+// Sub-saldo de una cuenta fragmentada(ver Cuenta.fragmentos). Los créditos se suman a un fragmento al azar con un
+// UPDATE atómico, así que no necesita control de versión.
+@Entity
+@Table(name = "cuentas_fragmentos",
+        uniqueConstraints = @UniqueConstraint(name = "uk_cuentas_fragmentos", columnNames = {"cuenta_id", "fragmento"}))
+public class FragmentoSaldo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cuenta_id", nullable = false)
+    private Long cuentaId;
+
+    private int fragmento;
+
+    @Column(nullable = false)
+    private BigDecimal saldo;
+
+    public FragmentoSaldo() {
+    }
+
+    public FragmentoSaldo(Long cuentaId, int fragmento, BigDecimal saldo) {
+        this.cuentaId = cuentaId;
+        this.fragmento = fragmento;
+        this.saldo = saldo;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCuentaId() {
+        return cuentaId;
+    }
+
+    public int getFragmento() {
+        return fragmento;
+    }
+
+    public BigDecimal getSaldo() {
+        return saldo;
+    }
+}
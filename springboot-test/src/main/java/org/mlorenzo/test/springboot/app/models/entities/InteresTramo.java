@@ -0,0 +1,72 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Progreso del proceso de intereses: cada fila es un tramo de ids al que ya se le aplicó la tasa en una ejecución.
+// Se inserta en la misma transacción que el UPDATE del tramo, así que un tramo nunca se aplica dos veces.
+@Entity
+@Table(name = "interes_tramos",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"ejecucion_id", "desde"}))
+public class InteresTramo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ejecucion_id", nullable = false)
+    private String ejecucionId;
+
+    private long desde;
+    private long hasta;
+
+    @Column(precision = 19, scale = 8)
+    private BigDecimal tasa;
+
+    @Column(name = "cuentas_actualizadas")
+    private int cuentasActualizadas;
+
+    @Column(name = "completado_en")
+    private LocalDateTime completadoEn;
+
+    public InteresTramo() {
+    }
+
+    public InteresTramo(String ejecucionId, long desde, long hasta, BigDecimal tasa, int cuentasActualizadas) {
+        this.ejecucionId = ejecucionId;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.tasa = tasa;
+        this.cuentasActualizadas = cuentasActualizadas;
+        this.completadoEn = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEjecucionId() {
+        return ejecucionId;
+    }
+
+    public long getDesde() {
+        return desde;
+    }
+
+    public long getHasta() {
+        return hasta;
+    }
+
+    public BigDecimal getTasa() {
+        return tasa;
+    }
+
+    public int getCuentasActualizadas() {
+        return cuentasActualizadas;
+    }
+
+    public LocalDateTime getCompletadoEn() {
+        return completadoEn;
+    }
+}
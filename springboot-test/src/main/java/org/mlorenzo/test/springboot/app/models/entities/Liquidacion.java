@@ -0,0 +1,68 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Posición neta de un banco en un día: lo que ha enviado y recibido y el saldo neto a liquidar(positivo si le deben).
+// La restricción única impide liquidar dos veces el mismo día.
+@Entity
+@Table(name = "liquidaciones",
+        uniqueConstraints = @UniqueConstraint(name = "uk_liquidaciones_dia_banco", columnNames = {"dia", "banco_id"}))
+public class Liquidacion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate dia;
+
+    @Column(name = "banco_id", nullable = false)
+    private Long bancoId;
+
+    private BigDecimal enviado;
+    private BigDecimal recibido;
+    private BigDecimal neto;
+    private long transferencias;
+
+    public Liquidacion() {
+    }
+
+    public Liquidacion(LocalDate dia, Long bancoId, BigDecimal enviado, BigDecimal recibido, long transferencias) {
+        this.dia = dia;
+        this.bancoId = bancoId;
+        this.enviado = enviado;
+        this.recibido = recibido;
+        this.neto = recibido.subtract(enviado);
+        this.transferencias = transferencias;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public Long getBancoId() {
+        return bancoId;
+    }
+
+    public BigDecimal getEnviado() {
+        return enviado;
+    }
+
+    public BigDecimal getRecibido() {
+        return recibido;
+    }
+
+    public BigDecimal getNeto() {
+        return neto;
+    }
+
+    public long getTransferencias() {
+        return transferencias;
+    }
+}
@@ -0,0 +1,92 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Movimiento de una cuenta: cada transferencia genera uno negativo en la cuenta de origen y otro positivo en la de
+// destino. El índice (cuenta_id, fecha, id) permite leer los movimientos de una cuenta en orden y paginar por clave
+// (keyset) sin recorrer las filas anteriores, por muchos movimientos que tenga la cuenta.
+@Entity
+@Table(name = "movimientos",
+        indexes = @Index(name = "idx_movimientos_cuenta_fecha", columnList = "cuenta_id, fecha, id"))
+public class Movimiento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cuenta_id", nullable = false)
+    private Long cuentaId;
+
+    // Cuenta del otro lado de la transferencia
+    @Column(name = "contraparte_id")
+    private Long contraparteId;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    private BigDecimal monto;
+
+    // Saldo de la cuenta después del movimiento
+    private BigDecimal saldo;
+
+    public Movimiento() {
+    }
+
+    public Movimiento(Long cuentaId, Long contraparteId, LocalDateTime fecha, BigDecimal monto, BigDecimal saldo) {
+        this.cuentaId = cuentaId;
+        this.contraparteId = contraparteId;
+        this.fecha = fecha;
+        this.monto = monto;
+        this.saldo = saldo;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getCuentaId() {
+        return cuentaId;
+    }
+
+    public void setCuentaId(Long cuentaId) {
+        this.cuentaId = cuentaId;
+    }
+
+    public Long getContraparteId() {
+        return contraparteId;
+    }
+
+    public void setContraparteId(Long contraparteId) {
+        this.contraparteId = contraparteId;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+
+    public BigDecimal getMonto() {
+        return monto;
+    }
+
+    public void setMonto(BigDecimal monto) {
+        this.monto = monto;
+    }
+
+    public BigDecimal getSaldo() {
+        return saldo;
+    }
+
+    public void setSaldo(BigDecimal saldo) {
+        this.saldo = saldo;
+    }
+}
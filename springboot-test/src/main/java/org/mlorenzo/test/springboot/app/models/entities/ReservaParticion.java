@@ -0,0 +1,91 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Parte local de una transferencia entre particiones. Un débito(monto negativo) se descuenta del saldo al prepararse,
+// así que mientras está PREPARADA es dinero en tránsito; un crédito sólo se suma al saldo al confirmarse.
+// Un "abortar" de una transacción que no se llegó a preparar deja una reserva ABORTADA con monto 0 para que un
+// "preparar" retrasado no se aplique después.
+@Entity
+@Table(name = "reservas_particion")
+public class ReservaParticion {
+
+    @Id
+    @Column(length = 36)
+    private String xid;
+
+    @Column(name = "cuenta_id")
+    private Long cuentaId;
+
+    @Column(name = "contraparte_id")
+    private Long contraparteId;
+
+    // Sólo en el lado del débito, que es el que cuenta la transferencia en su banco(o la anota en la compensación
+    // entre los dos bancos)
+    @Column(name = "banco_id")
+    private Long bancoId;
+
+    @Column(name = "banco_destino_id")
+    private Long bancoDestinoId;
+
+    private BigDecimal monto;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private EstadoReserva estado;
+
+    private LocalDateTime fecha;
+
+    public ReservaParticion() {
+    }
+
+    public ReservaParticion(String xid, Long cuentaId, Long contraparteId, Long bancoId, Long bancoDestinoId,
+                            BigDecimal monto, EstadoReserva estado) {
+        this.xid = xid;
+        this.cuentaId = cuentaId;
+        this.contraparteId = contraparteId;
+        this.bancoId = bancoId;
+        this.bancoDestinoId = bancoDestinoId;
+        this.monto = monto;
+        this.estado = estado;
+        this.fecha = LocalDateTime.now();
+    }
+
+    public String getXid() {
+        return xid;
+    }
+
+    public Long getCuentaId() {
+        return cuentaId;
+    }
+
+    public Long getContraparteId() {
+        return contraparteId;
+    }
+
+    public Long getBancoId() {
+        return bancoId;
+    }
+
+    public Long getBancoDestinoId() {
+        return bancoDestinoId;
+    }
+
+    public BigDecimal getMonto() {
+        return monto;
+    }
+
+    public EstadoReserva getEstado() {
+        return estado;
+    }
+
+    public void setEstado(EstadoReserva estado) {
+        this.estado = estado;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+}
@@ -0,0 +1,98 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Registro del coordinador de una transferencia entre particiones. La decisión(CONFIRMADA o ABORTADA) se guarda aquí
+// antes de comunicarla a los participantes; "finalizada" indica que todos la han recibido.
+@Entity
+@Table(name = "transacciones_particion",
+        indexes = @Index(name = "idx_transacciones_particion_pendientes", columnList = "finalizada, iniciada"))
+public class TransaccionParticion {
+
+    @Id
+    @Column(length = 36)
+    private String xid;
+
+    @Column(name = "cuenta_origen_id")
+    private Long cuentaOrigenId;
+
+    @Column(name = "cuenta_destino_id")
+    private Long cuentaDestinoId;
+
+    @Column(name = "particion_destino")
+    private int particionDestino;
+
+    @Column(name = "banco_id")
+    private Long bancoId;
+
+    @Column(name = "banco_destino_id")
+    private Long bancoDestinoId;
+
+    private BigDecimal monto;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private EstadoTransaccionParticion estado;
+
+    private boolean finalizada;
+
+    private LocalDateTime iniciada;
+
+    public TransaccionParticion() {
+    }
+
+    public TransaccionParticion(String xid, Long cuentaOrigenId, Long cuentaDestinoId, int particionDestino,
+                                Long bancoId, Long bancoDestinoId, BigDecimal monto) {
+        this.xid = xid;
+        this.cuentaOrigenId = cuentaOrigenId;
+        this.cuentaDestinoId = cuentaDestinoId;
+        this.particionDestino = particionDestino;
+        this.bancoId = bancoId;
+        this.bancoDestinoId = bancoDestinoId;
+        this.monto = monto;
+        this.estado = EstadoTransaccionParticion.INICIADA;
+        this.iniciada = LocalDateTime.now();
+    }
+
+    public String getXid() {
+        return xid;
+    }
+
+    public Long getCuentaOrigenId() {
+        return cuentaOrigenId;
+    }
+
+    public Long getCuentaDestinoId() {
+        return cuentaDestinoId;
+    }
+
+    public int getParticionDestino() {
+        return particionDestino;
+    }
+
+    public Long getBancoId() {
+        return bancoId;
+    }
+
+    public Long getBancoDestinoId() {
+        return bancoDestinoId;
+    }
+
+    public BigDecimal getMonto() {
+        return monto;
+    }
+
+    public EstadoTransaccionParticion getEstado() {
+        return estado;
+    }
+
+    public boolean isFinalizada() {
+        return finalizada;
+    }
+
+    public LocalDateTime getIniciada() {
+        return iniciada;
+    }
+}
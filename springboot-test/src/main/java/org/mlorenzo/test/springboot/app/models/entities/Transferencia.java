@@ -0,0 +1,117 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Transferencia recibida de forma asíncrona. La tabla hace de cola persistente: las filas PENDIENTE se van procesando
+// y pasan a COMPLETADA(en la misma transacción que mueve el dinero) o a FALLIDA.
+@Entity
+@Table(name = "transferencias",
+        indexes = {@Index(name = "idx_transferencias_estado", columnList = "estado, id"),
+                @Index(name = "idx_transferencias_reclamo", columnList = "reclamo")})
+public class Transferencia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cuenta_origen_id")
+    private Long cuentaOrigenId;
+
+    @Column(name = "cuenta_destino_id")
+    private Long cuentaDestinoId;
+
+    @Column(name = "banco_id")
+    private Long bancoId;
+
+    // Null si las dos cuentas son del mismo banco
+    @Column(name = "banco_destino_id")
+    private Long bancoDestinoId;
+
+    private BigDecimal monto;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private EstadoTransferencia estado;
+
+    private String error;
+
+    private LocalDateTime creada;
+    private LocalDateTime procesada;
+
+    // Identificador del lote del despachador que la pasó a EN_PROCESO(ver TransferenciaAsyncServiceImpl.despachar).
+    // Es interno de la cola y no se expone en el JSON
+    @Column(length = 36)
+    private String reclamo;
+
+    public Transferencia() {
+    }
+
+    public Transferencia(Long cuentaOrigenId, Long cuentaDestinoId, Long bancoId, Long bancoDestinoId,
+                         BigDecimal monto) {
+        this.cuentaOrigenId = cuentaOrigenId;
+        this.cuentaDestinoId = cuentaDestinoId;
+        this.bancoId = bancoId;
+        this.bancoDestinoId = bancoDestinoId;
+        this.monto = monto;
+        this.estado = EstadoTransferencia.PENDIENTE;
+        this.creada = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getCuentaOrigenId() {
+        return cuentaOrigenId;
+    }
+
+    public Long getCuentaDestinoId() {
+        return cuentaDestinoId;
+    }
+
+    public Long getBancoId() {
+        return bancoId;
+    }
+
+    public Long getBancoDestinoId() {
+        return bancoDestinoId;
+    }
+
+    public BigDecimal getMonto() {
+        return monto;
+    }
+
+    public EstadoTransferencia getEstado() {
+        return estado;
+    }
+
+    public void setEstado(EstadoTransferencia estado) {
+        this.estado = estado;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getCreada() {
+        return creada;
+    }
+
+    public LocalDateTime getProcesada() {
+        return procesada;
+    }
+
+    public void setProcesada(LocalDateTime procesada) {
+        this.procesada = procesada;
+    }
+}
@@ -0,0 +1,118 @@
+package org.mlorenzo.test.springboot.app.models.entities;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Transferencia que se ejecuta en una fecha futura. Sólo las PENDIENTE de la ventana próxima están en memoria(ver
+// TransferenciaProgramadaServiceImpl), así que el índice por estado y fecha es el que usa la carga de esa ventana.
+@Entity
+@Table(name = "transferencias_programadas",
+        indexes = @Index(name = "idx_programadas_estado_fecha", columnList = "estado, fecha_ejecucion, id"))
+public class TransferenciaProgramada {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cuenta_origen_id")
+    private Long cuentaOrigenId;
+
+    @Column(name = "cuenta_destino_id")
+    private Long cuentaDestinoId;
+
+    @Column(name = "banco_id")
+    private Long bancoId;
+
+    @Column(name = "banco_destino_id")
+    private Long bancoDestinoId;
+
+    private BigDecimal monto;
+
+    @Column(name = "fecha_ejecucion", nullable = false)
+    private LocalDateTime fechaEjecucion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private EstadoTransferencia estado;
+
+    private String error;
+
+    private LocalDateTime creada;
+    private LocalDateTime procesada;
+
+    public TransferenciaProgramada() {
+    }
+
+    public TransferenciaProgramada(Long cuentaOrigenId, Long cuentaDestinoId, Long bancoId, Long bancoDestinoId,
+                                   BigDecimal monto, LocalDateTime fechaEjecucion) {
+        this.cuentaOrigenId = cuentaOrigenId;
+        this.cuentaDestinoId = cuentaDestinoId;
+        this.bancoId = bancoId;
+        this.bancoDestinoId = bancoDestinoId;
+        this.monto = monto;
+        this.fechaEjecucion = fechaEjecucion;
+        this.estado = EstadoTransferencia.PENDIENTE;
+        this.creada = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getCuentaOrigenId() {
+        return cuentaOrigenId;
+    }
+
+    public Long getCuentaDestinoId() {
+        return cuentaDestinoId;
+    }
+
+    public Long getBancoId() {
+        return bancoId;
+    }
+
+    public Long getBancoDestinoId() {
+        return bancoDestinoId;
+    }
+
+    public BigDecimal getMonto() {
+        return monto;
+    }
+
+    public LocalDateTime getFechaEjecucion() {
+        return fechaEjecucion;
+    }
+
+    public EstadoTransferencia getEstado() {
+        return estado;
+    }
+
+    public void setEstado(EstadoTransferencia estado) {
+        this.estado = estado;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getCreada() {
+        return creada;
+    }
+
+    public LocalDateTime getProcesada() {
+        return procesada;
+    }
+
+    public void setProcesada(LocalDateTime procesada) {
+        this.procesada = procesada;
+    }
+}
@@ -0,0 +1,130 @@
+package org.mlorenzo.test.springboot.app.monitoring;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+// Ajusta el tamaño máximo del pool de Hikari entre "minimo" y "maximo" según lo observado en cada intervalo:
+// - Si la latencia media de las sentencias(MonitorSql) supera la latencia base por más de "tolerancia", la base de
+//   datos ya está saturada y más conexiones sólo añaden cola dentro de ella: se reduce un cuarto.
+// - Si no, y los hilos esperan de media más de "espera-objetivo-ms" por una conexión con peticiones pendientes, falta
+//   pool: se amplía hasta un cuarto, sin pasar del número de hilos que esperan.
+// - Si apenas se espera, no hay pendientes y no se usa ni la mitad del pool, se reduce de uno en uno.
+// La latencia base es la mínima observada, que se olvida poco a poco(un 1% por intervalo) para seguir los cambios de
+// la base de datos. Es la misma idea que el control de congestión de TCP Vegas, con el pool como ventana.
+@Component
+@ConditionalOnProperty(name = "pool.adaptativo.habilitado", havingValue = "true")
+public class AjustadorPool {
+    private static final Logger log = LoggerFactory.getLogger(AjustadorPool.class);
+    private static final double OLVIDO_LATENCIA_BASE = 1.01;
+
+    private final HikariDataSource dataSource;
+    private final MetricasPoolConexiones metricas;
+    private final MonitorSql monitorSql;
+    private final int minimo;
+    private final int maximo;
+    private final double esperaObjetivoMs;
+    private final double tolerancia;
+
+    private long adquisiciones;
+    private long esperaNanos;
+    private long ejecuciones;
+    private long tiempoEjecucionNanos;
+    private double latenciaBaseMs = Double.NaN;
+    // El mínimo de conexiones libres configurado, que se recorta al reducir el pool y se recupera al ampliarlo
+    private int minimoLibres = -1;
+
+    @Autowired
+    public AjustadorPool(DataSource dataSource, MetricasPoolConexiones metricas, MonitorSql monitorSql,
+                         @Value("${pool.adaptativo.minimo:5}") int minimo,
+                         @Value("${pool.adaptativo.maximo:50}") int maximo,
+                         @Value("${pool.adaptativo.espera-objetivo-ms:5}") double esperaObjetivoMs,
+                         @Value("${pool.adaptativo.tolerancia:1.5}") double tolerancia) throws SQLException {
+        this(dataSource.unwrap(HikariDataSource.class), metricas, monitorSql, minimo, maximo, esperaObjetivoMs,
+                tolerancia);
+    }
+
+    AjustadorPool(HikariDataSource dataSource, MetricasPoolConexiones metricas, MonitorSql monitorSql, int minimo,
+                  int maximo, double esperaObjetivoMs, double tolerancia) {
+        if (minimo < 1 || maximo < minimo)
+            throw new IllegalArgumentException("Límites del pool no válidos: " + minimo + " - " + maximo);
+        this.dataSource = dataSource;
+        this.metricas = metricas;
+        this.monitorSql = monitorSql;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.esperaObjetivoMs = esperaObjetivoMs;
+        this.tolerancia = tolerancia;
+    }
+
+    @Scheduled(fixedDelayString = "${pool.adaptativo.intervalo-ms:5000}")
+    public void ajustar() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        // El pool se arranca con la primera conexión
+        if (pool == null)
+            return;
+        long nuevasAdquisiciones = metricas.getAdquisiciones();
+        long nuevaEspera = metricas.getEsperaNanos();
+        long nuevasEjecuciones = monitorSql.getEjecuciones();
+        long nuevoTiempo = monitorSql.getTiempoEjecucionNanos();
+        double esperaMediaMs = media(nuevaEspera - esperaNanos, nuevasAdquisiciones - adquisiciones);
+        double latenciaMediaMs = media(nuevoTiempo - tiempoEjecucionNanos, nuevasEjecuciones - ejecuciones);
+        adquisiciones = nuevasAdquisiciones;
+        esperaNanos = nuevaEspera;
+        ejecuciones = nuevasEjecuciones;
+        tiempoEjecucionNanos = nuevoTiempo;
+
+        HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+        if (minimoLibres < 0)
+            minimoLibres = config.getMinimumIdle();
+        int actual = config.getMaximumPoolSize();
+        int nuevo = nuevoTamano(actual, esperaMediaMs, latenciaMediaMs, pool.getThreadsAwaitingConnection(),
+                pool.getActiveConnections());
+        if (nuevo == actual)
+            return;
+        // Con el mínimo de conexiones libres por encima del máximo Hikari no cerraría las que sobran, así que al
+        // reducir se recorta antes; al ampliar se vuelve hacia el configurado una vez subido el máximo
+        int libres = Math.min(minimoLibres, nuevo);
+        if (nuevo < actual) {
+            config.setMinimumIdle(libres);
+            config.setMaximumPoolSize(nuevo);
+        }
+        else {
+            config.setMaximumPoolSize(nuevo);
+            config.setMinimumIdle(libres);
+        }
+        log.info("Pool de conexiones: {} -> {} (espera media {} ms, latencia media {} ms, base {} ms)", actual, nuevo,
+                String.format("%.2f", esperaMediaMs), String.format("%.2f", latenciaMediaMs),
+                String.format("%.2f", latenciaBaseMs));
+    }
+
+    // Sin datos en el intervalo la media es NaN y no cuenta
+    int nuevoTamano(int actual, double esperaMediaMs, double latenciaMediaMs, int pendientes, int activas) {
+        if (!Double.isNaN(latenciaMediaMs))
+            latenciaBaseMs = Double.isNaN(latenciaBaseMs) ? latenciaMediaMs
+                    : Math.min(latenciaMediaMs, latenciaBaseMs * OLVIDO_LATENCIA_BASE);
+        int nuevo = actual;
+        if (!Double.isNaN(latenciaMediaMs) && latenciaMediaMs > latenciaBaseMs * tolerancia)
+            nuevo = actual - Math.max(1, actual / 4);
+        else if (esperaMediaMs > esperaObjetivoMs && pendientes > 0)
+            nuevo = actual + Math.min(pendientes, Math.max(1, actual / 4));
+        else if (!(esperaMediaMs > esperaObjetivoMs / 10) && pendientes == 0 && activas < actual / 2)
+            nuevo = actual - 1;
+        return Math.max(minimo, Math.min(maximo, nuevo));
+    }
+
+    private static double media(long totalNanos, long cuenta) {
+        return cuenta == 0 ? Double.NaN : (double) totalNanos / cuenta / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
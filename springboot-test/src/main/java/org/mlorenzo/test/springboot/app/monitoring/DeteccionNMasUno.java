@@ -0,0 +1,47 @@
+package org.mlorenzo.test.springboot.app.monitoring;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Sentencia idéntica(mismo SQL, distintos parámetros) repetida muchas veces dentro de una misma petición: el patrón
+// típico de N+1 al recorrer una colección perezosa o llamar a "findById" dentro de un bucle.
+public class DeteccionNMasUno {
+    private final String endpoint;
+    private final String sql;
+    private final AtomicLong peticiones = new AtomicLong();
+    private volatile int maximoRepeticiones;
+    private volatile Instant ultimaVez;
+
+    public DeteccionNMasUno(String endpoint, String sql) {
+        this.endpoint = endpoint;
+        this.sql = sql;
+    }
+
+    void registrar(int repeticiones) {
+        peticiones.incrementAndGet();
+        if (repeticiones > maximoRepeticiones)
+            maximoRepeticiones = repeticiones;
+        ultimaVez = Instant.now();
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    // Número de peticiones en las que se ha detectado
+    public long getPeticiones() {
+        return peticiones.get();
+    }
+
+    public int getMaximoRepeticiones() {
+        return maximoRepeticiones;
+    }
+
+    public Instant getUltimaVez() {
+        return ultimaVez;
+    }
+}
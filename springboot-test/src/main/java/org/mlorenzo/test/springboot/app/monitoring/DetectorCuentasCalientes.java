@@ -0,0 +1,58 @@
+package org.mlorenzo.test.springboot.app.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.mlorenzo.test.springboot.app.services.SaldosFragmentados;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cuenta los conflictos de concurrencia optimista de cada cuenta(los registra el aspecto de reintentos) y, al final de
+// cada ventana, fragmenta las cuentas que han tenido al menos "cuentas.fragmentadas.umbral-conflictos". Con el umbral
+// a 0 no se fragmenta ninguna cuenta de forma automática.
+@Component
+public class DetectorCuentasCalientes {
+    private static final Logger log = LoggerFactory.getLogger(DetectorCuentasCalientes.class);
+
+    private final SaldosFragmentados saldosFragmentados;
+    private final int umbral;
+    private final int fragmentos;
+    private final Map<Long, LongAdder> conflictos = new ConcurrentHashMap<>();
+    private final Counter fragmentadas;
+
+    public DetectorCuentasCalientes(SaldosFragmentados saldosFragmentados, MeterRegistry registry,
+                                    @Value("${cuentas.fragmentadas.umbral-conflictos:50}") int umbral,
+                                    @Value("${cuentas.fragmentadas.fragmentos:8}") int fragmentos) {
+        this.saldosFragmentados = saldosFragmentados;
+        this.umbral = umbral;
+        this.fragmentos = fragmentos;
+        this.fragmentadas = registry.counter("cuentas.fragmentadas");
+    }
+
+    public void registrarConflicto(Long cuentaId) {
+        if (umbral > 0)
+            conflictos.computeIfAbsent(cuentaId, id -> new LongAdder()).increment();
+    }
+
+    @Scheduled(fixedDelayString = "${cuentas.fragmentadas.ventana-ms:10000}")
+    public void revisar() {
+        Iterator<Map.Entry<Long, LongAdder>> it = conflictos.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, LongAdder> entrada = it.next();
+            it.remove();
+            long total = entrada.getValue().sum();
+            if (total >= umbral && saldosFragmentados.fragmentar(entrada.getKey(), fragmentos)) {
+                fragmentadas.increment();
+                log.info("Cuenta {} fragmentada en {} sub-saldos tras {} conflictos", entrada.getKey(), fragmentos,
+                        total);
+            }
+        }
+    }
+}
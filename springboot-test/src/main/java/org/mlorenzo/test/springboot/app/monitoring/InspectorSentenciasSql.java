@@ -0,0 +1,15 @@
+package org.mlorenzo.test.springboot.app.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Hibernate llama a este inspector con el SQL de cada sentencia justo antes de prepararla. Sólo actualiza el estado del
+// hilo actual en MonitorSql(contador de sentencias, último SQL y repeticiones en la petición), así que se puede dejar
+// activo siempre.
+public class InspectorSentenciasSql implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        MonitorSql.instancia().sentenciaPreparada(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,122 @@
+package org.mlorenzo.test.springboot.app.monitoring;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Métricas del pool de Hikari con el método de servicio que pidió cada conexión. Sustituye al MetricsTrackerFactory que
+// registraría Spring Boot, pero le delega todo, así que se siguen publicando las métricas "hikaricp.connections.*"
+// (adquisición, uso, activas, libres y pendientes). Además:
+// - pool.conexiones.espera: tiempo hasta obtener la conexión, por método.
+// - pool.conexiones.uso: tiempo que se retiene la conexión, por el método que la obtuvo. Con "open-in-view" la conexión
+//   de una petición no se devuelve hasta el final de la petición, y eso es lo que se mide.
+// Hikari avisa de la adquisición y de la devolución en el hilo que las hace; el método actual lo fija
+// PoolConexionesAspect y cada hilo apila el método de las conexiones que tiene abiertas, que se devuelven en orden
+// inverso.
+public class MetricasPoolConexiones implements MetricsTrackerFactory {
+    public static final String SIN_METODO = "ninguno";
+    // Si una conexión se devolviera desde otro hilo, su entrada se quedaría en la pila; así no crece sin límite
+    private static final int MAX_CONEXIONES_POR_HILO = 16;
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+    private final ThreadLocal<String> metodoActual = new ThreadLocal<>();
+    private final ThreadLocal<ArrayDeque<String>> abiertas = ThreadLocal.withInitial(ArrayDeque::new);
+    private final Map<String, Timer> esperas = new ConcurrentHashMap<>();
+    private final Map<String, Timer> usos = new ConcurrentHashMap<>();
+    private final LongAdder adquisiciones = new LongAdder();
+    private final LongAdder esperaNanos = new LongAdder();
+    private volatile MeterRegistry registry;
+
+    // El registro se resuelve al arrancar el pool y no al crear el bean, que es un BeanPostProcessor
+    public MetricasPoolConexiones(ObjectProvider<MeterRegistry> registryProvider) {
+        this.registryProvider = registryProvider;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        registry = registryProvider.getObject();
+        return new Tracker(new MicrometerMetricsTrackerFactory(registry).create(poolName, poolStats));
+    }
+
+    // Sólo cuenta el método más externo; devuelve el anterior para restaurarlo al salir
+    String entrar(String metodo) {
+        String anterior = metodoActual.get();
+        if (anterior == null)
+            metodoActual.set(metodo);
+        return anterior;
+    }
+
+    void salir(String anterior) {
+        if (anterior == null)
+            metodoActual.remove();
+    }
+
+    // Totales desde el arranque, para calcular medias por intervalo(ver AjustadorPool)
+    public long getAdquisiciones() {
+        return adquisiciones.sum();
+    }
+
+    public long getEsperaNanos() {
+        return esperaNanos.sum();
+    }
+
+    private Timer timer(Map<String, Timer> timers, String nombre, String metodo) {
+        return timers.computeIfAbsent(metodo, m -> Timer.builder(nombre).tag("metodo", m).register(registry));
+    }
+
+    private class Tracker implements IMetricsTracker {
+        private final IMetricsTracker delegado;
+
+        Tracker(IMetricsTracker delegado) {
+            this.delegado = delegado;
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            delegado.recordConnectionCreatedMillis(connectionCreatedMillis);
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            delegado.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+            String metodo = metodoActual.get();
+            if (metodo == null)
+                metodo = SIN_METODO;
+            ArrayDeque<String> pila = abiertas.get();
+            if (pila.size() == MAX_CONEXIONES_POR_HILO)
+                pila.removeLast();
+            pila.push(metodo);
+            adquisiciones.increment();
+            esperaNanos.add(elapsedAcquiredNanos);
+            timer(esperas, "pool.conexiones.espera", metodo).record(elapsedAcquiredNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            delegado.recordConnectionUsageMillis(elapsedBorrowedMillis);
+            String metodo = abiertas.get().poll();
+            timer(usos, "pool.conexiones.uso", metodo != null ? metodo : SIN_METODO)
+                    .record(elapsedBorrowedMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            delegado.recordConnectionTimeout();
+        }
+
+        @Override
+        public void close() {
+            delegado.close();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.mlorenzo.test.springboot.app.monitoring;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Registro de sentencias SQL lentas y detector de N+1, pensado como sustituto barato de
+// "logging.level.org.hibernate.SQL=debug". Hibernate crea el inspector y el listener de sesión por reflexión, así que
+// el estado es una única instancia compartida:
+// - InspectorSentenciasSql avisa con el SQL justo antes de preparar cada sentencia.
+// - TiempoSentenciasListener avisa al empezar y terminar cada ejecución, y aquí se mide la duración.
+// De las sentencias que superan el umbral se guardan las "capacidad" más lentas desde el arranque(o desde el último
+// "reiniciar") en un montículo de mínimos por duración: la raíz es la más rápida del ranking y es la que sale cuando
+// llega una más lenta. Mientras el ranking está lleno, las sentencias que no superan a la raíz se descartan leyendo un
+// campo volatile, sin bloquear; sólo las que entran toman el cerrojo del montículo.
+// Para detectar N+1 se cuentan los SQL idénticos dentro de una petición, sólo en las peticiones que se monitorizan.
+public final class MonitorSql {
+    private static final MonitorSql INSTANCIA = new MonitorSql();
+    private static final int MAX_DETECCIONES = 200;
+
+    private final ThreadLocal<EstadoHilo> estado = ThreadLocal.withInitial(EstadoHilo::new);
+    private final Map<String, DeteccionNMasUno> detecciones = new ConcurrentHashMap<>();
+    private final LongAdder ejecuciones = new LongAdder();
+    private final LongAdder tiempoEjecucionNanos = new LongAdder();
+    // Protegidos por el monitor de "lentas"
+    private final PriorityQueue<SentenciaLenta> lentas =
+            new PriorityQueue<>(Comparator.comparingDouble(SentenciaLenta::getDuracionMs));
+    private int capacidadLentas = 100;
+    // Duración de la raíz del montículo cuando está lleno(0 si no): una sentencia más rápida no entra en el ranking
+    private volatile double minimoLentasMs;
+    private volatile long umbralLentaNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    private volatile int umbralRepeticiones = 5;
+
+    private MonitorSql() {
+    }
+
+    public static MonitorSql instancia() {
+        return INSTANCIA;
+    }
+
+    public void configurar(int capacidad, long umbralLentaMs, int umbralRepeticiones) {
+        synchronized (lentas) {
+            this.capacidadLentas = capacidad;
+            while (lentas.size() > capacidad)
+                lentas.poll();
+            actualizarMinimoLentas();
+        }
+        this.umbralLentaNanos = TimeUnit.MILLISECONDS.toNanos(umbralLentaMs);
+        this.umbralRepeticiones = umbralRepeticiones;
+    }
+
+    void sentenciaPreparada(String sql) {
+        EstadoHilo e = estado.get();
+        e.sql = sql;
+        e.sentencias++;
+        if (e.repeticiones != null)
+            e.repeticiones.merge(sql, 1, Integer::sum);
+    }
+
+    void inicioEjecucion() {
+        estado.get().inicio = System.nanoTime();
+    }
+
+    void finEjecucion() {
+        EstadoHilo e = estado.get();
+        long duracion = System.nanoTime() - e.inicio;
+        ejecuciones.increment();
+        tiempoEjecucionNanos.add(duracion);
+        if (duracion >= umbralLentaNanos)
+            registrarLenta(e.sql, duracion, e.peticion);
+    }
+
+    void registrarLenta(String sql, long duracionNanos, String peticion) {
+        double duracionMs = duracionNanos / 1_000_000.0;
+        if (duracionMs <= minimoLentasMs)
+            return;
+        synchronized (lentas) {
+            if (lentas.size() >= capacidadLentas) {
+                if (capacidadLentas == 0 || duracionMs <= lentas.peek().getDuracionMs())
+                    return;
+                lentas.poll();
+            }
+            lentas.add(new SentenciaLenta(sql, duracionMs, Instant.now(), peticion));
+            actualizarMinimoLentas();
+        }
+    }
+
+    private void actualizarMinimoLentas() {
+        minimoLentasMs = capacidadLentas > 0 && lentas.size() >= capacidadLentas ? lentas.peek().getDuracionMs() : 0;
+    }
+
+    // Número de sentencias preparadas por el hilo actual desde que arrancó(se usan diferencias entre lecturas)
+    public long sentenciasHiloActual() {
+        return estado.get().sentencias;
+    }
+
+    public void iniciarPeticion(String peticion) {
+        EstadoHilo e = estado.get();
+        e.peticion = peticion;
+        e.repeticiones = new HashMap<>();
+    }
+
+    public void finalizarPeticion(String endpoint) {
+        EstadoHilo e = estado.get();
+        Map<String, Integer> repeticiones = e.repeticiones;
+        e.peticion = null;
+        e.repeticiones = null;
+        if (repeticiones == null)
+            return;
+        repeticiones.forEach((sql, veces) -> {
+            if (veces < umbralRepeticiones)
+                return;
+            String clave = endpoint + "\n" + sql;
+            DeteccionNMasUno deteccion = detecciones.get(clave);
+            if (deteccion == null && detecciones.size() < MAX_DETECCIONES)
+                deteccion = detecciones.computeIfAbsent(clave, k -> new DeteccionNMasUno(endpoint, sql));
+            if (deteccion != null)
+                deteccion.registrar(veces);
+        });
+    }
+
+    // Ranking de sentencias lentas, de la más lenta a la más rápida
+    public List<SentenciaLenta> getLentas() {
+        List<SentenciaLenta> resultado;
+        synchronized (lentas) {
+            resultado = new ArrayList<>(lentas);
+        }
+        resultado.sort(Comparator.comparingDouble(SentenciaLenta::getDuracionMs).reversed());
+        return resultado;
+    }
+
+    public List<DeteccionNMasUno> getDetecciones() {
+        List<DeteccionNMasUno> resultado = new ArrayList<>(detecciones.values());
+        resultado.sort(Comparator.comparingLong(DeteccionNMasUno::getPeticiones).reversed());
+        return resultado;
+    }
+
+    public long getEjecuciones() {
+        return ejecuciones.sum();
+    }
+
+    public long getTiempoEjecucionNanos() {
+        return tiempoEjecucionNanos.sum();
+    }
+
+    public long getUmbralLentaMs() {
+        return TimeUnit.NANOSECONDS.toMillis(umbralLentaNanos);
+    }
+
+    public void reiniciar() {
+        synchronized (lentas) {
+            lentas.clear();
+            actualizarMinimoLentas();
+        }
+        detecciones.clear();
+    }
+
+    private static class EstadoHilo {
+        private String sql;
+        private long inicio;
+        private long sentencias;
+        private String peticion;
+        private Map<String, Integer> repeticiones;
+    }
+}
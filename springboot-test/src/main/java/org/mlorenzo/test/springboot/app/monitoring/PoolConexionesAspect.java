@@ -0,0 +1,39 @@
+package org.mlorenzo.test.springboot.app.monitoring;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Indica a MetricasPoolConexiones qué método de servicio se está ejecutando, para atribuirle las conexiones que pida.
+// Va por fuera del aspecto transaccional, que es quien obtiene la conexión, y el nombre se calcula una vez por método.
+@Aspect
+@Component
+@Order(1)
+public class PoolConexionesAspect {
+    private final MetricasPoolConexiones metricas;
+    private final Map<Method, String> nombres = new ConcurrentHashMap<>();
+
+    public PoolConexionesAspect(MetricasPoolConexiones metricas) {
+        this.metricas = metricas;
+    }
+
+    @Around("execution(public * org.mlorenzo.test.springboot.app.services..*(..))")
+    public Object atribuir(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method metodo = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String anterior = metricas.entrar(nombres.computeIfAbsent(metodo,
+                m -> m.getDeclaringClass().getSimpleName() + "." + m.getName()));
+        try {
+            return joinPoint.proceed();
+        }
+        finally {
+            metricas.salir(anterior);
+        }
+    }
+}
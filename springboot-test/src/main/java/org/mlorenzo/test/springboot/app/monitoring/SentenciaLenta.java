@@ -0,0 +1,34 @@
+package org.mlorenzo.test.springboot.app.monitoring;
+
+import java.time.Instant;
+
+public class SentenciaLenta {
+    private final String sql;
+    private final double duracionMs;
+    private final Instant fecha;
+    private final String peticion;
+
+    public SentenciaLenta(String sql, double duracionMs, Instant fecha, String peticion) {
+        this.sql = sql;
+        this.duracionMs = duracionMs;
+        this.fecha = fecha;
+        this.peticion = peticion;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public double getDuracionMs() {
+        return duracionMs;
+    }
+
+    public Instant getFecha() {
+        return fecha;
+    }
+
+    // Petición HTTP en la que se ejecutó(sólo si se estaba monitorizando esa petición)
+    public String getPeticion() {
+        return peticion;
+    }
+}
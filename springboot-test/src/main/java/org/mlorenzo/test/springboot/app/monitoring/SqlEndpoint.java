@@ -0,0 +1,35 @@
+package org.mlorenzo.test.springboot.app.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Endpoint de administración "/actuator/sql": GET devuelve las sentencias lentas y los N+1 detectados, DELETE los borra
+@Component
+@Endpoint(id = "sql")
+public class SqlEndpoint {
+    private final MonitorSql monitorSql;
+
+    public SqlEndpoint(MonitorSql monitorSql) {
+        this.monitorSql = monitorSql;
+    }
+
+    @ReadOperation
+    public Map<String, Object> informe() {
+        Map<String, Object> informe = new HashMap<>();
+        informe.put("umbralLentaMs", monitorSql.getUmbralLentaMs());
+        informe.put("ejecuciones", monitorSql.getEjecuciones());
+        informe.put("lentas", monitorSql.getLentas());
+        informe.put("nMasUno", monitorSql.getDetecciones());
+        return informe;
+    }
+
+    @DeleteOperation
+    public void reiniciar() {
+        monitorSql.reiniciar();
+    }
+}
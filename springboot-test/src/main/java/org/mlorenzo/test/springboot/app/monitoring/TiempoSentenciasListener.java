@@ -0,0 +1,28 @@
+package org.mlorenzo.test.springboot.app.monitoring;
+
+import org.hibernate.BaseSessionEventListener;
+
+// Hibernate crea una instancia por sesión(propiedad "hibernate.session.events.auto") y la avisa antes y después de
+// ejecutar cada sentencia JDBC.
+public class TiempoSentenciasListener extends BaseSessionEventListener {
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        MonitorSql.instancia().inicioEjecucion();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        MonitorSql.instancia().finEjecucion();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        MonitorSql.instancia().inicioEjecucion();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        MonitorSql.instancia().finEjecucion();
+    }
+}
@@ -0,0 +1,50 @@
+package org.mlorenzo.test.springboot.app.outbox;
+
+import org.mlorenzo.test.springboot.app.models.entities.EventoOutbox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Escribe cada evento como una línea JSON({"id", "tipo", "agregadoId", "creado", "evento"}) al final de un fichero.
+// Cada lote se escribe de una vez y se vuelca a disco antes de que el relay lo marque como enviado.
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "fichero")
+public class FicheroOutboxSink implements OutboxSink {
+    private final BufferedWriter writer;
+
+    public FicheroOutboxSink(@Value("${outbox.fichero}") String fichero) throws IOException {
+        Path ruta = Paths.get(fichero);
+        if (ruta.getParent() != null)
+            Files.createDirectories(ruta.getParent());
+        this.writer = Files.newBufferedWriter(ruta, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND, StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+    }
+
+    @Override
+    public synchronized void enviar(List<EventoOutbox> eventos) throws IOException {
+        for (EventoOutbox evento : eventos) {
+            writer.append("{\"id\":").append(String.valueOf(evento.getId()))
+                    .append(",\"tipo\":\"").append(evento.getTipo())
+                    .append("\",\"agregadoId\":").append(String.valueOf(evento.getAgregadoId()))
+                    .append(",\"creado\":\"").append(String.valueOf(evento.getCreado()))
+                    .append("\",\"evento\":").append(evento.getPayload())
+                    .append("}\n");
+        }
+        writer.flush();
+    }
+
+    @PreDestroy
+    public synchronized void cerrar() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,42 @@
+package org.mlorenzo.test.springboot.app.outbox;
+
+import org.mlorenzo.test.springboot.app.models.entities.EventoOutbox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// Sustituto en memoria de los sistemas externos: guarda los últimos eventos recibidos(p. ej. para las pruebas)
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "memoria", matchIfMissing = true)
+public class MemoriaOutboxSink implements OutboxSink {
+    private final int capacidad;
+    private final Deque<EventoOutbox> eventos = new ArrayDeque<>();
+    private long recibidos;
+
+    public MemoriaOutboxSink(@Value("${outbox.memoria.capacidad:10000}") int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    @Override
+    public synchronized void enviar(List<EventoOutbox> lote) {
+        for (EventoOutbox evento : lote) {
+            if (eventos.size() == capacidad)
+                eventos.removeFirst();
+            eventos.addLast(evento);
+        }
+        recibidos += lote.size();
+    }
+
+    public synchronized List<EventoOutbox> getEventos() {
+        return new ArrayList<>(eventos);
+    }
+
+    public synchronized long getRecibidos() {
+        return recibidos;
+    }
+}
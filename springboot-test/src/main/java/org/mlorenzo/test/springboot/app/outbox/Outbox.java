@@ -0,0 +1,34 @@
+package org.mlorenzo.test.springboot.app.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mlorenzo.test.springboot.app.models.entities.EventoOutbox;
+import org.mlorenzo.test.springboot.app.repositories.EventoOutboxRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Guarda un evento en el outbox. Exige una transacción en curso: el evento sólo existe si el cambio que lo origina se
+// confirma, y a la transferencia sólo le cuesta un INSERT más.
+@Component
+public class Outbox {
+    private final EventoOutboxRepository eventoRepository;
+    private final ObjectMapper objectMapper;
+
+    public Outbox(EventoOutboxRepository eventoRepository, ObjectMapper objectMapper) {
+        this.eventoRepository = eventoRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(Long agregadoId, Object evento) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(evento);
+        }
+        catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se puede serializar el evento " + evento, e);
+        }
+        eventoRepository.save(new EventoOutbox(evento.getClass().getSimpleName(), agregadoId, payload));
+    }
+}
@@ -0,0 +1,159 @@
+package org.mlorenzo.test.springboot.app.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.mlorenzo.test.springboot.app.models.entities.EventoOutbox;
+import org.mlorenzo.test.springboot.app.repositories.EventoOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// Entrega los eventos del outbox al OutboxSink por lotes desde un hilo propio, sin tocar el camino de "transferir".
+// Cada lote se reclama con un UPDATE condicional que marca las filas con un id de lote y un plazo; como H2 no tiene
+// "FOR UPDATE SKIP LOCKED", las condiciones se repiten fuera de la subconsulta para que las filas que otro relay haya
+// reclamado entre medias no se vuelvan a coger. Si el relay se cae, las filas quedan libres cuando vence el plazo.
+// Mientras haya lotes completos se sigue sin esperar, así que el ritmo lo marcan el sink y el tamaño de lote.
+@Component
+@ConditionalOnProperty(name = "outbox.relay.habilitado", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final long ESPERA_PARADA_MS = 5000;
+    private static final String RECLAMAR =
+            "UPDATE outbox_eventos SET lote = ?, reclamado_hasta = ? " +
+            "WHERE id IN (SELECT id FROM outbox_eventos " +
+            "  WHERE enviado = FALSE AND (reclamado_hasta IS NULL OR reclamado_hasta < ?) ORDER BY id LIMIT ?) " +
+            "AND enviado = FALSE AND (reclamado_hasta IS NULL OR reclamado_hasta < ?)";
+    private static final RowMapper<EventoOutbox> EVENTO = (rs, rowNum) -> {
+        EventoOutbox evento = new EventoOutbox(rs.getString("tipo"), rs.getObject("agregado_id", Long.class),
+                rs.getString("payload"));
+        evento.setId(rs.getLong("id"));
+        evento.setCreado(rs.getTimestamp("creado").toLocalDateTime());
+        return evento;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxSink sink;
+    private final int tamanoLote;
+    private final long intervaloMs;
+    private final long esperaMaximaMs;
+    private final Duration plazoReclamo;
+    private final Duration retencion;
+    private final Counter enviados;
+    private final Counter errores;
+    private final Timer retraso;
+
+    private volatile boolean activo;
+    private Thread hilo;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, OutboxSink sink, EventoOutboxRepository eventoRepository,
+                       MeterRegistry registry,
+                       @Value("${outbox.relay.lote:1000}") int tamanoLote,
+                       @Value("${outbox.relay.intervalo-ms:100}") long intervaloMs,
+                       @Value("${outbox.relay.espera-maxima-ms:5000}") long esperaMaximaMs,
+                       @Value("${outbox.relay.plazo-reclamo-ms:30000}") long plazoReclamoMs,
+                       @Value("${outbox.retencion-ms:3600000}") long retencionMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sink = sink;
+        this.tamanoLote = tamanoLote;
+        this.intervaloMs = intervaloMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.plazoReclamo = Duration.ofMillis(plazoReclamoMs);
+        this.retencion = Duration.ofMillis(retencionMs);
+        this.enviados = registry.counter("outbox.enviados");
+        this.errores = registry.counter("outbox.errores");
+        // Tiempo desde que se guarda el evento hasta que se entrega(el más antiguo de cada lote)
+        this.retraso = registry.timer("outbox.retraso");
+        Gauge.builder("outbox.pendientes", eventoRepository, EventoOutboxRepository::countByEnviadoFalse)
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void arrancar() {
+        activo = true;
+        hilo = new Thread(this::ejecutar, "outbox-relay");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        activo = false;
+        if (hilo != null) {
+            hilo.interrupt();
+            hilo.join(ESPERA_PARADA_MS);
+        }
+    }
+
+    private void ejecutar() {
+        long espera = intervaloMs;
+        while (activo) {
+            try {
+                if (procesarLote() < tamanoLote) {
+                    purgar();
+                    Thread.sleep(intervaloMs);
+                }
+                espera = intervaloMs;
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+            catch (Exception e) {
+                // El lote queda reclamado hasta que vence el plazo y entonces se reintenta
+                errores.increment();
+                log.warn("Error entregando eventos del outbox, reintentando en {} ms: {}", espera, e.getMessage());
+                try {
+                    Thread.sleep(espera);
+                }
+                catch (InterruptedException ie) {
+                    return;
+                }
+                espera = Math.min(espera * 2, esperaMaximaMs);
+            }
+        }
+    }
+
+    // Devuelve el número de eventos entregados
+    int procesarLote() throws Exception {
+        String lote = UUID.randomUUID().toString();
+        LocalDateTime ahora = LocalDateTime.now();
+        Timestamp marca = Timestamp.valueOf(ahora);
+        int reclamados = jdbcTemplate.update(RECLAMAR, lote, Timestamp.valueOf(ahora.plus(plazoReclamo)), marca,
+                tamanoLote, marca);
+        if (reclamados == 0)
+            return 0;
+        List<EventoOutbox> eventos = jdbcTemplate.query(
+                "SELECT id, tipo, agregado_id, payload, creado FROM outbox_eventos WHERE lote = ? ORDER BY id",
+                EVENTO, lote);
+        // Si el plazo vence entre las dos consultas, otro relay puede haber reclamado ya todo el lote
+        if (eventos.isEmpty())
+            return 0;
+        sink.enviar(eventos);
+        LocalDateTime enviadoEn = LocalDateTime.now();
+        jdbcTemplate.update("UPDATE outbox_eventos SET enviado = TRUE, enviado_en = ? WHERE lote = ?",
+                Timestamp.valueOf(enviadoEn), lote);
+        enviados.increment(eventos.size());
+        retraso.record(Duration.between(eventos.get(0).getCreado(), enviadoEn));
+        return eventos.size();
+    }
+
+    // Los eventos enviados se conservan "outbox.retencion-ms" por si hay que investigar una entrega
+    private void purgar() {
+        jdbcTemplate.update("DELETE FROM outbox_eventos WHERE enviado = TRUE AND enviado_en < ? LIMIT ?",
+                Timestamp.valueOf(LocalDateTime.now().minus(retencion)), tamanoLote);
+    }
+}
@@ -0,0 +1,12 @@
+package org.mlorenzo.test.springboot.app.outbox;
+
+import org.mlorenzo.test.springboot.app.models.entities.EventoOutbox;
+
+import java.util.List;
+
+// Destino de los eventos del outbox. La entrega es "al menos una vez": si "enviar" lanza una excepción o el relay se
+// cae después de enviar y antes de marcar el lote, el lote entero se vuelve a enviar. Los eventos llegan ordenados
+// por id dentro de cada lote, y el id sirve para descartar duplicados.
+public interface OutboxSink {
+    void enviar(List<EventoOutbox> eventos) throws Exception;
+}
@@ -0,0 +1,126 @@
+package org.mlorenzo.test.springboot.app.partitioning;
+
+import org.mlorenzo.test.springboot.app.exceptions.CuentaCerradaException;
+import org.mlorenzo.test.springboot.app.exceptions.DineroInsuficienteException;
+import org.mlorenzo.test.springboot.app.exceptions.LimiteVelocidadExcedidoException;
+import org.mlorenzo.test.springboot.app.models.PreparacionParticion;
+import org.mlorenzo.test.springboot.app.models.TransaccionDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// Llamadas HTTP entre particiones: reenvío de peticiones y las fases del protocolo de dos fases
+@Component
+@ConditionalOnExpression(Particiones.HABILITADO)
+public class ClienteParticiones {
+    // Cabeceras propias de cada conexión que no se deben copiar al reenviar
+    private static final Set<String> CABECERAS_SALTO = Set.of("connection", "keep-alive", "transfer-encoding", "te",
+            "upgrade", "host", "content-length");
+
+    private final Particiones particiones;
+    private final RestTemplate restTemplate;
+
+    public ClienteParticiones(Particiones particiones, RestTemplateBuilder builder,
+                              @Value("${particiones.timeout-ms:2000}") long timeoutMs) {
+        this.particiones = particiones;
+        this.restTemplate = builder
+                // Apache HttpClient de forma explícita: el cliente de java.net no admite PATCH y "reenviar" lo necesita
+                .requestFactory(HttpComponentsClientHttpRequestFactory.class)
+                .setConnectTimeout(Duration.ofMillis(timeoutMs))
+                .setReadTimeout(Duration.ofMillis(timeoutMs))
+                // Los códigos de error se tratan aquí o se devuelven tal cual al cliente
+                .errorHandler(new DefaultResponseErrorHandler() {
+                    @Override
+                    public boolean hasError(ClientHttpResponse response) {
+                        return false;
+                    }
+                })
+                .build();
+    }
+
+    public void preparar(int particion, PreparacionParticion preparacion) {
+        comprobar(particion, restTemplate.postForEntity(particiones.nodo(particion) + "/api/particiones/preparar",
+                preparacion, Void.class));
+    }
+
+    public void confirmar(int particion, String xid) {
+        comprobar(particion, restTemplate.postForEntity(particiones.nodo(particion) + "/api/particiones/{xid}/confirmar",
+                null, Void.class, xid));
+    }
+
+    public void abortar(int particion, String xid) {
+        comprobar(particion, restTemplate.postForEntity(particiones.nodo(particion) + "/api/particiones/{xid}/abortar",
+                null, Void.class, xid));
+    }
+
+    // Transferencia cuya cuenta origen es de otra partición: la coordina esa partición. Se envía a ParticionController
+    // y no a la API pública para que sus errores lleguen con los códigos que entiende "comprobar"
+    public void transferir(int particion, TransaccionDto dto) {
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.set(Particiones.CABECERA_REENVIADA, String.valueOf(particiones.getIndice()));
+        comprobar(particion, restTemplate.postForEntity(particiones.nodo(particion) + "/api/particiones/transferir",
+                new HttpEntity<>(dto, cabeceras), Void.class));
+    }
+
+    // Reenvía la petición tal cual a la partición y copia la respuesta(código, cabeceras y cuerpo)
+    public void reenviar(HttpServletRequest peticion, HttpServletResponse respuesta, int particion) {
+        String query = peticion.getQueryString();
+        URI uri = URI.create(particiones.nodo(particion) + peticion.getRequestURI() + (query != null ? "?" + query : ""));
+        HttpMethod metodo = HttpMethod.resolve(peticion.getMethod());
+        restTemplate.execute(uri, metodo, request -> {
+            for (String nombre : Collections.list(peticion.getHeaderNames()))
+                if (!CABECERAS_SALTO.contains(nombre.toLowerCase()))
+                    request.getHeaders().put(nombre, Collections.list(peticion.getHeaders(nombre)));
+            request.getHeaders().set(Particiones.CABECERA_REENVIADA, String.valueOf(particiones.getIndice()));
+            if (metodo != HttpMethod.GET && metodo != HttpMethod.HEAD)
+                StreamUtils.copy(peticion.getInputStream(), request.getBody());
+        }, response -> {
+            respuesta.setStatus(response.getRawStatusCode());
+            response.getHeaders().forEach((nombre, valores) -> {
+                if (!CABECERAS_SALTO.contains(nombre.toLowerCase()))
+                    valores.forEach(valor -> respuesta.addHeader(nombre, valor));
+            });
+            StreamUtils.copy(response.getBody(), respuesta.getOutputStream());
+            return null;
+        });
+    }
+
+    // Convierte los códigos de error de ParticionController en las mismas excepciones que se lanzarían en local
+    private static void comprobar(int particion, ResponseEntity<Void> respuesta) {
+        HttpStatus estado = respuesta.getStatusCode();
+        if (estado.is2xxSuccessful())
+            return;
+        switch (estado) {
+            case CONFLICT:
+                throw new DineroInsuficienteException("Dinero insuficiente en la cuenta.");
+            case LOCKED:
+                throw new CuentaCerradaException("La cuenta está cerrada en la partición " + particion);
+            case TOO_MANY_REQUESTS:
+                throw new LimiteVelocidadExcedidoException("La cuenta ha superado su límite de transferencias " +
+                        "en la partición " + particion);
+            case NOT_FOUND:
+                throw new NoSuchElementException("La cuenta no existe en la partición " + particion);
+            default:
+                throw new IllegalStateException("La partición " + particion + " ha respondido " + estado);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.mlorenzo.test.springboot.app.partitioning;
+
+import org.mlorenzo.test.springboot.app.models.PreparacionParticion;
+import org.mlorenzo.test.springboot.app.models.entities.EstadoTransaccionParticion;
+import org.mlorenzo.test.springboot.app.models.entities.TransaccionParticion;
+import org.mlorenzo.test.springboot.app.repositories.TransaccionParticionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Coordinador de las transferencias cuya cuenta origen es local y cuya cuenta destino está en otra partición, con un
+// protocolo de dos fases: se prepara el débito local y el crédito remoto, se registra la decisión en
+// "transacciones_particion" y después se comunica a ambos. Si el proceso se cae o una partición no responde, la
+// recuperación periódica vuelve a enviar la decisión registrada; las transacciones que se quedaron sin decidir más de
+// "particiones.timeout-decision-ms" se abortan(aborto presunto).
+@Component
+@ConditionalOnExpression(Particiones.HABILITADO)
+public class CoordinadorParticiones {
+    private static final Logger log = LoggerFactory.getLogger(CoordinadorParticiones.class);
+    private static final int LOTE_RECUPERACION = 100;
+
+    private final Particiones particiones;
+    private final ParticipanteParticion participante;
+    private final ClienteParticiones cliente;
+    private final TransaccionParticionRepository transaccionRepository;
+    private final TransactionTemplate nueva;
+    private final long timeoutDecisionMs;
+
+    public CoordinadorParticiones(Particiones particiones, ParticipanteParticion participante,
+                                  ClienteParticiones cliente, TransaccionParticionRepository transaccionRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${particiones.timeout-decision-ms:30000}") long timeoutDecisionMs) {
+        this.particiones = particiones;
+        this.participante = participante;
+        this.cliente = cliente;
+        this.transaccionRepository = transaccionRepository;
+        this.nueva = new TransactionTemplate(transactionManager);
+        this.nueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.timeoutDecisionMs = timeoutDecisionMs;
+    }
+
+    // "bancoDestinoId" es null si las dos cuentas son del mismo banco
+    public void transferir(Long numCuentaOrigen, Long numCuentaDestino, Long bancoId, Long bancoDestinoId,
+                           BigDecimal monto) {
+        TransaccionParticion transaccion = new TransaccionParticion(UUID.randomUUID().toString(), numCuentaOrigen,
+                numCuentaDestino, particiones.particion(numCuentaDestino), bancoId, bancoDestinoId, monto);
+        nueva.executeWithoutResult(status -> transaccionRepository.save(transaccion));
+        String xid = transaccion.getXid();
+        try {
+            participante.preparar(xid, numCuentaOrigen, numCuentaDestino, bancoId, bancoDestinoId, monto.negate());
+            cliente.preparar(transaccion.getParticionDestino(),
+                    new PreparacionParticion(xid, numCuentaDestino, numCuentaOrigen, monto));
+        }
+        catch (RuntimeException e) {
+            completar(transaccion, decidir(xid, EstadoTransaccionParticion.ABORTADA));
+            throw e;
+        }
+        EstadoTransaccionParticion decision = decidir(xid, EstadoTransaccionParticion.CONFIRMADA);
+        // A partir de aquí la transferencia está hecha aunque la partición destino tarde en recibir la confirmación
+        completar(transaccion, decision);
+        if (decision != EstadoTransaccionParticion.CONFIRMADA)
+            throw new IllegalStateException("La transacción " + xid + " se ha abortado por tiempo");
+    }
+
+    @Scheduled(fixedDelayString = "${particiones.recuperacion-ms:5000}")
+    public void recuperar() {
+        LocalDateTime limite = LocalDateTime.now().minusNanos(timeoutDecisionMs * 1_000_000);
+        for (TransaccionParticion transaccion : transaccionRepository.findByFinalizadaFalseOrderByIniciada(
+                PageRequest.of(0, LOTE_RECUPERACION))) {
+            EstadoTransaccionParticion decision = transaccion.getEstado();
+            if (decision == EstadoTransaccionParticion.INICIADA) {
+                if (transaccion.getIniciada().isAfter(limite))
+                    continue;
+                decision = decidir(transaccion.getXid(), EstadoTransaccionParticion.ABORTADA);
+            }
+            completar(transaccion, decision);
+        }
+    }
+
+    // Devuelve la decisión que ha quedado registrada, que puede ser la de la recuperación si se adelantó
+    private EstadoTransaccionParticion decidir(String xid, EstadoTransaccionParticion decision) {
+        if (transaccionRepository.decidir(xid, EstadoTransaccionParticion.INICIADA, decision) == 1)
+            return decision;
+        return nueva.execute(status -> transaccionRepository.findById(xid).orElseThrow().getEstado());
+    }
+
+    private void completar(TransaccionParticion transaccion, EstadoTransaccionParticion decision) {
+        String xid = transaccion.getXid();
+        try {
+            if (decision == EstadoTransaccionParticion.CONFIRMADA) {
+                participante.confirmar(xid);
+                cliente.confirmar(transaccion.getParticionDestino(), xid);
+            }
+            else {
+                participante.abortar(xid);
+                cliente.abortar(transaccion.getParticionDestino(), xid);
+            }
+            transaccionRepository.finalizar(xid);
+        }
+        catch (RuntimeException e) {
+            log.warn("No se ha podido completar la transacción {}({}), se reintentará: {}", xid, decision,
+                    e.getMessage());
+        }
+    }
+}
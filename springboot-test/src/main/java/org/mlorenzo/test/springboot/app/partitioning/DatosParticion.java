@@ -0,0 +1,59 @@
+package org.mlorenzo.test.springboot.app.partitioning;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// Datos iniciales de una partición. Todas las instancias cargan el mismo "import.sql", así que se borran las cuentas
+// que pertenecen a otra partición y se crean "particiones.cuentas-por-particion" cuentas propias para las pruebas de
+// carga, con ids a partir de 1.000.000 para no chocar con los que genera la base de datos.
+// POST /api/cuentas no está disponible en modo particionado(ver EnrutadorParticionesFilter): las cuentas se dan de
+// alta con ids asignados de antemano, como aquí.
+@Component
+@ConditionalOnExpression(Particiones.HABILITADO)
+public class DatosParticion implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(DatosParticion.class);
+    private static final long PRIMER_ID = 1_000_000L;
+
+    private final Particiones particiones;
+    private final JdbcTemplate jdbcTemplate;
+    private final int cuentas;
+    private final BigDecimal saldoInicial;
+
+    public DatosParticion(Particiones particiones, JdbcTemplate jdbcTemplate,
+                          @Value("${particiones.cuentas-por-particion:0}") int cuentas,
+                          @Value("${particiones.saldo-inicial:1000}") BigDecimal saldoInicial) {
+        this.particiones = particiones;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cuentas = cuentas;
+        this.saldoInicial = saldoInicial;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Object[]> ajenas = new ArrayList<>();
+        for (Long id : jdbcTemplate.queryForList("SELECT id FROM cuentas", Long.class))
+            if (!particiones.esLocal(id))
+                ajenas.add(new Object[]{id});
+        jdbcTemplate.batchUpdate("DELETE FROM cuentas WHERE id = ?", ajenas);
+
+        List<Object[]> nuevas = new ArrayList<>(cuentas);
+        for (long id = PRIMER_ID; nuevas.size() < cuentas; id++)
+            if (particiones.esLocal(id) && jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM cuentas WHERE id = ?", Integer.class, id) == 0)
+                nuevas.add(new Object[]{id, "Cuenta " + id, saldoInicial});
+        jdbcTemplate.batchUpdate("INSERT INTO cuentas(id, persona, saldo, version, fragmentos, cerrada) " +
+                "VALUES(?, ?, ?, 0, 0, FALSE)", nuevas);
+        log.info("Partición {} de {}: {} cuentas ajenas eliminadas, {} cuentas creadas", particiones.getIndice(),
+                particiones.getTotal(), ajenas.size(), nuevas.size());
+    }
+}
@@ -0,0 +1,62 @@
+package org.mlorenzo.test.springboot.app.partitioning;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+// Modo particionado: las cuentas se reparten por hash de su id entre "particiones.total" instancias, cada una con su
+// propia base de datos. "particiones.nodos" lista la URL base de cada partición en orden y "particiones.indice" es la
+// posición de esta instancia en esa lista.
+@Component
+@ConditionalOnExpression(Particiones.HABILITADO)
+public class Particiones {
+    public static final String HABILITADO = "${particiones.total:1} > 1";
+    // Marca las peticiones que ya vienen de otra partición para que no se vuelvan a reenviar
+    public static final String CABECERA_REENVIADA = "X-Particion-Reenviada";
+
+    private final int total;
+    private final int indice;
+    private final String[] nodos;
+
+    public Particiones(@Value("${particiones.total}") int total, @Value("${particiones.indice}") int indice,
+                       @Value("${particiones.nodos}") String[] nodos) {
+        if (nodos.length != total)
+            throw new IllegalStateException("particiones.nodos debe tener " + total + " URLs y tiene " + nodos.length);
+        if (indice < 0 || indice >= total)
+            throw new IllegalStateException("particiones.indice debe estar entre 0 y " + (total - 1));
+        this.total = total;
+        this.indice = indice;
+        this.nodos = nodos;
+    }
+
+    public int particion(long cuentaId) {
+        return Math.floorMod(mezclar(cuentaId), total);
+    }
+
+    public boolean esLocal(long cuentaId) {
+        return particion(cuentaId) == indice;
+    }
+
+    public String nodo(int particion) {
+        return nodos[particion];
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getIndice() {
+        return indice;
+    }
+
+    // Paso final de MurmurHash3: los ids consecutivos quedan repartidos de forma uniforme entre las particiones
+    private static int mezclar(long id) {
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,70 @@
+package org.mlorenzo.test.springboot.app.partitioning;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.mlorenzo.test.springboot.app.models.TransaccionDto;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+// Decide dónde se ejecuta cada "transferir" en modo particionado: si las dos cuentas son locales sigue el camino
+// normal(con sus reintentos); si sólo la origen es local, la coordina esta partición con el protocolo de dos fases; y
+// si la origen es de otra partición, se reenvía a ella. Va por fuera del aspecto de reintentos porque los reintentos
+// sólo tienen sentido en una transferencia local.
+@Aspect
+@Component
+@Order(5)
+@ConditionalOnExpression(Particiones.HABILITADO)
+public class ParticionesAspect {
+    private final Particiones particiones;
+    private final CoordinadorParticiones coordinador;
+    private final ClienteParticiones cliente;
+    private final Counter locales;
+    private final Counter distribuidas;
+    private final Counter reenviadas;
+
+    public ParticionesAspect(Particiones particiones, CoordinadorParticiones coordinador, ClienteParticiones cliente,
+                             MeterRegistry registry) {
+        this.particiones = particiones;
+        this.coordinador = coordinador;
+        this.cliente = cliente;
+        this.locales = registry.counter("particiones.transferencias", "tipo", "local");
+        this.distribuidas = registry.counter("particiones.transferencias", "tipo", "distribuida");
+        this.reenviadas = registry.counter("particiones.transferencias", "tipo", "reenviada");
+    }
+
+    // Cubre las dos variantes de "transferir": (origen, destino, banco, monto) y (origen, destino, banco,
+    // banco destino, monto)
+    @Around("execution(* org.mlorenzo.test.springboot.app.services.CuentaService.transferir(..))")
+    public Object enrutar(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object[] args = joinPoint.getArgs();
+        Long numCuentaOrigen = (Long) args[0];
+        Long numCuentaDestino = (Long) args[1];
+        Long bancoId = (Long) args[2];
+        Long bancoDestinoId = args.length == 5 ? (Long) args[3] : null;
+        BigDecimal monto = (BigDecimal) args[args.length - 1];
+        if (!particiones.esLocal(numCuentaOrigen)) {
+            reenviadas.increment();
+            TransaccionDto dto = new TransaccionDto();
+            dto.setCuentaOrigenId(numCuentaOrigen);
+            dto.setCuentaDestinoId(numCuentaDestino);
+            dto.setBancoId(bancoId);
+            dto.setBancoDestinoId(bancoDestinoId);
+            dto.setMonto(monto);
+            cliente.transferir(particiones.particion(numCuentaOrigen), dto);
+            return null;
+        }
+        if (!particiones.esLocal(numCuentaDestino)) {
+            distribuidas.increment();
+            coordinador.transferir(numCuentaOrigen, numCuentaDestino, bancoId, bancoDestinoId, monto);
+            return null;
+        }
+        locales.increment();
+        return joinPoint.proceed();
+    }
+}
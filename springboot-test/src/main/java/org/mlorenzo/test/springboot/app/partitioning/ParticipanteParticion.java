@@ -0,0 +1,148 @@
+package org.mlorenzo.test.springboot.app.partitioning;
+
+import org.mlorenzo.test.springboot.app.aspects.ReintentarConflictos;
+import org.mlorenzo.test.springboot.app.events.SaldoActualizadoEvent;
+import org.mlorenzo.test.springboot.app.events.TransferenciaRealizadaEvent;
+import org.mlorenzo.test.springboot.app.exceptions.CuentaCerradaException;
+import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+import org.mlorenzo.test.springboot.app.models.entities.EstadoReserva;
+import org.mlorenzo.test.springboot.app.models.entities.Movimiento;
+import org.mlorenzo.test.springboot.app.models.entities.ReservaParticion;
+import org.mlorenzo.test.springboot.app.outbox.Outbox;
+import org.mlorenzo.test.springboot.app.repositories.BancoRepository;
+import org.mlorenzo.test.springboot.app.repositories.CuentaRepository;
+import org.mlorenzo.test.springboot.app.repositories.MovimientoRepository;
+import org.mlorenzo.test.springboot.app.repositories.ReservaParticionRepository;
+import org.mlorenzo.test.springboot.app.services.CamaraCompensacion;
+import org.mlorenzo.test.springboot.app.services.SaldosFragmentados;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+// Parte local de una transferencia entre particiones. Las tres operaciones son idempotentes, porque el coordinador
+// las repite hasta que recibe respuesta, y cada una va en su propia transacción aunque se llame desde otra(p. ej. desde
+// las transferencias asíncronas), ya que su resultado no puede depender de que esa otra transacción se confirme.
+@Service
+@ConditionalOnExpression(Particiones.HABILITADO)
+public class ParticipanteParticion {
+    private final CuentaRepository cuentaRepository;
+    private final BancoRepository bancoRepository;
+    private final MovimientoRepository movimientoRepository;
+    private final ReservaParticionRepository reservaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Outbox outbox;
+    private final SaldosFragmentados saldosFragmentados;
+    private final CamaraCompensacion camaraCompensacion;
+
+    public ParticipanteParticion(CuentaRepository cuentaRepository, BancoRepository bancoRepository,
+                                 MovimientoRepository movimientoRepository,
+                                 ReservaParticionRepository reservaRepository,
+                                 ApplicationEventPublisher eventPublisher, Outbox outbox,
+                                 SaldosFragmentados saldosFragmentados, CamaraCompensacion camaraCompensacion) {
+        this.cuentaRepository = cuentaRepository;
+        this.bancoRepository = bancoRepository;
+        this.movimientoRepository = movimientoRepository;
+        this.reservaRepository = reservaRepository;
+        this.eventPublisher = eventPublisher;
+        this.outbox = outbox;
+        this.saldosFragmentados = saldosFragmentados;
+        this.camaraCompensacion = camaraCompensacion;
+    }
+
+    // Un débito(monto negativo) se aplica ya, comprobando el saldo; un crédito sólo se anota. El banco se comprueba
+    // aquí, antes de la decisión: al confirmar ya no se puede abortar
+    @ReintentarConflictos
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void preparar(String xid, Long cuentaId, Long contraparteId, Long bancoId, Long bancoDestinoId,
+                         BigDecimal monto) {
+        Optional<ReservaParticion> existente = reservaRepository.findById(xid);
+        if (existente.isPresent()) {
+            if (existente.get().getEstado() == EstadoReserva.ABORTADA)
+                throw new IllegalStateException("La transacción " + xid + " ya se ha abortado");
+            return;
+        }
+        if (bancoId != null && !bancoRepository.existsById(bancoId))
+            throw new NoSuchElementException("No existe el banco " + bancoId);
+        Cuenta cuenta = cuentaRepository.findById(cuentaId).orElseThrow();
+        if (cuenta.isCerrada())
+            throw new CuentaCerradaException("La cuenta " + cuentaId + " está cerrada");
+        if (monto.signum() < 0) {
+            saldosFragmentados.asegurarSaldo(cuenta, monto.negate());
+            cuenta.debito(monto.negate());
+            cuentaRepository.saveAndFlush(cuenta);
+            eventPublisher.publishEvent(new SaldoActualizadoEvent(cuentaId, saldosFragmentados.saldoTotal(cuenta),
+                    cuenta.getVersion()));
+        }
+        reservaRepository.save(new ReservaParticion(xid, cuentaId, contraparteId, bancoId, bancoDestinoId, monto,
+                EstadoReserva.PREPARADA));
+    }
+
+    @ReintentarConflictos
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void confirmar(String xid) {
+        ReservaParticion reserva = reservaRepository.findById(xid).orElseThrow();
+        if (reserva.getEstado() == EstadoReserva.CONFIRMADA)
+            return;
+        if (reserva.getEstado() == EstadoReserva.ABORTADA)
+            throw new IllegalStateException("La transacción " + xid + " ya se ha abortado");
+        Cuenta cuenta = cuentaRepository.findById(reserva.getCuentaId()).orElseThrow();
+        if (reserva.getMonto().signum() > 0) {
+            if (cuenta.getFragmentos() > 0)
+                saldosFragmentados.acreditar(cuenta, reserva.getMonto());
+            else {
+                cuenta.credito(reserva.getMonto());
+                cuentaRepository.saveAndFlush(cuenta);
+            }
+        }
+        BigDecimal saldo = saldosFragmentados.saldoTotal(cuenta);
+        if (reserva.getMonto().signum() > 0)
+            eventPublisher.publishEvent(new SaldoActualizadoEvent(cuenta.getId(), saldo, cuenta.getVersion()));
+        LocalDateTime fecha = LocalDateTime.now();
+        // La partición origen(la única con banco) cuenta la transferencia, igual que una local(ver
+        // CuentaServiceImpl), y emite su evento
+        if (reserva.getBancoId() != null) {
+            if (camaraCompensacion.isHabilitada())
+                camaraCompensacion.registrar(fecha.toLocalDate(), reserva.getBancoId(),
+                        reserva.getBancoDestinoId() != null ? reserva.getBancoDestinoId() : reserva.getBancoId(),
+                        reserva.getMonto().negate());
+            else if (bancoRepository.incrementarTransferencias(reserva.getBancoId()) == 0)
+                throw new NoSuchElementException("No existe el banco " + reserva.getBancoId());
+            outbox.registrar(reserva.getCuentaId(), new TransferenciaRealizadaEvent(reserva.getCuentaId(),
+                    reserva.getContraparteId(), reserva.getBancoId(), reserva.getMonto().negate(), fecha));
+        }
+        movimientoRepository.save(new Movimiento(reserva.getCuentaId(), reserva.getContraparteId(), fecha,
+                reserva.getMonto(), saldo));
+        reserva.setEstado(EstadoReserva.CONFIRMADA);
+    }
+
+    @ReintentarConflictos
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void abortar(String xid) {
+        Optional<ReservaParticion> existente = reservaRepository.findById(xid);
+        if (existente.isEmpty()) {
+            reservaRepository.save(new ReservaParticion(xid, null, null, null, null, BigDecimal.ZERO,
+                    EstadoReserva.ABORTADA));
+            return;
+        }
+        ReservaParticion reserva = existente.get();
+        if (reserva.getEstado() == EstadoReserva.ABORTADA)
+            return;
+        if (reserva.getEstado() == EstadoReserva.CONFIRMADA)
+            throw new IllegalStateException("La transacción " + xid + " ya se ha confirmado");
+        if (reserva.getMonto().signum() < 0) {
+            Cuenta cuenta = cuentaRepository.findById(reserva.getCuentaId()).orElseThrow();
+            cuenta.credito(reserva.getMonto().negate());
+            cuentaRepository.saveAndFlush(cuenta);
+            eventPublisher.publishEvent(new SaldoActualizadoEvent(cuenta.getId(),
+                    saldosFragmentados.saldoTotal(cuenta), cuenta.getVersion()));
+        }
+        reserva.setEstado(EstadoReserva.ABORTADA);
+    }
+}
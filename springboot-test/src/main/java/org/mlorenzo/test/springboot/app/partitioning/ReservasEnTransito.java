@@ -0,0 +1,26 @@
+package org.mlorenzo.test.springboot.app.partitioning;
+
+import org.mlorenzo.test.springboot.app.jobs.FondosEnTransito;
+import org.mlorenzo.test.springboot.app.models.entities.EstadoReserva;
+import org.mlorenzo.test.springboot.app.repositories.ReservaParticionRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+// Débitos preparados de transferencias entre particiones: el dinero ya ha salido de la cuenta local pero la
+// transferencia todavía no está decidida
+@Component
+@ConditionalOnExpression(Particiones.HABILITADO)
+public class ReservasEnTransito implements FondosEnTransito {
+    private final ReservaParticionRepository reservaRepository;
+
+    public ReservasEnTransito(ReservaParticionRepository reservaRepository) {
+        this.reservaRepository = reservaRepository;
+    }
+
+    @Override
+    public BigDecimal calcular() {
+        return reservaRepository.sumDebitosByEstado(EstadoReserva.PREPARADA).negate();
+    }
+}
@@ -2,7 +2,15 @@ package org.mlorenzo.test.springboot.app.repositories;
 
 import org.mlorenzo.test.springboot.app.models.entities.Banco;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface BancoRepository extends JpaRepository<Banco, Long> {
 
+    // Incremento atómico en la base de datos: no se lee la entidad ni se comprueba la versión, así que las
+    // transferencias concurrentes ni pierden incrementos ni entran en conflicto por el contador del banco
+    @Modifying
+    @Query("UPDATE Banco b SET b.totalTransferencias = b.totalTransferencias + 1 WHERE b.id = :id")
+    int incrementarTransferencias(@Param("id") Long id);
 }
@@ -0,0 +1,7 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.mlorenzo.test.springboot.app.models.entities.Compensacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CompensacionRepository extends JpaRepository<Compensacion, Long> {
+}
@@ -0,0 +1,11 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.mlorenzo.test.springboot.app.models.entities.ConciliacionAnomalia;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ConciliacionAnomaliaRepository extends JpaRepository<ConciliacionAnomalia, Long> {
+    long countByEjecucionId(String ejecucionId);
+    List<ConciliacionAnomalia> findTop100ByEjecucionIdOrderByCuentaId(String ejecucionId);
+}
@@ -0,0 +1,10 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.mlorenzo.test.springboot.app.models.entities.ConciliacionTramo;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ConciliacionTramoRepository extends JpaRepository<ConciliacionTramo, Long> {
+    List<ConciliacionTramo> findByEjecucionId(String ejecucionId);
+}
@@ -0,0 +1,7 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.mlorenzo.test.springboot.app.models.entities.CuentaArchivada;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CuentaArchivadaRepository extends JpaRepository<CuentaArchivada, Long> {
+}
@@ -1,10 +1,37 @@
 package org.mlorenzo.test.springboot.app.repositories;
 
+import org.mlorenzo.test.springboot.app.models.CuentaResumen;
 import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
-public interface CuentaRepository extends JpaRepository<Cuenta, Long> {
+public interface CuentaRepository extends JpaRepository<Cuenta, Long>, CuentaRepositoryCustom {
     Optional<Cuenta> findByPersona(String persona);
+
+    // Consultas de sólo lectura: construyen CuentaResumen desde las columnas, sin entidades gestionadas
+    @Query("SELECT new org.mlorenzo.test.springboot.app.models.CuentaResumen(c.id, c.persona, c.saldo, c.fragmentos) " +
+            "FROM Cuenta c ORDER BY c.id")
+    List<CuentaResumen> findResumenes();
+
+    @Query("SELECT new org.mlorenzo.test.springboot.app.models.CuentaResumen(c.id, c.persona, c.saldo, c.fragmentos) " +
+            "FROM Cuenta c WHERE c.id = :id")
+    Optional<CuentaResumen> findResumenById(@Param("id") Long id);
+
+    // Sólo escribe "persona" y no incrementa la versión, así que no entra en conflicto con las transferencias que
+    // estén actualizando el saldo de la cuenta a la vez
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Cuenta c SET c.persona = :persona WHERE c.id = :id")
+    int actualizarPersona(@Param("id") Long id, @Param("persona") String persona);
+
+    // Sólo se cierra una cuenta sin saldo ni sub-saldos; se incrementa la versión para que una transferencia que ya
+    // hubiera leído la cuenta falle al guardar, se reintente y vea que está cerrada
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Cuenta c SET c.cerrada = true, c.version = c.version + 1 " +
+            "WHERE c.id = :id AND c.cerrada = false AND c.saldo = 0 AND c.fragmentos = 0")
+    int cerrar(@Param("id") Long id);
 }
@@ -0,0 +1,15 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+public interface CuentaRepositoryCustom {
+
+    // Cuentas con saldo entre "saldoMin" y "saldoMax"(ambos opcionales) ordenadas por(saldo, id), empezando después
+    // de(saldoCursor, idCursor) si se indican. Las cuentas se pasan al consumidor a medida que se leen y no quedan
+    // gestionadas por JPA. En las cuentas fragmentadas el saldo es el real(fila principal más sub-saldos).
+    void recorrerPorSaldo(BigDecimal saldoMin, BigDecimal saldoMax, BigDecimal saldoCursor, Long idCursor,
+                          int limite, Consumer<Cuenta> consumidor);
+}
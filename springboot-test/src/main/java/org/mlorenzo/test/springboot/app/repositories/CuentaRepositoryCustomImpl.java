@@ -0,0 +1,91 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Consulta por rango de saldo con JDBC: recorre el índice(saldo, id) de "cuentas" con un cursor, sin cargar entidades
+// en el contexto de persistencia, así que el coste de cada página depende de su tamaño y no del de la tabla.
+// El saldo real de una cuenta fragmentada es el de la fila más sus sub-saldos y no está en el índice. Esas cuentas se
+// excluyen del recorrido del índice y se leen aparte desde "cuentas_fragmentos"(que sólo tiene filas de las cuentas
+// fragmentadas, pocas por definición), y las dos listas ordenadas se mezclan.
+class CuentaRepositoryCustomImpl implements CuentaRepositoryCustom {
+    private static final int TAMANO_LECTURA = 1000;
+    private static final Comparator<Cuenta> POR_SALDO = Comparator.comparing(Cuenta::getSaldo)
+            .thenComparing(Cuenta::getId);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    CuentaRepositoryCustomImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(TAMANO_LECTURA);
+    }
+
+    @Override
+    public void recorrerPorSaldo(BigDecimal saldoMin, BigDecimal saldoMax, BigDecimal saldoCursor, Long idCursor,
+                                 int limite, Consumer<Cuenta> consumidor) {
+        Deque<Cuenta> fragmentadas = new ArrayDeque<>(
+                fragmentadasPorSaldo(saldoMin, saldoMax, saldoCursor, idCursor, limite));
+        StringBuilder sql = new StringBuilder("SELECT id, persona, saldo FROM cuentas WHERE fragmentos = 0");
+        List<Object> parametros = new ArrayList<>();
+        if (saldoMin != null) {
+            sql.append(" AND saldo >= ?");
+            parametros.add(saldoMin);
+        }
+        if (saldoMax != null) {
+            sql.append(" AND saldo <= ?");
+            parametros.add(saldoMax);
+        }
+        if (saldoCursor != null && idCursor != null) {
+            // Equivale a(saldo, id) > (saldoCursor, idCursor), escrito de forma que el índice se recorra como rango
+            sql.append(" AND saldo >= ? AND (saldo > ? OR id > ?)");
+            parametros.add(saldoCursor);
+            parametros.add(saldoCursor);
+            parametros.add(idCursor);
+        }
+        sql.append(" ORDER BY saldo, id LIMIT ?");
+        parametros.add(limite);
+        int[] entregadas = {0};
+        jdbcTemplate.query(sql.toString(), rs -> {
+            Cuenta cuenta = new Cuenta(rs.getLong(1), rs.getString(2), rs.getBigDecimal(3));
+            while (!fragmentadas.isEmpty() && POR_SALDO.compare(fragmentadas.peek(), cuenta) < 0
+                    && entregadas[0] < limite) {
+                consumidor.accept(fragmentadas.poll());
+                entregadas[0]++;
+            }
+            if (entregadas[0] < limite) {
+                consumidor.accept(cuenta);
+                entregadas[0]++;
+            }
+        }, parametros.toArray());
+        while (!fragmentadas.isEmpty() && entregadas[0] < limite) {
+            consumidor.accept(fragmentadas.poll());
+            entregadas[0]++;
+        }
+    }
+
+    // Las primeras "limite" cuentas fragmentadas del rango en orden(saldo, id), con su saldo real
+    private List<Cuenta> fragmentadasPorSaldo(BigDecimal saldoMin, BigDecimal saldoMax, BigDecimal saldoCursor,
+                                             Long idCursor, int limite) {
+        Cuenta cursor = saldoCursor != null && idCursor != null ? new Cuenta(idCursor, null, saldoCursor) : null;
+        return jdbcTemplate.query("SELECT c.id, c.persona, c.saldo + SUM(f.saldo) FROM cuentas_fragmentos f " +
+                        "JOIN cuentas c ON c.id = f.cuenta_id GROUP BY c.id, c.persona, c.saldo",
+                        (rs, i) -> new Cuenta(rs.getLong(1), rs.getString(2), rs.getBigDecimal(3)))
+                .stream()
+                .filter(c -> saldoMin == null || c.getSaldo().compareTo(saldoMin) >= 0)
+                .filter(c -> saldoMax == null || c.getSaldo().compareTo(saldoMax) <= 0)
+                .filter(c -> cursor == null || POR_SALDO.compare(c, cursor) > 0)
+                .sorted(POR_SALDO)
+                .limit(limite)
+                .collect(Collectors.toList());
+    }
+}
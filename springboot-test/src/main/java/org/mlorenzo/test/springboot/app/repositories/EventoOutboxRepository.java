@@ -0,0 +1,9 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.mlorenzo.test.springboot.app.models.entities.EventoOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    long countByEnviadoFalse();
+}
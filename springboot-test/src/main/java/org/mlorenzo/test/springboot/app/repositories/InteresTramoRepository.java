@@ -0,0 +1,10 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.mlorenzo.test.springboot.app.models.entities.InteresTramo;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface InteresTramoRepository extends JpaRepository<InteresTramo, Long> {
+    List<InteresTramo> findByEjecucionId(String ejecucionId);
+}
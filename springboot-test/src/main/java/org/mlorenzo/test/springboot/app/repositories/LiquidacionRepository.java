@@ -0,0 +1,12 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.mlorenzo.test.springboot.app.models.entities.Liquidacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LiquidacionRepository extends JpaRepository<Liquidacion, Long> {
+
+    List<Liquidacion> findByDiaOrderByBancoId(LocalDate dia);
+}
@@ -0,0 +1,27 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.mlorenzo.test.springboot.app.models.entities.Movimiento;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface MovimientoRepository extends JpaRepository<Movimiento, Long> {
+
+    // Primera página: los movimientos más recientes del rango de fechas. Se pasa un Pageable sólo para limitar el
+    // número de filas; al devolver una List no se lanza ninguna consulta COUNT.
+    @Query("select m from Movimiento m where m.cuentaId = :cuentaId and m.fecha >= :desde and m.fecha < :hasta " +
+            "order by m.fecha desc, m.id desc")
+    List<Movimiento> findPrimeraPagina(@Param("cuentaId") Long cuentaId, @Param("desde") LocalDateTime desde,
+                                       @Param("hasta") LocalDateTime hasta, Pageable pageable);
+
+    // Páginas siguientes: continúan justo después del último movimiento devuelto(fecha, id) en lugar de usar OFFSET
+    @Query("select m from Movimiento m where m.cuentaId = :cuentaId and m.fecha >= :desde and m.fecha < :hasta " +
+            "and (m.fecha < :fecha or (m.fecha = :fecha and m.id < :id)) order by m.fecha desc, m.id desc")
+    List<Movimiento> findPaginaSiguiente(@Param("cuentaId") Long cuentaId, @Param("desde") LocalDateTime desde,
+                                         @Param("hasta") LocalDateTime hasta, @Param("fecha") LocalDateTime fecha,
+                                         @Param("id") Long id, Pageable pageable);
+}
@@ -0,0 +1,16 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.mlorenzo.test.springboot.app.models.entities.EstadoReserva;
+import org.mlorenzo.test.springboot.app.models.entities.ReservaParticion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+
+public interface ReservaParticionRepository extends JpaRepository<ReservaParticion, String> {
+
+    // Suma de los débitos preparados(en negativo)
+    @Query("select coalesce(sum(r.monto), 0) from ReservaParticion r where r.estado = :estado and r.monto < 0")
+    BigDecimal sumDebitosByEstado(@Param("estado") EstadoReserva estado);
+}
@@ -0,0 +1,30 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.mlorenzo.test.springboot.app.models.entities.EstadoTransaccionParticion;
+import org.mlorenzo.test.springboot.app.models.entities.TransaccionParticion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface TransaccionParticionRepository extends JpaRepository<TransaccionParticion, String> {
+
+    List<TransaccionParticion> findByFinalizadaFalseOrderByIniciada(Pageable pageable);
+
+    // Decisión condicional: sólo la primera(el coordinador o la recuperación) cambia una transacción INICIADA
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("update TransaccionParticion t set t.estado = :decision where t.xid = :xid and t.estado = :actual")
+    int decidir(@Param("xid") String xid, @Param("actual") EstadoTransaccionParticion actual,
+                @Param("decision") EstadoTransaccionParticion decision);
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("update TransaccionParticion t set t.finalizada = true where t.xid = :xid")
+    int finalizar(@Param("xid") String xid);
+}
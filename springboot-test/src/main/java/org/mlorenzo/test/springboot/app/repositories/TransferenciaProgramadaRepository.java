@@ -0,0 +1,53 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.mlorenzo.test.springboot.app.models.entities.EstadoTransferencia;
+import org.mlorenzo.test.springboot.app.models.entities.TransferenciaProgramada;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TransferenciaProgramadaRepository extends JpaRepository<TransferenciaProgramada, Long> {
+
+    // Sólo el id y la fecha: es lo que necesita la rueda, y la ventana puede tener muchas filas
+    interface Vencimiento {
+        Long getId();
+        LocalDateTime getFechaEjecucion();
+    }
+
+    // Paginación por clave(fecha, id) a partir del cursor, sin pasar de "hasta"
+    @Query("select t.id as id, t.fechaEjecucion as fechaEjecucion from TransferenciaProgramada t " +
+            "where t.estado = :estado and t.fechaEjecucion <= :hasta and (t.fechaEjecucion > :fechaCursor " +
+            "or (t.fechaEjecucion = :fechaCursor and t.id > :idCursor)) order by t.fechaEjecucion, t.id")
+    List<Vencimiento> findVencimientos(@Param("estado") EstadoTransferencia estado,
+                                       @Param("fechaCursor") LocalDateTime fechaCursor,
+                                       @Param("idCursor") Long idCursor, @Param("hasta") LocalDateTime hasta,
+                                       Pageable pageable);
+
+    // Cambio de estado condicional: sólo afecta a las filas que siguen en el estado "actual"
+    @Transactional
+    @Modifying
+    @Query("update TransferenciaProgramada t set t.estado = :nuevo where t.id in :ids and t.estado = :actual")
+    int cambiarEstado(@Param("ids") Collection<Long> ids, @Param("actual") EstadoTransferencia actual,
+                      @Param("nuevo") EstadoTransferencia nuevo);
+
+    @Transactional
+    @Modifying
+    @Query("update TransferenciaProgramada t set t.estado = :nuevo where t.estado = :actual")
+    int cambiarEstado(@Param("actual") EstadoTransferencia actual, @Param("nuevo") EstadoTransferencia nuevo);
+
+    @Transactional
+    @Modifying
+    @Query("update TransferenciaProgramada t set t.estado = :nuevo, t.procesada = :fecha " +
+            "where t.id = :id and t.estado = :actual")
+    int cambiarEstado(@Param("id") Long id, @Param("actual") EstadoTransferencia actual,
+                      @Param("nuevo") EstadoTransferencia nuevo, @Param("fecha") LocalDateTime fecha);
+
+    long countByEstado(EstadoTransferencia estado);
+}
@@ -0,0 +1,45 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.mlorenzo.test.springboot.app.models.entities.EstadoTransferencia;
+import org.mlorenzo.test.springboot.app.models.entities.Transferencia;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TransferenciaRepository extends JpaRepository<Transferencia, Long> {
+
+    @Query("select t.id from Transferencia t where t.estado = :estado order by t.id")
+    List<Long> findIdsByEstado(@Param("estado") EstadoTransferencia estado, Pageable pageable);
+
+    // Cambio de estado condicional: sólo afecta a las filas que siguen en el estado "actual"
+    @Transactional
+    @Modifying
+    @Query("update Transferencia t set t.estado = :nuevo where t.id in :ids and t.estado = :actual")
+    int cambiarEstado(@Param("ids") Collection<Long> ids, @Param("actual") EstadoTransferencia actual,
+                      @Param("nuevo") EstadoTransferencia nuevo);
+
+    // Reclama un lote: pasan a "nuevo", marcadas con "reclamo", sólo las filas que siguen en el estado "actual". Si
+    // otro despachador se ha adelantado con alguna, ésa no se actualiza y no aparece en findIdsByReclamo
+    @Transactional
+    @Modifying
+    @Query("update Transferencia t set t.estado = :nuevo, t.reclamo = :reclamo " +
+            "where t.id in :ids and t.estado = :actual")
+    int reclamar(@Param("ids") Collection<Long> ids, @Param("actual") EstadoTransferencia actual,
+                 @Param("nuevo") EstadoTransferencia nuevo, @Param("reclamo") String reclamo);
+
+    @Query("select t.id from Transferencia t where t.reclamo = :reclamo order by t.id")
+    List<Long> findIdsByReclamo(@Param("reclamo") String reclamo);
+
+    @Transactional
+    @Modifying
+    @Query("update Transferencia t set t.estado = :nuevo where t.estado = :actual")
+    int cambiarEstado(@Param("actual") EstadoTransferencia actual, @Param("nuevo") EstadoTransferencia nuevo);
+
+    long countByEstado(EstadoTransferencia estado);
+}
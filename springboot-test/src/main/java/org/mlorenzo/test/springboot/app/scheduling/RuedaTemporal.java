@@ -0,0 +1,157 @@
+package org.mlorenzo.test.springboot.app.scheduling;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Rueda temporal jerárquica(como los temporizadores del kernel de Linux): "niveles" ruedas de 64 ranuras, donde una
+// ranura del nivel 0 dura un tick y una del nivel n dura 64^n ticks. Cada elemento se cuelga de la ranura que le
+// corresponde según lo lejos que esté su vencimiento, así que programar y cancelar son O(1)(una lista doblemente
+// enlazada por ranura y un mapa por clave). Cuando el nivel 0 da la vuelta, la ranura actual del nivel 1 se
+// redistribuye en el nivel 0, y así hacia arriba; cada elemento baja como mucho "niveles - 1" veces.
+// Un elemento nunca vence antes de su fecha, y como mucho un tick después. No es thread-safe.
+public class RuedaTemporal<K> {
+    private static final int BITS = 6;
+    private static final int RANURAS = 1 << BITS;
+    private static final int MASCARA = RANURAS - 1;
+
+    private final long tickMs;
+    private final int niveles;
+    private final Nodo<K>[][] ranuras;
+    private final Map<K, Nodo<K>> nodos = new HashMap<>();
+    private long tickActual;
+
+    public RuedaTemporal(long tickMs, int niveles, long ahoraMs) {
+        if (tickMs <= 0)
+            throw new IllegalArgumentException("El tick debe ser mayor que 0");
+        if (niveles < 1 || niveles * BITS > 60)
+            throw new IllegalArgumentException("El número de niveles debe estar entre 1 y " + 60 / BITS);
+        this.tickMs = tickMs;
+        this.niveles = niveles;
+        this.ranuras = crearRanuras(niveles);
+        for (Nodo<K>[] nivel : ranuras)
+            for (int i = 0; i < RANURAS; i++)
+                nivel[i] = new Nodo<>(null, 0);
+        this.tickActual = ahoraMs / tickMs;
+    }
+
+    // No se pueden crear arrays de un tipo genérico: se crea el del tipo sin parámetros y se convierte
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static <K> Nodo<K>[][] crearRanuras(int niveles) {
+        return new Nodo[niveles][RANURAS];
+    }
+
+    // Devuelve false si la clave ya estaba programada(no se modifica). Lo ya vencido vence en el siguiente tick.
+    public boolean programar(K clave, long vencimientoMs) {
+        if (nodos.containsKey(clave))
+            return false;
+        // Redondeo hacia arriba para no vencer antes de tiempo
+        long tick = Math.max(Math.floorDiv(vencimientoMs + tickMs - 1, tickMs), tickActual + 1);
+        if (tick - tickActual >= 1L << (BITS * niveles))
+            throw new IllegalArgumentException("El vencimiento supera el horizonte de la rueda");
+        Nodo<K> nodo = new Nodo<>(clave, tick);
+        nodos.put(clave, nodo);
+        colocar(nodo);
+        return true;
+    }
+
+    public boolean cancelar(K clave) {
+        Nodo<K> nodo = nodos.remove(clave);
+        if (nodo == null)
+            return false;
+        nodo.desenlazar();
+        return true;
+    }
+
+    public boolean contiene(K clave) {
+        return nodos.containsKey(clave);
+    }
+
+    public int size() {
+        return nodos.size();
+    }
+
+    // Último instante(exclusivo) que se puede programar desde el tick actual
+    public long getHorizonteMs() {
+        return (tickActual + (1L << (BITS * niveles))) * tickMs;
+    }
+
+    // Avanza tick a tick hasta "ahoraMs" y pasa al consumidor las claves vencidas, en orden de vencimiento
+    public void avanzar(long ahoraMs, Consumer<K> vencidas) {
+        long objetivo = ahoraMs / tickMs;
+        if (nodos.isEmpty()) {
+            // Nada que vencer: se salta directamente, p. ej. tras una parada larga
+            tickActual = Math.max(tickActual, objetivo);
+            return;
+        }
+        while (tickActual < objetivo) {
+            tickActual++;
+            // Cuando los bits de un nivel vuelven a 0 se redistribuye la ranura actual del nivel superior
+            for (int nivel = 1; nivel < niveles && (tickActual & ((1L << (BITS * nivel)) - 1)) == 0; nivel++)
+                redistribuir(ranuras[nivel][indice(tickActual, nivel)]);
+            Nodo<K> cabecera = ranuras[0][indice(tickActual, 0)];
+            while (cabecera.siguiente != cabecera) {
+                Nodo<K> nodo = cabecera.siguiente;
+                nodo.desenlazar();
+                nodos.remove(nodo.clave);
+                vencidas.accept(nodo.clave);
+            }
+            if (nodos.isEmpty()) {
+                tickActual = objetivo;
+                return;
+            }
+        }
+    }
+
+    private void redistribuir(Nodo<K> cabecera) {
+        Nodo<K> nodo = cabecera.siguiente;
+        cabecera.siguiente = cabecera;
+        cabecera.anterior = cabecera;
+        while (nodo != cabecera) {
+            Nodo<K> siguiente = nodo.siguiente;
+            colocar(nodo);
+            nodo = siguiente;
+        }
+    }
+
+    // El nivel es el primero cuyo alcance(64^(nivel+1) ticks) cubre la distancia al vencimiento. Un nodo que baja al
+    // nivel 0 con distancia 0 cae en la ranura del tick actual, que se procesa justo después de redistribuir.
+    private void colocar(Nodo<K> nodo) {
+        long distancia = nodo.tick - tickActual;
+        int nivel = 0;
+        while (nivel < niveles - 1 && distancia >= 1L << (BITS * (nivel + 1)))
+            nivel++;
+        nodo.enlazarAntes(ranuras[nivel][indice(nodo.tick, nivel)]);
+    }
+
+    private static int indice(long tick, int nivel) {
+        return (int) ((tick >>> (BITS * nivel)) & MASCARA);
+    }
+
+    private static class Nodo<K> {
+        final K clave;
+        final long tick;
+        Nodo<K> anterior = this;
+        Nodo<K> siguiente = this;
+
+        Nodo(K clave, long tick) {
+            this.clave = clave;
+            this.tick = tick;
+        }
+
+        // Al final de la lista de la ranura
+        void enlazarAntes(Nodo<K> cabecera) {
+            anterior = cabecera.anterior;
+            siguiente = cabecera;
+            cabecera.anterior.siguiente = this;
+            cabecera.anterior = this;
+        }
+
+        void desenlazar() {
+            anterior.siguiente = siguiente;
+            siguiente.anterior = anterior;
+            anterior = this;
+            siguiente = this;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import org.mlorenzo.test.springboot.app.models.entities.Compensacion;
+import org.mlorenzo.test.springboot.app.repositories.CompensacionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Modo compensación("compensacion.habilitada"): en lugar de sumar cada transferencia al contador de su banco, que es
+// una fila que comparten todas las transferencias, se anota lo que un banco debe a otro y se liquida al final del día.
+@Component
+public class CamaraCompensacion {
+    private final CompensacionRepository compensacionRepository;
+    private final boolean habilitada;
+
+    public CamaraCompensacion(CompensacionRepository compensacionRepository,
+                              @Value("${compensacion.habilitada:false}") boolean habilitada) {
+        this.compensacionRepository = compensacionRepository;
+        this.habilitada = habilitada;
+    }
+
+    public boolean isHabilitada() {
+        return habilitada;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(LocalDate dia, Long bancoOrigenId, Long bancoDestinoId, BigDecimal monto) {
+        compensacionRepository.save(new Compensacion(dia, bancoOrigenId, bancoDestinoId, monto));
+    }
+}
@@ -1,16 +1,29 @@
 package org.mlorenzo.test.springboot.app.services;
 
+import org.mlorenzo.test.springboot.app.models.CuentaResumen;
 import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+import org.mlorenzo.test.springboot.app.models.entities.Movimiento;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface CuentaService {
     List<Cuenta> findAll();
     Cuenta findById(Long id);
+    List<CuentaResumen> listarResumenes();
+    CuentaResumen findResumenById(Long id);
     Cuenta save(Cuenta cuenta);
+    Cuenta actualizarPersona(Long id, String persona);
     void deleteById(Long id);
+    void cerrar(Long id);
     int revisarTotalTransferencias(Long bancoId);
     BigDecimal revisarSalto(Long id);
     void transferir(Long numCuentaOrigen, Long numCuentaDestino, Long bancoId, BigDecimal monto);
+    void transferir(Long numCuentaOrigen, Long numCuentaDestino, Long bancoId, Long bancoDestinoId, BigDecimal monto);
+    List<Movimiento> findMovimientos(Long cuentaId, LocalDateTime desde, LocalDateTime hasta,
+                                     LocalDateTime fechaCursor, Long idCursor, int limite);
+    void recorrerPorSaldo(BigDecimal saldoMin, BigDecimal saldoMax, BigDecimal saldoCursor, Long idCursor, int limite,
+                          Consumer<Cuenta> consumidor);
 }
@@ -1,35 +1,94 @@
 package org.mlorenzo.test.springboot.app.services;
 
+import org.mlorenzo.test.springboot.app.events.SaldoActualizadoEvent;
+import org.mlorenzo.test.springboot.app.events.TransferenciaRealizadaEvent;
+import org.mlorenzo.test.springboot.app.exceptions.CuentaCerradaException;
+import org.mlorenzo.test.springboot.app.models.CuentaResumen;
 import org.mlorenzo.test.springboot.app.models.entities.Banco;
 import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+import org.mlorenzo.test.springboot.app.models.entities.Movimiento;
 import org.mlorenzo.test.springboot.app.repositories.BancoRepository;
 import org.mlorenzo.test.springboot.app.repositories.CuentaRepository;
+import org.mlorenzo.test.springboot.app.outbox.Outbox;
+import org.mlorenzo.test.springboot.app.repositories.MovimientoRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 public class CuentaServiceImpl implements CuentaService {
     private final CuentaRepository cuentaRepository;
     private final BancoRepository bancoRepository;
+    private final MovimientoRepository movimientoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Outbox outbox;
+    private final SaldosFragmentados saldosFragmentados;
+    private final CamaraCompensacion camaraCompensacion;
 
-    public CuentaServiceImpl(CuentaRepository cuentaRepository, BancoRepository bancoRepository) {
+    public CuentaServiceImpl(CuentaRepository cuentaRepository, BancoRepository bancoRepository,
+                             MovimientoRepository movimientoRepository, ApplicationEventPublisher eventPublisher,
+                             Outbox outbox, SaldosFragmentados saldosFragmentados,
+                             CamaraCompensacion camaraCompensacion) {
         this.cuentaRepository = cuentaRepository;
         this.bancoRepository = bancoRepository;
+        this.movimientoRepository = movimientoRepository;
+        this.eventPublisher = eventPublisher;
+        this.outbox = outbox;
+        this.saldosFragmentados = saldosFragmentados;
+        this.camaraCompensacion = camaraCompensacion;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Cuenta> findAll() {
-        return cuentaRepository.findAll();
+        List<Cuenta> cuentas = cuentaRepository.findAll();
+        if (cuentas.stream().noneMatch(c -> c.getFragmentos() > 0))
+            return cuentas;
+        Map<Long, BigDecimal> fragmentos = saldosFragmentados.sumarFragmentos();
+        return cuentas.stream()
+                .map(c -> c.getFragmentos() == 0 ? c
+                        : conSaldo(c, c.getSaldo().add(fragmentos.getOrDefault(c.getId(), BigDecimal.ZERO))))
+                .collect(Collectors.toList());
     }
 
     @Override
     @Transactional(readOnly = true)
     public Cuenta findById(Long id) {
-        return cuentaRepository.findById(id).orElseThrow();
+        Cuenta cuenta = cuentaRepository.findById(id).orElseThrow();
+        return cuenta.getFragmentos() == 0 ? cuenta : conSaldo(cuenta, saldosFragmentados.saldoTotal(cuenta));
+    }
+
+    // Para las lecturas de la API: las filas llegan como CuentaResumen(sin entidades ni contexto de persistencia), con
+    // el mismo tratamiento de los sub-saldos que findAll y findById
+    @Override
+    @Transactional(readOnly = true)
+    public List<CuentaResumen> listarResumenes() {
+        List<CuentaResumen> cuentas = cuentaRepository.findResumenes();
+        if (cuentas.stream().noneMatch(c -> c.getFragmentos() > 0))
+            return cuentas;
+        Map<Long, BigDecimal> fragmentos = saldosFragmentados.sumarFragmentos();
+        return cuentas.stream()
+                .map(c -> c.getFragmentos() == 0 ? c
+                        : c.conSaldo(c.getSaldo().add(fragmentos.getOrDefault(c.getId(), BigDecimal.ZERO))))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CuentaResumen findResumenById(Long id) {
+        CuentaResumen cuenta = cuentaRepository.findResumenById(id).orElseThrow();
+        return cuenta.getFragmentos() == 0 ? cuenta
+                : cuenta.conSaldo(saldosFragmentados.saldoTotal(id, cuenta.getSaldo(), cuenta.getFragmentos()));
     }
 
     @Override
@@ -38,9 +97,28 @@ public class CuentaServiceImpl implements CuentaService {
         return cuentaRepository.save(cuenta);
     }
 
+    @Override
+    @Transactional
+    public Cuenta actualizarPersona(Long id, String persona) {
+        if (cuentaRepository.actualizarPersona(id, persona) == 0)
+            throw new NoSuchElementException("No existe la cuenta " + id);
+        return findById(id);
+    }
+
+    @Override
+    @Transactional
+    public void cerrar(Long id) {
+        if (cuentaRepository.cerrar(id) == 1)
+            return;
+        Cuenta cuenta = cuentaRepository.findById(id).orElseThrow();
+        if (!cuenta.isCerrada())
+            throw new IllegalStateException("La cuenta " + id + " no se puede cerrar con saldo");
+    }
+
     @Override
     @Transactional
     public void deleteById(Long id) {
+        saldosFragmentados.eliminar(id);
         cuentaRepository.deleteById(id);
     }
 
@@ -51,24 +129,101 @@ public class CuentaServiceImpl implements CuentaService {
         return banco.getTotalTransferencias();
     }
 
+    // Sólo hace falta el saldo: se lee como CuentaResumen, sin cargar la entidad en el contexto de persistencia
     @Override
     @Transactional(readOnly = true)
     public BigDecimal revisarSalto(Long id) {
-        Cuenta cuenta = cuentaRepository.findById(id).orElseThrow();
-        return cuenta.getSaldo();
+        CuentaResumen cuenta = cuentaRepository.findResumenById(id).orElseThrow();
+        return saldosFragmentados.saldoTotal(id, cuenta.getSaldo(), cuenta.getFragmentos());
     }
 
     @Override
     @Transactional
     public void transferir(Long numCuentaOrigen, Long numCuentaDestino, Long bancoId, BigDecimal monto) {
+        realizarTransferencia(numCuentaOrigen, numCuentaDestino, bancoId, bancoId, monto);
+    }
+
+    @Override
+    @Transactional
+    public void transferir(Long numCuentaOrigen, Long numCuentaDestino, Long bancoId, Long bancoDestinoId,
+                           BigDecimal monto) {
+        realizarTransferencia(numCuentaOrigen, numCuentaDestino, bancoId, bancoDestinoId, monto);
+    }
+
+    private void realizarTransferencia(Long numCuentaOrigen, Long numCuentaDestino, Long bancoId, Long bancoDestinoId,
+                                       BigDecimal monto) {
         Cuenta cuentaOrigen = cuentaRepository.findById(numCuentaOrigen).orElseThrow();
+        comprobarAbierta(cuentaOrigen);
+        saldosFragmentados.asegurarSaldo(cuentaOrigen, monto);
         cuentaOrigen.debito(monto);
         cuentaRepository.save(cuentaOrigen);
         Cuenta cuentaDestino = cuentaRepository.findById(numCuentaDestino).orElseThrow();
-        cuentaDestino.credito(monto);
-        cuentaRepository.save(cuentaDestino);
-        Banco banco = bancoRepository.findById(bancoId).orElseThrow();
-        banco.setTotalTransferencias(banco.getTotalTransferencias() + 1);
-        bancoRepository.save(banco);
+        comprobarAbierta(cuentaDestino);
+        // En una cuenta fragmentada el crédito va a un sub-saldo y la fila de la cuenta no se modifica
+        if (cuentaDestino.getFragmentos() > 0)
+            saldosFragmentados.acreditar(cuentaDestino, monto);
+        else {
+            cuentaDestino.credito(monto);
+            cuentaRepository.save(cuentaDestino);
+        }
+        LocalDateTime fecha = LocalDateTime.now();
+        // Los movimientos se añaden en la misma transacción que la actualización de los saldos
+        BigDecimal saldoOrigen = saldosFragmentados.saldoTotal(cuentaOrigen);
+        BigDecimal saldoDestino = saldosFragmentados.saldoTotal(cuentaDestino);
+        movimientoRepository.saveAll(Arrays.asList(
+                new Movimiento(numCuentaOrigen, numCuentaDestino, fecha, monto.negate(), saldoOrigen),
+                new Movimiento(numCuentaDestino, numCuentaOrigen, fecha, monto, saldoDestino)));
+        // El evento para los sistemas externos también va en esta transacción; lo entrega OutboxRelay
+        outbox.registrar(numCuentaOrigen,
+                new TransferenciaRealizadaEvent(numCuentaOrigen, numCuentaDestino, bancoId, monto, fecha));
+        // Hibernate incrementa la versión de las cuentas al volcar los cambios, así que se vuelca aquí: los eventos
+        // llevan esa versión y los conflictos de concurrencia optimista saltan antes de bloquear la fila del banco.
+        // H2 puede perder el incremento de otra transacción que espera ese bloqueo si la que lo tiene se deshace
+        cuentaRepository.flush();
+        // En modo compensación la transferencia se cuenta en la liquidación de fin de día(ver CompensacionJob).
+        // Si no, el contador del banco se incrementa lo más tarde posible: todas las transferencias del banco pasan
+        // por esa fila y su bloqueo sólo se mantiene hasta el commit, no durante toda la transferencia.
+        // En los dos modos un banco inexistente es un error; si no, la liquidación apuntaría a un banco que no existe
+        if (camaraCompensacion.isHabilitada()) {
+            if (!bancoRepository.existsById(bancoId))
+                throw new NoSuchElementException("No existe el banco " + bancoId);
+            camaraCompensacion.registrar(fecha.toLocalDate(), bancoId, bancoDestinoId, monto);
+        }
+        else if (bancoRepository.incrementarTransferencias(bancoId) == 0)
+            throw new NoSuchElementException("No existe el banco " + bancoId);
+        // Los listeners(p. ej. el stream de saldos) los reciben sólo si la transacción se confirma
+        eventPublisher.publishEvent(new SaldoActualizadoEvent(numCuentaOrigen, saldoOrigen, cuentaOrigen.getVersion()));
+        eventPublisher.publishEvent(new SaldoActualizadoEvent(numCuentaDestino, saldoDestino,
+                cuentaDestino.getVersion()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Movimiento> findMovimientos(Long cuentaId, LocalDateTime desde, LocalDateTime hasta,
+                                            LocalDateTime fechaCursor, Long idCursor, int limite) {
+        PageRequest pagina = PageRequest.of(0, limite);
+        if (fechaCursor == null || idCursor == null)
+            return movimientoRepository.findPrimeraPagina(cuentaId, desde, hasta, pagina);
+        return movimientoRepository.findPaginaSiguiente(cuentaId, desde, hasta, fechaCursor, idCursor, pagina);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void recorrerPorSaldo(BigDecimal saldoMin, BigDecimal saldoMax, BigDecimal saldoCursor, Long idCursor,
+                                 int limite, Consumer<Cuenta> consumidor) {
+        cuentaRepository.recorrerPorSaldo(saldoMin, saldoMax, saldoCursor, idCursor, limite, consumidor);
+    }
+
+    private static void comprobarAbierta(Cuenta cuenta) {
+        if (cuenta.isCerrada())
+            throw new CuentaCerradaException("La cuenta " + cuenta.getId() + " está cerrada");
+    }
+
+    // Copia de la cuenta con el saldo real, para no modificar la entidad gestionada
+    private static Cuenta conSaldo(Cuenta cuenta, BigDecimal saldo) {
+        Cuenta copia = new Cuenta(cuenta.getId(), cuenta.getPersona(), saldo);
+        copia.setVersion(cuenta.getVersion());
+        copia.setFragmentos(cuenta.getFragmentos());
+        return copia;
     }
 }
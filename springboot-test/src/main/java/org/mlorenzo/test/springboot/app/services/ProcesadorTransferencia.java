@@ -0,0 +1,52 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import org.mlorenzo.test.springboot.app.aspects.ReintentarConflictos;
+import org.mlorenzo.test.springboot.app.models.entities.EstadoTransferencia;
+import org.mlorenzo.test.springboot.app.models.entities.Transferencia;
+import org.mlorenzo.test.springboot.app.repositories.TransferenciaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+// Ejecuta una transferencia de la cola. Está en un bean aparte para que las llamadas pasen por el proxy transaccional
+// y por el aspecto de reintentos.
+@Component
+public class ProcesadorTransferencia {
+    private static final int LONGITUD_MAXIMA_ERROR = 255;
+
+    private final CuentaService cuentaService;
+    private final TransferenciaRepository transferenciaRepository;
+
+    public ProcesadorTransferencia(CuentaService cuentaService, TransferenciaRepository transferenciaRepository) {
+        this.cuentaService = cuentaService;
+        this.transferenciaRepository = transferenciaRepository;
+    }
+
+    // El dinero se mueve y la transferencia pasa a COMPLETADA en la misma transacción. Si la aplicación se cae a mitad,
+    // la fila sigue EN_PROCESO sin que se haya movido nada y se vuelve a procesar al arrancar.
+    @ReintentarConflictos
+    @Transactional
+    public void procesar(Long id) {
+        Transferencia transferencia = transferenciaRepository.findById(id).orElseThrow();
+        // Sin banco de destino es una transferencia dentro del mismo banco, como la variante de 4 argumentos
+        if (transferencia.getBancoDestinoId() == null)
+            cuentaService.transferir(transferencia.getCuentaOrigenId(), transferencia.getCuentaDestinoId(),
+                    transferencia.getBancoId(), transferencia.getMonto());
+        else
+            cuentaService.transferir(transferencia.getCuentaOrigenId(), transferencia.getCuentaDestinoId(),
+                    transferencia.getBancoId(), transferencia.getBancoDestinoId(), transferencia.getMonto());
+        transferencia.setEstado(EstadoTransferencia.COMPLETADA);
+        transferencia.setProcesada(LocalDateTime.now());
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void marcarFallida(Long id, Throwable causa) {
+        Transferencia transferencia = transferenciaRepository.findById(id).orElseThrow();
+        String error = causa.getMessage() != null ? causa.getMessage() : causa.getClass().getSimpleName();
+        transferencia.setEstado(EstadoTransferencia.FALLIDA);
+        transferencia.setError(error.length() > LONGITUD_MAXIMA_ERROR ? error.substring(0, LONGITUD_MAXIMA_ERROR) : error);
+        transferencia.setProcesada(LocalDateTime.now());
+    }
+}
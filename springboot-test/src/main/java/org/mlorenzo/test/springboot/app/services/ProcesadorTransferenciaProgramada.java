@@ -0,0 +1,55 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import org.mlorenzo.test.springboot.app.aspects.ReintentarConflictos;
+import org.mlorenzo.test.springboot.app.models.entities.EstadoTransferencia;
+import org.mlorenzo.test.springboot.app.models.entities.TransferenciaProgramada;
+import org.mlorenzo.test.springboot.app.repositories.TransferenciaProgramadaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+// Ejecuta una transferencia programada vencida. Igual que ProcesadorTransferencia, está en un bean aparte para que las
+// llamadas pasen por el proxy transaccional y por el aspecto de reintentos.
+@Component
+public class ProcesadorTransferenciaProgramada {
+    private static final int LONGITUD_MAXIMA_ERROR = 255;
+
+    private final CuentaService cuentaService;
+    private final TransferenciaProgramadaRepository programadaRepository;
+
+    public ProcesadorTransferenciaProgramada(CuentaService cuentaService,
+                                             TransferenciaProgramadaRepository programadaRepository) {
+        this.cuentaService = cuentaService;
+        this.programadaRepository = programadaRepository;
+    }
+
+    // Sólo se ejecutan las que el despachador ha pasado a EN_PROCESO; si se cancelaron antes, el cambio de estado no
+    // las incluyó y aquí se ignoran. El dinero se mueve y pasa a COMPLETADA en la misma transacción.
+    @ReintentarConflictos
+    @Transactional
+    public void procesar(Long id) {
+        TransferenciaProgramada programada = programadaRepository.findById(id).orElseThrow();
+        if (programada.getEstado() != EstadoTransferencia.EN_PROCESO)
+            return;
+        // Sin banco de destino es una transferencia dentro del mismo banco, como la variante de 4 argumentos
+        if (programada.getBancoDestinoId() == null)
+            cuentaService.transferir(programada.getCuentaOrigenId(), programada.getCuentaDestinoId(),
+                    programada.getBancoId(), programada.getMonto());
+        else
+            cuentaService.transferir(programada.getCuentaOrigenId(), programada.getCuentaDestinoId(),
+                    programada.getBancoId(), programada.getBancoDestinoId(), programada.getMonto());
+        programada.setEstado(EstadoTransferencia.COMPLETADA);
+        programada.setProcesada(LocalDateTime.now());
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void marcarFallida(Long id, Throwable causa) {
+        TransferenciaProgramada programada = programadaRepository.findById(id).orElseThrow();
+        String error = causa.getMessage() != null ? causa.getMessage() : causa.getClass().getSimpleName();
+        programada.setEstado(EstadoTransferencia.FALLIDA);
+        programada.setError(error.length() > LONGITUD_MAXIMA_ERROR ? error.substring(0, LONGITUD_MAXIMA_ERROR) : error);
+        programada.setProcesada(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,99 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Sub-saldos de las cuentas fragmentadas(cuentas con mucha contención). Cada crédito bloquea sólo uno de los K
+// fragmentos en lugar de la fila de "cuentas", así que hasta K transferencias a la misma cuenta pueden confirmarse a la
+// vez. Los débitos salen de la fila principal y, si no llega, antes se consolidan ahí todos los fragmentos.
+// Se usa JDBC sobre la conexión de la transacción en curso, que es la misma que usa JPA.
+@Component
+public class SaldosFragmentados {
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter consolidaciones;
+
+    public SaldosFragmentados(JdbcTemplate jdbcTemplate, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.consolidaciones = registry.counter("cuentas.fragmentadas.consolidaciones");
+    }
+
+    // Saldo real de la cuenta: la fila principal más los fragmentos
+    public BigDecimal saldoTotal(Cuenta cuenta) {
+        return saldoTotal(cuenta.getId(), cuenta.getSaldo(), cuenta.getFragmentos());
+    }
+
+    public BigDecimal saldoTotal(Long cuentaId, BigDecimal saldo, int fragmentos) {
+        if (fragmentos == 0)
+            return saldo;
+        return saldo.add(jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(saldo), 0) FROM cuentas_fragmentos WHERE cuenta_id = ?", BigDecimal.class,
+                cuentaId));
+    }
+
+    public Map<Long, BigDecimal> sumarFragmentos() {
+        Map<Long, BigDecimal> sumas = new HashMap<>();
+        jdbcTemplate.query("SELECT cuenta_id, SUM(saldo) FROM cuentas_fragmentos GROUP BY cuenta_id",
+                rs -> { sumas.put(rs.getLong(1), rs.getBigDecimal(2)); });
+        return sumas;
+    }
+
+    public void acreditar(Cuenta cuenta, BigDecimal monto) {
+        int fragmento = ThreadLocalRandom.current().nextInt(cuenta.getFragmentos());
+        jdbcTemplate.update("UPDATE cuentas_fragmentos SET saldo = saldo + ? WHERE cuenta_id = ? AND fragmento = ?",
+                monto, cuenta.getId(), fragmento);
+    }
+
+    // Si la fila principal no cubre el débito, pasa a ella el saldo de todos los fragmentos. El SELECT ... FOR UPDATE
+    // espera a los créditos en curso, así que no se pierde ninguno. También espera a otro débito que esté
+    // consolidando: cuando éste confirma, los fragmentos ya están a 0 y su saldo está en la fila, que ha cambiado de
+    // versión. Entonces la cuenta leída está desfasada y se lanza un conflicto optimista para que
+    // ReintentoTransferenciaAspect repita la transferencia con la fila nueva, en lugar de rechazarla por falta de saldo.
+    public void asegurarSaldo(Cuenta cuenta, BigDecimal monto) {
+        if (cuenta.getFragmentos() == 0 || cuenta.getSaldo().compareTo(monto) >= 0)
+            return;
+        List<BigDecimal> saldos = jdbcTemplate.queryForList(
+                "SELECT saldo FROM cuentas_fragmentos WHERE cuenta_id = ? FOR UPDATE", BigDecimal.class,
+                cuenta.getId());
+        Long version = jdbcTemplate.queryForObject("SELECT version FROM cuentas WHERE id = ?", Long.class,
+                cuenta.getId());
+        if (version == null || version != cuenta.getVersion())
+            throw new ObjectOptimisticLockingFailureException(Cuenta.class, cuenta.getId());
+        BigDecimal total = saldos.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (total.signum() == 0)
+            return;
+        jdbcTemplate.update("UPDATE cuentas_fragmentos SET saldo = 0 WHERE cuenta_id = ?", cuenta.getId());
+        cuenta.credito(total);
+        consolidaciones.increment();
+    }
+
+    // Incrementa la versión de la cuenta para que las transferencias que la leyeron sin fragmentar se reintenten
+    @Transactional
+    public boolean fragmentar(Long cuentaId, int fragmentos) {
+        int actualizadas = jdbcTemplate.update(
+                "UPDATE cuentas SET fragmentos = ?, version = version + 1 WHERE id = ? AND fragmentos = 0",
+                fragmentos, cuentaId);
+        if (actualizadas == 0)
+            return false;
+        List<Object[]> filas = new ArrayList<>(fragmentos);
+        for (int i = 0; i < fragmentos; i++)
+            filas.add(new Object[]{cuentaId, i});
+        jdbcTemplate.batchUpdate("INSERT INTO cuentas_fragmentos(cuenta_id, fragmento, saldo) VALUES(?, ?, 0)", filas);
+        return true;
+    }
+
+    public void eliminar(Long cuentaId) {
+        jdbcTemplate.update("DELETE FROM cuentas_fragmentos WHERE cuenta_id = ?", cuentaId);
+    }
+}
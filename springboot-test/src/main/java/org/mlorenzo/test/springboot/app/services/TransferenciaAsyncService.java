@@ -0,0 +1,9 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import org.mlorenzo.test.springboot.app.models.TransaccionDto;
+import org.mlorenzo.test.springboot.app.models.entities.Transferencia;
+
+public interface TransferenciaAsyncService {
+    Transferencia encolar(TransaccionDto dto);
+    Transferencia findById(Long id);
+}
@@ -0,0 +1,136 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.mlorenzo.test.springboot.app.models.TransaccionDto;
+import org.mlorenzo.test.springboot.app.models.entities.EstadoTransferencia;
+import org.mlorenzo.test.springboot.app.models.entities.Transferencia;
+import org.mlorenzo.test.springboot.app.repositories.BancoRepository;
+import org.mlorenzo.test.springboot.app.repositories.CuentaRepository;
+import org.mlorenzo.test.springboot.app.repositories.TransferenciaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Transferencias asíncronas: la petición sólo valida y guarda la transferencia(la tabla "transferencias" hace de cola
+// persistente), así que su latencia no depende de la del commit de "transferir". Un despachador reclama lotes de
+// transferencias pendientes y las reparte en un pool fijo de hilos, que absorbe los picos a ritmo constante.
+@Service
+public class TransferenciaAsyncServiceImpl implements TransferenciaAsyncService {
+    private static final Logger log = LoggerFactory.getLogger(TransferenciaAsyncServiceImpl.class);
+
+    private final TransferenciaRepository transferenciaRepository;
+    private final CuentaRepository cuentaRepository;
+    private final BancoRepository bancoRepository;
+    private final ProcesadorTransferencia procesador;
+    private final ThreadPoolExecutor workers;
+    private final int lote;
+    private volatile boolean iniciado;
+
+    public TransferenciaAsyncServiceImpl(TransferenciaRepository transferenciaRepository,
+                                         CuentaRepository cuentaRepository, BancoRepository bancoRepository,
+                                         ProcesadorTransferencia procesador, MeterRegistry registry,
+                                         @Value("${transferencias.async.workers:4}") int numWorkers,
+                                         @Value("${transferencias.async.lote:100}") int lote) {
+        this.transferenciaRepository = transferenciaRepository;
+        this.cuentaRepository = cuentaRepository;
+        this.bancoRepository = bancoRepository;
+        this.procesador = procesador;
+        this.lote = lote;
+        AtomicInteger contador = new AtomicInteger();
+        // Cola acotada: el despachador nunca reclama más transferencias de las que caben
+        this.workers = new ThreadPoolExecutor(numWorkers, numWorkers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(lote * 2), r -> new Thread(r, "transferencias-" + contador.incrementAndGet()));
+        Gauge.builder("transferencias.async.cola", workers, w -> w.getQueue().size()).register(registry);
+    }
+
+    @Override
+    @Transactional
+    public Transferencia encolar(TransaccionDto dto) {
+        if (dto.getCuentaOrigenId() == null || dto.getCuentaDestinoId() == null || dto.getBancoId() == null
+                || dto.getMonto() == null)
+            throw new IllegalArgumentException("Faltan datos de la transferencia");
+        if (dto.getMonto().compareTo(BigDecimal.ZERO) <= 0)
+            throw new IllegalArgumentException("El monto debe ser mayor que 0");
+        if (dto.getCuentaOrigenId().equals(dto.getCuentaDestinoId()))
+            throw new IllegalArgumentException("La cuenta de origen y la de destino son la misma");
+        if (!cuentaRepository.existsById(dto.getCuentaOrigenId()) || !cuentaRepository.existsById(dto.getCuentaDestinoId()))
+            throw new IllegalArgumentException("La cuenta no existe");
+        if (!bancoRepository.existsById(dto.getBancoId()))
+            throw new IllegalArgumentException("El banco no existe");
+        return transferenciaRepository.save(new Transferencia(dto.getCuentaOrigenId(), dto.getCuentaDestinoId(),
+                dto.getBancoId(), dto.getBancoDestinoId(), dto.getMonto()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Transferencia findById(Long id) {
+        return transferenciaRepository.findById(id).orElseThrow();
+    }
+
+    // Las transferencias que quedaron EN_PROCESO cuando se paró la aplicación no llegaron a confirmarse(se confirman
+    // en la misma transacción que el cambio de estado), así que se vuelven a poner en la cola.
+    @EventListener(ApplicationReadyEvent.class)
+    public void recuperar() {
+        int recuperadas = transferenciaRepository.cambiarEstado(EstadoTransferencia.EN_PROCESO,
+                EstadoTransferencia.PENDIENTE);
+        if (recuperadas > 0)
+            log.info("{} transferencias asíncronas vuelven a la cola", recuperadas);
+        iniciado = true;
+    }
+
+    @Scheduled(fixedDelayString = "${transferencias.async.intervalo-ms:100}")
+    public void despachar() {
+        if (!iniciado)
+            return;
+        int capacidad = Math.min(lote, workers.getQueue().remainingCapacity());
+        if (capacidad == 0)
+            return;
+        List<Long> ids = transferenciaRepository.findIdsByEstado(EstadoTransferencia.PENDIENTE,
+                PageRequest.of(0, capacidad));
+        if (ids.isEmpty())
+            return;
+        // El UPDATE condicional es el que reclama: con varias instancias leyendo la misma cola, cada fila sólo la
+        // actualiza un despachador. Si se han reclamado todas(lo normal) no hace falta volver a leerlas
+        String reclamo = UUID.randomUUID().toString();
+        int reclamadas = transferenciaRepository.reclamar(ids, EstadoTransferencia.PENDIENTE,
+                EstadoTransferencia.EN_PROCESO, reclamo);
+        if (reclamadas == 0)
+            return;
+        if (reclamadas < ids.size())
+            ids = transferenciaRepository.findIdsByReclamo(reclamo);
+        for (Long id : ids)
+            workers.execute(() -> ejecutar(id));
+    }
+
+    private void ejecutar(Long id) {
+        try {
+            procesador.procesar(id);
+        }
+        catch (RuntimeException e) {
+            log.debug("La transferencia asíncrona {} ha fallado: {}", id, e.getMessage());
+            procesador.marcarFallida(id, e);
+        }
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,10 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import org.mlorenzo.test.springboot.app.models.TransferenciaProgramadaDto;
+import org.mlorenzo.test.springboot.app.models.entities.TransferenciaProgramada;
+
+public interface TransferenciaProgramadaService {
+    TransferenciaProgramada programar(TransferenciaProgramadaDto dto);
+    void cancelar(Long id);
+    TransferenciaProgramada findById(Long id);
+}
@@ -0,0 +1,254 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.mlorenzo.test.springboot.app.models.TransferenciaProgramadaDto;
+import org.mlorenzo.test.springboot.app.models.entities.EstadoTransferencia;
+import org.mlorenzo.test.springboot.app.models.entities.TransferenciaProgramada;
+import org.mlorenzo.test.springboot.app.repositories.BancoRepository;
+import org.mlorenzo.test.springboot.app.repositories.CuentaRepository;
+import org.mlorenzo.test.springboot.app.repositories.TransferenciaProgramadaRepository;
+import org.mlorenzo.test.springboot.app.repositories.TransferenciaProgramadaRepository.Vencimiento;
+import org.mlorenzo.test.springboot.app.scheduling.RuedaTemporal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Transferencias programadas: se guardan en "transferencias_programadas" y sólo las que vencen dentro de la ventana
+// próxima("programadas.ventana-ms") se cargan en una rueda temporal, que cada tick entrega las vencidas sin recorrer
+// ni la tabla ni las demás pendientes. Cada cierto tiempo se amplía la ventana cargando sólo el tramo nuevo, y las que
+// se programan dentro de la ventana ya cargada entran directamente en la rueda. El despachador pasa las vencidas a
+// EN_PROCESO por lotes(un UPDATE por lote, que excluye las canceladas) y las ejecuta en un pool fijo de hilos con
+// CuentaService.transferir, como las transferencias asíncronas.
+// Al arrancar, las EN_PROCESO vuelven a PENDIENTE y la primera carga incluye todas las pendientes ya vencidas, que
+// salen en el primer tick: así se recuperan las que vencieron con la aplicación parada.
+// El despachador tiene su propio hilo en lugar de usar el de @Scheduled, que comparten los jobs nocturnos: mientras
+// uno de ellos se ejecuta, las programadas seguirían venciendo sin salir de la rueda.
+@Service
+public class TransferenciaProgramadaServiceImpl implements TransferenciaProgramadaService {
+    private static final Logger log = LoggerFactory.getLogger(TransferenciaProgramadaServiceImpl.class);
+    private static final int NIVELES_RUEDA = 4;
+    private static final LocalDateTime SIN_CARGAR = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final TransferenciaProgramadaRepository programadaRepository;
+    private final CuentaRepository cuentaRepository;
+    private final BancoRepository bancoRepository;
+    private final ProcesadorTransferenciaProgramada procesador;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService despachador;
+    private final long intervaloMs;
+    private final long ventanaMs;
+    private final int tamanoCarga;
+    private final int lote;
+    private final ZoneId zona = ZoneId.systemDefault();
+
+    // La rueda y las vencidas que aún no se han despachado se protegen con el candado de la rueda
+    private final RuedaTemporal<Long> rueda;
+    private final ArrayDeque<Long> vencidas = new ArrayDeque<>();
+    // Lo que vence antes de este instante ya está en la rueda o lo va a cargar la carga en curso
+    private volatile long horizonteMs = Long.MIN_VALUE;
+    // Sólo lo usa el hilo que carga la ventana
+    private LocalDateTime cargadoHasta = SIN_CARGAR;
+    private volatile boolean iniciado;
+
+    public TransferenciaProgramadaServiceImpl(TransferenciaProgramadaRepository programadaRepository,
+                                              CuentaRepository cuentaRepository, BancoRepository bancoRepository,
+                                              ProcesadorTransferenciaProgramada procesador, MeterRegistry registry,
+                                              @Value("${programadas.tick-ms:1000}") long tickMs,
+                                              @Value("${programadas.ventana-ms:3600000}") long ventanaMs,
+                                              @Value("${programadas.tamano-carga:1000}") int tamanoCarga,
+                                              @Value("${programadas.workers:4}") int numWorkers,
+                                              @Value("${programadas.lote:100}") int lote,
+                                              @Value("${programadas.intervalo-ms:100}") long intervaloMs) {
+        this.programadaRepository = programadaRepository;
+        this.cuentaRepository = cuentaRepository;
+        this.bancoRepository = bancoRepository;
+        this.procesador = procesador;
+        this.ventanaMs = ventanaMs;
+        this.tamanoCarga = tamanoCarga;
+        this.lote = lote;
+        this.intervaloMs = intervaloMs;
+        long ahora = System.currentTimeMillis();
+        this.rueda = new RuedaTemporal<>(tickMs, NIVELES_RUEDA, ahora);
+        // Margen para que una ventana cargada siga cabiendo en la rueda hasta la siguiente recarga
+        if (ventanaMs > (rueda.getHorizonteMs() - ahora) / 2)
+            throw new IllegalArgumentException("La ventana de transferencias programadas no cabe en la rueda");
+        AtomicInteger contador = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(numWorkers, numWorkers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(lote * 2), r -> new Thread(r, "programadas-" + contador.incrementAndGet()));
+        this.despachador = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "programadas-despachador"));
+        Gauge.builder("transferencias.programadas.rueda", this, s -> s.contar(false)).register(registry);
+        Gauge.builder("transferencias.programadas.vencidas", this, s -> s.contar(true)).register(registry);
+    }
+
+    // Sin @Transactional: la fila tiene que estar confirmada antes de entrar en la rueda, o el despachador podría no
+    // encontrarla al vencer
+    @Override
+    public TransferenciaProgramada programar(TransferenciaProgramadaDto dto) {
+        if (dto.getCuentaOrigenId() == null || dto.getCuentaDestinoId() == null || dto.getBancoId() == null
+                || dto.getMonto() == null || dto.getFechaEjecucion() == null)
+            throw new IllegalArgumentException("Faltan datos de la transferencia");
+        if (dto.getMonto().compareTo(BigDecimal.ZERO) <= 0)
+            throw new IllegalArgumentException("El monto debe ser mayor que 0");
+        if (dto.getCuentaOrigenId().equals(dto.getCuentaDestinoId()))
+            throw new IllegalArgumentException("La cuenta de origen y la de destino son la misma");
+        if (!cuentaRepository.existsById(dto.getCuentaOrigenId()) || !cuentaRepository.existsById(dto.getCuentaDestinoId()))
+            throw new IllegalArgumentException("La cuenta no existe");
+        if (!bancoRepository.existsById(dto.getBancoId()))
+            throw new IllegalArgumentException("El banco no existe");
+        TransferenciaProgramada programada = programadaRepository.save(new TransferenciaProgramada(
+                dto.getCuentaOrigenId(), dto.getCuentaDestinoId(), dto.getBancoId(), dto.getBancoDestinoId(),
+                dto.getMonto(), dto.getFechaEjecucion()));
+        // Si vence más allá de la ventana, ya la cargará la recarga que la alcance
+        long vencimiento = aMilisegundos(programada.getFechaEjecucion());
+        if (vencimiento < horizonteMs)
+            synchronized (rueda) {
+                rueda.programar(programada.getId(), vencimiento);
+            }
+        return programada;
+    }
+
+    // Si ya ha vencido y está en un lote, el cambio de estado condicional decide: o se cancela o se ejecuta
+    @Override
+    public void cancelar(Long id) {
+        if (programadaRepository.cambiarEstado(id, EstadoTransferencia.PENDIENTE, EstadoTransferencia.CANCELADA,
+                LocalDateTime.now()) == 0) {
+            TransferenciaProgramada programada = programadaRepository.findById(id).orElseThrow();
+            throw new IllegalStateException("La transferencia programada " + id + " está " + programada.getEstado());
+        }
+        synchronized (rueda) {
+            rueda.cancelar(id);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransferenciaProgramada findById(Long id) {
+        return programadaRepository.findById(id).orElseThrow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recuperar() {
+        int recuperadas = programadaRepository.cambiarEstado(EstadoTransferencia.EN_PROCESO,
+                EstadoTransferencia.PENDIENTE);
+        if (recuperadas > 0)
+            log.info("{} transferencias programadas vuelven a estar pendientes", recuperadas);
+        cargarVentana();
+        iniciado = true;
+        despachador.scheduleWithFixedDelay(this::despacharSinFallar, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Scheduled(fixedDelayString = "${programadas.recarga-ms:300000}",
+            initialDelayString = "${programadas.recarga-ms:300000}")
+    public void recargar() {
+        if (iniciado)
+            cargarVentana();
+    }
+
+    // Carga las pendientes que vencen entre lo ya cargado y el nuevo horizonte. El horizonte se publica antes de
+    // consultar para que una transferencia guardada durante la carga entre por "programar" o por la consulta; si entra
+    // por las dos, la rueda ignora la segunda.
+    private void cargarVentana() {
+        long nuevoHorizonte = System.currentTimeMillis() + ventanaMs;
+        horizonteMs = nuevoHorizonte;
+        LocalDateTime hasta = LocalDateTime.ofInstant(Instant.ofEpochMilli(nuevoHorizonte), zona);
+        LocalDateTime fechaCursor = cargadoHasta;
+        // La fecha del cursor ya se cargó entera, salvo en la primera carga
+        long idCursor = cargadoHasta == SIN_CARGAR ? 0 : Long.MAX_VALUE;
+        int cargadas = 0;
+        List<Vencimiento> pagina;
+        do {
+            pagina = programadaRepository.findVencimientos(EstadoTransferencia.PENDIENTE, fechaCursor, idCursor,
+                    hasta, PageRequest.of(0, tamanoCarga));
+            synchronized (rueda) {
+                for (Vencimiento vencimiento : pagina)
+                    if (rueda.programar(vencimiento.getId(), aMilisegundos(vencimiento.getFechaEjecucion())))
+                        cargadas++;
+            }
+            if (!pagina.isEmpty()) {
+                Vencimiento ultimo = pagina.get(pagina.size() - 1);
+                fechaCursor = ultimo.getFechaEjecucion();
+                idCursor = ultimo.getId();
+            }
+        } while (pagina.size() == tamanoCarga);
+        cargadoHasta = hasta;
+        log.debug("{} transferencias programadas cargadas hasta {}", cargadas, hasta);
+    }
+
+    // Una excepción cancelaría las siguientes ejecuciones del despachador; las vencidas del tick que falla vuelven a
+    // intentarse al reiniciar, igual que las que se quedan EN_PROCESO
+    private void despacharSinFallar() {
+        try {
+            despachar();
+        }
+        catch (RuntimeException e) {
+            log.warn("Error al despachar las transferencias programadas: {}", e.getMessage());
+        }
+    }
+
+    public void despachar() {
+        if (!iniciado)
+            return;
+        List<Long> ids;
+        synchronized (rueda) {
+            rueda.avanzar(System.currentTimeMillis(), vencidas::add);
+            int capacidad = Math.min(lote, workers.getQueue().remainingCapacity());
+            ids = new ArrayList<>(Math.min(capacidad, vencidas.size()));
+            while (ids.size() < capacidad && !vencidas.isEmpty())
+                ids.add(vencidas.poll());
+        }
+        if (ids.isEmpty())
+            return;
+        programadaRepository.cambiarEstado(ids, EstadoTransferencia.PENDIENTE, EstadoTransferencia.EN_PROCESO);
+        for (Long id : ids)
+            workers.execute(() -> ejecutar(id));
+    }
+
+    private void ejecutar(Long id) {
+        try {
+            procesador.procesar(id);
+        }
+        catch (RuntimeException e) {
+            log.debug("La transferencia programada {} ha fallado: {}", id, e.getMessage());
+            procesador.marcarFallida(id, e);
+        }
+    }
+
+    private double contar(boolean soloVencidas) {
+        synchronized (rueda) {
+            return soloVencidas ? vencidas.size() : rueda.size();
+        }
+    }
+
+    private long aMilisegundos(LocalDateTime fecha) {
+        return fecha.atZone(zona).toInstant().toEpochMilli();
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        despachador.shutdownNow();
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
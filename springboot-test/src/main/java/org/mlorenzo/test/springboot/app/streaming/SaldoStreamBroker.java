@@ -0,0 +1,242 @@
+package org.mlorenzo.test.springboot.app.streaming;
+
+import org.mlorenzo.test.springboot.app.events.SaldoActualizadoEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Difunde por Server-Sent Events el nuevo saldo de una cuenta después de cada transferencia confirmada.
+// El hilo de la transferencia sólo guarda el último saldo y, como mucho, encola una tarea; el envío a los suscriptores
+// se hace en un pool propio. Cada suscriptor guarda únicamente el último saldo pendiente de enviar, así que a un cliente
+// lento le llegan menos eventos(el más reciente) en lugar de acumularse en memoria.
+// Los eventos llevan la versión de la cuenta y a un suscriptor nunca se le envía un saldo más antiguo que el último que
+// ha recibido. Un envío bloqueado(el cliente no lee) ocupa un hilo del pool hasta que el servidor agota el tiempo de
+// escritura; si pasa de "envio-max-ms", el suscriptor se da de baja, se cierra su conexión al terminar el envío y
+// mientras tanto el pool tiene un hilo más, para que el resto de suscriptores no se quede sin hilos.
+@Component
+public class SaldoStreamBroker {
+    private final Map<Long, Canal> canales = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService vigilante;
+    private final int hilos;
+    private final long timeoutMs;
+    private final long envioMaxNanos;
+
+    public SaldoStreamBroker(@Value("${saldos.stream.hilos:4}") int hilos,
+                             @Value("${saldos.stream.timeout-ms:1800000}") long timeoutMs,
+                             @Value("${saldos.stream.envio-max-ms:5000}") long envioMaxMs) {
+        // Gracias a la agrupación nunca hay más de una tarea por canal y por suscriptor en la cola. Como mucho hay
+        // otros tantos hilos de más para los envíos bloqueados
+        this.executor = new ThreadPoolExecutor(hilos, 2 * hilos, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                hilosDaemon("saldos-stream-"));
+        this.vigilante = Executors.newSingleThreadScheduledExecutor(hilosDaemon("saldos-stream-vigilante-"));
+        this.hilos = hilos;
+        this.timeoutMs = timeoutMs;
+        this.envioMaxNanos = TimeUnit.MILLISECONDS.toNanos(envioMaxMs);
+        long intervalo = Math.max(1, envioMaxMs / 2);
+        vigilante.scheduleWithFixedDelay(this::vigilarEnvios, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    // "version" es la de la cuenta cuando se leyó "saldoActual"(ver SaldoActualizadoEvent)
+    public SseEmitter suscribir(Long cuentaId, BigDecimal saldoActual, long version) {
+        return suscribir(cuentaId, saldoActual, version, new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter suscribir(Long cuentaId, BigDecimal saldoActual, long version, SseEmitter emitter) {
+        Suscriptor suscriptor = new Suscriptor(cuentaId, emitter);
+        // El alta y la baja se hacen dentro de compute para no añadir un suscriptor a un canal que se está eliminando
+        canales.compute(cuentaId, (id, canal) -> {
+            Canal c = canal != null ? canal : new Canal();
+            c.suscriptores.add(suscriptor);
+            return c;
+        });
+        Runnable baja = () -> darDeBaja(cuentaId, suscriptor);
+        emitter.onCompletion(baja);
+        emitter.onTimeout(baja);
+        emitter.onError(e -> baja.run());
+        // El primer evento es el saldo actual, para que el cliente no tenga que pedirlo aparte
+        suscriptor.ofrecer(new Saldo(saldoActual, version));
+        return emitter;
+    }
+
+    @TransactionalEventListener
+    public void alConfirmarTransferencia(SaldoActualizadoEvent event) {
+        // Sin suscriptores el coste es una búsqueda en el mapa
+        Canal canal = canales.get(event.getCuentaId());
+        if (canal != null)
+            canal.publicar(new Saldo(event.getSaldo(), event.getVersion()));
+    }
+
+    public int getSuscriptores() {
+        return canales.values().stream().mapToInt(c -> c.suscriptores.size()).sum();
+    }
+
+    private void darDeBaja(Long cuentaId, Suscriptor suscriptor) {
+        canales.computeIfPresent(cuentaId, (id, canal) -> {
+            canal.suscriptores.remove(suscriptor);
+            return canal.suscriptores.isEmpty() ? null : canal;
+        });
+    }
+
+    private void vigilarEnvios() {
+        long ahora = System.nanoTime();
+        canales.values().forEach(c -> c.suscriptores.forEach(s -> {
+            if (s.marcarLento(ahora))
+                darDeBaja(s.cuentaId, s);
+        }));
+    }
+
+    // Un hilo de más mientras dure cada envío bloqueado, sin pasar del máximo del pool
+    private synchronized void ajustarHilos(int delta) {
+        int hilosActuales = executor.getCorePoolSize() + delta;
+        if (hilosActuales >= hilos && hilosActuales <= executor.getMaximumPoolSize())
+            executor.setCorePoolSize(hilosActuales);
+    }
+
+    @PreDestroy
+    public void detener() {
+        vigilante.shutdownNow();
+        executor.shutdownNow();
+        canales.values().forEach(c -> c.suscriptores.forEach(s -> s.emitter.complete()));
+    }
+
+    // Ejecuta "tarea" en el pool si no hay ya una programada. La tarea se repite mientras queden valores pendientes,
+    // de modo que nunca hay dos envíos a la vez para el mismo destino y el último valor siempre se entrega.
+    private void programar(AtomicBoolean programado, AtomicReference<Saldo> pendiente, Runnable tarea) {
+        if (programado.compareAndSet(false, true))
+            executor.execute(() -> {
+                do {
+                    tarea.run();
+                    programado.set(false);
+                } while (pendiente.get() != null && programado.compareAndSet(false, true));
+            });
+    }
+
+    private static ThreadFactory hilosDaemon(String prefijo) {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread hilo = new Thread(r, prefijo + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+
+    private static final class Saldo {
+        private final BigDecimal valor;
+        private final long version;
+
+        Saldo(BigDecimal valor, long version) {
+            this.valor = valor;
+            this.version = version;
+        }
+
+        // Con la misma versión gana el último(créditos de una cuenta fragmentada)
+        static Saldo masReciente(Saldo actual, Saldo nuevo) {
+            return actual == null || nuevo.version >= actual.version ? nuevo : actual;
+        }
+    }
+
+    private class Canal {
+        private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+        private final AtomicReference<Saldo> ultimo = new AtomicReference<>();
+        private final AtomicBoolean programado = new AtomicBoolean();
+
+        void publicar(Saldo saldo) {
+            ultimo.accumulateAndGet(saldo, Saldo::masReciente);
+            programar(programado, ultimo, this::difundir);
+        }
+
+        private void difundir() {
+            Saldo saldo = ultimo.getAndSet(null);
+            if (saldo != null)
+                suscriptores.forEach(s -> s.ofrecer(saldo));
+        }
+    }
+
+    private class Suscriptor {
+        private final Long cuentaId;
+        private final SseEmitter emitter;
+        private final AtomicReference<Saldo> pendiente = new AtomicReference<>();
+        private final AtomicBoolean programado = new AtomicBoolean();
+        // Sólo los usa "enviar", que nunca se ejecuta a la vez para el mismo suscriptor
+        private long versionEnviada = Long.MIN_VALUE;
+        // Protegidos por el monitor del suscriptor(ver marcarLento y terminarEnvio)
+        private boolean enviando;
+        private long enviandoDesde;
+        private boolean lento;
+
+        Suscriptor(Long cuentaId, SseEmitter emitter) {
+            this.cuentaId = cuentaId;
+            this.emitter = emitter;
+        }
+
+        void ofrecer(Saldo saldo) {
+            pendiente.accumulateAndGet(saldo, Saldo::masReciente);
+            programar(programado, pendiente, this::enviar);
+        }
+
+        private void enviar() {
+            Saldo saldo = pendiente.getAndSet(null);
+            if (saldo == null || saldo.version < versionEnviada || !empezarEnvio())
+                return;
+            Map<String, Object> datos = new HashMap<>();
+            datos.put("cuentaId", cuentaId);
+            datos.put("saldo", saldo.valor);
+            try {
+                emitter.send(SseEmitter.event().name("saldo").data(datos));
+                versionEnviada = saldo.version;
+            }
+            catch (IOException | IllegalStateException e) {
+                // El cliente se ha desconectado
+                darDeBaja(cuentaId, this);
+            }
+            finally {
+                terminarEnvio();
+            }
+        }
+
+        private synchronized boolean empezarEnvio() {
+            if (lento)
+                return false;
+            enviando = true;
+            enviandoDesde = System.nanoTime();
+            return true;
+        }
+
+        private synchronized void terminarEnvio() {
+            enviando = false;
+            if (lento) {
+                ajustarHilos(-1);
+                // Ya no hay ningún envío en curso que bloquee el emitter. El cliente puede volver a conectarse
+                emitter.complete();
+            }
+        }
+
+        // Lo llama el vigilante: true si el envío en curso ha pasado del máximo y el suscriptor se debe dar de baja
+        synchronized boolean marcarLento(long ahora) {
+            if (lento || !enviando || ahora - enviandoDesde < envioMaxNanos)
+                return false;
+            lento = true;
+            ajustarHilos(1);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.mlorenzo.test.springboot.app.tracing;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Buffer circular de spans de un único hilo. Sólo escribe el hilo propietario y sólo lee el exportador, así que basta
+// con publicar las posiciones de escritura y lectura con lazySet(escritura ordenada) sin bloqueos ni CAS. Si el buffer
+// se llena antes de que el exportador lo vacíe, los spans nuevos se descartan en lugar de bloquear la petición.
+class BufferSpans {
+    // Referencia débil para no retener el hilo: sólo sirve para saber si ha terminado(ver ExportadorTrazas)
+    private final WeakReference<Thread> hilo;
+    private final long hiloId;
+    private final String hiloNombre;
+    private final int mascara;
+    private final String[] nombres;
+    private final String[] categorias;
+    private final long[] trazas;
+    private final long[] spans;
+    private final long[] padres;
+    private final long[] inicios;
+    private final long[] duraciones;
+    private final AtomicLong escritos = new AtomicLong();
+    private final AtomicLong leidos = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+
+    // Contexto de la traza en curso en este hilo(sólo lo usa el hilo propietario)
+    long trazaActual;
+    long spanActual;
+
+    // "capacidad" debe ser potencia de 2
+    BufferSpans(Thread hilo, int capacidad) {
+        this.hilo = new WeakReference<>(hilo);
+        this.hiloId = hilo.getId();
+        this.hiloNombre = hilo.getName();
+        this.mascara = capacidad - 1;
+        this.nombres = new String[capacidad];
+        this.categorias = new String[capacidad];
+        this.trazas = new long[capacidad];
+        this.spans = new long[capacidad];
+        this.padres = new long[capacidad];
+        this.inicios = new long[capacidad];
+        this.duraciones = new long[capacidad];
+    }
+
+    void anadir(String nombre, String categoria, long traza, long span, long padre, long inicio, long duracion) {
+        long posicion = escritos.get();
+        if (posicion - leidos.get() > mascara) {
+            descartados.lazySet(descartados.get() + 1);
+            return;
+        }
+        int i = (int) (posicion & mascara);
+        nombres[i] = nombre;
+        categorias[i] = categoria;
+        trazas[i] = traza;
+        spans[i] = span;
+        padres[i] = padre;
+        inicios[i] = inicio;
+        duraciones[i] = duracion;
+        escritos.lazySet(posicion + 1);
+    }
+
+    int drenar(ConsumidorSpans consumidor) {
+        long desde = leidos.get();
+        long hasta = escritos.get();
+        for (long posicion = desde; posicion < hasta; posicion++) {
+            int i = (int) (posicion & mascara);
+            consumidor.aceptar(hiloId, hiloNombre, nombres[i], categorias[i], trazas[i], spans[i], padres[i],
+                    inicios[i], duraciones[i]);
+        }
+        leidos.lazySet(hasta);
+        return (int) (hasta - desde);
+    }
+
+    boolean isHiloTerminado() {
+        Thread propietario = hilo.get();
+        return propietario == null || !propietario.isAlive();
+    }
+
+    long getDescartados() {
+        return descartados.get();
+    }
+
+    interface ConsumidorSpans {
+        void aceptar(long hiloId, String hiloNombre, String nombre, String categoria, long traza, long span,
+                     long padre, long inicio, long duracion);
+    }
+}
@@ -0,0 +1,123 @@
+package org.mlorenzo.test.springboot.app.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Vacía periódicamente los buffers de spans de todos los hilos y los añade, por lotes, a un fichero en formato
+// "Trace Event" de Chrome(array JSON con eventos "X"), que se puede abrir con chrome://tracing o https://ui.perfetto.dev.
+// El formato admite que falte el "]" final, así que el fichero es válido aunque la aplicación se pare de golpe.
+// Los buffers de los hilos que han terminado se quitan del registro después de vaciarlos por última vez. Cuando el
+// fichero supera "trazas.fichero-max-bytes" se renombra a "<fichero>.1"(sustituyendo al anterior) y se empieza uno
+// nuevo, así que en disco nunca hay más de unas dos veces ese tamaño.
+@Component
+@ConditionalOnProperty(name = "trazas.habilitadas", havingValue = "true")
+public class ExportadorTrazas {
+    private static final Logger log = LoggerFactory.getLogger(ExportadorTrazas.class);
+
+    private final Trazas trazas;
+    private final Path ruta;
+    private final Path rutaAnterior;
+    private final long maxBytes;
+    private BufferedWriter writer;
+    // Tamaño del fichero actual; se cuenta en caracteres, que con los nombres ASCII de los spans son bytes
+    private long escritos;
+    // Spans descartados por los buffers que ya se han quitado del registro
+    private long descartadosHilosTerminados;
+    // Para convertir System.nanoTime() en microsegundos desde la época
+    private final long baseEpocaMicros = System.currentTimeMillis() * 1000;
+    private final long baseNanos = System.nanoTime();
+    private final StringBuilder lote = new StringBuilder();
+
+    public ExportadorTrazas(Trazas trazas, @Value("${trazas.fichero}") String fichero,
+                            @Value("${trazas.fichero-max-bytes:104857600}") long maxBytes) throws IOException {
+        this.trazas = trazas;
+        this.ruta = Paths.get(fichero);
+        this.rutaAnterior = Paths.get(fichero + ".1");
+        this.maxBytes = maxBytes;
+        if (ruta.getParent() != null)
+            Files.createDirectories(ruta.getParent());
+        abrir();
+        log.info("Exportando trazas a {}", ruta.toAbsolutePath());
+    }
+
+    @Scheduled(fixedDelayString = "${trazas.exportar-ms:1000}")
+    public synchronized void exportar() {
+        int spans = 0;
+        for (BufferSpans buffer : trazas.getBuffers()) {
+            // Se comprueba antes de vaciarlo: si el hilo ya había terminado, este vaciado recoge sus últimos spans
+            boolean terminado = buffer.isHiloTerminado();
+            spans += buffer.drenar(this::escribir);
+            if (terminado) {
+                descartadosHilosTerminados += buffer.getDescartados();
+                trazas.eliminar(buffer);
+            }
+        }
+        if (spans == 0)
+            return;
+        try {
+            writer.append(lote);
+            writer.flush();
+            escritos += lote.length();
+            if (escritos >= maxBytes)
+                rotar();
+        }
+        catch (IOException e) {
+            log.warn("No se han podido exportar {} spans: {}", spans, e.getMessage());
+        }
+        finally {
+            lote.setLength(0);
+        }
+    }
+
+    private void abrir() throws IOException {
+        writer = Files.newBufferedWriter(ruta, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        writer.write("[\n");
+        escritos = 2;
+    }
+
+    private void rotar() throws IOException {
+        writer.close();
+        Files.move(ruta, rutaAnterior, StandardCopyOption.REPLACE_EXISTING);
+        abrir();
+        log.debug("Fichero de trazas rotado a {}", rutaAnterior);
+    }
+
+    private void escribir(long hiloId, String hiloNombre, String nombre, String categoria, long traza, long span,
+                          long padre, long inicio, long duracion) {
+        lote.append("{\"name\":\"").append(nombre)
+                .append("\",\"cat\":\"").append(categoria)
+                .append("\",\"ph\":\"X\",\"pid\":1,\"tid\":").append(hiloId)
+                .append(",\"ts\":").append(baseEpocaMicros + (inicio - baseNanos) / 1000)
+                .append(",\"dur\":").append(duracion / 1000.0)
+                .append(",\"args\":{\"traceId\":\"").append(Long.toHexString(traza))
+                .append("\",\"spanId\":\"").append(Long.toHexString(span))
+                .append("\",\"parentId\":\"").append(padre == 0 ? "" : Long.toHexString(padre))
+                .append("\",\"thread\":\"").append(hiloNombre)
+                .append("\"}},\n");
+    }
+
+    @PreDestroy
+    public synchronized void cerrar() throws IOException {
+        exportar();
+        long descartados = descartadosHilosTerminados
+                + trazas.getBuffers().stream().mapToLong(BufferSpans::getDescartados).sum();
+        if (descartados > 0)
+            log.warn("Se han descartado {} spans por buffers llenos", descartados);
+        writer.close();
+    }
+}
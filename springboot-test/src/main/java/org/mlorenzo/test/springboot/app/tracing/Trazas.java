@@ -0,0 +1,47 @@
+package org.mlorenzo.test.springboot.app.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Registro de los buffers de spans de todos los hilos. Cada hilo crea el suyo la primera vez que abre un span y
+// ExportadorTrazas lo quita del registro cuando el hilo ha terminado y ya no quedan spans por exportar.
+@Component
+@ConditionalOnProperty(name = "trazas.habilitadas", havingValue = "true")
+public class Trazas {
+    private final ThreadLocal<BufferSpans> bufferHilo;
+    private final List<BufferSpans> buffers = new CopyOnWriteArrayList<>();
+
+    public Trazas(@Value("${trazas.capacidad-por-hilo:4096}") int capacidadPorHilo) {
+        int capacidad = Integer.highestOneBit(Math.max(2, capacidadPorHilo));
+        this.bufferHilo = ThreadLocal.withInitial(() -> {
+            BufferSpans buffer = new BufferSpans(Thread.currentThread(), capacidad);
+            buffers.add(buffer);
+            return buffer;
+        });
+    }
+
+    BufferSpans bufferHiloActual() {
+        return bufferHilo.get();
+    }
+
+    List<BufferSpans> getBuffers() {
+        return buffers;
+    }
+
+    void eliminar(BufferSpans buffer) {
+        buffers.remove(buffer);
+    }
+
+    static long nuevoId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return id;
+    }
+}
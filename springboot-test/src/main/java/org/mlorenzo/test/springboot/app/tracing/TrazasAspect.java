@@ -0,0 +1,64 @@
+package org.mlorenzo.test.springboot.app.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Abre un span por cada llamada a un controlador, a CuentaServiceImpl y a los repositorios. El primer span del hilo
+// (normalmente el del controlador) inicia una traza nueva y los siguientes cuelgan de él. El coste por span es leer el
+// ThreadLocal, dos System.nanoTime() y escribir en el buffer del hilo; el nombre del span se calcula una sola vez por
+// método. Se ejecuta por fuera del resto de aspectos para que el span incluya reintentos y transacción.
+@Aspect
+@Component
+@Order(0)
+@ConditionalOnProperty(name = "trazas.habilitadas", havingValue = "true")
+public class TrazasAspect {
+    private final Trazas trazas;
+    private final Map<Method, String[]> nombres = new ConcurrentHashMap<>();
+
+    public TrazasAspect(Trazas trazas) {
+        this.trazas = trazas;
+    }
+
+    @Around("execution(public * org.mlorenzo.test.springboot.app.controllers..*(..)) || " +
+            "execution(public * org.mlorenzo.test.springboot.app.services.CuentaServiceImpl.*(..)) || " +
+            "execution(public * org.springframework.data.repository.Repository+.*(..))")
+    public Object trazar(ProceedingJoinPoint joinPoint) throws Throwable {
+        BufferSpans buffer = trazas.bufferHiloActual();
+        long padre = buffer.spanActual;
+        boolean raiz = padre == 0;
+        if (raiz)
+            buffer.trazaActual = Trazas.nuevoId();
+        long span = Trazas.nuevoId();
+        buffer.spanActual = span;
+        long inicio = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        }
+        finally {
+            long duracion = System.nanoTime() - inicio;
+            String[] nombre = nombres.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                    TrazasAspect::nombrar);
+            buffer.anadir(nombre[0], nombre[1], buffer.trazaActual, span, padre, inicio, duracion);
+            buffer.spanActual = padre;
+            if (raiz)
+                buffer.trazaActual = 0;
+        }
+    }
+
+    // { nombre, categoría }
+    private static String[] nombrar(Method metodo) {
+        String paquete = metodo.getDeclaringClass().getPackageName();
+        String categoria = paquete.endsWith(".controllers") ? "controller"
+                : paquete.endsWith(".services") ? "service" : "repository";
+        return new String[]{metodo.getDeclaringClass().getSimpleName() + "." + metodo.getName(), categoria};
+    }
+}
@@ -0,0 +1,119 @@
+package org.mlorenzo.test.springboot.app.velocity;
+
+import org.mlorenzo.test.springboot.app.exceptions.LimiteVelocidadExcedidoException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Límites de velocidad por cuenta origen: número de transferencias e importe por minuto y por día, contados en memoria
+// con dos VentanaDeslizante por cuenta(unos cientos de bytes fijos). Las cuentas se reparten en franjas con un
+// candado cada una, así que dos transferencias sólo se esperan si sus cuentas caen en la misma franja, y la
+// comprobación y la suma de cada cuenta son atómicas. Las cuentas sin actividad en el último día se eliminan.
+@Component
+@ConditionalOnProperty(name = "limites.habilitados", havingValue = "true")
+public class LimitadorVelocidad {
+    private static final int BITS_FRANJAS = 6;
+    private static final int FRANJAS = 1 << BITS_FRANJAS;
+    private static final long MINUTO_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long DIA_MS = TimeUnit.DAYS.toMillis(1);
+
+    private final Map<Long, Ventanas> cuentas = new ConcurrentHashMap<>();
+    private final Object[] candados = new Object[FRANJAS];
+    private final long maxTransferenciasMinuto;
+    private final long maxImporteMinuto;
+    private final long maxTransferenciasDia;
+    private final long maxImporteDia;
+    private final LongSupplier reloj;
+
+    @Autowired
+    public LimitadorVelocidad(@Value("${limites.minuto.transferencias:10}") long maxTransferenciasMinuto,
+                              @Value("${limites.minuto.importe:10000}") BigDecimal maxImporteMinuto,
+                              @Value("${limites.dia.transferencias:500}") long maxTransferenciasDia,
+                              @Value("${limites.dia.importe:100000}") BigDecimal maxImporteDia) {
+        this(maxTransferenciasMinuto, maxImporteMinuto, maxTransferenciasDia, maxImporteDia,
+                System::currentTimeMillis);
+    }
+
+    LimitadorVelocidad(long maxTransferenciasMinuto, BigDecimal maxImporteMinuto, long maxTransferenciasDia,
+                       BigDecimal maxImporteDia, LongSupplier reloj) {
+        this.maxTransferenciasMinuto = maxTransferenciasMinuto;
+        this.maxImporteMinuto = centimos(maxImporteMinuto);
+        this.maxTransferenciasDia = maxTransferenciasDia;
+        this.maxImporteDia = centimos(maxImporteDia);
+        this.reloj = reloj;
+        for (int i = 0; i < FRANJAS; i++)
+            candados[i] = new Object();
+    }
+
+    // Cuenta la transferencia si cabe en los límites y devuelve el instante en que se ha contado, que hay que pasar a
+    // "devolver" si la transferencia no llega a hacerse
+    public long reservar(Long cuentaId, BigDecimal monto) {
+        long importe = centimos(monto);
+        long ahora = reloj.getAsLong();
+        synchronized (candado(cuentaId)) {
+            Ventanas ventanas = cuentas.computeIfAbsent(cuentaId, id -> new Ventanas());
+            if (ventanas.minuto.transferencias(ahora) + 1 > maxTransferenciasMinuto
+                    || ventanas.minuto.importe(ahora) + importe > maxImporteMinuto)
+                throw new LimiteVelocidadExcedidoException("La cuenta " + cuentaId
+                        + " ha superado el límite de transferencias por minuto");
+            if (ventanas.dia.transferencias(ahora) + 1 > maxTransferenciasDia
+                    || ventanas.dia.importe(ahora) + importe > maxImporteDia)
+                throw new LimiteVelocidadExcedidoException("La cuenta " + cuentaId
+                        + " ha superado el límite de transferencias por día");
+            ventanas.minuto.sumar(ahora, importe);
+            ventanas.dia.sumar(ahora, importe);
+        }
+        return ahora;
+    }
+
+    public void devolver(Long cuentaId, BigDecimal monto, long reservadoMs) {
+        long importe = centimos(monto);
+        synchronized (candado(cuentaId)) {
+            Ventanas ventanas = cuentas.get(cuentaId);
+            if (ventanas != null) {
+                ventanas.minuto.restar(reservadoMs, importe);
+                ventanas.dia.restar(reservadoMs, importe);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${limites.purga-ms:600000}")
+    public void purgar() {
+        long ahora = reloj.getAsLong();
+        for (Long cuentaId : cuentas.keySet())
+            synchronized (candado(cuentaId)) {
+                Ventanas ventanas = cuentas.get(cuentaId);
+                if (ventanas != null && ventanas.dia.vacia(ahora))
+                    cuentas.remove(cuentaId);
+            }
+    }
+
+    public int getCuentasActivas() {
+        return cuentas.size();
+    }
+
+    private Object candado(Long cuentaId) {
+        // Se mezclan los bits para que ids consecutivos no caigan siempre en franjas consecutivas
+        long h = cuentaId * 0x9E3779B97F4A7C15L;
+        return candados[(int) (h >>> (Long.SIZE - BITS_FRANJAS))];
+    }
+
+    private static long centimos(BigDecimal monto) {
+        return monto.movePointRight(2).setScale(0, RoundingMode.UP).longValueExact();
+    }
+
+    private static class Ventanas {
+        // Minuto en 12 cubetas de 5 s y día en 24 cubetas de 1 h
+        final VentanaDeslizante minuto = new VentanaDeslizante(MINUTO_MS, 12);
+        final VentanaDeslizante dia = new VentanaDeslizante(DIA_MS, 24);
+    }
+}
@@ -0,0 +1,76 @@
+package org.mlorenzo.test.springboot.app.velocity;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.mlorenzo.test.springboot.app.exceptions.LimiteVelocidadExcedidoException;
+import org.mlorenzo.test.springboot.app.partitioning.Particiones;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+
+// Consulta LimitadorVelocidad antes de cada "transferir". Va por fuera del enrutado de particiones y de los
+// reintentos para contar cada transferencia una sola vez, y si la transferencia falla o se deshace devuelve lo
+// reservado.
+// En modo particionado sólo cuenta la partición dueña de la cuenta origen; las demás le reenvían la transferencia.
+@Aspect
+@Component
+@Order(3)
+@ConditionalOnProperty(name = "limites.habilitados", havingValue = "true")
+public class LimiteVelocidadAspect {
+    private final LimitadorVelocidad limitador;
+    private final Particiones particiones;
+    private final Counter rechazadas;
+
+    public LimiteVelocidadAspect(LimitadorVelocidad limitador, ObjectProvider<Particiones> particiones,
+                                 MeterRegistry registry) {
+        this.limitador = limitador;
+        this.particiones = particiones.getIfAvailable();
+        this.rechazadas = registry.counter("cuentas.transferir.limitadas");
+    }
+
+    // Cubre las dos variantes de "transferir"; la cuenta origen es el primer argumento y el monto, el último
+    @Around("execution(* org.mlorenzo.test.springboot.app.services.CuentaService.transferir(..))")
+    public Object limitar(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object[] args = joinPoint.getArgs();
+        Long numCuentaOrigen = (Long) args[0];
+        BigDecimal monto = (BigDecimal) args[args.length - 1];
+        if (numCuentaOrigen == null || monto == null
+                || (particiones != null && !particiones.esLocal(numCuentaOrigen)))
+            return joinPoint.proceed();
+        long reservado;
+        try {
+            reservado = limitador.reservar(numCuentaOrigen, monto);
+        }
+        catch (LimiteVelocidadExcedidoException e) {
+            rechazadas.increment();
+            throw e;
+        }
+        Object resultado;
+        try {
+            resultado = joinPoint.proceed();
+        }
+        catch (Throwable e) {
+            limitador.devolver(numCuentaOrigen, monto, reservado);
+            throw e;
+        }
+        // Dentro de una transacción externa(p. ej. la del calentamiento, que siempre se deshace) la transferencia aún
+        // puede deshacerse después de volver: lo reservado se devuelve si esa transacción no se confirma
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED)
+                        limitador.devolver(numCuentaOrigen, monto, reservado);
+                }
+            });
+        return resultado;
+    }
+}
@@ -0,0 +1,80 @@
+package org.mlorenzo.test.springboot.app.velocity;
+
+import java.util.Arrays;
+
+// Contador de ventana deslizante con cubetas en anillo: la ventana se divide en "cubetas" intervalos iguales y cada
+// posición del anillo guarda el número de transferencias y el importe(en céntimos) de un intervalo. Una cubeta cuyo
+// intervalo ya ha salido de la ventana se reutiliza para el intervalo actual, así que la memoria es fija y no depende
+// del número de transferencias. La ventana real cubre entre "cubetas - 1" y "cubetas" intervalos completos.
+// No es thread-safe: LimitadorVelocidad la usa siempre bajo el candado de su franja.
+class VentanaDeslizante {
+    private final long anchoCubetaMs;
+    private final long[] intervalos;
+    private final long[] transferencias;
+    private final long[] importes;
+
+    VentanaDeslizante(long duracionMs, int cubetas) {
+        this.anchoCubetaMs = duracionMs / cubetas;
+        this.intervalos = new long[cubetas];
+        this.transferencias = new long[cubetas];
+        this.importes = new long[cubetas];
+        // Ningún intervalo válido es negativo, así que todas las cubetas empiezan vacías
+        Arrays.fill(intervalos, -1);
+    }
+
+    long intervalo(long ahoraMs) {
+        return ahoraMs / anchoCubetaMs;
+    }
+
+    long transferencias(long ahoraMs) {
+        long actual = intervalo(ahoraMs);
+        long total = 0;
+        for (int i = 0; i < intervalos.length; i++)
+            if (actual - intervalos[i] < intervalos.length)
+                total += transferencias[i];
+        return total;
+    }
+
+    long importe(long ahoraMs) {
+        long actual = intervalo(ahoraMs);
+        long total = 0;
+        for (int i = 0; i < intervalos.length; i++)
+            if (actual - intervalos[i] < intervalos.length)
+                total += importes[i];
+        return total;
+    }
+
+    void sumar(long ahoraMs, long centimos) {
+        long actual = intervalo(ahoraMs);
+        int posicion = (int) (actual % intervalos.length);
+        if (intervalos[posicion] != actual) {
+            intervalos[posicion] = actual;
+            transferencias[posicion] = 0;
+            importes[posicion] = 0;
+        }
+        transferencias[posicion]++;
+        importes[posicion] += centimos;
+    }
+
+    // Deshace un "sumar" hecho en el instante "sumadoMs"; si su cubeta ya se ha reutilizado no queda nada que restar
+    void restar(long sumadoMs, long centimos) {
+        long intervalo = intervalo(sumadoMs);
+        int posicion = (int) (intervalo % intervalos.length);
+        if (intervalos[posicion] == intervalo) {
+            transferencias[posicion]--;
+            importes[posicion] -= centimos;
+        }
+    }
+
+    // Último intervalo con actividad, para saber si la ventana ya está vacía
+    long ultimoIntervalo() {
+        long ultimo = -1;
+        for (long intervalo : intervalos)
+            ultimo = Math.max(ultimo, intervalo);
+        return ultimo;
+    }
+
+    boolean vacia(long ahoraMs) {
+        return intervalo(ahoraMs) - ultimoIntervalo() >= intervalos.length;
+    }
+}
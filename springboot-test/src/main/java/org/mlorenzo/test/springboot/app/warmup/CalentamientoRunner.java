@@ -0,0 +1,144 @@
+package org.mlorenzo.test.springboot.app.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mlorenzo.test.springboot.app.models.CuentaResumen;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Calentamiento del JIT al arrancar: ejecuta por rondas "listar" y "detalle" por HTTP contra la propia aplicación
+// (Tomcat, Spring MVC, Jackson e Hibernate) y "transferir" en una transacción que se deshace, hasta que el tiempo
+// de compilación del JIT deja de crecer durante varias rondas seguidas. Los ApplicationRunner se ejecutan antes de que
+// la aplicación pase a ACCEPTING_TRAFFIC, así que "/actuator/health/readiness" no está listo hasta que termina.
+// La JVM no expone el número de métodos compilados, así que se usa el tiempo total de compilación como indicador.
+@Component
+@ConditionalOnProperty(name = "calentamiento.habilitado", havingValue = "true")
+public class CalentamientoRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(CalentamientoRunner.class);
+    private static final BigDecimal MONTO = new BigDecimal("0.01");
+
+    private final CuentaService cuentaService;
+    private final TransactionTemplate desechable;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+    private final int iteracionesPorRonda;
+    private final int maxRondas;
+    private final int rondasEstables;
+    private final long umbralCompilacionMs;
+    private final long maxDuracionMs;
+    // Iteraciones que han fallado(sólo lo usa el hilo del arranque)
+    private int fallos;
+
+    public CalentamientoRunner(CuentaService cuentaService, PlatformTransactionManager transactionManager,
+                               RestTemplateBuilder restTemplateBuilder, ObjectMapper objectMapper,
+                               Environment environment,
+                               @Value("${calentamiento.iteraciones-por-ronda:200}") int iteracionesPorRonda,
+                               @Value("${calentamiento.max-rondas:50}") int maxRondas,
+                               @Value("${calentamiento.rondas-estables:3}") int rondasEstables,
+                               @Value("${calentamiento.umbral-compilacion-ms:5}") long umbralCompilacionMs,
+                               @Value("${calentamiento.max-duracion-ms:60000}") long maxDuracionMs) {
+        this.cuentaService = cuentaService;
+        this.desechable = new TransactionTemplate(transactionManager);
+        this.restTemplate = restTemplateBuilder.build();
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+        this.iteracionesPorRonda = iteracionesPorRonda;
+        this.maxRondas = maxRondas;
+        this.rondasEstables = rondasEstables;
+        this.umbralCompilacionMs = umbralCompilacionMs;
+        this.maxDuracionMs = maxDuracionMs;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        CompilationMXBean compilacion = ManagementFactory.getCompilationMXBean();
+        if (compilacion == null || !compilacion.isCompilationTimeMonitoringSupported()) {
+            log.warn("La JVM no permite medir el tiempo de compilación; se omite el calentamiento");
+            return;
+        }
+        // Sin puerto(p. ej. en las pruebas con un entorno de servlet simulado) sólo se calienta "transferir"
+        String puerto = environment.getProperty("local.server.port");
+        String base = puerto != null
+                ? "http://localhost:" + puerto + environment.getProperty("server.servlet.context-path", "")
+                : null;
+
+        long inicio = System.nanoTime();
+        long limite = inicio + TimeUnit.MILLISECONDS.toNanos(maxDuracionMs);
+        long compilacionInicial = compilacion.getTotalCompilationTime();
+        long compilacionAnterior = compilacionInicial;
+        int rondas = 0;
+        int estables = 0;
+        while (rondas < maxRondas && estables < rondasEstables && System.nanoTime() < limite) {
+            ronda(base);
+            rondas++;
+            long compilacionActual = compilacion.getTotalCompilationTime();
+            estables = compilacionActual - compilacionAnterior <= umbralCompilacionMs ? estables + 1 : 0;
+            compilacionAnterior = compilacionActual;
+        }
+        log.info("Calentamiento terminado en {} ms: {} rondas de {} iteraciones({} fallidas), {} ms de compilación{}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), rondas, iteracionesPorRonda, fallos,
+                compilacionAnterior - compilacionInicial, estables >= rondasEstables ? "" : "(sin estabilizar)");
+    }
+
+    // Un fallo en una iteración(sin saldo, cuenta cerrada, límite de velocidad, conflicto, error HTTP...) sólo deja
+    // esa iteración a medias: se calienta igualmente la mayor parte del camino y el arranque no se interrumpe
+    private void ronda(String base) {
+        List<CuentaResumen> cuentas = cuentaService.listarResumenes();
+        for (int i = 0; i < iteracionesPorRonda; i++) {
+            try {
+                if (base != null) {
+                    restTemplate.getForObject(base + "/api/cuentas", String.class);
+                    if (!cuentas.isEmpty())
+                        restTemplate.getForObject(base + "/api/cuentas/{id}", String.class,
+                                cuentas.get(i % cuentas.size()).getId());
+                }
+                if (cuentas.size() >= 2)
+                    transferirSinEfecto(cuentas.get(0).getId(), cuentas.get(1).getId());
+            }
+            catch (RuntimeException e) {
+                fallos++;
+                log.debug("Iteración de calentamiento fallida: {}", e.toString());
+            }
+        }
+    }
+
+    // Recorre el mismo código que "transferir"(servicio, aspectos, Hibernate y la respuesta en JSON) sin que quede
+    // nada: la transacción se marca para deshacer y los eventos posteriores al commit no se publican. Antes de
+    // deshacerla se hace flush para que también se ejecuten los UPDATE, que si no Hibernate no llegaría a enviar.
+    private void transferirSinEfecto(Long origen, Long destino) {
+        desechable.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            cuentaService.transferir(origen, destino, 1L, MONTO);
+            status.flush();
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "OK");
+            response.put("monto", MONTO);
+            try {
+                objectMapper.writeValueAsString(response);
+            }
+            catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
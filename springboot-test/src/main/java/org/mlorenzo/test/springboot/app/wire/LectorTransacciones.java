@@ -0,0 +1,81 @@
+package org.mlorenzo.test.springboot.app.wire;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.mlorenzo.test.springboot.app.models.TransaccionDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+// Lee un lote de transferencias(un array de TransaccionDto en JSON o en CBOR) directamente de los tokens del parser
+// de Jackson, una a una y sin construir el árbol del documento ni usar el databinding: la memoria no depende del
+// tamaño del lote y cada transferencia puede procesarse en cuanto se ha leído. Los campos desconocidos se ignoran.
+public class LectorTransacciones implements Closeable {
+    private final JsonParser parser;
+    private boolean iniciado;
+
+    public LectorTransacciones(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    // Siguiente transferencia del lote o null si ya no quedan
+    public TransaccionDto siguiente() throws IOException {
+        if (!iniciado) {
+            if (parser.nextToken() != JsonToken.START_ARRAY)
+                throw new IOException("Se esperaba un array de transferencias");
+            iniciado = true;
+        }
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_ARRAY || token == null)
+            return null;
+        if (token != JsonToken.START_OBJECT)
+            throw new IOException("Se esperaba una transferencia y se ha encontrado " + token);
+        TransaccionDto dto = new TransaccionDto();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = parser.getCurrentName();
+            JsonToken valor = parser.nextToken();
+            if (valor == JsonToken.VALUE_NULL)
+                continue;
+            switch (campo) {
+                case "cuentaOrigenId":
+                    dto.setCuentaOrigenId(parser.getLongValue());
+                    break;
+                case "cuentaDestinoId":
+                    dto.setCuentaDestinoId(parser.getLongValue());
+                    break;
+                case "bancoId":
+                    dto.setBancoId(parser.getLongValue());
+                    break;
+                case "bancoDestinoId":
+                    dto.setBancoDestinoId(parser.getLongValue());
+                    break;
+                case "monto":
+                    dto.setMonto(leerMonto(valor));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return dto;
+    }
+
+    // Admite el monto como número o como texto("10.50"); un texto que no es un número es un lote mal formado, igual
+    // que un error de sintaxis, y no una excepción sin comprobar
+    private BigDecimal leerMonto(JsonToken valor) throws IOException {
+        if (valor != JsonToken.VALUE_STRING)
+            return parser.getDecimalValue();
+        try {
+            return new BigDecimal(parser.getText());
+        }
+        catch (NumberFormatException e) {
+            throw new JsonParseException(parser, "Monto no válido: \"" + parser.getText() + "\"", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,58 @@
+package org.mlorenzo.test.springboot.app;
+
+import org.junit.jupiter.api.parallel.Isolated;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.test.context.ContextConfigurationAttributes;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.ContextCustomizerFactory;
+import org.springframework.test.context.MergedContextConfiguration;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Aislamiento de las pruebas cuando JUnit las ejecuta en paralelo(perfil Maven "pruebas-paralelas", que activa la
+// propiedad de sistema "pruebas.paralelas"). Spring guarda en caché un contexto por configuración y todas las clases
+// con la misma configuración comparten el contexto y su base de datos H2; en paralelo, dos clases de hilos distintos
+// se pisarían los datos. Este customizer forma parte de la clave de la caché y es distinto en cada hilo de JUnit, así
+// que cada hilo tiene sus propios contextos. Cada contexto ya tiene su propia base de datos en memoria, porque Spring
+// Boot le da un nombre único("spring.datasource.generate-unique-name" es true por defecto). Las clases que se ejecutan
+// en el mismo hilo siguen compartiendo contexto, igual que en una ejecución en serie.
+// Las clases @Isolated(las de concurrencia y las que dependen de tiempos, que con otras clases a la vez fallan o se
+// alargan) se ejecutan solas, así que no necesitan contextos propios y reutilizan los que haya en la caché.
+// Registrado en META-INF/spring.factories; sin la propiedad no hace nada y la caché funciona como siempre.
+public class ContextoPorHiloCustomizerFactory implements ContextCustomizerFactory {
+    private static final AtomicInteger trabajadores = new AtomicInteger();
+    private static final ThreadLocal<Integer> trabajador = ThreadLocal.withInitial(trabajadores::incrementAndGet);
+
+    @Override
+    public ContextCustomizer createContextCustomizer(Class<?> testClass,
+                                                     List<ContextConfigurationAttributes> configAttributes) {
+        if (!Boolean.getBoolean("pruebas.paralelas") || AnnotatedElementUtils.hasAnnotation(testClass, Isolated.class))
+            return null;
+        return new ContextoPorHilo(trabajador.get());
+    }
+
+    private static class ContextoPorHilo implements ContextCustomizer {
+        private final int trabajador;
+
+        ContextoPorHilo(int trabajador) {
+            this.trabajador = trabajador;
+        }
+
+        // Sólo cuenta como parte de la clave de la caché: el contexto no cambia
+        @Override
+        public void customizeContext(ConfigurableApplicationContext context, MergedContextConfiguration config) {
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ContextoPorHilo && ((ContextoPorHilo) o).trabajador == trabajador;
+        }
+
+        @Override
+        public int hashCode() {
+            return trabajador;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.mlorenzo.test.springboot.app;
 
 import org.mlorenzo.test.springboot.app.exceptions.DineroInsuficienteException;
+import org.mlorenzo.test.springboot.app.models.CuentaResumen;
 import org.mlorenzo.test.springboot.app.models.entities.Banco;
 import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
 import org.mlorenzo.test.springboot.app.repositories.BancoRepository;
@@ -15,6 +16,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -41,9 +43,20 @@ class SpringbootTestApplicationTests {
 
 	@Test
 	void contextLoads() {
-		when(cuentaRepository.findById(1L)).thenReturn(Datos.crearCuenta001());
-		when(cuentaRepository.findById(2L)).thenReturn(Datos.crearCuenta002());
-		when(bancoRepository.findById(1L)).thenReturn(Datos.crearBanco());
+		Cuenta cuenta1 = Datos.crearCuenta001().orElseThrow();
+		Cuenta cuenta2 = Datos.crearCuenta002().orElseThrow();
+		when(cuentaRepository.findById(1L)).thenReturn(Optional.of(cuenta1));
+		when(cuentaRepository.findById(2L)).thenReturn(Optional.of(cuenta2));
+		// revisarSalto lee la proyección; se construye con el estado actual de la cuenta
+		when(cuentaRepository.findResumenById(1L)).then(invocation -> resumen(cuenta1));
+		when(cuentaRepository.findResumenById(2L)).then(invocation -> resumen(cuenta2));
+		Banco banco = Datos.crearBanco().orElseThrow();
+		when(bancoRepository.findById(1L)).thenReturn(Optional.of(banco));
+		// El contador del banco se incrementa con un UPDATE atómico; el mock lo simula sobre la misma instancia
+		when(bancoRepository.incrementarTransferencias(1L)).then(invocation -> {
+			banco.setTotalTransferencias(banco.getTotalTransferencias() + 1);
+			return 1;
+		});
 		BigDecimal saldoOrigen = service.revisarSalto(1L);
 		BigDecimal saldoDestino = service.revisarSalto(2L);
 		assertEquals("1000", saldoOrigen.toPlainString());
@@ -55,19 +68,26 @@ class SpringbootTestApplicationTests {
 		assertEquals("2100", saldoDestino.toPlainString());
 		int totalTransferencias = service.revisarTotalTransferencias(1L);
 		assertEquals(1, totalTransferencias);
-		verify(cuentaRepository, times(3)).findById(1L);
-		verify(cuentaRepository, times(3)).findById(2L);
+		verify(cuentaRepository).findById(1L);
+		verify(cuentaRepository).findById(2L);
+		verify(cuentaRepository, times(2)).findResumenById(1L);
+		verify(cuentaRepository, times(2)).findResumenById(2L);
 		verify(cuentaRepository, times(2)).save(any(Cuenta.class));
-		verify(bancoRepository, times(2)).findById(1L);
-		verify(bancoRepository).save(any(Banco.class));
-		verify(cuentaRepository, times(6)).findById(anyLong());
+		verify(bancoRepository).findById(1L);
+		verify(bancoRepository).incrementarTransferencias(1L);
+		verify(bancoRepository, never()).save(any(Banco.class));
+		verify(cuentaRepository, times(2)).findById(anyLong());
 		verify(cuentaRepository, never()).findAll();
 	}
 
 	@Test
 	void contextLoads2() {
-		when(cuentaRepository.findById(1L)).thenReturn(Datos.crearCuenta001());
-		when(cuentaRepository.findById(2L)).thenReturn(Datos.crearCuenta002());
+		Cuenta cuenta1 = Datos.crearCuenta001().orElseThrow();
+		Cuenta cuenta2 = Datos.crearCuenta002().orElseThrow();
+		when(cuentaRepository.findById(1L)).thenReturn(Optional.of(cuenta1));
+		when(cuentaRepository.findById(2L)).thenReturn(Optional.of(cuenta2));
+		when(cuentaRepository.findResumenById(1L)).then(invocation -> resumen(cuenta1));
+		when(cuentaRepository.findResumenById(2L)).then(invocation -> resumen(cuenta2));
 		when(bancoRepository.findById(1L)).thenReturn(Datos.crearBanco());
 		BigDecimal saldoOrigen = service.revisarSalto(1L);
 		BigDecimal saldoDestino = service.revisarSalto(2L);
@@ -82,12 +102,15 @@ class SpringbootTestApplicationTests {
 		assertEquals("2000", saldoDestino.toPlainString());
 		int totalTransferencias = service.revisarTotalTransferencias(1L);
 		assertEquals(0, totalTransferencias);
-		verify(cuentaRepository, times(3)).findById(1L);
-		verify(cuentaRepository, times(2)).findById(2L);
+		verify(cuentaRepository).findById(1L);
+		verify(cuentaRepository, never()).findById(2L);
+		verify(cuentaRepository, times(2)).findResumenById(1L);
+		verify(cuentaRepository, times(2)).findResumenById(2L);
 		verify(cuentaRepository, never()).save(any(Cuenta.class));
 		verify(bancoRepository).findById(1L);
+		verify(bancoRepository, never()).incrementarTransferencias(anyLong());
 		verify(bancoRepository, never()).save(any(Banco.class));
-		verify(cuentaRepository, times(5)).findById(anyLong());
+		verify(cuentaRepository, times(1)).findById(anyLong());
 		verify(cuentaRepository, never()).findAll();
 	}
 
@@ -129,4 +152,9 @@ class SpringbootTestApplicationTests {
 		assertEquals("3000", cuenta.getSaldo().toPlainString());
 		verify(cuentaRepository).save(any());
 	}
+
+	private static Optional<CuentaResumen> resumen(Cuenta cuenta) {
+		return Optional.of(new CuentaResumen(cuenta.getId(), cuenta.getPersona(), cuenta.getSaldo(),
+				cuenta.getFragmentos()));
+	}
 }
@@ -0,0 +1,89 @@
+package org.mlorenzo.test.springboot.app.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(CuentaConsultaController.class)
+class CuentaConsultaControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    CuentaService cuentaService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPorSaldoConPaginaSiguiente() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            Consumer<Cuenta> consumidor = invocation.getArgument(5);
+            consumidor.accept(new Cuenta(2L, "John", new BigDecimal("2000")));
+            consumidor.accept(new Cuenta(3L, "Ana", new BigDecimal("2500")));
+            consumidor.accept(new Cuenta(4L, "Luis", new BigDecimal("2500")));
+            return null;
+        }).when(cuentaService).recorrerPorSaldo(any(), any(), any(), any(), anyInt(), any());
+        // When
+        MvcResult resultado = mvc.perform(get("/api/cuentas")
+                .param("saldoMin", "1500").param("saldoMax", "3000").param("limite", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(resultado))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cuentas.length()").value(2))
+                .andExpect(jsonPath("$.cuentas[0].persona").value("John"))
+                .andExpect(jsonPath("$.cuentas[1].id").value(3))
+                .andExpect(jsonPath("$.siguiente").value("2500_3"));
+        verify(cuentaService).recorrerPorSaldo(eq(new BigDecimal("1500")), eq(new BigDecimal("3000")),
+                isNull(), isNull(), eq(3), any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPorDebajoDeConCursor() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            Consumer<Cuenta> consumidor = invocation.getArgument(5);
+            consumidor.accept(new Cuenta(5L, "Eva", new BigDecimal("100")));
+            return null;
+        }).when(cuentaService).recorrerPorSaldo(any(), any(), any(), any(), anyInt(), any());
+        // When
+        MvcResult resultado = mvc.perform(get("/api/cuentas")
+                .param("saldoMax", "500").param("cursor", "50.00_4"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(resultado))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cuentas.length()").value(1))
+                .andExpect(jsonPath("$.siguiente").doesNotExist());
+        verify(cuentaService).recorrerPorSaldo(isNull(), eq(new BigDecimal("500")), eq(new BigDecimal("50.00")),
+                eq(4L), eq(1001), any(Consumer.class));
+    }
+
+    @Test
+    void testPorSaldoInvalido() throws Exception {
+        mvc.perform(get("/api/cuentas").param("saldoMin", "3000").param("saldoMax", "1000"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/cuentas").param("saldoMin", "0").param("cursor", "sin-separador"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/cuentas").param("saldoMin", "0").param("limite", "0"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(cuentaService);
+    }
+}
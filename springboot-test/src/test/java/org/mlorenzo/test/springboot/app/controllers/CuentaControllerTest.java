@@ -1,8 +1,10 @@
 package org.mlorenzo.test.springboot.app.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mlorenzo.test.springboot.app.models.CuentaResumen;
 import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
 import org.mlorenzo.test.springboot.app.models.TransaccionDto;
+import org.mlorenzo.test.springboot.app.models.entities.Movimiento;
 import org.mlorenzo.test.springboot.app.services.CuentaService;
 import org.junit.jupiter.api.Test;
 import org.mlorenzo.test.springboot.app.Datos;
@@ -14,10 +16,12 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.*;
@@ -39,8 +43,9 @@ class CuentaControllerTest {
     @Test
     void testListar() throws Exception {
         // Given
-        List<Cuenta> cuentas = Arrays.asList(Datos.crearCuenta001().orElseThrow(), Datos.crearCuenta002().orElseThrow());
-        when(cuentaService.findAll()).thenReturn(cuentas);
+        List<CuentaResumen> cuentas = Arrays.asList(resumen(Datos.crearCuenta001().orElseThrow()),
+                resumen(Datos.crearCuenta002().orElseThrow()));
+        when(cuentaService.listarResumenes()).thenReturn(cuentas);
         // When
         mvc.perform(get("/api/cuentas"))
                 // Then
@@ -52,13 +57,13 @@ class CuentaControllerTest {
                 .andExpect(jsonPath("$[1].saldo").value("2000"))
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(content().json(objectMapper.writeValueAsString(cuentas)));
-        verify(cuentaService).findAll();
+        verify(cuentaService).listarResumenes();
     }
 
     @Test
     void testDetalle() throws Exception {
         // Given
-        when(cuentaService.findById(1L)).thenReturn(Datos.crearCuenta001().orElseThrow());
+        when(cuentaService.findResumenById(1L)).thenReturn(resumen(Datos.crearCuenta001().orElseThrow()));
         // When
         mvc.perform(get("/api/cuentas/1"))
                 // Then
@@ -66,7 +71,7 @@ class CuentaControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.persona").value("Andrés"))
                 .andExpect(jsonPath("$.saldo").value("1000"));
-        verify(cuentaService).findById(1L);
+        verify(cuentaService).findResumenById(1L);
     }
 
     @Test
@@ -94,6 +99,59 @@ class CuentaControllerTest {
         verify(cuentaService).save(any());
     }
 
+    @Test
+    void testModificar() throws Exception {
+        // Given
+        when(cuentaService.actualizarPersona(1L, "Andrés Guzmán"))
+                .thenReturn(new Cuenta(1L, "Andrés Guzmán", new BigDecimal("1000")));
+        // When
+        mvc.perform(patch("/api/cuentas/1")
+                .contentType("application/merge-patch+json")
+                .content("{\"persona\":\"Andrés Guzmán\"}"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.persona").value("Andrés Guzmán"))
+                .andExpect(jsonPath("$.saldo").value(1000));
+        verify(cuentaService).actualizarPersona(1L, "Andrés Guzmán");
+    }
+
+    @Test
+    void testModificarInvalido() throws Exception {
+        // Given
+        when(cuentaService.actualizarPersona(eq(9L), any())).thenThrow(new NoSuchElementException());
+        // When
+        mvc.perform(patch("/api/cuentas/1").contentType("application/merge-patch+json")
+                .content("{\"saldo\":5000}"))
+                // Then
+                .andExpect(status().isBadRequest());
+        mvc.perform(patch("/api/cuentas/1").contentType("application/merge-patch+json")
+                .content("{\"persona\":null}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(patch("/api/cuentas/1").contentType("application/merge-patch+json")
+                .content("{\"id\":2}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(patch("/api/cuentas/9").contentType("application/merge-patch+json")
+                .content("{\"persona\":\"Pepe\"}"))
+                .andExpect(status().isNotFound());
+        verify(cuentaService, never()).actualizarPersona(eq(1L), any());
+    }
+
+    @Test
+    void testCerrar() throws Exception {
+        // Given
+        doThrow(new IllegalStateException()).when(cuentaService).cerrar(1L);
+        doThrow(new NoSuchElementException()).when(cuentaService).cerrar(9L);
+        // When
+        mvc.perform(post("/api/cuentas/3/cerrar"))
+                // Then
+                .andExpect(status().isNoContent());
+        mvc.perform(post("/api/cuentas/1/cerrar"))
+                .andExpect(status().isConflict());
+        mvc.perform(post("/api/cuentas/9/cerrar"))
+                .andExpect(status().isNotFound());
+        verify(cuentaService).cerrar(3L);
+    }
+
     @Test
     void testTransferir() throws Exception {
         // Given
@@ -122,4 +180,50 @@ class CuentaControllerTest {
                 .andExpect(jsonPath("$.transaccion.cuentaOrigenId").value(tDto.getCuentaOrigenId()))
                 .andExpect(content().json(objectMapper.writeValueAsString(response)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testMovimientos() throws Exception {
+        // Given
+        LocalDateTime fecha = LocalDateTime.of(2021, 8, 1, 10, 30);
+        Movimiento m1 = new Movimiento(1L, 2L, fecha, new BigDecimal("-100"), new BigDecimal("900"));
+        m1.setId(3L);
+        Movimiento m2 = new Movimiento(1L, 2L, fecha, new BigDecimal("-50"), new BigDecimal("1000"));
+        m2.setId(1L);
+        Movimiento m3 = new Movimiento(1L, 2L, fecha.minusDays(1), new BigDecimal("-25"), new BigDecimal("1050"));
+        m3.setId(0L);
+        // Se pide un movimiento más que el límite para saber si hay página siguiente
+        when(cuentaService.findMovimientos(eq(1L), any(), any(), isNull(), isNull(), eq(3)))
+                .thenReturn(Arrays.asList(m1, m2, m3));
+        // When
+        mvc.perform(get("/api/cuentas/1/movimientos").param("limite", "2"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.movimientos", hasSize(2)))
+                .andExpect(jsonPath("$.movimientos[0].monto").value(-100))
+                .andExpect(jsonPath("$.movimientos[1].id").value(1))
+                .andExpect(jsonPath("$.siguiente").value("2021-08-01T10:30_1"));
+
+        // Given
+        when(cuentaService.findMovimientos(eq(1L), any(), any(), eq(fecha), eq(1L), eq(3)))
+                .thenReturn(Arrays.asList(m3));
+        // When
+        mvc.perform(get("/api/cuentas/1/movimientos").param("limite", "2").param("cursor", "2021-08-01T10:30_1"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movimientos", hasSize(1)))
+                .andExpect(jsonPath("$.siguiente").doesNotExist());
+        verify(cuentaService, times(2)).findMovimientos(eq(1L), any(), any(), any(), any(), eq(3));
+    }
+
+    @Test
+    void testMovimientosCursorInvalido() throws Exception {
+        mvc.perform(get("/api/cuentas/1/movimientos").param("cursor", "no-es-un-cursor"))
+                .andExpect(status().isBadRequest());
+        verify(cuentaService, never()).findMovimientos(any(), any(), any(), any(), any(), anyInt());
+    }
+
+    private static CuentaResumen resumen(Cuenta cuenta) {
+        return new CuentaResumen(cuenta.getId(), cuenta.getPersona(), cuenta.getSaldo(), 0);
+    }
+}
@@ -0,0 +1,89 @@
+package org.mlorenzo.test.springboot.app.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.models.TransaccionDto;
+import org.mlorenzo.test.springboot.app.models.entities.EstadoTransferencia;
+import org.mlorenzo.test.springboot.app.models.entities.Transferencia;
+import org.mlorenzo.test.springboot.app.services.TransferenciaAsyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.NoSuchElementException;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TransferenciaController.class)
+class TransferenciaControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    TransferenciaAsyncService transferenciaAsyncService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void testTransferirAsync() throws Exception {
+        // Given
+        TransaccionDto dto = new TransaccionDto();
+        dto.setCuentaOrigenId(1L);
+        dto.setCuentaDestinoId(2L);
+        dto.setMonto(new BigDecimal("100"));
+        dto.setBancoId(1L);
+        Transferencia transferencia = new Transferencia(1L, 2L, 1L, null, new BigDecimal("100"));
+        transferencia.setId(7L);
+        when(transferenciaAsyncService.encolar(any())).thenReturn(transferencia);
+        // When
+        mvc.perform(post("/api/cuentas/transferir").param("async", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                // Then
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/cuentas/transferencias/7"))
+                .andExpect(jsonPath("$.transferenciaId").value(7))
+                .andExpect(jsonPath("$.status").value("PENDIENTE"))
+                .andExpect(jsonPath("$.transaccion.cuentaOrigenId").value(1));
+        verify(transferenciaAsyncService).encolar(any());
+    }
+
+    @Test
+    void testTransferirAsyncInvalida() throws Exception {
+        // Given
+        when(transferenciaAsyncService.encolar(any()))
+                .thenThrow(new IllegalArgumentException("El monto debe ser mayor que 0"));
+        // When
+        mvc.perform(post("/api/cuentas/transferir").param("async", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"cuentaOrigenId\":1,\"cuentaDestinoId\":2,\"bancoId\":1,\"monto\":0}"))
+                // Then
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.mensaje").value("El monto debe ser mayor que 0"));
+    }
+
+    @Test
+    void testEstado() throws Exception {
+        // Given
+        Transferencia transferencia = new Transferencia(1L, 2L, 1L, null, new BigDecimal("100"));
+        transferencia.setId(7L);
+        transferencia.setEstado(EstadoTransferencia.COMPLETADA);
+        when(transferenciaAsyncService.findById(7L)).thenReturn(transferencia);
+        when(transferenciaAsyncService.findById(8L)).thenThrow(new NoSuchElementException());
+        // When
+        mvc.perform(get("/api/cuentas/transferencias/7"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.estado").value("COMPLETADA"))
+                .andExpect(jsonPath("$.monto").value(100));
+        mvc.perform(get("/api/cuentas/transferencias/8"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,71 @@
+package org.mlorenzo.test.springboot.app.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.exceptions.DineroInsuficienteException;
+import org.mlorenzo.test.springboot.app.models.TransaccionDto;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TransferenciaLoteController.class)
+class TransferenciaLoteControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    CuentaService cuentaService;
+
+    @Test
+    void testTransferirLoteCbor() throws Exception {
+        // Given
+        TransaccionDto primera = new TransaccionDto();
+        primera.setCuentaOrigenId(1L);
+        primera.setCuentaDestinoId(2L);
+        primera.setBancoId(1L);
+        primera.setMonto(new BigDecimal("100"));
+        TransaccionDto segunda = new TransaccionDto();
+        segunda.setCuentaOrigenId(2L);
+        segunda.setCuentaDestinoId(1L);
+        segunda.setBancoId(1L);
+        segunda.setMonto(new BigDecimal("5000"));
+        doThrow(new DineroInsuficienteException("Dinero insuficiente en la cuenta."))
+                .when(cuentaService).transferir(2L, 1L, 1L, new BigDecimal("5000"));
+        byte[] cuerpo = new ObjectMapper(new CBORFactory()).writeValueAsBytes(List.of(primera, segunda));
+        // When
+        mvc.perform(post("/api/cuentas/transferir/lote")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(cuerpo))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PARCIAL"))
+                .andExpect(jsonPath("$.realizadas").value(1))
+                .andExpect(jsonPath("$.fallidas").value(1))
+                .andExpect(jsonPath("$.errores[0].indice").value(1))
+                .andExpect(jsonPath("$.errores[0].mensaje").value("Dinero insuficiente en la cuenta."));
+        verify(cuentaService).transferir(1L, 2L, 1L, new BigDecimal("100"));
+    }
+
+    @Test
+    void testTransferirLoteMalFormado() throws Exception {
+        mvc.perform(post("/api/cuentas/transferir/lote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"cuentaOrigenId\":1,\"cuentaDestinoId\":2,\"bancoId\":1,\"monto\":10}, 7]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.realizadas").value(1))
+                .andExpect(jsonPath("$.status").value("ERROR"));
+    }
+}
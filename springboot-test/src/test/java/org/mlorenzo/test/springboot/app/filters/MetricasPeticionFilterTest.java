@@ -0,0 +1,100 @@
+package org.mlorenzo.test.springboot.app.filters;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.MonitorizacionConfig;
+import org.mlorenzo.test.springboot.app.controllers.CuentaController;
+import org.mlorenzo.test.springboot.app.models.CuentaResumen;
+import org.mlorenzo.test.springboot.app.monitoring.InspectorSentenciasSql;
+import org.mlorenzo.test.springboot.app.monitoring.MonitorSql;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// El filtro se registra con la misma configuración que en la aplicación(MonitorizacionConfig), midiendo todas las
+// peticiones. El servicio simulado "ejecuta" sentencias a través del inspector de Hibernate, como haría el real
+@WebMvcTest(value = CuentaController.class, properties = "metricas.peticion.muestreo=1")
+@Import({MonitorizacionConfig.class, MetricasPeticionFilterTest.Metricas.class})
+class MetricasPeticionFilterTest {
+    private static final String ENDPOINT = "GET /api/cuentas/{id}";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    MonitorSql monitorSql;
+
+    @MockBean
+    CuentaService cuentaService;
+
+    @TestConfiguration
+    static class Metricas {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        registry.clear();
+        monitorSql.reiniciar();
+    }
+
+    @Test
+    void testRegistraLasMetricasPorEndpoint() throws Exception {
+        // Given
+        InspectorSentenciasSql inspector = new InspectorSentenciasSql();
+        when(cuentaService.findResumenById(anyLong())).thenAnswer(invocation -> {
+            // Una consulta por la cuenta y cinco iguales por otra cosa: un N+1
+            inspector.inspect("select c.id from cuentas c where c.id=?");
+            for (int i = 0; i < 5; i++)
+                inspector.inspect("select m.id from movimientos m where m.cuenta_id=?");
+            return new CuentaResumen(invocation.getArgument(0), "Andrés", new BigDecimal("1000"), 0);
+        });
+        // When
+        mvc.perform(get("/api/cuentas/1")).andExpect(status().isOk());
+        mvc.perform(get("/api/cuentas/2")).andExpect(status().isOk());
+        // Then
+        // Una sola métrica para las dos URLs, etiquetada con el patrón
+        DistributionSummary sentencias = registry.get("http.peticion.sentencias.sql").tag("endpoint", ENDPOINT)
+                .summary();
+        assertEquals(2, sentencias.count());
+        assertEquals(12, sentencias.totalAmount());
+        assertEquals(6, sentencias.max());
+        DistributionSummary memoria = registry.get("http.peticion.memoria.asignada").tag("endpoint", ENDPOINT)
+                .summary();
+        assertEquals(2, memoria.count());
+        assertTrue(memoria.totalAmount() > 0);
+        assertEquals(2, registry.get("http.peticion.cpu").tag("endpoint", ENDPOINT).timer().count());
+        assertEquals(1, monitorSql.getDetecciones().size());
+        assertEquals(ENDPOINT, monitorSql.getDetecciones().get(0).getEndpoint());
+        assertEquals(2, monitorSql.getDetecciones().get(0).getPeticiones());
+    }
+
+    @Test
+    void testFueraDeLasRutasDelFiltro() throws Exception {
+        // When
+        mvc.perform(get("/api/otra")).andExpect(status().isNotFound());
+        // Then
+        assertTrue(registry.find("http.peticion.sentencias.sql").meters().isEmpty());
+    }
+}
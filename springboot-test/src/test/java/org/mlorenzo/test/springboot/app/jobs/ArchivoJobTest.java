@@ -0,0 +1,66 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.exceptions.CuentaCerradaException;
+import org.mlorenzo.test.springboot.app.models.ResultadoArchivo;
+import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+import org.mlorenzo.test.springboot.app.models.entities.CuentaArchivada;
+import org.mlorenzo.test.springboot.app.repositories.CuentaArchivadaRepository;
+import org.mlorenzo.test.springboot.app.repositories.CuentaRepository;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("integracion_jobs")
+@SpringBootTest(properties = {"archivo.tamano-lote=2", "archivo.pausa-minima-ms=0"})
+class ArchivoJobTest {
+
+    @Autowired
+    ArchivoJob archivoJob;
+
+    @Autowired
+    CuentaService cuentaService;
+
+    @Autowired
+    CuentaRepository cuentaRepository;
+
+    @Autowired
+    CuentaArchivadaRepository cuentaArchivadaRepository;
+
+    @Test
+    void testArchivaPorLotesSoloLasCuentasCerradas() {
+        List<Long> cerradas = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Cuenta cuenta = cuentaRepository.save(new Cuenta(null, "Cerrada " + i, BigDecimal.ZERO));
+            cuentaService.cerrar(cuenta.getId());
+            cerradas.add(cuenta.getId());
+        }
+        Long abierta = cuentaRepository.save(new Cuenta(null, "Abierta", BigDecimal.ZERO)).getId();
+        // No se puede cerrar una cuenta con saldo ni hacer transferencias con una cerrada
+        assertThrows(IllegalStateException.class, () -> cuentaService.cerrar(1L));
+        assertThrows(CuentaCerradaException.class,
+                () -> cuentaService.transferir(1L, cerradas.get(0), 1L, new BigDecimal("10")));
+
+        ResultadoArchivo resultado = archivoJob.ejecutar();
+        assertEquals(5, resultado.getCuentasArchivadas());
+        assertEquals(3, resultado.getLotes());
+        for (Long id : cerradas) {
+            assertFalse(cuentaRepository.existsById(id));
+            CuentaArchivada archivada = cuentaArchivadaRepository.findById(id).orElseThrow();
+            assertTrue(archivada.getPersona().startsWith("Cerrada"));
+            assertNotNull(archivada.getFechaArchivo());
+        }
+        assertTrue(cuentaRepository.existsById(abierta));
+        assertTrue(cuentaRepository.existsById(1L));
+
+        // Una segunda ejecución no encuentra nada que archivar
+        assertEquals(0, archivoJob.ejecutar().getCuentasArchivadas());
+    }
+}
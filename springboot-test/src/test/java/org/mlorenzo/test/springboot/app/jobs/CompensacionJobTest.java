@@ -0,0 +1,90 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.models.ResultadoCompensacion;
+import org.mlorenzo.test.springboot.app.models.entities.Banco;
+import org.mlorenzo.test.springboot.app.models.entities.Liquidacion;
+import org.mlorenzo.test.springboot.app.repositories.BancoRepository;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("integracion_jobs")
+@SpringBootTest(properties = {"compensacion.habilitada=true", "compensacion.tamano-lectura=1"})
+class CompensacionJobTest {
+
+    @Autowired
+    CompensacionJob compensacionJob;
+
+    @Autowired
+    CuentaService service;
+
+    @Autowired
+    BancoRepository bancoRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testPosicionesNetasYLiquidacionUnicaPorDia() {
+        Long banco1 = 1L;
+        Long banco2 = bancoRepository.save(new Banco(null, "Otro banco", 0)).getId();
+        int totalBanco1 = service.revisarTotalTransferencias(banco1);
+
+        service.transferir(1L, 2L, banco1, banco2, new BigDecimal("100"));
+        service.transferir(2L, 1L, banco2, banco1, new BigDecimal("30"));
+        service.transferir(1L, 2L, banco1, new BigDecimal("5"));
+        // Durante el día el contador del banco no cambia
+        assertEquals(totalBanco1, service.revisarTotalTransferencias(banco1));
+
+        // El día en curso no se liquida; las compensaciones se pasan al día anterior
+        LocalDate hoy = LocalDate.now();
+        assertThrows(IllegalArgumentException.class, () -> compensacionJob.ejecutar(hoy));
+        assertThrows(IllegalArgumentException.class, () -> compensacionJob.ejecutar(hoy.plusDays(1)));
+        LocalDate ayer = hoy.minusDays(1);
+        jdbcTemplate.update("UPDATE compensaciones SET dia = ? WHERE dia = ?", ayer, hoy);
+        ResultadoCompensacion resultado = compensacionJob.ejecutar(ayer);
+        assertFalse(resultado.isYaLiquidado());
+        assertEquals(3, resultado.getTransferencias());
+        assertEquals(2, resultado.getPosiciones().size());
+        Liquidacion posicion1 = resultado.getPosiciones().get(0);
+        Liquidacion posicion2 = resultado.getPosiciones().get(1);
+        assertEquals(banco1, posicion1.getBancoId());
+        assertEquals(0, new BigDecimal("105").compareTo(posicion1.getEnviado()));
+        assertEquals(0, new BigDecimal("35").compareTo(posicion1.getRecibido()));
+        assertEquals(0, new BigDecimal("-70").compareTo(posicion1.getNeto()));
+        assertEquals(0, new BigDecimal("70").compareTo(posicion2.getNeto()));
+        assertEquals(totalBanco1 + 2, service.revisarTotalTransferencias(banco1));
+        assertEquals(1, service.revisarTotalTransferencias(banco2));
+        assertEquals(totalBanco1 + 2, resultado.getTotalTransferencias().get(banco1));
+
+        // El mismo día no se liquida dos veces
+        ResultadoCompensacion repetido = compensacionJob.ejecutar(ayer);
+        assertTrue(repetido.isYaLiquidado());
+        assertEquals(totalBanco1 + 2, service.revisarTotalTransferencias(banco1));
+    }
+
+    @Test
+    void testBancoInexistenteNoSeAnota() {
+        // Given
+        LocalDate hoy = LocalDate.now();
+        int compensaciones = contarCompensaciones(hoy);
+
+        // When / Then: igual que sin compensación, la transferencia falla y no queda nada que liquidar
+        assertThrows(NoSuchElementException.class,
+                () -> service.transferir(1L, 2L, 99L, new BigDecimal("5")));
+        assertEquals(compensaciones, contarCompensaciones(hoy));
+    }
+
+    private int contarCompensaciones(LocalDate dia) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM compensaciones WHERE dia = ?", Integer.class, dia);
+    }
+}
@@ -0,0 +1,47 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.models.ResultadoConciliacion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("integracion_jobs")
+// Tramos de un único id para que las 2 cuentas de "import.sql" se repartan en 2 tramos
+@SpringBootTest(properties = "conciliacion.tamano-tramo=1")
+class ConciliacionJobTest {
+
+    @Autowired
+    ConciliacionJob conciliacionJob;
+
+    @Test
+    void testConciliacionCuadra() {
+        ResultadoConciliacion resultado = conciliacionJob.ejecutar("prueba-cuadra", new BigDecimal("3000"));
+        assertTrue(resultado.isCuadra());
+        assertEquals(2, resultado.getCuentas());
+        assertEquals(2, resultado.getTramos());
+        assertEquals(0, resultado.getTramosReanudados());
+        assertEquals(0, resultado.getTotalAnomalias());
+        assertEquals("3000.00", resultado.getTotalSaldos().toPlainString());
+    }
+
+    @Test
+    void testConciliacionNoCuadra() {
+        ResultadoConciliacion resultado = conciliacionJob.ejecutar("prueba-no-cuadra", new BigDecimal("2500"));
+        assertFalse(resultado.isCuadra());
+    }
+
+    @Test
+    void testConciliacionSeReanudaDesdeElPuntoDeControl() {
+        conciliacionJob.ejecutar("prueba-reanudar", new BigDecimal("3000"));
+        ResultadoConciliacion resultado = conciliacionJob.ejecutar("prueba-reanudar", new BigDecimal("3000"));
+        assertTrue(resultado.isCuadra());
+        assertEquals(2, resultado.getTramos());
+        assertEquals(2, resultado.getTramosReanudados());
+        assertEquals(2, resultado.getCuentas());
+    }
+}
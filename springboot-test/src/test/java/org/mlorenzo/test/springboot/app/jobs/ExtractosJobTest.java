@@ -0,0 +1,63 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.models.ResultadoExtractos;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("integracion_jobs")
+@SpringBootTest(properties = {"extractos.hilos=2", "extractos.tamano-cola=1",
+        "extractos.directorio=${java.io.tmpdir}/springboot-test-extractos-prueba"})
+class ExtractosJobTest {
+
+    @Autowired
+    ExtractosJob extractosJob;
+
+    @Autowired
+    CuentaService cuentaService;
+
+    @Test
+    void testExtractosConSaldosInicialYFinal() throws Exception {
+        cuentaService.transferir(1L, 2L, 1L, new BigDecimal("100"));
+        cuentaService.transferir(2L, 1L, 1L, new BigDecimal("30"));
+        BigDecimal saldoFinal = cuentaService.revisarSalto(1L);
+
+        ResultadoExtractos resultado = extractosJob.ejecutar(YearMonth.now());
+        assertEquals(2, resultado.getExtractos());
+        assertEquals(4, resultado.getMovimientos());
+        assertEquals(2, resultado.getFicheros().size());
+
+        List<String> lineas = new ArrayList<>();
+        for (String fichero : resultado.getFicheros())
+            try (BufferedReader lector = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(Paths.get(fichero))), StandardCharsets.UTF_8))) {
+                lector.lines().forEach(lineas::add);
+            }
+        int cabecera = lineas.indexOf("Extracto " + YearMonth.now() + " - Cuenta 1 - Andrés");
+        assertTrue(cabecera >= 0);
+        assertEquals(0, saldoFinal.add(new BigDecimal("70"))
+                .compareTo(new BigDecimal(lineas.get(cabecera + 1).substring("Saldo inicial: ".length()))));
+        assertTrue(lineas.get(cabecera + 2).contains("-100"));
+        assertTrue(lineas.get(cabecera + 3).contains("30"));
+        assertEquals(0, saldoFinal
+                .compareTo(new BigDecimal(lineas.get(cabecera + 4).substring("Saldo final: ".length()))));
+
+        // Un mes sin movimientos tiene los dos saldos iguales
+        assertEquals(0, extractosJob.ejecutar(YearMonth.now().minusMonths(1)).getMovimientos());
+    }
+}
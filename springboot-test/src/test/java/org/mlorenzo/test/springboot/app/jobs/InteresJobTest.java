@@ -0,0 +1,49 @@
+package org.mlorenzo.test.springboot.app.jobs;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.models.ResultadoIntereses;
+import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+import org.mlorenzo.test.springboot.app.repositories.CuentaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("integracion_jobs")
+@SpringBootTest(properties = "intereses.tamano-tramo=1")
+class InteresJobTest {
+
+    @Autowired
+    InteresJob interesJob;
+
+    @Autowired
+    CuentaRepository cuentaRepository;
+
+    @Test
+    void testInteresesIdempotentesYConElMismoRedondeoQueCredito() {
+        BigDecimal tasa = new BigDecimal("0.0012345");
+        // Resultado esperado aplicando la tasa cuenta a cuenta con "credito"
+        Cuenta andres = cuentaRepository.findById(1L).orElseThrow();
+        Cuenta marie = cuentaRepository.findById(2L).orElseThrow();
+        andres.credito(andres.calcularInteres(tasa));
+        marie.credito(marie.calcularInteres(tasa));
+
+        ResultadoIntereses resultado = interesJob.ejecutar("intereses-prueba", tasa);
+        assertEquals(2, resultado.getCuentasActualizadas());
+        assertEquals(2, resultado.getTramos());
+        assertEquals(0, resultado.getTramosReanudados());
+        assertEquals(0, andres.getSaldo().compareTo(cuentaRepository.findById(1L).orElseThrow().getSaldo()));
+        assertEquals(0, marie.getSaldo().compareTo(cuentaRepository.findById(2L).orElseThrow().getSaldo()));
+
+        // Relanzar la misma ejecución no vuelve a aplicar el interés
+        resultado = interesJob.ejecutar("intereses-prueba", tasa);
+        assertEquals(0, resultado.getCuentasActualizadas());
+        assertEquals(2, resultado.getTramosReanudados());
+        assertEquals(0, andres.getSaldo().compareTo(cuentaRepository.findById(1L).orElseThrow().getSaldo()));
+
+        assertThrows(IllegalArgumentException.class, () -> interesJob.ejecutar("intereses-prueba", BigDecimal.ONE));
+    }
+}
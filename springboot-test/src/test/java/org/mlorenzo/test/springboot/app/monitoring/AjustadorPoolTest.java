@@ -0,0 +1,80 @@
+package org.mlorenzo.test.springboot.app.monitoring;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AjustadorPoolTest {
+    // Entre 5 y 40 conexiones, 5 ms de espera objetivo y base de datos saturada a 1,5 veces su latencia base
+    private final AjustadorPool ajustador = new AjustadorPool(null, null, null, 5, 40, 5, 1.5);
+
+    @Test
+    void testAmpliaSiSeEsperaAlPool() {
+        // Latencia base de 2 ms
+        assertEquals(10, ajustador.nuevoTamano(10, 0, 2, 0, 8));
+        // Se espera al pool y la base de datos responde igual: se amplía un cuarto, sin pasar de los pendientes
+        assertEquals(12, ajustador.nuevoTamano(10, 20, 2, 30, 10));
+        assertEquals(13, ajustador.nuevoTamano(12, 20, 2.5, 1, 12));
+        // Nunca por encima del máximo
+        assertEquals(40, ajustador.nuevoTamano(38, 20, 2, 30, 38));
+    }
+
+    @Test
+    void testReduceSiLaBaseDeDatosEstaSaturada() {
+        ajustador.nuevoTamano(20, 0, 2, 0, 15);
+        // Aunque haya espera, con la latencia al doble de la base no se amplía sino que se reduce un cuarto
+        assertEquals(15, ajustador.nuevoTamano(20, 50, 4, 30, 20));
+        assertEquals(12, ajustador.nuevoTamano(15, 50, 4, 30, 15));
+    }
+
+    @Test
+    void testReduceDespacioSiSobranConexiones() {
+        assertEquals(19, ajustador.nuevoTamano(20, 0.1, 2, 0, 3));
+        // Sin actividad en el intervalo(medias NaN) también
+        assertEquals(18, ajustador.nuevoTamano(19, Double.NaN, Double.NaN, 0, 0));
+        // Nunca por debajo del mínimo
+        assertEquals(5, ajustador.nuevoTamano(5, Double.NaN, Double.NaN, 0, 0));
+        // Con la mitad o más en uso se mantiene
+        assertEquals(20, ajustador.nuevoTamano(20, 0.1, 2, 0, 10));
+    }
+
+    @Test
+    void testRecuperaElMinimoDeLibresAlAmpliar() {
+        // Given: un pool de 10 conexiones con 10 libres como mínimo
+        HikariConfig config = new HikariConfig();
+        config.setMaximumPoolSize(10);
+        config.setMinimumIdle(10);
+        HikariDataSource dataSource = mock(HikariDataSource.class);
+        HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+        when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+        when(dataSource.getHikariConfigMXBean()).thenReturn(config);
+        MetricasPoolConexiones metricas = mock(MetricasPoolConexiones.class);
+        // MonitorSql es compartido con los contextos de Spring: sin tolerancia la latencia de sus sentencias no cuenta
+        AjustadorPool ajustador = new AjustadorPool(dataSource, metricas, MonitorSql.instancia(), 5, 40, 5,
+                Double.POSITIVE_INFINITY);
+
+        // When: sin actividad se reduce y el mínimo de libres se recorta con él
+        ajustador.ajustar();
+
+        // Then
+        assertEquals(9, config.getMaximumPoolSize());
+        assertEquals(9, config.getMinimumIdle());
+
+        // When: 10 adquisiciones con 20 ms de espera media y 5 hilos esperando
+        when(metricas.getAdquisiciones()).thenReturn(10L);
+        when(metricas.getEsperaNanos()).thenReturn(TimeUnit.MILLISECONDS.toNanos(200));
+        when(pool.getThreadsAwaitingConnection()).thenReturn(5);
+        when(pool.getActiveConnections()).thenReturn(9);
+        ajustador.ajustar();
+
+        // Then: se amplía y vuelve el mínimo configurado, no el recortado ni el nuevo máximo
+        assertEquals(11, config.getMaximumPoolSize());
+        assertEquals(10, config.getMinimumIdle());
+    }
+}
@@ -0,0 +1,42 @@
+package org.mlorenzo.test.springboot.app.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class MetricasPoolConexionesTest {
+    private static final String METODO = "CuentaServiceImpl.findById";
+
+    @Autowired
+    CuentaService service;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Test
+    void testConexionAtribuidaAlMetodoDeServicio() {
+        // Given
+        long esperasAntes = contar("pool.conexiones.espera");
+        long usosAntes = contar("pool.conexiones.uso");
+
+        // When: la transacción del servicio obtiene una conexión del pool y la devuelve al terminar
+        service.findById(1L);
+
+        // Then
+        assertEquals(esperasAntes + 1, contar("pool.conexiones.espera"));
+        assertEquals(usosAntes + 1, contar("pool.conexiones.uso"));
+        // Las métricas estándar de Hikari se siguen publicando
+        assertNotNull(registry.find("hikaricp.connections.acquire").timer());
+    }
+
+    private long contar(String nombre) {
+        Timer timer = registry.find(nombre).tag("metodo", METODO).timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
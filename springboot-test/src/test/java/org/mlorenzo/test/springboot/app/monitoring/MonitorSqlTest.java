@@ -0,0 +1,67 @@
+package org.mlorenzo.test.springboot.app.monitoring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonitorSqlTest {
+    // La instancia es compartida con los contextos de Spring: con un umbral de una hora no entra ninguna sentencia
+    // real y las de la prueba se registran directamente
+    private final MonitorSql monitor = MonitorSql.instancia();
+
+    @BeforeEach
+    void setUp() {
+        monitor.configurar(3, 3_600_000, 5);
+        monitor.reiniciar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.configurar(100, 100, 5);
+        monitor.reiniciar();
+    }
+
+    @Test
+    void testGuardaLasMasLentasYNoLasMasRecientes() {
+        registrar("a", 500);
+        registrar("b", 900);
+        registrar("c", 300);
+        // Lleno: las más rápidas que la raíz(300 ms) no entran aunque sean las últimas
+        registrar("d", 200);
+        registrar("e", 250);
+        // Una más lenta que la raíz la sustituye
+        registrar("f", 700);
+
+        assertEquals(List.of("b", "f", "a"), sqls(monitor.getLentas()));
+        assertEquals(700.0, monitor.getLentas().get(1).getDuracionMs());
+    }
+
+    @Test
+    void testReducirCapacidadYReiniciar() {
+        registrar("a", 500);
+        registrar("b", 900);
+        registrar("c", 300);
+
+        monitor.configurar(2, 3_600_000, 5);
+        assertEquals(List.of("b", "a"), sqls(monitor.getLentas()));
+
+        monitor.reiniciar();
+        assertTrue(monitor.getLentas().isEmpty());
+        // Tras reiniciar vuelve a entrar cualquiera, también una más rápida que el antiguo mínimo
+        registrar("g", 100);
+        assertEquals(List.of("g"), sqls(monitor.getLentas()));
+    }
+
+    private void registrar(String sql, long duracionMs) {
+        monitor.registrarLenta(sql, duracionMs * 1_000_000, null);
+    }
+
+    private static List<String> sqls(List<SentenciaLenta> lentas) {
+        return lentas.stream().map(SentenciaLenta::getSql).collect(Collectors.toList());
+    }
+}
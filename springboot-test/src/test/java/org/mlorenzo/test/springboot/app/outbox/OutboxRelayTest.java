@@ -0,0 +1,87 @@
+package org.mlorenzo.test.springboot.app.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.exceptions.DineroInsuficienteException;
+import org.mlorenzo.test.springboot.app.models.entities.EventoOutbox;
+import org.mlorenzo.test.springboot.app.repositories.EventoOutboxRepository;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@Tag("integracion_outbox")
+@SpringBootTest(properties = "outbox.relay.intervalo-ms=10")
+class OutboxRelayTest {
+
+    @Autowired
+    CuentaService service;
+
+    @Autowired
+    EventoOutboxRepository eventoRepository;
+
+    @Autowired
+    MemoriaOutboxSink sink;
+
+    @Test
+    void testTransferenciaSeEntregaAlSink() throws InterruptedException {
+        long recibidos = sink.getRecibidos();
+        service.transferir(1L, 2L, 1L, new BigDecimal("10"));
+
+        long limite = System.currentTimeMillis() + 5000;
+        while (sink.getRecibidos() == recibidos && System.currentTimeMillis() < limite)
+            Thread.sleep(10);
+
+        List<EventoOutbox> eventos = sink.getEventos();
+        assertEquals(recibidos + 1, sink.getRecibidos());
+        EventoOutbox evento = eventos.get(eventos.size() - 1);
+        assertEquals("TransferenciaRealizadaEvent", evento.getTipo());
+        assertEquals(1L, evento.getAgregadoId());
+        assertTrue(evento.getPayload().contains("\"cuentaDestinoId\":2"));
+        assertTrue(eventoRepository.findById(evento.getId()).orElseThrow().isEnviado());
+    }
+
+    @Test
+    void testTransferenciaFallidaNoGeneraEvento() {
+        List<Long> antes = eventoRepository.findAll().stream().map(EventoOutbox::getId).collect(Collectors.toList());
+
+        assertThrows(DineroInsuficienteException.class,
+                () -> service.transferir(1L, 2L, 1L, new BigDecimal("1000000")));
+
+        List<Long> despues = eventoRepository.findAll().stream().map(EventoOutbox::getId).collect(Collectors.toList());
+        assertEquals(antes, despues);
+    }
+
+    @Test
+    void testLoteReclamadoPorOtroRelayNoSeEnvia() throws Exception {
+        // Given: el UPDATE reclama filas, pero otro relay se las ha llevado antes de leerlas
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        OutboxSink sinkMock = mock(OutboxSink.class);
+        when(jdbcTemplate.update(startsWith("UPDATE outbox_eventos SET lote"), any(), any(), any(), any(), any()))
+                .thenReturn(3);
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<EventoOutbox>>any(), anyString()))
+                .thenReturn(Collections.emptyList());
+        OutboxRelay relay = new OutboxRelay(jdbcTemplate, sinkMock, mock(EventoOutboxRepository.class),
+                new SimpleMeterRegistry(), 1000, 100, 5000, 30000, 3600000);
+
+        // When
+        int entregados = relay.procesarLote();
+
+        // Then
+        assertEquals(0, entregados);
+        verify(sinkMock, never()).enviar(any());
+        verify(jdbcTemplate, never()).update(startsWith("UPDATE outbox_eventos SET enviado"), any(), any());
+    }
+}
@@ -0,0 +1,234 @@
+package org.mlorenzo.test.springboot.app.partitioning;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.mlorenzo.test.springboot.app.SpringbootTestApplication;
+import org.mlorenzo.test.springboot.app.exceptions.CuentaCerradaException;
+import org.mlorenzo.test.springboot.app.exceptions.DineroInsuficienteException;
+import org.mlorenzo.test.springboot.app.models.entities.EstadoReserva;
+import org.mlorenzo.test.springboot.app.models.entities.EstadoTransaccionParticion;
+import org.mlorenzo.test.springboot.app.models.entities.TransaccionParticion;
+import org.mlorenzo.test.springboot.app.repositories.ReservaParticionRepository;
+import org.mlorenzo.test.springboot.app.repositories.TransaccionParticionRepository;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Dos particiones reales(dos contextos con su servidor y su base de datos H2) para probar el protocolo de dos fases de
+// extremo a extremo. La recuperación periódica no se ejecuta sola durante la prueba y, con un tiempo de decisión de
+// 0 ms, aborta cualquier transacción que encuentre sin decidir.
+@Isolated
+class CoordinadorParticionesTest {
+    private static final int CUENTAS_POR_PARTICION = 8;
+    private static final long PRIMER_ID = 1_000_000L;
+
+    private static final ConfigurableApplicationContext[] nodos = new ConfigurableApplicationContext[2];
+    private static final int[] puertos = new int[2];
+    // Cuentas de cada partición(todas empiezan con 1000); cada prueba usa las suyas
+    private static final Deque<Long> cuentas0 = new ArrayDeque<>();
+    private static final Deque<Long> cuentas1 = new ArrayDeque<>();
+
+    @BeforeAll
+    static void arrancar() throws IOException {
+        puertos[0] = puertoLibre();
+        puertos[1] = puertoLibre();
+        String urls = "http://localhost:" + puertos[0] + ",http://localhost:" + puertos[1];
+        for (int i = 0; i < 2; i++)
+            nodos[i] = new SpringApplicationBuilder(SpringbootTestApplication.class)
+                    .properties("server.port=" + puertos[i],
+                            "spring.datasource.url=jdbc:h2:mem:coordinador-particion" + i + ";DB_CLOSE_DELAY=-1",
+                            "particiones.total=2", "particiones.indice=" + i, "particiones.nodos=" + urls,
+                            "particiones.cuentas-por-particion=" + CUENTAS_POR_PARTICION,
+                            "particiones.recuperacion-ms=3600000", "particiones.timeout-decision-ms=0")
+                    .run();
+        Particiones particiones = nodos[0].getBean(Particiones.class);
+        for (long id = PRIMER_ID; cuentas0.size() < CUENTAS_POR_PARTICION
+                || cuentas1.size() < CUENTAS_POR_PARTICION; id++)
+            (particiones.esLocal(id) ? cuentas0 : cuentas1).add(id);
+    }
+
+    @AfterAll
+    static void parar() {
+        for (ConfigurableApplicationContext nodo : nodos)
+            if (nodo != null)
+                nodo.close();
+    }
+
+    @Test
+    void testTransferenciaEntreParticionesSeConfirma() {
+        Long origen = cuentas0.poll();
+        Long destino = cuentas1.poll();
+        nodos[0].getBean(CuentaService.class).transferir(origen, destino, 1L, new BigDecimal("10"));
+
+        assertSaldo(0, origen, "990");
+        assertSaldo(1, destino, "1010");
+        assertEquals(0, jdbc(0).queryForObject(
+                "SELECT COUNT(*) FROM transacciones_particion WHERE finalizada = FALSE", Integer.class));
+    }
+
+    @Test
+    void testCuentaDestinoCerradaAbortaYDevuelveElDebito() {
+        Long origen = cuentas0.poll();
+        Long destino = cuentas1.poll();
+        jdbc(1).update("UPDATE cuentas SET saldo = 0, cerrada = TRUE WHERE id = ?", destino);
+
+        // La partición destino rechaza la preparación y el error llega como la misma excepción que en local
+        assertThrows(CuentaCerradaException.class, () ->
+                nodos[0].getBean(CuentaService.class).transferir(origen, destino, 1L, new BigDecimal("10")));
+
+        assertSaldo(0, origen, "1000");
+        assertSaldo(1, destino, "0");
+        assertEquals(1, jdbc(0).queryForObject("SELECT COUNT(*) FROM reservas_particion " +
+                "WHERE cuenta_id = ? AND estado = 'ABORTADA'", Integer.class, origen));
+    }
+
+    @Test
+    void testBancoInexistenteAbortaAntesDeDecidir() {
+        Long origen = cuentas0.poll();
+        Long destino = cuentas1.poll();
+
+        // El banco se comprueba al preparar el débito, así que la transacción se aborta y no se confirma a medias
+        assertThrows(NoSuchElementException.class, () ->
+                nodos[0].getBean(CuentaService.class).transferir(origen, destino, 99L, new BigDecimal("10")));
+
+        assertSaldo(0, origen, "1000");
+        assertSaldo(1, destino, "1000");
+        assertEquals(0, jdbc(0).queryForObject("SELECT COUNT(*) FROM transacciones_particion " +
+                "WHERE cuenta_origen_id = ? AND (estado <> 'ABORTADA' OR finalizada = FALSE)", Integer.class, origen));
+        assertEquals(0, jdbc(0).queryForObject("SELECT COUNT(*) FROM reservas_particion " +
+                "WHERE cuenta_id = ? AND estado = 'PREPARADA'", Integer.class, origen));
+    }
+
+    @Test
+    void testTransferenciaReenviadaSinSaldo() {
+        Long origen = cuentas1.poll();
+        Long destino = cuentas0.poll();
+
+        // La cuenta origen es de la otra partición: se reenvía y su error vuelve como DineroInsuficienteException
+        assertThrows(DineroInsuficienteException.class, () ->
+                nodos[0].getBean(CuentaService.class).transferir(origen, destino, 1L, new BigDecimal("5000")));
+
+        assertSaldo(1, origen, "1000");
+        assertSaldo(0, destino, "1000");
+    }
+
+    @Test
+    void testRecuperacionCompletaUnaTransaccionConfirmada() {
+        Long origen = cuentas0.poll();
+        Long destino = cuentas1.poll();
+        // Como si el coordinador se hubiera caído después de registrar la decisión y antes de comunicarla
+        String xid = preparar(origen, destino, new BigDecimal("7"));
+        nodos[0].getBean(TransaccionParticionRepository.class).decidir(xid, EstadoTransaccionParticion.INICIADA,
+                EstadoTransaccionParticion.CONFIRMADA);
+        assertSaldo(1, destino, "1000");
+
+        nodos[0].getBean(CoordinadorParticiones.class).recuperar();
+
+        assertSaldo(0, origen, "993");
+        assertSaldo(1, destino, "1007");
+        assertEstadoReserva(0, xid, EstadoReserva.CONFIRMADA);
+        assertEstadoReserva(1, xid, EstadoReserva.CONFIRMADA);
+        assertTrue(nodos[0].getBean(TransaccionParticionRepository.class).findById(xid).orElseThrow()
+                .isFinalizada());
+    }
+
+    @Test
+    void testRecuperacionAbortaUnaTransaccionSinDecidir() {
+        Long origen = cuentas0.poll();
+        Long destino = cuentas1.poll();
+        // El coordinador se cayó con las dos partes preparadas y sin decisión: aborto presunto
+        String xid = preparar(origen, destino, new BigDecimal("7"));
+        assertSaldo(0, origen, "993");
+
+        nodos[0].getBean(CoordinadorParticiones.class).recuperar();
+
+        assertSaldo(0, origen, "1000");
+        assertSaldo(1, destino, "1000");
+        assertEstadoReserva(0, xid, EstadoReserva.ABORTADA);
+        assertEstadoReserva(1, xid, EstadoReserva.ABORTADA);
+        assertEquals(EstadoTransaccionParticion.ABORTADA, nodos[0].getBean(TransaccionParticionRepository.class)
+                .findById(xid).orElseThrow().getEstado());
+    }
+
+    @Test
+    void testPatchReenviadoALaParticionPropietaria() throws IOException, InterruptedException {
+        Long cuenta = cuentas1.poll();
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + puertos[0] + "/api/cuentas/" +
+                        cuenta))
+                .header("Content-Type", "application/merge-patch+json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"persona\": \"Reenviada\"}"))
+                .build();
+
+        HttpResponse<String> respuesta = HttpClient.newHttpClient().send(peticion,
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, respuesta.statusCode(), respuesta.body());
+        assertTrue(respuesta.body().contains("Reenviada"), respuesta.body());
+        assertEquals("Reenviada", jdbc(1).queryForObject("SELECT persona FROM cuentas WHERE id = ?", String.class,
+                cuenta));
+    }
+
+    @Test
+    void testAltaDeCuentasRechazada() throws IOException, InterruptedException {
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + puertos[0] + "/api/cuentas"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"persona\": \"Nueva\", \"saldo\": 100}"))
+                .build();
+
+        HttpResponse<String> respuesta = HttpClient.newHttpClient().send(peticion,
+                HttpResponse.BodyHandlers.ofString());
+
+        // El id local podría ser de la otra partición: no se da de alta ninguna cuenta
+        assertEquals(501, respuesta.statusCode(), respuesta.body());
+        assertEquals(0, jdbc(0).queryForObject("SELECT COUNT(*) FROM cuentas WHERE persona = 'Nueva'",
+                Integer.class));
+    }
+
+    // Primera fase hecha a mano: transacción INICIADA en el coordinador y las dos partes preparadas
+    private static String preparar(Long origen, Long destino, BigDecimal monto) {
+        String xid = UUID.randomUUID().toString();
+        nodos[0].getBean(TransaccionParticionRepository.class).save(new TransaccionParticion(xid, origen, destino, 1,
+                1L, null, monto));
+        nodos[0].getBean(ParticipanteParticion.class).preparar(xid, origen, destino, 1L, null, monto.negate());
+        nodos[1].getBean(ParticipanteParticion.class).preparar(xid, destino, origen, null, null, monto);
+        return xid;
+    }
+
+    private static void assertSaldo(int nodo, Long cuentaId, String esperado) {
+        BigDecimal saldo = jdbc(nodo).queryForObject("SELECT saldo FROM cuentas WHERE id = ?", BigDecimal.class,
+                cuentaId);
+        assertEquals(0, new BigDecimal(esperado).compareTo(saldo), "Saldo de la cuenta " + cuentaId + ": " + saldo);
+    }
+
+    private static void assertEstadoReserva(int nodo, String xid, EstadoReserva esperado) {
+        assertEquals(esperado, nodos[nodo].getBean(ReservaParticionRepository.class).findById(xid).orElseThrow()
+                .getEstado());
+    }
+
+    private static JdbcTemplate jdbc(int nodo) {
+        return nodos[nodo].getBean(JdbcTemplate.class);
+    }
+
+    private static int puertoLibre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.mlorenzo.test.springboot.app.partitioning;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParticionesTest {
+
+    @Test
+    void testIdsConsecutivosSeRepartenDeFormaUniforme() {
+        Particiones particiones = new Particiones(4, 0, new String[]{"a", "b", "c", "d"});
+        int[] cuentas = new int[4];
+        for (long id = 1; id <= 100_000; id++)
+            cuentas[particiones.particion(id)]++;
+        for (int total : cuentas)
+            assertTrue(Math.abs(total - 25_000) < 1_000, "Reparto desigual: " + total);
+    }
+
+    @Test
+    void testCadaIdTieneUnaSolaParticionLocal() {
+        Particiones[] instancias = new Particiones[3];
+        for (int i = 0; i < 3; i++)
+            instancias[i] = new Particiones(3, i, new String[]{"a", "b", "c"});
+        for (long id = 1; id <= 1_000; id++) {
+            int locales = 0;
+            for (Particiones particiones : instancias)
+                if (particiones.esLocal(id))
+                    locales++;
+            assertEquals(1, locales);
+        }
+    }
+
+    @Test
+    void testConfiguracionInvalida() {
+        assertThrows(IllegalStateException.class, () -> new Particiones(3, 0, new String[]{"a", "b"}));
+        assertThrows(IllegalStateException.class, () -> new Particiones(2, 2, new String[]{"a", "b"}));
+    }
+}
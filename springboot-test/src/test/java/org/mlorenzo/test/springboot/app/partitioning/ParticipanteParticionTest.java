@@ -0,0 +1,74 @@
+package org.mlorenzo.test.springboot.app.partitioning;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.Datos;
+import org.mlorenzo.test.springboot.app.models.entities.EstadoReserva;
+import org.mlorenzo.test.springboot.app.models.entities.ReservaParticion;
+import org.mlorenzo.test.springboot.app.outbox.Outbox;
+import org.mlorenzo.test.springboot.app.repositories.BancoRepository;
+import org.mlorenzo.test.springboot.app.repositories.CuentaRepository;
+import org.mlorenzo.test.springboot.app.repositories.MovimientoRepository;
+import org.mlorenzo.test.springboot.app.repositories.ReservaParticionRepository;
+import org.mlorenzo.test.springboot.app.services.CamaraCompensacion;
+import org.mlorenzo.test.springboot.app.services.SaldosFragmentados;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ParticipanteParticionTest {
+    private static final String XID = "xid";
+
+    private final CuentaRepository cuentaRepository = mock(CuentaRepository.class);
+    private final BancoRepository bancoRepository = mock(BancoRepository.class);
+    private final ReservaParticionRepository reservaRepository = mock(ReservaParticionRepository.class);
+    private final SaldosFragmentados saldosFragmentados = mock(SaldosFragmentados.class);
+    private final CamaraCompensacion camaraCompensacion = mock(CamaraCompensacion.class);
+    private final ParticipanteParticion participante = new ParticipanteParticion(cuentaRepository, bancoRepository,
+            mock(MovimientoRepository.class), reservaRepository, mock(ApplicationEventPublisher.class),
+            mock(Outbox.class), saldosFragmentados, camaraCompensacion);
+
+    @BeforeEach
+    void setUp() {
+        when(cuentaRepository.findById(1L)).thenReturn(Datos.crearCuenta001());
+        when(saldosFragmentados.saldoTotal(any())).thenReturn(new BigDecimal("990"));
+        when(camaraCompensacion.isHabilitada()).thenReturn(true);
+    }
+
+    @Test
+    void testConfirmarEnModoCompensacionAnotaLaDeudaEntreBancos() {
+        // Given: el débito de una transferencia de 10 del banco 1 al banco 2
+        ReservaParticion reserva = new ReservaParticion(XID, 1L, 2L, 1L, 2L, new BigDecimal("-10"),
+                EstadoReserva.PREPARADA);
+        when(reservaRepository.findById(XID)).thenReturn(Optional.of(reserva));
+
+        // When
+        participante.confirmar(XID);
+
+        // Then: se anota en la compensación y el contador del banco no se toca
+        verify(camaraCompensacion).registrar(any(LocalDate.class), eq(1L), eq(2L), eq(new BigDecimal("10")));
+        verify(bancoRepository, never()).incrementarTransferencias(anyLong());
+        assertEquals(EstadoReserva.CONFIRMADA, reserva.getEstado());
+    }
+
+    @Test
+    void testConfirmarEnModoCompensacionSinBancoDestinoEsElMismoBanco() {
+        // Given
+        ReservaParticion reserva = new ReservaParticion(XID, 1L, 2L, 1L, null, new BigDecimal("-10"),
+                EstadoReserva.PREPARADA);
+        when(reservaRepository.findById(XID)).thenReturn(Optional.of(reserva));
+
+        // When
+        participante.confirmar(XID);
+
+        // Then
+        verify(camaraCompensacion).registrar(any(LocalDate.class), eq(1L), eq(1L), eq(new BigDecimal("10")));
+        verify(bancoRepository, never()).incrementarTransferencias(anyLong());
+    }
+}
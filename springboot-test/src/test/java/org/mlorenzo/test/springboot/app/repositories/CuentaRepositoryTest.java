@@ -1,16 +1,22 @@
 package org.mlorenzo.test.springboot.app.repositories;
 
+import org.hibernate.Session;
+import org.mlorenzo.test.springboot.app.models.CuentaResumen;
 import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+import org.mlorenzo.test.springboot.app.models.entities.FragmentoSaldo;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.annotation.Rollback;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,6 +32,9 @@ class CuentaRepositoryTest {
     @Autowired
     CuentaRepository cuentaRepository;
 
+    @Autowired
+    TestEntityManager entityManager;
+
     @Test
     void testFindById() {
         // When
@@ -64,6 +73,23 @@ class CuentaRepositoryTest {
         assertEquals(2, cuentas.size());
     }
 
+    @Test
+    void testFindResumenes() {
+        // When
+        List<CuentaResumen> cuentas = cuentaRepository.findResumenes();
+        CuentaResumen marie = cuentaRepository.findResumenById(2L).orElseThrow();
+        // Then
+        assertEquals(2, cuentas.size());
+        assertEquals("Andrés", cuentas.get(0).getPersona());
+        assertEquals(0, new BigDecimal("1000").compareTo(cuentas.get(0).getSaldo()));
+        assertEquals("Marie", marie.getPersona());
+        assertTrue(cuentaRepository.findResumenById(99L).isEmpty());
+        // Las filas no se cargan como entidades, así que el contexto de persistencia sigue vacío
+        entityManager.clear();
+        cuentaRepository.findResumenes();
+        assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
     @Test
     void testSave() {
         // Given
@@ -88,6 +114,22 @@ class CuentaRepositoryTest {
         assertEquals("3800", cuentaActualizada.getSaldo().toPlainString());
     }
 
+    @Test
+    void testActualizarPersona() {
+        // Given
+        long version = cuentaRepository.findById(1L).orElseThrow().getVersion();
+        // When
+        int actualizadas = cuentaRepository.actualizarPersona(1L, "Andrés Guzmán");
+        // Then
+        Cuenta cuenta = cuentaRepository.findById(1L).orElseThrow();
+        assertEquals(1, actualizadas);
+        assertEquals("Andrés Guzmán", cuenta.getPersona());
+        assertEquals(0, new BigDecimal("1000").compareTo(cuenta.getSaldo()));
+        // No se incrementa la versión, así que no invalida las transferencias en curso sobre la cuenta
+        assertEquals(version, cuenta.getVersion());
+        assertEquals(0, cuentaRepository.actualizarPersona(99L, "Nadie"));
+    }
+
     @Test
     void testDelete() {
         // Given
@@ -100,4 +142,72 @@ class CuentaRepositoryTest {
         );
         assertEquals(1, cuentaRepository.findAll().size());
     }
+
+    @Test
+    void testRecorrerPorSaldoLimitesYCursor() {
+        // Given
+        Long pepe = cuentaRepository.saveAndFlush(new Cuenta(null, "Pepe", new BigDecimal("1500"))).getId();
+        Long rosa = cuentaRepository.saveAndFlush(new Cuenta(null, "Rosa", new BigDecimal("1500"))).getId();
+        cuentaRepository.saveAndFlush(new Cuenta(null, "Luis", new BigDecimal("2500")));
+        BigDecimal min = new BigDecimal("1000");
+        BigDecimal max = new BigDecimal("2000");
+        // When
+        List<Cuenta> todas = recorrerPorSaldo(min, max, null, null, 10);
+        List<Cuenta> primera = recorrerPorSaldo(min, max, null, null, 2);
+        List<Cuenta> segunda = recorrerPorSaldo(min, max, new BigDecimal("1500"), pepe, 2);
+        List<Cuenta> tercera = recorrerPorSaldo(min, max, new BigDecimal("2000"), 2L, 2);
+        // Then
+        // Los dos límites son inclusivos y, con el mismo saldo, el orden lo decide el id
+        assertEquals(List.of(1L, pepe, rosa, 2L), ids(todas));
+        assertEquals(List.of(1L, pepe), ids(primera));
+        // El cursor continúa justo después de(saldo, id), aunque la siguiente cuenta tenga el mismo saldo
+        assertEquals(List.of(rosa, 2L), ids(segunda));
+        assertTrue(tercera.isEmpty());
+        assertEquals(List.of(rosa, 2L), ids(recorrerPorSaldo(null, max, new BigDecimal("1500"), pepe, 10)));
+    }
+
+    @Test
+    void testRecorrerPorSaldoCuentasFragmentadas() {
+        // Given
+        // Fila principal fuera del rango y saldo real(100 + 1000 + 400) dentro
+        Long dentro = fragmentada("Pepe", "100", "1000", "400");
+        // Fila principal dentro del rango y saldo real(1800 + 500) fuera
+        fragmentada("Rosa", "1800", "500", "0");
+        BigDecimal min = new BigDecimal("1000");
+        BigDecimal max = new BigDecimal("2000");
+        // When
+        List<Cuenta> todas = recorrerPorSaldo(min, max, null, null, 10);
+        List<Cuenta> primera = recorrerPorSaldo(min, max, null, null, 1);
+        List<Cuenta> segunda = recorrerPorSaldo(min, max, new BigDecimal("1000"), 1L, 1);
+        List<Cuenta> tercera = recorrerPorSaldo(min, max, new BigDecimal("1500"), dentro, 1);
+        List<Cuenta> cuarta = recorrerPorSaldo(min, max, new BigDecimal("2000"), 2L, 1);
+        // Then
+        assertEquals(List.of(1L, dentro, 2L), ids(todas));
+        assertEquals(0, new BigDecimal("1500").compareTo(todas.get(1).getSaldo()));
+        assertEquals(List.of(1L), ids(primera));
+        assertEquals(List.of(dentro), ids(segunda));
+        assertEquals(List.of(2L), ids(tercera));
+        assertTrue(cuarta.isEmpty());
+    }
+
+    private List<Cuenta> recorrerPorSaldo(BigDecimal saldoMin, BigDecimal saldoMax, BigDecimal saldoCursor,
+                                          Long idCursor, int limite) {
+        List<Cuenta> cuentas = new ArrayList<>();
+        cuentaRepository.recorrerPorSaldo(saldoMin, saldoMax, saldoCursor, idCursor, limite, cuentas::add);
+        return cuentas;
+    }
+
+    private Long fragmentada(String persona, String saldo, String... fragmentos) {
+        Cuenta cuenta = new Cuenta(null, persona, new BigDecimal(saldo));
+        cuenta.setFragmentos(fragmentos.length);
+        Long id = entityManager.persistAndGetId(cuenta, Long.class);
+        for (int i = 0; i < fragmentos.length; i++)
+            entityManager.persist(new FragmentoSaldo(id, i, new BigDecimal(fragmentos[i])));
+        entityManager.flush();
+        return id;
+    }
+
+    private static List<Long> ids(List<Cuenta> cuentas) {
+        return cuentas.stream().map(Cuenta::getId).collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,95 @@
+package org.mlorenzo.test.springboot.app.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.models.entities.Movimiento;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Contexto completo para que los movimientos los genere CuentaService.transferir. Cada prueba se ejecuta en una
+// transacción que se deshace al terminar(la transferencia se une a ella). Mismas propiedades que
+// CuentaServiceConcurrenciaTest para compartir su contexto
+@SpringBootTest(properties = "transferencias.reintentos.max-intentos=50")
+@Transactional
+class MovimientoRepositoryTest {
+    private static final LocalDateTime DESDE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HASTA = LocalDateTime.of(9999, 12, 31, 0, 0);
+    // Cuenta sin movimientos de otras pruebas(cuenta_id no tiene clave ajena)
+    private static final Long CUENTA = 999L;
+
+    @Autowired
+    MovimientoRepository movimientoRepository;
+
+    @Autowired
+    CuentaService cuentaService;
+
+    @Test
+    void testTransferirGuardaLosDosMovimientos() {
+        // When
+        cuentaService.transferir(1L, 2L, 1L, new BigDecimal("100"));
+        // Then
+        Movimiento debito = movimientoRepository.findPrimeraPagina(1L, DESDE, HASTA, PageRequest.of(0, 1)).get(0);
+        Movimiento credito = movimientoRepository.findPrimeraPagina(2L, DESDE, HASTA, PageRequest.of(0, 1)).get(0);
+        assertEquals(0, new BigDecimal("-100").compareTo(debito.getMonto()));
+        assertEquals(2L, debito.getContraparteId());
+        assertEquals(0, cuentaService.revisarSalto(1L).compareTo(debito.getSaldo()));
+        assertEquals(0, new BigDecimal("100").compareTo(credito.getMonto()));
+        assertEquals(1L, credito.getContraparteId());
+        assertEquals(0, cuentaService.revisarSalto(2L).compareTo(credito.getSaldo()));
+        // Los dos en la misma transferencia, con la misma fecha
+        assertEquals(debito.getFecha(), credito.getFecha());
+    }
+
+    @Test
+    void testPaginacionPorClave() {
+        // Given
+        LocalDateTime t1 = LocalDateTime.of(2026, 1, 1, 10, 0);
+        LocalDateTime t2 = t1.plusHours(1);
+        LocalDateTime t3 = t1.plusHours(2);
+        // Tres movimientos con la misma fecha: el id decide el orden y el cursor no debe saltarse ni repetir ninguno
+        Long a = guardar(t1);
+        Long b = guardar(t2);
+        Long c = guardar(t2);
+        Long d = guardar(t2);
+        Long e = guardar(t3);
+        guardar(t3.plusHours(1));
+        // When
+        List<Movimiento> primera = movimientoRepository.findPrimeraPagina(CUENTA, t1, t3.plusHours(1),
+                PageRequest.of(0, 2));
+        Movimiento ultimo = primera.get(1);
+        List<Movimiento> segunda = movimientoRepository.findPaginaSiguiente(CUENTA, t1, t3.plusHours(1),
+                ultimo.getFecha(), ultimo.getId(), PageRequest.of(0, 2));
+        ultimo = segunda.get(1);
+        List<Movimiento> tercera = movimientoRepository.findPaginaSiguiente(CUENTA, t1, t3.plusHours(1),
+                ultimo.getFecha(), ultimo.getId(), PageRequest.of(0, 2));
+        ultimo = tercera.get(0);
+        List<Movimiento> cuarta = movimientoRepository.findPaginaSiguiente(CUENTA, t1, t3.plusHours(1),
+                ultimo.getFecha(), ultimo.getId(), PageRequest.of(0, 2));
+        // Then
+        // Más recientes primero; "hasta" es exclusivo, así que el último movimiento no entra
+        assertEquals(List.of(e, d), ids(primera));
+        assertEquals(List.of(c, b), ids(segunda));
+        assertEquals(List.of(a), ids(tercera));
+        assertTrue(cuarta.isEmpty());
+        // "desde" es inclusivo
+        assertEquals(List.of(d, c, b), ids(movimientoRepository.findPrimeraPagina(CUENTA, t2, t3,
+                PageRequest.of(0, 10))));
+    }
+
+    private Long guardar(LocalDateTime fecha) {
+        return movimientoRepository.save(new Movimiento(CUENTA, 1L, fecha, BigDecimal.ONE, BigDecimal.ONE)).getId();
+    }
+
+    private static List<Long> ids(List<Movimiento> movimientos) {
+        return movimientos.stream().map(Movimiento::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,103 @@
+package org.mlorenzo.test.springboot.app.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuedaTemporalTest {
+    private static final long INICIO = 10_000;
+
+    @Test
+    void testVenceEnSuTickYNoAntes() {
+        RuedaTemporal<Long> rueda = new RuedaTemporal<>(1000, 4, INICIO);
+        List<Long> vencidas = new ArrayList<>();
+        assertTrue(rueda.programar(1L, 12_500));
+        // Se redondea al tick siguiente(13.000)
+        rueda.avanzar(12_999, vencidas::add);
+        assertTrue(vencidas.isEmpty());
+        rueda.avanzar(13_000, vencidas::add);
+        assertEquals(List.of(1L), vencidas);
+        assertEquals(0, rueda.size());
+    }
+
+    @Test
+    void testCancelar() {
+        RuedaTemporal<Long> rueda = new RuedaTemporal<>(1000, 4, INICIO);
+        rueda.programar(1L, 20_000);
+        rueda.programar(2L, 20_000);
+        assertTrue(rueda.cancelar(1L));
+        assertFalse(rueda.cancelar(1L));
+        assertFalse(rueda.contiene(1L));
+        List<Long> vencidas = new ArrayList<>();
+        rueda.avanzar(30_000, vencidas::add);
+        assertEquals(List.of(2L), vencidas);
+    }
+
+    @Test
+    void testVencidasYDuplicadas() {
+        RuedaTemporal<Long> rueda = new RuedaTemporal<>(1000, 2, INICIO);
+        // Lo que ya ha vencido sale en el siguiente tick
+        assertTrue(rueda.programar(1L, 0));
+        assertFalse(rueda.programar(1L, 50_000));
+        // Con 2 niveles el horizonte es de 64 * 64 ticks
+        assertEquals((10 + 4096) * 1000, rueda.getHorizonteMs());
+        assertThrows(IllegalArgumentException.class, () -> rueda.programar(2L, rueda.getHorizonteMs()));
+        List<Long> vencidas = new ArrayList<>();
+        rueda.avanzar(11_000, vencidas::add);
+        assertEquals(List.of(1L), vencidas);
+    }
+
+    @Test
+    void testSaltoSinElementos() {
+        RuedaTemporal<Long> rueda = new RuedaTemporal<>(1000, 1, INICIO);
+        rueda.avanzar(INICIO + 1_000_000_000, k -> fail());
+        // El horizonte se cuenta desde donde se ha saltado
+        rueda.programar(1L, INICIO + 1_000_010_000);
+        List<Long> vencidas = new ArrayList<>();
+        rueda.avanzar(INICIO + 1_000_010_000, vencidas::add);
+        assertEquals(List.of(1L), vencidas);
+    }
+
+    // Con un tick de 1 ms, cada clave tiene que vencer en el primer avance que alcanza su vencimiento, aunque haya
+    // bajado por varios niveles
+    @Test
+    void testVariosNiveles() {
+        RuedaTemporal<Integer> rueda = new RuedaTemporal<>(1, 4, INICIO);
+        Random random = new Random(42);
+        Map<Integer, Long> vencimientos = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            long vencimiento = INICIO + 1 + random.nextInt(300_000);
+            vencimientos.put(i, vencimiento);
+            rueda.programar(i, vencimiento);
+        }
+        for (int i = 0; i < 10_000; i += 10)
+            assertTrue(rueda.cancelar(i));
+
+        long anterior = INICIO;
+        int vencidas = 0;
+        while (anterior < INICIO + 300_001) {
+            long ahora = anterior + 1 + random.nextInt(5000);
+            long desde = anterior;
+            List<Integer> lote = new ArrayList<>();
+            rueda.avanzar(ahora, lote::add);
+            long ultimo = 0;
+            for (Integer clave : lote) {
+                long vencimiento = vencimientos.get(clave);
+                assertNotEquals(0, clave % 10);
+                assertTrue(vencimiento > desde && vencimiento <= ahora, "Vencimiento fuera de su avance: " + clave);
+                assertTrue(vencimiento >= ultimo, "Vencidas fuera de orden");
+                ultimo = vencimiento;
+            }
+            vencidas += lote.size();
+            anterior = ahora;
+        }
+        assertEquals(9_000, vencidas);
+        assertEquals(0, rueda.size());
+    }
+}
@@ -0,0 +1,64 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("integracion_concurrencia")
+// Subimos el número de reintentos para que, incluso con mucha contención, todas las transferencias terminen
+@SpringBootTest(properties = "transferencias.reintentos.max-intentos=50")
+@Isolated
+class CuentaServiceConcurrenciaTest {
+
+    @Autowired
+    CuentaService service;
+
+    @Test
+    void testTransferenciasConcurrentesConservanElDinero() throws Exception {
+        BigDecimal totalInicial = service.revisarSalto(1L).add(service.revisarSalto(2L));
+        int transferenciasIniciales = service.revisarTotalTransferencias(1L);
+        int hilos = 8;
+        int transferenciasPorHilo = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Integer>> resultados = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            // La mitad de los hilos transfiere en un sentido y la otra mitad en el contrario
+            long origen = i % 2 == 0 ? 1L : 2L;
+            long destino = i % 2 == 0 ? 2L : 1L;
+            resultados.add(executor.submit(() -> {
+                salida.await();
+                int realizadas = 0;
+                for (int j = 0; j < transferenciasPorHilo; j++) {
+                    service.transferir(origen, destino, 1L, new BigDecimal("10"));
+                    realizadas++;
+                }
+                return realizadas;
+            }));
+        }
+        salida.countDown();
+        int realizadas = 0;
+        for (Future<Integer> resultado : resultados)
+            realizadas += resultado.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(hilos * transferenciasPorHilo, realizadas);
+        // Ninguna actualización se ha perdido: el dinero total se conserva y el contador del banco es exacto
+        BigDecimal totalFinal = service.revisarSalto(1L).add(service.revisarSalto(2L));
+        assertEquals(0, totalInicial.compareTo(totalFinal));
+        assertEquals(transferenciasIniciales + realizadas, service.revisarTotalTransferencias(1L));
+    }
+}
@@ -0,0 +1,86 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import org.mlorenzo.test.springboot.app.SpringbootTestApplication;
+import org.mlorenzo.test.springboot.app.aspects.ReintentoTransferenciaAspect;
+import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Transferencias por segundo hacia una única cuenta caliente según su número de fragmentos(K = 0 es la cuenta sin
+// fragmentar): cada hilo transfiere desde su propia cuenta a la caliente durante unos segundos. También muestra los
+// conflictos optimistas por transferencia. No es una prueba de JUnit; se ejecuta a mano desde el IDE o con:
+//
+//   ./mvnw -q test-compile exec:java -Dexec.classpathScope=test \
+//       -Dexec.mainClass=org.mlorenzo.test.springboot.app.services.FragmentosBench -Dexec.args="8 5"
+public class FragmentosBench {
+    private static final int[] FRAGMENTOS = {0, 2, 4, 8, 16};
+    private static final BigDecimal MONTO = BigDecimal.ONE;
+
+    public static void main(String[] args) throws Exception {
+        int hilos = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(SpringbootTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:fragmentos;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false", "logging.level.root=warn", "logging.level.org.hibernate.SQL=warn",
+                        "cuentas.fragmentadas.umbral-conflictos=0", "transferencias.reintentos.max-intentos=1000")
+                .run()) {
+            CuentaService cuentaService = contexto.getBean(CuentaService.class);
+            SaldosFragmentados saldosFragmentados = contexto.getBean(SaldosFragmentados.class);
+            ReintentoTransferenciaAspect reintentos = contexto.getBean(ReintentoTransferenciaAspect.class);
+            System.out.printf("%d hilos, %d s por ronda%n", hilos, segundos);
+            // La primera ronda sólo calienta la JIT
+            medir(cuentaService, saldosFragmentados, reintentos, 0, hilos, 1, false);
+            for (int fragmentos : FRAGMENTOS)
+                medir(cuentaService, saldosFragmentados, reintentos, fragmentos, hilos, segundos, true);
+        }
+    }
+
+    private static void medir(CuentaService cuentaService, SaldosFragmentados saldosFragmentados,
+                              ReintentoTransferenciaAspect reintentos, int fragmentos, int hilos, int segundos,
+                              boolean mostrar) throws Exception {
+        Long caliente = cuentaService.save(new Cuenta(null, "Caliente", BigDecimal.ZERO)).getId();
+        if (fragmentos > 0)
+            saldosFragmentados.fragmentar(caliente, fragmentos);
+        List<Long> origenes = new ArrayList<>(hilos);
+        for (int i = 0; i < hilos; i++)
+            origenes.add(cuentaService.save(new Cuenta(null, "Origen " + i, new BigDecimal("1000000000"))).getId());
+        double conflictosAntes = reintentos.getConflictos();
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos) + TimeUnit.MILLISECONDS.toNanos(100);
+        List<Future<Integer>> resultados = new ArrayList<>();
+        for (Long origen : origenes)
+            resultados.add(executor.submit(() -> {
+                salida.await();
+                int realizadas = 0;
+                while (System.nanoTime() < fin) {
+                    cuentaService.transferir(origen, caliente, 1L, MONTO);
+                    realizadas++;
+                }
+                return realizadas;
+            }));
+        long inicio = System.nanoTime();
+        salida.countDown();
+        int realizadas = 0;
+        for (Future<Integer> resultado : resultados)
+            realizadas += resultado.get();
+        double duracion = (System.nanoTime() - inicio) / 1e9;
+        executor.shutdown();
+        if (cuentaService.revisarSalto(caliente).intValueExact() != realizadas)
+            throw new IllegalStateException("K=" + fragmentos + ": el saldo de la cuenta caliente no cuadra");
+        if (mostrar)
+            System.out.printf("K=%-3d %8.0f transferencias/s  %6.2f conflictos/transferencia%n", fragmentos,
+                    realizadas / duracion, (reintentos.getConflictos() - conflictosAntes) / realizadas);
+    }
+}
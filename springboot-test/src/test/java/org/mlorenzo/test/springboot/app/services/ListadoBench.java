@@ -0,0 +1,74 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import org.mlorenzo.test.springboot.app.SpringbootTestApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+// Comparación del listado de cuentas con entidades(CuentaService.findAll) y con CuentaResumen
+// (CuentaService.listarResumenes, lo que usa GET /api/cuentas) sobre una tabla de N cuentas: mejor tiempo y bytes
+// reservados por fila en el hilo. No es una prueba de JUnit; con 1M de cuentas el listado con entidades necesita un
+// heap de unos 2 GB. Se ejecuta a mano desde el IDE o con:
+//
+//   ./mvnw -q test-compile exec:java -Dexec.classpathScope=test \
+//       -Dexec.mainClass=org.mlorenzo.test.springboot.app.services.ListadoBench -Dexec.args=1000000
+//
+// Con 1M de cuentas(1 CPU, JDK 17, -Xmx3g): 4112 ms y 660 bytes por fila con entidades, 298 ms y 277 bytes por fila
+// con CuentaResumen. Con 300000: 1163 ms y 651 bytes frente a 103 ms y 277 bytes
+public class ListadoBench {
+    private static final int RONDAS_CALENTAMIENTO = 3;
+    private static final int RONDAS = 5;
+    private static final int TAMANO_LOTE = 10_000;
+
+    public static void main(String[] args) {
+        int cuentas = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(SpringbootTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:listado;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false", "logging.level.root=warn")
+                .run()) {
+            JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+            List<Object[]> lote = new ArrayList<>(TAMANO_LOTE);
+            for (int i = 0; i < cuentas; i++) {
+                lote.add(new Object[]{"Cuenta " + i, i % 100_000});
+                if (lote.size() == TAMANO_LOTE || i == cuentas - 1) {
+                    jdbcTemplate.batchUpdate("INSERT INTO cuentas(persona, saldo, version, fragmentos, cerrada) " +
+                            "VALUES(?, ?, 0, 0, FALSE)", lote);
+                    lote.clear();
+                }
+            }
+            int total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cuentas", Integer.class);
+            System.out.printf("%,d cuentas%n", total);
+
+            CuentaService cuentaService = contexto.getBean(CuentaService.class);
+            medir("Entidades", () -> cuentaService.findAll().size(), total);
+            medir("CuentaResumen", () -> cuentaService.listarResumenes().size(), total);
+        }
+    }
+
+    private static void medir(String nombre, IntSupplier listado, int total) {
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long hilo = Thread.currentThread().getId();
+        for (int i = 0; i < RONDAS_CALENTAMIENTO; i++)
+            listado.getAsInt();
+        long mejor = Long.MAX_VALUE;
+        long menosBytes = Long.MAX_VALUE;
+        for (int i = 0; i < RONDAS; i++) {
+            System.gc();
+            long bytes = hilos.getThreadAllocatedBytes(hilo);
+            long inicio = System.nanoTime();
+            if (listado.getAsInt() != total)
+                throw new IllegalStateException(nombre + ": número de cuentas incorrecto");
+            mejor = Math.min(mejor, System.nanoTime() - inicio);
+            menosBytes = Math.min(menosBytes, hilos.getThreadAllocatedBytes(hilo) - bytes);
+        }
+        System.out.printf("%-14s %9.1f ms  %6.0f ns/cuenta  %6.0f bytes/cuenta%n", nombre, mejor / 1e6,
+                (double) mejor / total, (double) menosBytes / total);
+    }
+}
@@ -0,0 +1,49 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.models.entities.EstadoTransferencia;
+import org.mlorenzo.test.springboot.app.models.entities.Transferencia;
+import org.mlorenzo.test.springboot.app.repositories.TransferenciaRepository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProcesadorTransferenciaTest {
+    private final CuentaService cuentaService = mock(CuentaService.class);
+    private final TransferenciaRepository transferenciaRepository = mock(TransferenciaRepository.class);
+    private final ProcesadorTransferencia procesador = new ProcesadorTransferencia(cuentaService,
+            transferenciaRepository);
+
+    @Test
+    void testTransferenciaEntreBancosConservaElBancoDestino() {
+        // Given
+        Transferencia transferencia = new Transferencia(1L, 2L, 1L, 2L, BigDecimal.TEN);
+        when(transferenciaRepository.findById(7L)).thenReturn(Optional.of(transferencia));
+
+        // When
+        procesador.procesar(7L);
+
+        // Then: la variante de 5 argumentos, para que el modo compensación la anote entre los dos bancos
+        verify(cuentaService).transferir(1L, 2L, 1L, 2L, BigDecimal.TEN);
+        verify(cuentaService, never()).transferir(anyLong(), anyLong(), anyLong(), any(BigDecimal.class));
+        assertEquals(EstadoTransferencia.COMPLETADA, transferencia.getEstado());
+    }
+
+    @Test
+    void testTransferenciaDelMismoBanco() {
+        // Given
+        Transferencia transferencia = new Transferencia(1L, 2L, 1L, null, BigDecimal.TEN);
+        when(transferenciaRepository.findById(7L)).thenReturn(Optional.of(transferencia));
+
+        // When
+        procesador.procesar(7L);
+
+        // Then
+        verify(cuentaService).transferir(1L, 2L, 1L, BigDecimal.TEN);
+        assertEquals(EstadoTransferencia.COMPLETADA, transferencia.getEstado());
+    }
+}
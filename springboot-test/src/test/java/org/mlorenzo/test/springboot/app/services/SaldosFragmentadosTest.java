@@ -0,0 +1,91 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.mlorenzo.test.springboot.app.models.entities.Cuenta;
+import org.mlorenzo.test.springboot.app.repositories.CuentaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("integracion_fragmentos")
+// Sin fragmentación automática: la cuenta se fragmenta a mano en la prueba. Se suben los reintentos para que los
+// débitos concurrentes terminen todos aunque choquen
+@SpringBootTest(properties = {"cuentas.fragmentadas.umbral-conflictos=0", "transferencias.reintentos.max-intentos=50"})
+@Isolated
+class SaldosFragmentadosTest {
+
+    @Autowired
+    CuentaService service;
+
+    @Autowired
+    SaldosFragmentados saldosFragmentados;
+
+    @Autowired
+    CuentaRepository cuentaRepository;
+
+    @Test
+    void testCreditosEnFragmentosYDebitoConsolidado() {
+        BigDecimal totalInicial = service.revisarSalto(1L).add(service.revisarSalto(2L));
+        BigDecimal saldoFilaDestino = cuentaRepository.findById(2L).orElseThrow().getSaldo();
+        assertTrue(saldosFragmentados.fragmentar(2L, 4));
+        assertFalse(saldosFragmentados.fragmentar(2L, 4));
+
+        for (int i = 0; i < 10; i++)
+            service.transferir(1L, 2L, 1L, new BigDecimal("10"));
+
+        // Los créditos no tocan la fila de la cuenta, pero el saldo que se ve es el total
+        assertEquals(0, saldoFilaDestino.compareTo(cuentaRepository.findById(2L).orElseThrow().getSaldo()));
+        assertEquals(0, saldoFilaDestino.add(new BigDecimal("100")).compareTo(service.revisarSalto(2L)));
+        assertEquals(0, service.revisarSalto(2L).compareTo(service.findById(2L).getSaldo()));
+
+        // Un débito mayor que el saldo de la fila consolida los fragmentos antes de descontar
+        BigDecimal saldoDestino = service.revisarSalto(2L);
+        service.transferir(2L, 1L, 1L, saldoFilaDestino.add(new BigDecimal("50")));
+        assertEquals(0, saldoDestino.subtract(saldoFilaDestino.add(new BigDecimal("50")))
+                .compareTo(service.revisarSalto(2L)));
+
+        assertEquals(0, totalInicial.compareTo(service.revisarSalto(1L).add(service.revisarSalto(2L))));
+    }
+
+    @Test
+    void testDebitosConcurrentesDeCuentaFragmentada() throws Exception {
+        Long id = service.save(new Cuenta(null, "Fragmentada", BigDecimal.ZERO)).getId();
+        assertTrue(saldosFragmentados.fragmentar(id, 4));
+        int hilos = 8;
+        for (int i = 0; i < hilos; i++)
+            service.transferir(1L, id, 1L, new BigDecimal("10"));
+        // Todo el saldo está en los fragmentos: cada débito necesita consolidar o ver la consolidación de otro
+        assertEquals(0, cuentaRepository.findById(id).orElseThrow().getSaldo().signum());
+        BigDecimal totalInicial = service.revisarSalto(1L).add(service.revisarSalto(id));
+
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> resultados = new ArrayList<>();
+        for (int i = 0; i < hilos; i++)
+            resultados.add(executor.submit(() -> {
+                salida.await();
+                service.transferir(id, 1L, 1L, new BigDecimal("10"));
+                return null;
+            }));
+        salida.countDown();
+        // Ningún débito falla por falta de saldo aunque lea la cuenta antes de que otro la consolide
+        for (Future<?> resultado : resultados)
+            resultado.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(0, service.revisarSalto(id).signum());
+        assertEquals(0, totalInicial.compareTo(service.revisarSalto(1L).add(service.revisarSalto(id))));
+    }
+}
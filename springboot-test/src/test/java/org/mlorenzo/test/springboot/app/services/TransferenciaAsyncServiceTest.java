@@ -0,0 +1,132 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.mlorenzo.test.springboot.app.models.entities.EstadoTransferencia;
+import org.mlorenzo.test.springboot.app.models.entities.Transferencia;
+import org.mlorenzo.test.springboot.app.repositories.TransferenciaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// El despachador programado sólo se ejecuta una vez al arrancar(antes de estar iniciado), así que las pruebas lo
+// llaman a mano y cada paso de la cola se puede comprobar. Las transferencias de un lote chocan en las mismas cuentas,
+// así que se suben los reintentos para que ninguna acabe FALLIDA
+@SpringBootTest(properties = {"transferencias.async.intervalo-ms=3600000", "transferencias.reintentos.max-intentos=50"})
+@AutoConfigureMockMvc
+@Isolated
+class TransferenciaAsyncServiceTest {
+    private static final long ESPERA_MAXIMA_MS = TimeUnit.SECONDS.toMillis(15);
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    TransferenciaAsyncServiceImpl service;
+
+    @Autowired
+    CuentaService cuentaService;
+
+    @Autowired
+    TransferenciaRepository transferenciaRepository;
+
+    @Test
+    void testDeLaPeticionAlEstadoCompletada() throws Exception {
+        BigDecimal saldoOrigen = cuentaService.revisarSalto(1L);
+        BigDecimal saldoDestino = cuentaService.revisarSalto(2L);
+
+        String location = mvc.perform(post("/api/cuentas/transferir").param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cuentaOrigenId\":1,\"cuentaDestinoId\":2,\"bancoId\":1,\"monto\":10}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("PENDIENTE"))
+                .andReturn().getResponse().getHeader("Location");
+        Long id = Long.valueOf(location.substring(location.lastIndexOf('/') + 1));
+        // Aceptada pero sin procesar: el dinero no se ha movido
+        assertEquals(EstadoTransferencia.PENDIENTE, service.findById(id).getEstado());
+        assertEquals(0, saldoOrigen.compareTo(cuentaService.revisarSalto(1L)));
+
+        service.despachar();
+        Transferencia transferencia = esperar(id);
+
+        assertEquals(EstadoTransferencia.COMPLETADA, transferencia.getEstado());
+        assertNotNull(transferencia.getProcesada());
+        assertEquals(0, saldoOrigen.subtract(BigDecimal.TEN).compareTo(cuentaService.revisarSalto(1L)));
+        assertEquals(0, saldoDestino.add(BigDecimal.TEN).compareTo(cuentaService.revisarSalto(2L)));
+        mvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.estado").value("COMPLETADA"))
+                .andExpect(jsonPath("$.reclamo").doesNotExist());
+    }
+
+    @Test
+    void testBancoDestinoSeGuardaEnLaCola() throws Exception {
+        String location = mvc.perform(post("/api/cuentas/transferir").param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cuentaOrigenId\":1,\"cuentaDestinoId\":2,\"bancoId\":1,\"bancoDestinoId\":1," +
+                                "\"monto\":1}"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader("Location");
+        Long id = Long.valueOf(location.substring(location.lastIndexOf('/') + 1));
+
+        assertEquals(1L, service.findById(id).getBancoDestinoId());
+        service.despachar();
+        assertEquals(EstadoTransferencia.COMPLETADA, esperar(id).getEstado());
+    }
+
+    @Test
+    void testDespachadoresConcurrentesNoEjecutanDosVeces() throws Exception {
+        BigDecimal saldoDestino = cuentaService.revisarSalto(2L);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 40; i++)
+            ids.add(transferenciaRepository.save(new Transferencia(1L, 2L, 1L, null, BigDecimal.ONE)).getId());
+
+        // Como varias instancias leyendo la misma cola: todos leen el mismo lote de pendientes a la vez
+        int despachadores = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(despachadores);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> resultados = new ArrayList<>();
+        for (int i = 0; i < despachadores; i++)
+            resultados.add(pool.submit(() -> {
+                salida.await();
+                service.despachar();
+                return null;
+            }));
+        salida.countDown();
+        for (Future<?> resultado : resultados)
+            resultado.get(ESPERA_MAXIMA_MS, TimeUnit.MILLISECONDS);
+        pool.shutdown();
+
+        for (Long id : ids)
+            assertEquals(EstadoTransferencia.COMPLETADA, esperar(id).getEstado());
+        // Cada transferencia se ha ejecutado exactamente una vez
+        assertEquals(0, saldoDestino.add(new BigDecimal(ids.size())).compareTo(cuentaService.revisarSalto(2L)));
+    }
+
+    private Transferencia esperar(Long id) throws InterruptedException {
+        long limite = System.currentTimeMillis() + ESPERA_MAXIMA_MS;
+        Transferencia transferencia = service.findById(id);
+        while (transferencia.getEstado() == EstadoTransferencia.PENDIENTE
+                || transferencia.getEstado() == EstadoTransferencia.EN_PROCESO) {
+            assertTrue(System.currentTimeMillis() < limite, "La transferencia " + id + " no ha terminado");
+            Thread.sleep(20);
+            transferencia = service.findById(id);
+        }
+        return transferencia;
+    }
+}
@@ -0,0 +1,145 @@
+package org.mlorenzo.test.springboot.app.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.mlorenzo.test.springboot.app.models.TransferenciaProgramadaDto;
+import org.mlorenzo.test.springboot.app.models.entities.EstadoTransferencia;
+import org.mlorenzo.test.springboot.app.models.entities.TransferenciaProgramada;
+import org.mlorenzo.test.springboot.app.repositories.BancoRepository;
+import org.mlorenzo.test.springboot.app.repositories.CuentaRepository;
+import org.mlorenzo.test.springboot.app.repositories.TransferenciaProgramadaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Ticks cortos y una ventana de 2 s que se recarga cada 500 ms, para que en pocos segundos haya transferencias que
+// entran en la rueda al programarlas y otras que sólo llegan con una recarga. Las que vencen a la vez chocan en las
+// mismas cuentas, así que se suben los reintentos para que ninguna acabe FALLIDA
+@SpringBootTest(properties = {"programadas.tick-ms=100", "programadas.intervalo-ms=20", "programadas.ventana-ms=2000",
+        "programadas.recarga-ms=500", "transferencias.reintentos.max-intentos=50"})
+@Isolated
+class TransferenciaProgramadaServiceTest {
+    private static final long ESPERA_MAXIMA_MS = TimeUnit.SECONDS.toMillis(15);
+
+    @Autowired
+    TransferenciaProgramadaService service;
+
+    @Autowired
+    CuentaService cuentaService;
+
+    @Autowired
+    TransferenciaProgramadaRepository programadaRepository;
+
+    @Autowired
+    CuentaRepository cuentaRepository;
+
+    @Autowired
+    BancoRepository bancoRepository;
+
+    @Autowired
+    ProcesadorTransferenciaProgramada procesador;
+
+    @Test
+    void testSeEjecutaAlVencerDentroYFueraDeLaVentana() throws Exception {
+        BigDecimal saldoOrigen = cuentaService.revisarSalto(1L);
+        // La primera vence dentro de la ventana cargada; la segunda, más allá, y entra en la rueda con una recarga
+        TransferenciaProgramada cercana = service.programar(dto(LocalDateTime.now().plusNanos(300_000_000), "1"));
+        TransferenciaProgramada lejana = service.programar(dto(LocalDateTime.now().plusSeconds(4), "2"));
+
+        TransferenciaProgramada ejecutada = esperar(cercana.getId());
+        assertEquals(EstadoTransferencia.COMPLETADA, ejecutada.getEstado());
+        assertFalse(ejecutada.getProcesada().isBefore(ejecutada.getFechaEjecucion()));
+        assertEquals(EstadoTransferencia.PENDIENTE, service.findById(lejana.getId()).getEstado());
+
+        ejecutada = esperar(lejana.getId());
+        assertEquals(EstadoTransferencia.COMPLETADA, ejecutada.getEstado());
+        assertFalse(ejecutada.getProcesada().isBefore(ejecutada.getFechaEjecucion()));
+        assertEquals(0, saldoOrigen.subtract(new BigDecimal("3")).compareTo(cuentaService.revisarSalto(1L)));
+    }
+
+    @Test
+    void testCancelarCompiteConElDespachador() throws Exception {
+        BigDecimal saldoDestino = cuentaService.revisarSalto(2L);
+        LocalDateTime vencimiento = LocalDateTime.now().plusNanos(500_000_000);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            ids.add(service.programar(dto(vencimiento, "1")).getId());
+        // Se cancelan justo cuando vencen: cada una acaba o cancelada o ejecutada, nunca las dos cosas
+        while (LocalDateTime.now().isBefore(vencimiento))
+            Thread.sleep(5);
+        List<Long> canceladas = new ArrayList<>();
+        for (Long id : ids) {
+            try {
+                service.cancelar(id);
+                canceladas.add(id);
+            }
+            catch (IllegalStateException e) {
+                // Ya estaba EN_PROCESO o COMPLETADA
+            }
+        }
+
+        int completadas = 0;
+        for (Long id : ids) {
+            EstadoTransferencia estado = esperar(id).getEstado();
+            assertEquals(canceladas.contains(id) ? EstadoTransferencia.CANCELADA : EstadoTransferencia.COMPLETADA,
+                    estado);
+            if (estado == EstadoTransferencia.COMPLETADA)
+                completadas++;
+        }
+        assertEquals(0, saldoDestino.add(new BigDecimal(completadas)).compareTo(cuentaService.revisarSalto(2L)));
+    }
+
+    @Test
+    void testAlReiniciarRecuperaLasVencidasYLasInterrumpidas() throws Exception {
+        // Como si la aplicación se hubiera parado: una venció estando parada y otra se quedó a medias
+        TransferenciaProgramada vencida = programadaRepository.save(new TransferenciaProgramada(2L, 1L, 1L, null,
+                BigDecimal.ONE, LocalDateTime.now().minusHours(1)));
+        TransferenciaProgramada interrumpida = new TransferenciaProgramada(2L, 1L, 1L, null, BigDecimal.ONE,
+                LocalDateTime.now().minusMinutes(1));
+        interrumpida.setEstado(EstadoTransferencia.EN_PROCESO);
+        interrumpida = programadaRepository.save(interrumpida);
+
+        TransferenciaProgramadaServiceImpl reiniciado = new TransferenciaProgramadaServiceImpl(programadaRepository,
+                cuentaRepository, bancoRepository, procesador, new SimpleMeterRegistry(), 100, 2000, 1000, 2, 100, 20);
+        try {
+            reiniciado.recuperar();
+            assertEquals(EstadoTransferencia.COMPLETADA, esperar(vencida.getId()).getEstado());
+            assertEquals(EstadoTransferencia.COMPLETADA, esperar(interrumpida.getId()).getEstado());
+        }
+        finally {
+            reiniciado.detener();
+        }
+    }
+
+    private static TransferenciaProgramadaDto dto(LocalDateTime fechaEjecucion, String monto) {
+        TransferenciaProgramadaDto dto = new TransferenciaProgramadaDto();
+        dto.setCuentaOrigenId(1L);
+        dto.setCuentaDestinoId(2L);
+        dto.setBancoId(1L);
+        dto.setMonto(new BigDecimal(monto));
+        dto.setFechaEjecucion(fechaEjecucion);
+        return dto;
+    }
+
+    // Espera a que la transferencia salga de PENDIENTE y EN_PROCESO
+    private TransferenciaProgramada esperar(Long id) throws InterruptedException {
+        long limite = System.currentTimeMillis() + ESPERA_MAXIMA_MS;
+        while (true) {
+            TransferenciaProgramada programada = service.findById(id);
+            if (programada.getEstado() != EstadoTransferencia.PENDIENTE
+                    && programada.getEstado() != EstadoTransferencia.EN_PROCESO)
+                return programada;
+            if (System.currentTimeMillis() > limite)
+                fail("La transferencia programada " + id + " sigue " + programada.getEstado());
+            Thread.sleep(20);
+        }
+    }
+}
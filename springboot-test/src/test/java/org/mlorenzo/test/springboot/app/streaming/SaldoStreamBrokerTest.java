@@ -0,0 +1,124 @@
+package org.mlorenzo.test.springboot.app.streaming;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.mlorenzo.test.springboot.app.events.SaldoActualizadoEvent;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Isolated
+class SaldoStreamBrokerTest {
+    private SaldoStreamBroker broker;
+
+    @AfterEach
+    void tearDown() {
+        broker.detener();
+    }
+
+    @Test
+    void testDescartaSaldosAntiguos() throws InterruptedException {
+        broker = new SaldoStreamBroker(1, 60000, 5000);
+        EmitterDePrueba emitter = new EmitterDePrueba(null);
+        broker.suscribir(1L, new BigDecimal("1000"), 1, emitter);
+        assertEquals(new BigDecimal("1000"), emitter.siguiente());
+
+        // La transacción de la versión 3 confirma después que la de la 2, pero su listener se ejecuta antes
+        broker.alConfirmarTransferencia(new SaldoActualizadoEvent(1L, new BigDecimal("800"), 3));
+        broker.alConfirmarTransferencia(new SaldoActualizadoEvent(1L, new BigDecimal("900"), 2));
+        // Un crédito en una cuenta fragmentada no cambia la versión y sí se envía
+        broker.alConfirmarTransferencia(new SaldoActualizadoEvent(1L, new BigDecimal("850"), 3));
+
+        // Según lo rápido que vaya el envío, el 800 puede agruparse con el 850; el 900 no se envía nunca
+        BigDecimal saldo = emitter.siguiente();
+        if (saldo.equals(new BigDecimal("800")))
+            saldo = emitter.siguiente();
+        assertEquals(new BigDecimal("850"), saldo);
+        assertNull(emitter.saldos.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testSaldoInicialMasNuevoQueElEvento() throws InterruptedException {
+        broker = new SaldoStreamBroker(1, 60000, 5000);
+        EmitterDePrueba emitter = new EmitterDePrueba(null);
+        broker.suscribir(1L, new BigDecimal("700"), 5, emitter);
+        assertEquals(new BigDecimal("700"), emitter.siguiente());
+
+        // Evento de una transacción confirmada antes de leer el saldo inicial
+        broker.alConfirmarTransferencia(new SaldoActualizadoEvent(1L, new BigDecimal("750"), 4));
+
+        assertNull(emitter.saldos.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testClienteLentoNoBloqueaAlResto() throws InterruptedException {
+        broker = new SaldoStreamBroker(1, 60000, 100);
+        CountDownLatch desbloquear = new CountDownLatch(1);
+        EmitterDePrueba lento = new EmitterDePrueba(desbloquear);
+        EmitterDePrueba normal = new EmitterDePrueba(null);
+        try {
+            // El único hilo del pool se queda bloqueado enviando al cliente lento
+            broker.suscribir(1L, new BigDecimal("1000"), 1, lento);
+            broker.suscribir(2L, new BigDecimal("2000"), 1, normal);
+
+            assertEquals(new BigDecimal("2000"), normal.siguiente());
+            broker.alConfirmarTransferencia(new SaldoActualizadoEvent(2L, new BigDecimal("1990"), 2));
+            assertEquals(new BigDecimal("1990"), normal.siguiente());
+            assertEquals(1, broker.getSuscriptores());
+            assertFalse(lento.completado.await(0, TimeUnit.MILLISECONDS));
+        }
+        finally {
+            desbloquear.countDown();
+        }
+        // Al terminar el envío bloqueado se cierra su conexión
+        assertTrue(lento.completado.await(5, TimeUnit.SECONDS));
+    }
+
+    // Guarda los saldos enviados; si "bloqueo" no es null, cada envío espera a que se abra
+    private static class EmitterDePrueba extends SseEmitter {
+        private final BlockingQueue<BigDecimal> saldos = new LinkedBlockingQueue<>();
+        private final CountDownLatch completado = new CountDownLatch(1);
+        private final CountDownLatch bloqueo;
+
+        EmitterDePrueba(CountDownLatch bloqueo) {
+            this.bloqueo = bloqueo;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (bloqueo != null)
+                try {
+                    bloqueo.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            for (ResponseBodyEmitter.DataWithMediaType dato : builder.build())
+                if (dato.getData() instanceof Map && !MediaType.TEXT_PLAIN.equals(dato.getMediaType()))
+                    saldos.add((BigDecimal) ((Map<?, ?>) dato.getData()).get("saldo"));
+        }
+
+        @Override
+        public void complete() {
+            completado.countDown();
+        }
+
+        BigDecimal siguiente() throws InterruptedException {
+            BigDecimal saldo = saldos.poll(5, TimeUnit.SECONDS);
+            assertNotNull(saldo, "No ha llegado ningún saldo");
+            return saldo;
+        }
+    }
+}
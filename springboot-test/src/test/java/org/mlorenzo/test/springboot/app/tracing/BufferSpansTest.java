@@ -0,0 +1,41 @@
+package org.mlorenzo.test.springboot.app.tracing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BufferSpansTest {
+
+    @Test
+    void testDrenarDaLaVueltaAlBuffer() {
+        BufferSpans buffer = new BufferSpans(Thread.currentThread(), 4);
+        List<Long> spans = new ArrayList<>();
+        for (long i = 1; i <= 10; i++) {
+            buffer.anadir("span", "service", 1L, i, 0L, i, 1L);
+            if (i % 3 == 0)
+                buffer.drenar((hilo, nombreHilo, nombre, categoria, traza, span, padre, inicio, duracion) ->
+                        spans.add(span));
+        }
+        buffer.drenar((hilo, nombreHilo, nombre, categoria, traza, span, padre, inicio, duracion) -> spans.add(span));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), spans);
+        assertEquals(0, buffer.getDescartados());
+    }
+
+    @Test
+    void testDescartaLosSpansNuevosSiElBufferEstaLleno() {
+        BufferSpans buffer = new BufferSpans(Thread.currentThread(), 4);
+        for (long i = 1; i <= 6; i++)
+            buffer.anadir("span", "service", 1L, i, 0L, i, 1L);
+        List<Long> spans = new ArrayList<>();
+        int drenados = buffer.drenar((hilo, nombreHilo, nombre, categoria, traza, span, padre, inicio, duracion) ->
+                spans.add(span));
+
+        assertEquals(4, drenados);
+        assertEquals(List.of(1L, 2L, 3L, 4L), spans);
+        assertEquals(2, buffer.getDescartados());
+    }
+}
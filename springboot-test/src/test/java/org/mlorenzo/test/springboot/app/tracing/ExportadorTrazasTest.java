@@ -0,0 +1,59 @@
+package org.mlorenzo.test.springboot.app.tracing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportadorTrazasTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void testQuitaLosBuffersDeLosHilosTerminadosTrasExportarlos() throws Exception {
+        Trazas trazas = new Trazas(4);
+        ExportadorTrazas exportador = new ExportadorTrazas(trazas, directorio.resolve("trazas.json").toString(),
+                1 << 20);
+        Thread hilo = new Thread(() -> trazas.bufferHiloActual().anadir("span", "service", 1L, 2L, 0L, 0L, 1L),
+                "terminado");
+        hilo.start();
+        hilo.join();
+        trazas.bufferHiloActual().anadir("span", "service", 3L, 4L, 0L, 0L, 1L);
+        assertEquals(2, trazas.getBuffers().size());
+
+        exportador.exportar();
+        exportador.cerrar();
+
+        // El buffer del hilo terminado se ha vaciado por última vez y ya no está en el registro
+        assertEquals(1, trazas.getBuffers().size());
+        String contenido = new String(Files.readAllBytes(directorio.resolve("trazas.json")), StandardCharsets.UTF_8);
+        assertTrue(contenido.contains("\"thread\":\"terminado\""));
+        assertTrue(contenido.contains("\"spanId\":\"4\""));
+    }
+
+    @Test
+    void testRotaElFicheroAlSuperarElTamanoMaximo() throws Exception {
+        Trazas trazas = new Trazas(16);
+        Path fichero = directorio.resolve("trazas.json");
+        ExportadorTrazas exportador = new ExportadorTrazas(trazas, fichero.toString(), 100);
+        for (long i = 1; i <= 3; i++) {
+            trazas.bufferHiloActual().anadir("span", "service", 1L, i, 0L, 0L, 1L);
+            exportador.exportar();
+        }
+        exportador.cerrar();
+
+        // Cada span supera los 100 bytes: el último queda en el fichero nuevo y el anterior en "<fichero>.1"
+        String actual = new String(Files.readAllBytes(fichero), StandardCharsets.UTF_8);
+        String anterior = new String(Files.readAllBytes(directorio.resolve("trazas.json.1")),
+                StandardCharsets.UTF_8);
+        assertEquals("[\n", actual);
+        assertTrue(anterior.startsWith("[\n"));
+        assertTrue(anterior.contains("\"spanId\":\"3\""));
+        assertFalse(anterior.contains("\"spanId\":\"2\""));
+    }
+}
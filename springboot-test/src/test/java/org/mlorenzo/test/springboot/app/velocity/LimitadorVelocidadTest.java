@@ -0,0 +1,55 @@
+package org.mlorenzo.test.springboot.app.velocity;
+
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.exceptions.LimiteVelocidadExcedidoException;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimitadorVelocidadTest {
+    private final AtomicLong reloj = new AtomicLong(TimeUnit.DAYS.toMillis(1000));
+    // 3 transferencias o 100 por minuto y 5 transferencias o 1000 por día
+    private final LimitadorVelocidad limitador = new LimitadorVelocidad(3, new BigDecimal("100"), 5,
+            new BigDecimal("1000"), reloj::get);
+
+    @Test
+    void testLimiteDeTransferenciasPorMinuto() {
+        for (int i = 0; i < 3; i++)
+            limitador.reservar(1L, BigDecimal.ONE);
+        assertThrows(LimiteVelocidadExcedidoException.class, () -> limitador.reservar(1L, BigDecimal.ONE));
+        // Las otras cuentas tienen sus propios contadores
+        limitador.reservar(2L, BigDecimal.ONE);
+
+        // Pasado un minuto la ventana vuelve a estar libre
+        reloj.addAndGet(TimeUnit.MINUTES.toMillis(1) + TimeUnit.SECONDS.toMillis(5));
+        limitador.reservar(1L, BigDecimal.ONE);
+    }
+
+    @Test
+    void testLimiteDeImporteYDevolucion() {
+        long reservado = limitador.reservar(1L, new BigDecimal("99.99"));
+        assertThrows(LimiteVelocidadExcedidoException.class, () -> limitador.reservar(1L, new BigDecimal("0.02")));
+        // Una transferencia que no se llega a hacer no cuenta
+        limitador.devolver(1L, new BigDecimal("99.99"), reservado);
+        limitador.reservar(1L, new BigDecimal("100"));
+    }
+
+    @Test
+    void testLimitePorDiaYPurga() {
+        for (int i = 0; i < 5; i++) {
+            limitador.reservar(1L, BigDecimal.ONE);
+            reloj.addAndGet(TimeUnit.MINUTES.toMillis(2));
+        }
+        assertThrows(LimiteVelocidadExcedidoException.class, () -> limitador.reservar(1L, BigDecimal.ONE));
+
+        limitador.purgar();
+        assertEquals(1, limitador.getCuentasActivas());
+        reloj.addAndGet(TimeUnit.DAYS.toMillis(1) + TimeUnit.HOURS.toMillis(1));
+        limitador.purgar();
+        assertEquals(0, limitador.getCuentasActivas());
+        limitador.reservar(1L, BigDecimal.ONE);
+    }
+}
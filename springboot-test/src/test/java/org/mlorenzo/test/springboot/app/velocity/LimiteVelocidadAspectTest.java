@@ -0,0 +1,38 @@
+package org.mlorenzo.test.springboot.app.velocity;
+
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.exceptions.LimiteVelocidadExcedidoException;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"limites.habilitados=true", "limites.minuto.transferencias=2"})
+class LimiteVelocidadAspectTest {
+
+    @Autowired
+    CuentaService service;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void testLasTransferenciasDeshechasNoCuentan() {
+        TransactionTemplate desechable = new TransactionTemplate(transactionManager);
+        // Como en el calentamiento: "transferir" termina bien, pero la transacción externa se deshace
+        for (int i = 0; i < 3; i++)
+            desechable.executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                service.transferir(2L, 1L, 1L, BigDecimal.ONE);
+            });
+
+        service.transferir(2L, 1L, 1L, BigDecimal.ONE);
+        service.transferir(2L, 1L, 1L, BigDecimal.ONE);
+        assertThrows(LimiteVelocidadExcedidoException.class, () -> service.transferir(2L, 1L, 1L, BigDecimal.ONE));
+    }
+}
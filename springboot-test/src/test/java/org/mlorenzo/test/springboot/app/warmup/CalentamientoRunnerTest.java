@@ -0,0 +1,29 @@
+package org.mlorenzo.test.springboot.app.warmup;
+
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.services.CuentaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// El calentamiento se ejecuta al arrancar el contexto; con los límites de velocidad habilitados sus transferencias no
+// deben agotarlos ni impedir el arranque
+@SpringBootTest(properties = {"calentamiento.habilitado=true", "calentamiento.iteraciones-por-ronda=20",
+        "calentamiento.max-rondas=2", "limites.habilitados=true"})
+class CalentamientoRunnerTest {
+
+    @Autowired
+    CuentaService service;
+
+    @Test
+    void testElCalentamientoNoDejaRastro() {
+        assertEquals(0, new BigDecimal("1000").compareTo(service.revisarSalto(1L)));
+        assertEquals(0, new BigDecimal("2000").compareTo(service.revisarSalto(2L)));
+        assertEquals(0, service.revisarTotalTransferencias(1L));
+        // Los límites siguen libres para las transferencias reales
+        service.transferir(1L, 2L, 1L, BigDecimal.ONE);
+    }
+}
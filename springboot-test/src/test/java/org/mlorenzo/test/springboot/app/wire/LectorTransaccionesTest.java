@@ -0,0 +1,75 @@
+package org.mlorenzo.test.springboot.app.wire;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.mlorenzo.test.springboot.app.models.TransaccionDto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LectorTransaccionesTest {
+
+    @Test
+    void testLeeElMismoLoteEnJsonYEnCbor() throws IOException {
+        List<TransaccionDto> lote = new ArrayList<>();
+        for (long i = 1; i <= 3; i++) {
+            TransaccionDto dto = new TransaccionDto();
+            dto.setCuentaOrigenId(i);
+            dto.setCuentaDestinoId(i + 1);
+            dto.setBancoId(1L);
+            dto.setMonto(new BigDecimal("10.25").multiply(BigDecimal.valueOf(i)));
+            lote.add(dto);
+        }
+        lote.get(2).setBancoDestinoId(2L);
+
+        byte[] json = new ObjectMapper().writeValueAsBytes(lote);
+        byte[] cbor = new ObjectMapper(new CBORFactory()).writeValueAsBytes(lote);
+        assertTrue(cbor.length < json.length);
+        for (JsonFactory factory : List.of(new JsonFactory(), new CBORFactory())) {
+            byte[] datos = factory instanceof CBORFactory ? cbor : json;
+            try (LectorTransacciones lector = new LectorTransacciones(factory.createParser(datos))) {
+                for (TransaccionDto esperada : lote) {
+                    TransaccionDto leida = lector.siguiente();
+                    assertEquals(esperada.getCuentaOrigenId(), leida.getCuentaOrigenId());
+                    assertEquals(esperada.getCuentaDestinoId(), leida.getCuentaDestinoId());
+                    assertEquals(esperada.getBancoId(), leida.getBancoId());
+                    assertEquals(esperada.getBancoDestinoId(), leida.getBancoDestinoId());
+                    assertEquals(0, esperada.getMonto().compareTo(leida.getMonto()));
+                }
+                assertNull(lector.siguiente());
+            }
+        }
+    }
+
+    @Test
+    void testIgnoraCamposDesconocidosYAdmiteMontoComoTexto() throws IOException {
+        String json = "[{\"cuentaOrigenId\":1,\"extra\":{\"a\":[1,2]},\"monto\":\"5.50\",\"cuentaDestinoId\":2," +
+                "\"bancoId\":1,\"bancoDestinoId\":null}]";
+        try (LectorTransacciones lector = new LectorTransacciones(new JsonFactory().createParser(json))) {
+            TransaccionDto dto = lector.siguiente();
+            assertEquals(2L, dto.getCuentaDestinoId());
+            assertEquals(new BigDecimal("5.50"), dto.getMonto());
+            assertNull(dto.getBancoDestinoId());
+            assertNull(lector.siguiente());
+        }
+        try (LectorTransacciones lector = new LectorTransacciones(new JsonFactory().createParser("{}"))) {
+            assertThrows(IOException.class, lector::siguiente);
+        }
+    }
+
+    @Test
+    void testMontoNoNumericoEsUnLoteMalFormado() throws IOException {
+        String json = "[{\"cuentaOrigenId\":1,\"cuentaDestinoId\":2,\"bancoId\":1,\"monto\":\"diez\"}]";
+        try (LectorTransacciones lector = new LectorTransacciones(new JsonFactory().createParser(json))) {
+            IOException e = assertThrows(IOException.class, lector::siguiente);
+            assertTrue(e.getMessage().contains("diez"));
+            assertTrue(e.getCause() instanceof NumberFormatException);
+        }
+    }
+}
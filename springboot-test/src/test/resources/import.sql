@@ -1,3 +1,3 @@
-INSERT INTO cuentas(persona, saldo) VALUES('Andrés', 1000);
-INSERT INTO cuentas(persona, saldo) VALUES('Marie', 2000);
-INSERT INTO bancos(nombre, total_transferencias) VALUES('El banco financiero', 0);
\ No newline at end of file
+INSERT INTO cuentas(persona, saldo, version, fragmentos, cerrada) VALUES('Andrés', 1000, 0, 0, FALSE);
+INSERT INTO cuentas(persona, saldo, version, fragmentos, cerrada) VALUES('Marie', 2000, 0, 0, FALSE);
+INSERT INTO bancos(nombre, total_transferencias, version) VALUES('El banco financiero', 0, 0);
\ No newline at end of file